@@ -0,0 +1,108 @@
+package com.imagesearch.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.imagesearch.client.dto.EmbedImagesRequest;
+import com.imagesearch.client.dto.SearchServiceRequest;
+import com.imagesearch.client.dto.SearchServiceResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode cost and payload size of the search service wire formats.
+ *
+ * Uses the same snake_case mappers as the WebClient codecs (WireCodec), on the
+ * payloads that dominate the traffic:
+ * - decodeSearchResponse - a top-k search response (topK hits, streamed into primitive arrays)
+ * - encodeSearchRequest  - a search over 20 folders with their owner map
+ * - encodeEmbedRequest   - one embed batch of 32 image paths
+ *
+ * Payload sizes (bytes on the wire) are printed once per trial, before the timings.
+ *
+ * Run: ./gradlew jmh   (results in build/results/jmh/results.txt)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class WireCodecBenchmark {
+
+    @Param({"json", "cbor"})
+    public String codec;
+
+    @Param({"10", "100", "500"})
+    public int topK;
+
+    private ObjectMapper mapper;
+    private SearchServiceRequest searchRequest;
+    private EmbedImagesRequest embedRequest;
+    private byte[] searchResponseBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mapper = "cbor".equals(codec) ? WireCodec.cborMapper() : WireCodec.jsonMapper();
+        Random random = new Random(42);
+
+        List<Long> folderIds = new ArrayList<>();
+        Map<Long, Long> owners = new HashMap<>();
+        for (long folderId = 1000; folderId < 1020; folderId++) {
+            folderIds.add(folderId);
+            owners.put(folderId, 1L + random.nextInt(5));
+        }
+        searchRequest = new SearchServiceRequest(1L, "sunset over the ocean", folderIds, owners, topK);
+
+        List<SearchServiceResponse.SearchResult> results = new ArrayList<>();
+        for (int i = 0; i < topK; i++) {
+            results.add(new SearchServiceResponse.SearchResult(
+                    100_000L + random.nextInt(1_000_000), random.nextDouble(), folderIds.get(random.nextInt(20))));
+        }
+        searchResponseBytes = mapper.writeValueAsBytes(new SearchServiceResponse(results, topK));
+
+        List<EmbedImagesRequest.ImageInfo> images = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            long imageId = 500_000L + i;
+            images.add(new EmbedImagesRequest.ImageInfo(imageId, "images/1/1000/" + imageId + "_holiday_photo.jpg"));
+        }
+        embedRequest = new EmbedImagesRequest(1L, 1000L, images);
+
+        System.out.printf("%n[%s, topK=%d] search response: %d B, search request: %d B, embed request: %d B%n",
+                          codec, topK, searchResponseBytes.length,
+                          mapper.writeValueAsBytes(searchRequest).length, mapper.writeValueAsBytes(embedRequest).length);
+    }
+
+    @Benchmark
+    public SearchServiceResponse decodeSearchResponse() throws IOException {
+        return mapper.readValue(searchResponseBytes, SearchServiceResponse.class);
+    }
+
+    @Benchmark
+    public byte[] encodeSearchRequest() throws IOException {
+        return mapper.writeValueAsBytes(searchRequest);
+    }
+
+    @Benchmark
+    public byte[] encodeEmbedRequest() throws IOException {
+        return mapper.writeValueAsBytes(embedRequest);
+    }
+}
@@ -0,0 +1,113 @@
+package com.imagesearch.vector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-core scan throughput of the dot-product kernels over 512-d CLIP-sized rows.
+ *
+ * Each invocation scores one query against every row of an off-heap little-endian
+ * matrix (the same layout as a mapped VectorSegment) and keeps the best score.
+ * scanInt8 does the same over int8 codes (the QuantizedCodes candidate pass).
+ * Vectors/sec per core = rows / (ms per op) * 1000.
+ *
+ * Kernels:
+ * - scalar   - one accumulator (serial add chain, not vectorized by C2)
+ * - unrolled - 8 accumulators; what the JIT's auto-vectorization/ILP can get from plain Java
+ * - panama   - jdk.incubator.vector with the CPU's preferred species
+ *
+ * Run: ./gradlew jmh   (results in build/results/jmh/results.txt)
+ * The 1M-row case maps ~2GB off-heap; see the jmh block in build.gradle for JVM flags.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class DotProductBenchmark {
+
+    private static final int DIMENSION = 512;
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"scalar", "unrolled", "panama"})
+    public String kernelName;
+
+    private DotProductKernel kernel;
+    private ByteBuffer matrix;
+    private ByteBuffer codes;
+    private float[] query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        kernel = switch (kernelName) {
+            case "scalar" -> new ScalarDotProductKernel();
+            case "unrolled" -> new UnrolledDotProductKernel();
+            default -> {
+                DotProductKernel panama = VectorMath.loadPanamaKernel();
+                if (panama == null) {
+                    throw new IllegalStateException("Vector API unavailable - run with --add-modules jdk.incubator.vector");
+                }
+                yield panama;
+            }
+        };
+
+        Random random = new Random(42);
+        matrix = ByteBuffer.allocateDirect(rows * DIMENSION * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < rows * DIMENSION; i++) {
+            matrix.putFloat(i * Float.BYTES, random.nextFloat() - 0.5f);
+        }
+        codes = ByteBuffer.allocateDirect(rows * DIMENSION);
+        for (int i = 0; i < rows * DIMENSION; i++) {
+            codes.put(i, (byte) (random.nextInt(256) - 128));
+        }
+        query = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            query[i] = random.nextFloat() - 0.5f;
+        }
+        VectorMath.normalize(query);
+    }
+
+    @Benchmark
+    public float scan() {
+        float best = Float.NEGATIVE_INFINITY;
+        for (int row = 0, offset = 0; row < rows; row++, offset += DIMENSION) {
+            float score = kernel.dot(matrix, offset, query);
+            if (score > best) {
+                best = score;
+            }
+        }
+        return best;
+    }
+
+    @Benchmark
+    public float scanInt8() {
+        float best = Float.NEGATIVE_INFINITY;
+        for (int row = 0, offset = 0; row < rows; row++, offset += DIMENSION) {
+            float score = kernel.dotInt8(codes, offset, query);
+            if (score > best) {
+                best = score;
+            }
+        }
+        return best;
+    }
+}
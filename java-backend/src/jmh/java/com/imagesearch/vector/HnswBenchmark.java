@@ -0,0 +1,170 @@
+package com.imagesearch.vector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recall@10 vs latency of HNSW search against the exact scan, on 512-d vectors.
+ *
+ * Data is synthetic but clustered (Gaussian blobs around 200 centroids), which is
+ * closer to CLIP embeddings than uniform noise - uniform data is a worst case for
+ * graph indexes.
+ *
+ * Per trial the setup prints a line like
+ *   HNSW rows=200000 efSearch=64 recall@10=0.987
+ * and JMH reports the query latency, so the two can be read side by side.
+ * exactScan is the brute-force baseline for the same rows.
+ *
+ * Building a 200k graph takes minutes, so graphs are cached under
+ * build/jmh-data/ and reused across efSearch values and reruns.
+ *
+ * Run: ./gradlew jmh (add includes = ['HnswBenchmark'] to the jmh block to run only this one)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class HnswBenchmark {
+
+    private static final int DIMENSION = 512;
+    private static final int CENTROIDS = 200;
+    private static final int QUERIES = 256;
+    private static final int RECALL_QUERIES = 100;
+    private static final int K = 10;
+
+    @Param({"50000", "200000"})
+    public int rows;
+
+    @Param({"16", "32", "64", "128", "256"})
+    public int efSearch;
+
+    private ByteBuffer vectors;
+    private float[][] queries;
+    private HnswGraph graph;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        float[][] centroids = new float[CENTROIDS][DIMENSION];
+        for (float[] centroid : centroids) {
+            for (int d = 0; d < DIMENSION; d++) {
+                centroid[d] = (float) random.nextGaussian();
+            }
+        }
+
+        vectors = ByteBuffer.allocateDirect(rows * DIMENSION * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int row = 0; row < rows; row++) {
+            float[] v = sample(centroids[random.nextInt(CENTROIDS)], random);
+            for (int d = 0; d < DIMENSION; d++) {
+                vectors.putFloat((row * DIMENSION + d) * Float.BYTES, v[d]);
+            }
+        }
+        queries = new float[QUERIES][];
+        for (int q = 0; q < QUERIES; q++) {
+            queries[q] = sample(centroids[random.nextInt(CENTROIDS)], random);
+        }
+
+        HnswParams params = new HnswParams(1, 16, 100, efSearch);
+        Path cached = Paths.get("build", "jmh-data", "hnsw-" + rows + "x" + DIMENSION + "-m16-ef100.hnsw");
+        try {
+            graph = HnswGraph.read(cached, vectors, DIMENSION, rows);
+        } catch (IOException e) {
+            graph = HnswGraph.build(vectors, DIMENSION, rows, params, null);
+            Files.createDirectories(cached.getParent());
+            graph.write(cached);
+        }
+
+        System.out.printf("%nHNSW rows=%d efSearch=%d recall@%d=%.3f%n", rows, efSearch, K, recall());
+    }
+
+    @Benchmark
+    public int hnswSearch() {
+        HnswGraph.NodeQueue results = HnswGraph.resultsForCurrentThread();
+        graph.search(nextQuery(), Math.max(efSearch, K), results);
+        return results.size();
+    }
+
+    @Benchmark
+    public float exactScan() {
+        float[] query = nextQuery();
+        TopKCollector collector = TopKCollector.forCurrentThread();
+        collector.reset(K);
+        for (int row = 0; row < rows; row++) {
+            float score = VectorMath.dot(vectors, row * DIMENSION, query);
+            if (score > collector.threshold()) {
+                collector.offer(score, row, 0L);
+            }
+        }
+        return collector.threshold();
+    }
+
+    private float[] nextQuery() {
+        float[] query = queries[next];
+        next = (next + 1) % QUERIES;
+        return query;
+    }
+
+    private double recall() {
+        int found = 0;
+        for (int q = 0; q < RECALL_QUERIES; q++) {
+            TopKCollector exact = new TopKCollector(K);
+            exact.reset(K);
+            for (int row = 0; row < rows; row++) {
+                exact.offer(VectorMath.dot(vectors, row * DIMENSION, queries[q]), row, 0L);
+            }
+            Set<Long> expected = new HashSet<>();
+            for (int i = 0; i < exact.size(); i++) {
+                expected.add(exact.id(i));
+            }
+
+            HnswGraph.NodeQueue results = HnswGraph.resultsForCurrentThread();
+            graph.search(queries[q], Math.max(efSearch, K), results);
+            Integer[] order = new Integer[results.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Float.compare(results.score(b), results.score(a)));
+            for (int i = 0; i < Math.min(K, order.length); i++) {
+                if (expected.contains((long) results.node(order[i]))) {
+                    found++;
+                }
+            }
+        }
+        return found / (double) (RECALL_QUERIES * K);
+    }
+
+    private static float[] sample(float[] centroid, Random random) {
+        float[] v = new float[DIMENSION];
+        for (int d = 0; d < DIMENSION; d++) {
+            v[d] = centroid[d] + (float) random.nextGaussian() * 0.7f;
+        }
+        return VectorMath.normalize(v);
+    }
+}
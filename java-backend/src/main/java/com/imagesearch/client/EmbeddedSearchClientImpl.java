@@ -0,0 +1,190 @@
+package com.imagesearch.client;
+
+import com.imagesearch.client.dto.BatchSearchServiceRequest;
+import com.imagesearch.client.dto.BatchSearchServiceResponse;
+import com.imagesearch.client.dto.EmbedImagesRequest;
+import com.imagesearch.client.dto.SearchServiceRequest;
+import com.imagesearch.client.dto.SearchServiceResponse;
+import com.imagesearch.exception.SearchDeadlineExceededException;
+import com.imagesearch.service.FailedRequestService;
+import com.imagesearch.vector.TopKCollector;
+import com.imagesearch.vector.VectorStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Embedded search implementation - vectors are stored and scored inside the backend JVM.
+ *
+ * Compared to the Python (FAISS) and Java (Elasticsearch) backends, a search no longer
+ * sends folder lists over HTTP or parses result JSON:
+ * 1. Encode the query text (EmbeddingEncoder - one small call, or in-process)
+ * 2. Exact inner-product top-k over the folders' off-heap matrices (VectorStore)
+ * 3. Return results - scratch heaps are per-thread, so scoring allocates nothing per row
+ *
+ * Vectors persist as memory-mapped segments under data/vector-indexes/ (see FolderVectorIndex),
+ * so a restart reopens them instead of re-embedding.
+ *
+ * Conditional Loading:
+ * - Active when search.backend.type=embedded
+ */
+@Component
+@ConditionalOnProperty(name = "search.backend.type", havingValue = "embedded")
+public class EmbeddedSearchClientImpl implements SearchClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedSearchClientImpl.class);
+
+    private final VectorStore vectorStore;
+    private final EmbeddingEncoder embeddingEncoder;
+    private final FailedRequestService failedRequestService;
+    private final Executor vectorSearchExecutor;
+
+    public EmbeddedSearchClientImpl(
+            VectorStore vectorStore,
+            EmbeddingEncoder embeddingEncoder,
+            FailedRequestService failedRequestService,
+            @Qualifier("vectorSearchExecutor") Executor vectorSearchExecutor) {
+        this.vectorStore = vectorStore;
+        this.embeddingEncoder = embeddingEncoder;
+        this.failedRequestService = failedRequestService;
+        this.vectorSearchExecutor = vectorSearchExecutor;
+        logger.info("EmbeddedSearchClientImpl initialized (in-process vector backend, dimension={})",
+                    vectorStore.dimension());
+    }
+
+    /**
+     * Encode the query and score it against every requested folder.
+     *
+     * Encoder failures surface as SearchServiceUnavailableException (HTTP 503)
+     * via the encoder's circuit breaker fallback.
+     *
+     * @param request Search parameters (query, folders, etc.)
+     * @return Search results with image IDs and similarity scores
+     */
+    @Override
+    public SearchServiceResponse search(SearchServiceRequest request) {
+        float[] query = embeddingEncoder.encodeText(request.getQuery());
+        return score(query, request);
+    }
+
+    /**
+     * Non-blocking variant of search(). The query is encoded asynchronously and
+     * scoring runs on the vector search executor, never on the I/O thread.
+     */
+    @Override
+    public CompletableFuture<SearchServiceResponse> searchAsync(SearchServiceRequest request) {
+        return embeddingEncoder.encodeTextAsync(request.getQuery())
+                .thenApplyAsync(query -> score(query, request), vectorSearchExecutor);
+    }
+
+    /**
+     * Batch search - queries are encoded and scored one at a time. Callers still
+     * save the per-query auth, ACL resolution and enrichment round trips.
+     */
+    @Override
+    public BatchSearchServiceResponse batchSearch(BatchSearchServiceRequest request) {
+        List<SearchServiceResponse> results = new ArrayList<>();
+        for (String query : request.getQueries()) {
+            results.add(search(new SearchServiceRequest(
+                request.getUserId(),
+                query,
+                request.getFolderIds(),
+                request.getFolderOwnerMap(),
+                request.getTopK(),
+                request.getDeadline()
+            )));
+        }
+        return new BatchSearchServiceResponse(results);
+    }
+
+    /**
+     * Encode images and append them to the folder's index (tail log, fsynced).
+     *
+     * Runs synchronously on the caller's (background embedding) thread, so cached
+     * search results invalidated afterwards really do see the new vectors.
+     * Failures are queued for retry, same as the Python backend.
+     *
+     * @param request Image information for embedding
+     */
+    @Override
+    public void embedImages(EmbedImagesRequest request) {
+        List<EmbedImagesRequest.ImageInfo> images = request.getImages();
+        try {
+            List<float[]> embeddings = embeddingEncoder.encodeImages(images);
+
+            long[] ids = new long[images.size()];
+            float[][] vectors = new float[images.size()][];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = images.get(i).getImageId();
+                vectors[i] = embeddings.get(i);
+            }
+            vectorStore.add(request.getFolderId(), ids, vectors);
+
+            logger.info("Embedded {} images into folder {} (folder size: {})",
+                        ids.length, request.getFolderId(), vectorStore.size(request.getFolderId()));
+        } catch (Exception e) {
+            logger.warn("Failed to embed {} images for folder {} - queuing for retry: {}",
+                       images.size(), request.getFolderId(), e.getMessage());
+            failedRequestService.recordFailedEmbed(
+                request.getUserId(),
+                request.getFolderId(),
+                images,
+                e.getMessage()
+            );
+        }
+    }
+
+    @Override
+    public void createIndex(Long userId, Long folderId) {
+        vectorStore.createFolder(folderId);
+        logger.info("Created embedded index for user {} folder {}", userId, folderId);
+    }
+
+    @Override
+    public void deleteIndex(Long userId, Long folderId) {
+        vectorStore.deleteFolder(folderId);
+    }
+
+    @Override
+    public void deleteImages(Long userId, Long folderId, List<Long> imageIds) {
+        int masked = vectorStore.delete(folderId, imageIds);
+        if (masked > 0) {
+            logger.info("Deleted {} stale vectors from folder {}", masked, folderId);
+        }
+    }
+
+    /**
+     * Exact top-k over the requested folders using this thread's scratch heap.
+     * Skipped if the request's deadline ran out while the query was being encoded.
+     */
+    private SearchServiceResponse score(float[] query, SearchServiceRequest request) {
+        SearchDeadline deadline = request.getDeadline();
+        if (deadline != null && deadline.isExpired()) {
+            throw new SearchDeadlineExceededException("Search deadline exceeded before scoring");
+        }
+
+        TopKCollector collector = TopKCollector.forCurrentThread();
+        vectorStore.search(query, request.getFolderIds(), request.getTopK(), collector);
+
+        // Copy out before this thread's collector is reused
+        int size = collector.size();
+        long[] imageIds = new long[size];
+        double[] scores = new double[size];
+        long[] folderIds = new long[size];
+        for (int i = 0; i < size; i++) {
+            imageIds[i] = collector.id(i);
+            scores[i] = collector.score(i);
+            folderIds[i] = collector.folderId(i);
+        }
+
+        logger.info("Embedded search returned {} results for query='{}'", size, request.getQuery());
+        return new SearchServiceResponse(imageIds, scores, folderIds, size, size);
+    }
+}
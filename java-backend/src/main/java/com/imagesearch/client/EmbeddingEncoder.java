@@ -0,0 +1,40 @@
+package com.imagesearch.client;
+
+import com.imagesearch.client.dto.EmbedImagesRequest;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Turns text queries and image files into embedding vectors.
+ *
+ * Used by the embedded search backend, which stores and scores vectors itself
+ * and only needs a model to produce them. Implementations can call a remote
+ * model server (see PythonEmbeddingEncoder) or run a model in-process.
+ */
+public interface EmbeddingEncoder {
+
+    /**
+     * Encode a text query.
+     *
+     * @param text Query text
+     * @return Embedding (not necessarily normalized)
+     */
+    float[] encodeText(String text);
+
+    /**
+     * Non-blocking variant of {@link #encodeText}.
+     *
+     * @param text Query text
+     * @return Future of the embedding
+     */
+    CompletableFuture<float[]> encodeTextAsync(String text);
+
+    /**
+     * Encode image files.
+     *
+     * @param images Images to encode (file paths relative to the project root)
+     * @return One embedding per image, in the same order
+     */
+    List<float[]> encodeImages(List<EmbedImagesRequest.ImageInfo> images);
+}
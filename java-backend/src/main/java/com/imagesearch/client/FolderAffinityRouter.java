@@ -0,0 +1,188 @@
+package com.imagesearch.client;
+
+import com.imagesearch.client.dto.BatchSearchServiceRequest;
+import com.imagesearch.client.dto.SearchServiceRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consistent-hash routing of folders to search service nodes.
+ *
+ * Each node keeps an LRU of loaded FAISS indexes. Routing every call for a folder
+ * to the same node means each node only loads its own share of folders, instead
+ * of every node cold-loading every folder under round-robin.
+ *
+ * Key design:
+ * - Ring of virtual nodes: each node owns virtual-nodes points, so folders spread
+ *   evenly and adding/removing a node only moves ~1/N of the folders
+ * - Key = (owner ID, folder ID), the same pair the index path is built from
+ * - A folder's successor (next distinct node clockwise) is its hedge target - the
+ *   node that would take the folder over if its owner node went away. Until it
+ *   does, it has no index for the folder, so callers must not let an empty or
+ *   partial hedge answer win (see SearchHedger's hedgeAccepted)
+ * - Multi-folder requests are split into one request per node; the caller merges
+ *   the per-node top-k lists (TopKMerger)
+ *
+ * Immutable and thread-safe.
+ */
+public final class FolderAffinityRouter {
+
+    private final int nodes;
+    // Ring points sorted by hash; owners[i] is the node owning points[i]
+    private final long[] points;
+    private final int[] owners;
+
+    /**
+     * @param nodeNames Stable node identities (e.g. base URLs); their order defines node indexes
+     * @param virtualNodes Ring points per node
+     */
+    public FolderAffinityRouter(List<String> nodeNames, int virtualNodes) {
+        if (nodeNames.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("At least one node and one virtual node are required");
+        }
+        this.nodes = nodeNames.size();
+
+        int total = nodes * virtualNodes;
+        long[][] ring = new long[total][];
+        for (int node = 0; node < nodes; node++) {
+            long nameHash = hash(nodeNames.get(node));
+            for (int v = 0; v < virtualNodes; v++) {
+                ring[node * virtualNodes + v] = new long[] {mix(nameHash + v * 0x9E3779B97F4A7C15L), node};
+            }
+        }
+        Arrays.sort(ring, (a, b) -> Long.compare(a[0], b[0]));
+
+        this.points = new long[total];
+        this.owners = new int[total];
+        for (int i = 0; i < total; i++) {
+            points[i] = ring[i][0];
+            owners[i] = (int) ring[i][1];
+        }
+    }
+
+    public int size() {
+        return nodes;
+    }
+
+    /**
+     * Node that owns a folder's index.
+     */
+    public int nodeFor(Long ownerId, Long folderId) {
+        return owners[pointFor(ownerId, folderId)];
+    }
+
+    /**
+     * Next distinct node clockwise from the folder's owner node.
+     *
+     * @return Node index, or -1 if there is only one node
+     */
+    public int successorFor(Long ownerId, Long folderId) {
+        int start = pointFor(ownerId, folderId);
+        int owner = owners[start];
+        for (int i = 1; i < points.length; i++) {
+            int candidate = owners[(start + i) % points.length];
+            if (candidate != owner) {
+                return candidate;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Split a search into one request per node (node index -> request).
+     * Folders keep their request order; each part keeps topK and the deadline.
+     */
+    public Map<Integer, SearchServiceRequest> split(SearchServiceRequest request) {
+        Map<Integer, List<Long>> folders = groupByNode(request.getFolderIds(), request.getFolderOwnerMap());
+        Map<Integer, SearchServiceRequest> parts = new LinkedHashMap<>();
+        folders.forEach((node, nodeFolders) -> parts.put(node, new SearchServiceRequest(
+                request.getUserId(),
+                request.getQuery(),
+                nodeFolders,
+                ownersOf(nodeFolders, request.getFolderOwnerMap()),
+                request.getTopK(),
+                request.getDeadline())));
+        return parts;
+    }
+
+    /**
+     * Split a batch search into one request per node (node index -> request).
+     * Each part keeps topK and the deadline.
+     */
+    public Map<Integer, BatchSearchServiceRequest> split(BatchSearchServiceRequest request) {
+        Map<Integer, List<Long>> folders = groupByNode(request.getFolderIds(), request.getFolderOwnerMap());
+        Map<Integer, BatchSearchServiceRequest> parts = new LinkedHashMap<>();
+        folders.forEach((node, nodeFolders) -> parts.put(node, new BatchSearchServiceRequest(
+                request.getUserId(),
+                request.getQueries(),
+                nodeFolders,
+                ownersOf(nodeFolders, request.getFolderOwnerMap()),
+                request.getTopK(),
+                request.getDeadline())));
+        return parts;
+    }
+
+    private Map<Integer, List<Long>> groupByNode(List<Long> folderIds, Map<Long, Long> folderOwnerMap) {
+        Map<Integer, List<Long>> byNode = new LinkedHashMap<>();
+        for (Long folderId : folderIds) {
+            int node = nodeFor(folderOwnerMap != null ? folderOwnerMap.get(folderId) : null, folderId);
+            byNode.computeIfAbsent(node, n -> new ArrayList<>()).add(folderId);
+        }
+        return byNode;
+    }
+
+    private static Map<Long, Long> ownersOf(List<Long> folderIds, Map<Long, Long> folderOwnerMap) {
+        Map<Long, Long> owners = new HashMap<>();
+        if (folderOwnerMap == null) {
+            return owners;
+        }
+        for (Long folderId : folderIds) {
+            Long ownerId = folderOwnerMap.get(folderId);
+            if (ownerId != null) {
+                owners.put(folderId, ownerId);
+            }
+        }
+        return owners;
+    }
+
+    /**
+     * First ring point at or after the key's hash, wrapping around.
+     */
+    private int pointFor(Long ownerId, Long folderId) {
+        long owner = ownerId != null ? ownerId : 0L;
+        long folder = folderId != null ? folderId : 0L;
+        long key = mix(mix(owner) ^ folder);
+        int slot = Arrays.binarySearch(points, key);
+        if (slot < 0) {
+            slot = -slot - 1;
+        }
+        return slot == points.length ? 0 : slot;
+    }
+
+    private static long hash(String name) {
+        long h = 0;
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+            h = 31 * h + b;
+        }
+        return mix(h);
+    }
+
+    /**
+     * murmur3 64-bit finalizer.
+     */
+    private static long mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -1,18 +1,25 @@
 package com.imagesearch.client;
 
+import com.imagesearch.client.dto.BatchSearchServiceRequest;
+import com.imagesearch.client.dto.BatchSearchServiceResponse;
 import com.imagesearch.client.dto.EmbedImagesRequest;
 import com.imagesearch.client.dto.SearchServiceRequest;
 import com.imagesearch.client.dto.SearchServiceResponse;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Java search service implementation using Elasticsearch for vector search.
@@ -34,6 +41,12 @@ import java.util.Collections;
  * - Automatically tests recovery every 60 seconds
  * - Fallback gracefully skips operations (can be retried later)
  *
+ * Priority lanes (same split as PythonSearchClientImpl):
+ * - search lane (search, searchAsync): circuit breaker and bulkhead javaSearchService,
+ *   connection pool java-search-service.pool
+ * - embed lane (embedImages, createIndex, deleteIndex): circuit breaker javaEmbedService,
+ *   pool java-search-service.embed-pool; embedImages is capped by the javaEmbedService bulkhead
+ *
  * Conditional Loading:
  * - Active when search.backend.type=java
  * - Inactive when search.backend.type=python (default)
@@ -45,19 +58,27 @@ public class JavaSearchClientImpl implements SearchClient {
     private static final Logger logger = LoggerFactory.getLogger(JavaSearchClientImpl.class);
 
     private final WebClient webClient;
+    // Embed lane (own connection pool)
+    private final WebClient embedWebClient;
     private final int timeoutSeconds;
     private final boolean enabled;
+    private final WireCodec wireCodec;
 
     @SuppressWarnings("null")
     public JavaSearchClientImpl(
-            WebClient.Builder webClientBuilder,
+            @Qualifier("javaSearchServiceWebClientBuilder") WebClient.Builder webClientBuilder,
+            @Qualifier("javaSearchServiceEmbedWebClientBuilder") WebClient.Builder embedWebClientBuilder,
             @Value("${java-search-service.base-url}") String baseUrl,
             @Value("${java-search-service.timeout-seconds}") int timeoutSeconds,
-            @Value("${java-search-service.enabled:true}") boolean enabled) {
+            @Value("${java-search-service.enabled:true}") boolean enabled,
+            @Value("${java-search-service.codec:json}") String codec) {
         this.webClient = webClientBuilder.baseUrl(baseUrl).build();
+        this.embedWebClient = embedWebClientBuilder.baseUrl(baseUrl).build();
         this.timeoutSeconds = timeoutSeconds;
         this.enabled = enabled;
-        logger.info("JavaSearchClientImpl initialized with base URL: {}, enabled: {} (Elasticsearch backend)", baseUrl, enabled);
+        this.wireCodec = new WireCodec("Java search service", codec);
+        logger.info("JavaSearchClientImpl initialized with base URL: {}, enabled: {}, codec: {} (Elasticsearch backend)",
+                    baseUrl, enabled, codec);
     }
 
     /**
@@ -73,6 +94,7 @@ public class JavaSearchClientImpl implements SearchClient {
      */
     @Override
     @CircuitBreaker(name = "javaSearchService", fallbackMethod = "searchFallback")
+    @Bulkhead(name = "javaSearchService")
     public SearchServiceResponse search(SearchServiceRequest request) {
         if (!enabled) {
             logger.warn("Java search service disabled, returning empty results");
@@ -82,39 +104,108 @@ public class JavaSearchClientImpl implements SearchClient {
         logger.info("Calling Java search service: query='{}', folders={}",
                     request.getQuery(), request.getFolderIds());
 
-        SearchServiceResponse response = webClient.post()
-                .uri("/api/search")
-                .bodyValue(request)
-                .retrieve()
-                .bodyToMono(SearchServiceResponse.class)
-                .timeout(Duration.ofSeconds(timeoutSeconds))
+        SearchServiceResponse response = wireCodec.exchange(searchSpec(request), request, SearchServiceResponse.class)
+                .timeout(SearchDeadline.timeout(request.getDeadline(), Duration.ofSeconds(timeoutSeconds)))
                 .block();
 
         logger.info("Java search service returned {} results",
-                    response != null ? response.getResults().size() : 0);
+                    response != null ? response.size() : 0);
         return response;
     }
 
     /**
      * Fallback method for search() when circuit is OPEN.
+     * The empty results are marked degraded, so they are never cached.
      */
     public SearchServiceResponse searchFallback(SearchServiceRequest request, Exception exception) {
         logger.warn("Java search service unavailable (circuit OPEN), returning empty results. " +
                    "Query: '{}', Folders: {}, Error: {}",
                    request.getQuery(), request.getFolderIds(), exception.getMessage());
-        return createEmptyResponse();
+        return createDegradedResponse();
+    }
+
+    /**
+     * Non-blocking variant of search().
+     *
+     * @param request Search parameters (query, folders, etc.)
+     * @return Future of search results
+     */
+    @Override
+    @CircuitBreaker(name = "javaSearchService", fallbackMethod = "searchAsyncFallback")
+    @Bulkhead(name = "javaSearchService")
+    public CompletableFuture<SearchServiceResponse> searchAsync(SearchServiceRequest request) {
+        if (!enabled) {
+            logger.warn("Java search service disabled, returning empty results");
+            return CompletableFuture.completedFuture(createEmptyResponse());
+        }
+
+        logger.info("Calling Java search service (async): query='{}', folders={}",
+                    request.getQuery(), request.getFolderIds());
+
+        return wireCodec.exchange(searchSpec(request), request, SearchServiceResponse.class)
+                .timeout(SearchDeadline.timeout(request.getDeadline(), Duration.ofSeconds(timeoutSeconds)))
+                .doOnNext(response -> logger.info("Java search service returned {} results",
+                                                  response.size()))
+                .toFuture();
+    }
+
+    private WebClient.RequestBodySpec searchSpec(SearchServiceRequest request) {
+        return webClient.post()
+                .uri("/api/search")
+                .headers(headers -> SearchDeadline.propagate(request.getDeadline(), headers));
+    }
+
+    /**
+     * Fallback for searchAsync() when circuit is OPEN.
+     */
+    public CompletableFuture<SearchServiceResponse> searchAsyncFallback(SearchServiceRequest request, Exception exception) {
+        logger.warn("Java search service unavailable (circuit OPEN), returning empty results. " +
+                   "Query: '{}', Folders: {}, Error: {}",
+                   request.getQuery(), request.getFolderIds(), exception.getMessage());
+        return CompletableFuture.completedFuture(createDegradedResponse());
+    }
+
+    /**
+     * Batch search for the Java search service.
+     *
+     * The Elasticsearch service has no batch endpoint, so queries are sent one by one
+     * (each through search(), with its own circuit breaker handling). Callers still
+     * save the per-query auth, ACL resolution and enrichment round trips.
+     *
+     * @param request Queries plus shared folder scope
+     * @return One response per query, in request order
+     */
+    @Override
+    public BatchSearchServiceResponse batchSearch(BatchSearchServiceRequest request) {
+        List<SearchServiceResponse> results = new ArrayList<>();
+        for (String query : request.getQueries()) {
+            SearchServiceRequest single = new SearchServiceRequest(
+                request.getUserId(),
+                query,
+                request.getFolderIds(),
+                request.getFolderOwnerMap(),
+                request.getTopK()
+            );
+            SearchServiceResponse response = search(single);
+            results.add(response != null ? response : createEmptyResponse());
+        }
+        return new BatchSearchServiceResponse(results);
     }
 
     /**
      * Call Java search service to generate embeddings and add to Elasticsearch index.
      *
+     * Blocks until the batch is indexed (callers run on the embedding executor), so the
+     * embed lane's breaker and bulkhead see every batch.
+     *
      * Circuit Breaker Applied:
      * - Fallback: embedImagesFallback() - logs warning but doesn't fail upload
      *
      * @param request Image information for embedding
      */
     @Override
-    @CircuitBreaker(name = "javaSearchService", fallbackMethod = "embedImagesFallback")
+    @CircuitBreaker(name = "javaEmbedService", fallbackMethod = "embedImagesFallback")
+    @Bulkhead(name = "javaEmbedService")
     public void embedImages(EmbedImagesRequest request) {
         if (!enabled) {
             logger.info("Java search service disabled, skipping embedding for {} images",
@@ -125,18 +216,11 @@ public class JavaSearchClientImpl implements SearchClient {
         logger.info("Calling Java service to embed {} images for folder {}",
                     request.getImages().size(), request.getFolderId());
 
-        webClient.post()
-                .uri("/api/embed-images")
-                .bodyValue(request)
-                .retrieve()
-                .bodyToMono(Void.class)
+        wireCodec.exchange(embedWebClient.post().uri("/api/embed-images"), request, Void.class)
                 .timeout(Duration.ofSeconds(timeoutSeconds))
-                .subscribe(
-                    result -> logger.info("Successfully embedded images for folder {}",
-                                        request.getFolderId()),
-                    error -> logger.error("Failed to embed images for folder {}",
-                                        request.getFolderId(), error)
-                );
+                .block();
+
+        logger.info("Successfully embedded images for folder {}", request.getFolderId());
     }
 
     /**
@@ -159,7 +243,7 @@ public class JavaSearchClientImpl implements SearchClient {
      * @param folderId Folder ID
      */
     @Override
-    @CircuitBreaker(name = "javaSearchService", fallbackMethod = "createIndexFallback")
+    @CircuitBreaker(name = "javaEmbedService", fallbackMethod = "createIndexFallback")
     public void createIndex(Long userId, Long folderId) {
         if (!enabled) {
             logger.info("Java search service disabled, skipping Elasticsearch index creation for user {} folder {}",
@@ -169,7 +253,7 @@ public class JavaSearchClientImpl implements SearchClient {
 
         logger.info("Creating Elasticsearch index for user {} folder {}", userId, folderId);
 
-        webClient.post()
+        embedWebClient.post()
                 .uri("/api/create-index")
                 .bodyValue(new CreateIndexRequest(userId, folderId))
                 .retrieve()
@@ -199,7 +283,7 @@ public class JavaSearchClientImpl implements SearchClient {
      * @param folderId Folder ID
      */
     @Override
-    @CircuitBreaker(name = "javaSearchService", fallbackMethod = "deleteIndexFallback")
+    @CircuitBreaker(name = "javaEmbedService", fallbackMethod = "deleteIndexFallback")
     public void deleteIndex(Long userId, Long folderId) {
         if (!enabled) {
             logger.info("Java search service disabled, skipping Elasticsearch index deletion for user {} folder {}",
@@ -209,7 +293,7 @@ public class JavaSearchClientImpl implements SearchClient {
 
         logger.info("Deleting Elasticsearch index for user {} folder {}", userId, folderId);
 
-        webClient.delete()
+        embedWebClient.delete()
                 .uri("/api/delete-index/{userId}/{folderId}", userId, folderId)
                 .retrieve()
                 .bodyToMono(Void.class)
@@ -245,6 +329,15 @@ public class JavaSearchClientImpl implements SearchClient {
         return response;
     }
 
+    /**
+     * Empty response standing in for results the service could not deliver (not cacheable).
+     */
+    private SearchServiceResponse createDegradedResponse() {
+        SearchServiceResponse response = createEmptyResponse();
+        response.setDegraded(true);
+        return response;
+    }
+
     // Helper DTO for create index request
     private record CreateIndexRequest(Long userId, Long folderId) {}
 }
@@ -0,0 +1,141 @@
+package com.imagesearch.client;
+
+import com.imagesearch.client.dto.EmbedImagesRequest;
+import com.imagesearch.client.dto.EncodeImagesRequest;
+import com.imagesearch.client.dto.EncodeResponse;
+import com.imagesearch.client.dto.EncodeTextRequest;
+import com.imagesearch.exception.SearchServiceUnavailableException;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Embedding encoder backed by the Python search service's CLIP model.
+ *
+ * Only the encode endpoints are used (/api/encode-text, /api/encode-images) -
+ * vectors are stored and searched inside the Java backend, not in FAISS.
+ *
+ * Query encoding runs on the search lane (pythonSearchService breaker and bulkhead,
+ * search-service.pool), image encoding on the embed lane (pythonEmbedService,
+ * search-service.embed-pool) - see PythonSearchClientImpl.
+ *
+ * Conditional Loading:
+ * - Active when search.backend.type=embedded
+ */
+@Component
+@ConditionalOnProperty(name = "search.backend.type", havingValue = "embedded")
+public class PythonEmbeddingEncoder implements EmbeddingEncoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(PythonEmbeddingEncoder.class);
+
+    // A 32-image batch of 512-d float embeddings is ~200KB of JSON - above the 256KB default with headroom
+    private static final int MAX_RESPONSE_BYTES = 16 * 1024 * 1024;
+
+    private final WebClient webClient;
+    private final WebClient embedWebClient;
+    private final int timeoutSeconds;
+
+    @SuppressWarnings("null")
+    public PythonEmbeddingEncoder(
+            @Qualifier("searchServiceWebClientBuilder") WebClient.Builder webClientBuilder,
+            @Qualifier("searchServiceEmbedWebClientBuilder") WebClient.Builder embedWebClientBuilder,
+            @Value("${search-service.base-url}") String baseUrl,
+            @Value("${search-service.timeout-seconds}") int timeoutSeconds) {
+        this.webClient = webClientBuilder.clone()
+                .baseUrl(baseUrl)
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(MAX_RESPONSE_BYTES))
+                .build();
+        this.embedWebClient = embedWebClientBuilder.clone()
+                .baseUrl(baseUrl)
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(MAX_RESPONSE_BYTES))
+                .build();
+        this.timeoutSeconds = timeoutSeconds;
+        logger.info("PythonEmbeddingEncoder initialized with base URL: {}", baseUrl);
+    }
+
+    @Override
+    @CircuitBreaker(name = "pythonSearchService", fallbackMethod = "encodeTextFallback")
+    @Bulkhead(name = "pythonSearchService")
+    public float[] encodeText(String text) {
+        EncodeResponse response = webClient.post()
+                .uri("/api/encode-text")
+                .bodyValue(new EncodeTextRequest(List.of(text)))
+                .retrieve()
+                .bodyToMono(EncodeResponse.class)
+                .timeout(Duration.ofSeconds(timeoutSeconds))
+                .block();
+        return firstEmbedding(response);
+    }
+
+    @Override
+    @CircuitBreaker(name = "pythonSearchService", fallbackMethod = "encodeTextAsyncFallback")
+    @Bulkhead(name = "pythonSearchService")
+    public CompletableFuture<float[]> encodeTextAsync(String text) {
+        return webClient.post()
+                .uri("/api/encode-text")
+                .bodyValue(new EncodeTextRequest(List.of(text)))
+                .retrieve()
+                .bodyToMono(EncodeResponse.class)
+                .timeout(Duration.ofSeconds(timeoutSeconds))
+                .map(PythonEmbeddingEncoder::firstEmbedding)
+                .toFuture();
+    }
+
+    @Override
+    @CircuitBreaker(name = "pythonEmbedService")
+    @Bulkhead(name = "pythonEmbedService")
+    public List<float[]> encodeImages(List<EmbedImagesRequest.ImageInfo> images) {
+        logger.info("Encoding {} images via Python service", images.size());
+
+        EncodeResponse response = embedWebClient.post()
+                .uri("/api/encode-images")
+                .bodyValue(new EncodeImagesRequest(images))
+                .retrieve()
+                .bodyToMono(EncodeResponse.class)
+                .timeout(Duration.ofSeconds(timeoutSeconds))
+                .block();
+
+        if (response == null || response.getEmbeddings() == null
+                || response.getEmbeddings().size() != images.size()) {
+            throw new IllegalStateException("Encoder returned "
+                    + (response == null || response.getEmbeddings() == null ? 0 : response.getEmbeddings().size())
+                    + " embeddings for " + images.size() + " images");
+        }
+        return response.getEmbeddings();
+    }
+
+    /**
+     * Fallback for encodeText() when circuit is OPEN - searches cannot run without a query vector.
+     */
+    public float[] encodeTextFallback(String text, Exception exception) {
+        logger.warn("Embedding encoder unavailable (circuit OPEN). Query: '{}', Error: {}",
+                   text, exception.getMessage());
+        throw new SearchServiceUnavailableException(text, 0, exception);
+    }
+
+    /**
+     * Fallback for encodeTextAsync() when circuit is OPEN.
+     */
+    public CompletableFuture<float[]> encodeTextAsyncFallback(String text, Exception exception) {
+        logger.warn("Embedding encoder unavailable (circuit OPEN). Query: '{}', Error: {}",
+                   text, exception.getMessage());
+        return CompletableFuture.failedFuture(new SearchServiceUnavailableException(text, 0, exception));
+    }
+
+    private static float[] firstEmbedding(EncodeResponse response) {
+        if (response == null || response.getEmbeddings() == null || response.getEmbeddings().isEmpty()) {
+            throw new IllegalStateException("Encoder returned no embedding");
+        }
+        return response.getEmbeddings().get(0);
+    }
+}
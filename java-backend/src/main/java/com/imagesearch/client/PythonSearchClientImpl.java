@@ -1,19 +1,29 @@
 package com.imagesearch.client;
 
+import com.imagesearch.client.dto.BatchSearchServiceRequest;
+import com.imagesearch.client.dto.BatchSearchServiceResponse;
 import com.imagesearch.client.dto.EmbedImagesRequest;
 import com.imagesearch.client.dto.SearchServiceRequest;
 import com.imagesearch.client.dto.SearchServiceResponse;
 import com.imagesearch.exception.SearchServiceUnavailableException;
 import com.imagesearch.service.FailedRequestService;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Python search service implementation using FAISS for vector search.
@@ -34,6 +44,28 @@ import java.time.Duration;
  * - Automatically tests recovery every 60 seconds
  * - Provides fallback responses when circuit is open
  *
+ * Priority lanes - bulk embedding from large uploads can't take interactive search down:
+ * - search lane (search, searchAsync, batchSearch): circuit breaker and bulkhead
+ *   pythonSearchService, connection pool search-service.pool
+ * - embed lane (embedImages, createIndex, deleteIndex, deleteImages): circuit breaker
+ *   pythonEmbedService, pool search-service.embed-pool; embedImages also goes through
+ *   the pythonEmbedService bulkhead, which caps concurrent embed batches so the rest
+ *   of the service's capacity stays reserved for searches
+ *
+ * Wire format: search, batch search and embed calls use search-service.codec
+ * (json, or cbor negotiated with the service - see WireCodec).
+ *
+ * Replicas (search-service.base-url plus search-service.replica-urls):
+ * - With folder affinity (default), every call for a folder goes to the node that
+ *   owns it on a consistent-hash ring (FolderAffinityRouter), so each node's FAISS
+ *   index cache only holds its share of folders. Multi-folder searches are split
+ *   per node and the per-node top-k lists merged.
+ * - Without it, searches rotate over the replicas and index writes go to base-url;
+ *   replicas must then serve the same index directory
+ * - Slow searches are hedged on a second node (see SearchHedger) - with folder
+ *   affinity, the folder's successor on the ring. That node may not have the
+ *   folder's index, so an empty or partial hedge answer never wins
+ *
  * Conditional Loading:
  * - Active when search.backend.type=python (default)
  * - Inactive when search.backend.type=java
@@ -45,19 +77,48 @@ public class PythonSearchClientImpl implements SearchClient {
     private static final Logger logger = LoggerFactory.getLogger(PythonSearchClientImpl.class);
 
     private final WebClient webClient;
+    // base-url first, then the replicas - search lane
+    private final List<WebClient> replicas;
+    // Same nodes, on the embed lane's connection pool
+    private final List<WebClient> embedReplicas;
+    // null = no folder affinity (a single node, or disabled)
+    private final FolderAffinityRouter router;
     private final int timeoutSeconds;
     private final FailedRequestService failedRequestService;
+    private final SearchHedger searchHedger;
+    private final WireCodec wireCodec;
 
     @SuppressWarnings("null")
     public PythonSearchClientImpl(
-            WebClient.Builder webClientBuilder,
+            @Qualifier("searchServiceWebClientBuilder") WebClient.Builder webClientBuilder,
+            @Qualifier("searchServiceEmbedWebClientBuilder") WebClient.Builder embedWebClientBuilder,
             @Value("${search-service.base-url}") String baseUrl,
+            @Value("${search-service.replica-urls:}") String replicaUrls,
             @Value("${search-service.timeout-seconds}") int timeoutSeconds,
-            FailedRequestService failedRequestService) {
+            @Value("${search-service.folder-affinity.enabled:true}") boolean folderAffinity,
+            @Value("${search-service.folder-affinity.virtual-nodes:128}") int virtualNodes,
+            @Value("${search-service.codec:json}") String codec,
+            FailedRequestService failedRequestService,
+            SearchHedger searchHedger) {
         this.webClient = webClientBuilder.baseUrl(baseUrl).build();
+        List<String> urls = new ArrayList<>();
+        urls.add(baseUrl);
+        Arrays.stream(replicaUrls.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty() && !urls.contains(url))
+                .forEach(urls::add);
+        List<WebClient> clients = new ArrayList<>();
+        clients.add(webClient);
+        urls.stream().skip(1).forEach(url -> clients.add(webClientBuilder.clone().baseUrl(url).build()));
+        this.replicas = List.copyOf(clients);
+        this.embedReplicas = urls.stream().map(url -> embedWebClientBuilder.clone().baseUrl(url).build()).toList();
+        this.router = folderAffinity && urls.size() > 1 ? new FolderAffinityRouter(urls, virtualNodes) : null;
         this.timeoutSeconds = timeoutSeconds;
         this.failedRequestService = failedRequestService;
-        logger.info("PythonSearchClientImpl initialized with base URL: {} (FAISS backend)", baseUrl);
+        this.searchHedger = searchHedger;
+        this.wireCodec = new WireCodec("Python search service", codec);
+        logger.info("PythonSearchClientImpl initialized with base URL: {}, {} node(s), folder affinity: {}, codec: {} (FAISS backend)",
+                    baseUrl, replicas.size(), router != null, codec);
     }
 
     /**
@@ -75,20 +136,16 @@ public class PythonSearchClientImpl implements SearchClient {
      */
     @Override
     @CircuitBreaker(name = "pythonSearchService", fallbackMethod = "searchFallback")
+    @Bulkhead(name = "pythonSearchService")
     public SearchServiceResponse search(SearchServiceRequest request) {
         logger.info("Calling Python search service: query='{}', folders={}",
                     request.getQuery(), request.getFolderIds());
 
-        SearchServiceResponse response = webClient.post()
-                .uri("/api/search")
-                .bodyValue(request)
-                .retrieve()
-                .bodyToMono(SearchServiceResponse.class)
-                .timeout(Duration.ofSeconds(timeoutSeconds))
+        SearchServiceResponse response = Mono.fromFuture(routedSearch(request))
                 .block(); // Block for synchronous behavior
 
         logger.info("Python search service returned {} results",
-                    response != null ? response.getResults().size() : 0);
+                    response != null ? response.size() : 0);
         return response;
     }
 
@@ -101,6 +158,7 @@ public class PythonSearchClientImpl implements SearchClient {
      * This is called when:
      * - Circuit breaker is OPEN (too many failures)
      * - Python service is down or slow
+     * - The search lane's bulkhead is full (too many concurrent searches)
      * - Prevents waiting for timeout (fail fast)
      *
      * Interview talking point:
@@ -127,35 +185,236 @@ public class PythonSearchClientImpl implements SearchClient {
         );
     }
 
+    /**
+     * Non-blocking variant of search().
+     *
+     * Same circuit breaker instance as search() - Resilience4j records the outcome
+     * when the returned future completes, not when the method returns.
+     *
+     * @param request Search parameters (query, folders, etc.)
+     * @return Future of search results
+     */
+    @Override
+    @CircuitBreaker(name = "pythonSearchService", fallbackMethod = "searchAsyncFallback")
+    @Bulkhead(name = "pythonSearchService")
+    public CompletableFuture<SearchServiceResponse> searchAsync(SearchServiceRequest request) {
+        logger.info("Calling Python search service (async): query='{}', folders={}",
+                    request.getQuery(), request.getFolderIds());
+
+        return routedSearch(request)
+                .whenComplete((response, error) -> {
+                    if (response != null) {
+                        logger.info("Python search service returned {} results", response.size());
+                    }
+                });
+    }
+
+    /**
+     * Send a search to the nodes owning its folders (one hedged call per node) and
+     * merge their top-k lists. Without folder affinity, one call to a rotating replica.
+     *
+     * A node that fails only costs its own folders: the other nodes' results are
+     * merged and marked degraded (not cached). The search fails only if every node does.
+     */
+    private CompletableFuture<SearchServiceResponse> routedSearch(SearchServiceRequest request) {
+        if (router == null) {
+            return searchHedger.execute(replicas.size(), replica -> searchOn(replica, request));
+        }
+
+        Map<Integer, SearchServiceRequest> parts = router.split(request);
+        if (parts.size() <= 1) {
+            int node = parts.isEmpty() ? 0 : parts.keySet().iterator().next();
+            return searchHedger.execute(node, hedgeNodeFor(request.getFolderIds(), request.getFolderOwnerMap()),
+                                        replica -> searchOn(replica, request), PythonSearchClientImpl::servedFolders);
+        }
+
+        List<CompletableFuture<SearchServiceResponse>> futures = new ArrayList<>();
+        parts.forEach((node, part) -> futures.add(searchHedger.execute(
+                node, hedgeNodeFor(part.getFolderIds(), part.getFolderOwnerMap()), replica -> searchOn(replica, part),
+                PythonSearchClientImpl::servedFolders)));
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .handle((ignored, ex) -> TopKMerger.mergeCompleted(futures, request.getTopK()));
+    }
+
+    /**
+     * One search call to one node. The deadline header and timeout are computed per
+     * call, so a hedge only gets what is left of the budget.
+     */
+    private CompletableFuture<SearchServiceResponse> searchOn(int node, SearchServiceRequest request) {
+        WebClient.RequestBodySpec spec = replicas.get(node).post()
+                .uri("/api/search")
+                .headers(headers -> SearchDeadline.propagate(request.getDeadline(), headers));
+        return wireCodec.exchange(spec, request, SearchServiceResponse.class)
+                .timeout(SearchDeadline.timeout(request.getDeadline(), Duration.ofSeconds(timeoutSeconds)))
+                .toFuture();
+    }
+
+    /**
+     * Hedge target of a per-node search: the ring successor of its first folder.
+     */
+    private int hedgeNodeFor(List<Long> folderIds, Map<Long, Long> folderOwnerMap) {
+        if (folderIds.isEmpty()) {
+            return -1;
+        }
+        Long folderId = folderIds.get(0);
+        return router.successorFor(folderOwnerMap != null ? folderOwnerMap.get(folderId) : null, folderId);
+    }
+
+    /**
+     * Whether a hedge answer can stand in for the folder's own node: the successor
+     * answers empty (or partial) for folders whose index it doesn't have.
+     */
+    private static boolean servedFolders(SearchServiceResponse response) {
+        return response != null && response.size() > 0 && !response.isDegraded();
+    }
+
+    /**
+     * Embed lane client for the node owning a folder's index (base-url without folder affinity).
+     */
+    private WebClient embedClientFor(Long ownerId, Long folderId) {
+        return embedReplicas.get(router != null ? router.nodeFor(ownerId, folderId) : 0);
+    }
+
+    /**
+     * Fallback for searchAsync() when circuit is OPEN.
+     *
+     * Fails the future with SearchServiceUnavailableException (HTTP 503),
+     * matching the synchronous fallback.
+     */
+    public CompletableFuture<SearchServiceResponse> searchAsyncFallback(SearchServiceRequest request, Exception exception) {
+        logger.warn("Python search service unavailable (circuit OPEN). " +
+                   "Query: '{}', Folders: {}, Error: {}",
+                   request.getQuery(), request.getFolderIds(), exception.getMessage());
+
+        return CompletableFuture.failedFuture(new SearchServiceUnavailableException(
+            request.getQuery(),
+            0,
+            exception
+        ));
+    }
+
+    /**
+     * Call Python service to search many queries in one request.
+     *
+     * The Python side encodes all queries in one CLIP forward pass and searches
+     * each FAISS index once with the whole query matrix.
+     *
+     * @param request Queries plus shared folder scope
+     * @return One response per query, in request order
+     */
+    @Override
+    @CircuitBreaker(name = "pythonSearchService", fallbackMethod = "batchSearchFallback")
+    @Bulkhead(name = "pythonSearchService")
+    public BatchSearchServiceResponse batchSearch(BatchSearchServiceRequest request) {
+        logger.info("Calling Python batch search service: {} queries, folders={}",
+                    request.getQueries().size(), request.getFolderIds());
+
+        BatchSearchServiceResponse response;
+        Map<Integer, BatchSearchServiceRequest> parts = router != null ? router.split(request) : Map.of();
+        if (parts.size() <= 1) {
+            WebClient client = parts.isEmpty() ? webClient : replicas.get(parts.keySet().iterator().next());
+            response = batchSearchOn(client, request).block();
+        } else {
+            // One call per node, all in flight at once; merge each query's per-node top-k lists
+            List<CompletableFuture<BatchSearchServiceResponse>> futures = new ArrayList<>();
+            parts.forEach((node, part) -> futures.add(batchSearchOn(replicas.get(node), part).toFuture()));
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).exceptionally(ex -> null).join();
+            response = mergeBatches(futures, request.getQueries().size(), request.getTopK());
+        }
+
+        logger.info("Python batch search service returned {} result lists",
+                    response != null ? response.getResults().size() : 0);
+        return response;
+    }
+
+    /**
+     * Merge per-node batch answers query by query, like routedSearch does for one query.
+     *
+     * A failed node, or one whose answer is missing a query's list, only costs its own
+     * folders: that query's merged response is marked degraded (not cached). Throws
+     * the first node's failure if every node failed.
+     */
+    static BatchSearchServiceResponse mergeBatches(List<CompletableFuture<BatchSearchServiceResponse>> futures,
+                                                   int queries, int topK) {
+        List<SearchServiceResponse> merged = new ArrayList<>();
+        for (int q = 0; q < queries; q++) {
+            int query = q;
+            List<CompletableFuture<SearchServiceResponse>> partials = new ArrayList<>();
+            for (CompletableFuture<BatchSearchServiceResponse> future : futures) {
+                partials.add(future.thenApply(partResponse -> resultAt(partResponse, query)));
+            }
+            merged.add(TopKMerger.mergeCompleted(partials, topK));
+        }
+        return new BatchSearchServiceResponse(merged);
+    }
+
+    /**
+     * A node's list for one query; an empty degraded response if its answer is short.
+     */
+    private static SearchServiceResponse resultAt(BatchSearchServiceResponse partResponse, int query) {
+        List<SearchServiceResponse> results = partResponse != null ? partResponse.getResults() : null;
+        SearchServiceResponse result = results != null && query < results.size() ? results.get(query) : null;
+        if (result == null) {
+            result = new SearchServiceResponse(List.of(), 0);
+            result.setDegraded(true);
+        }
+        return result;
+    }
+
+    /**
+     * One batch search call to one node, with the deadline header and timeout of
+     * the request (same budget as searchOn).
+     */
+    private Mono<BatchSearchServiceResponse> batchSearchOn(WebClient client, BatchSearchServiceRequest request) {
+        WebClient.RequestBodySpec spec = client.post()
+                .uri("/api/search/batch")
+                .headers(headers -> SearchDeadline.propagate(request.getDeadline(), headers));
+        return wireCodec.exchange(spec, request, BatchSearchServiceResponse.class)
+                .timeout(SearchDeadline.timeout(request.getDeadline(), Duration.ofSeconds(timeoutSeconds)));
+    }
+
+    /**
+     * Fallback for batchSearch() when circuit is OPEN.
+     */
+    public BatchSearchServiceResponse batchSearchFallback(BatchSearchServiceRequest request, Exception exception) {
+        logger.warn("Python search service unavailable (circuit OPEN). " +
+                   "Batch of {} queries, Folders: {}, Error: {}",
+                   request.getQueries().size(), request.getFolderIds(), exception.getMessage());
+
+        throw new SearchServiceUnavailableException(
+            String.join(", ", request.getQueries()),
+            0,
+            exception
+        );
+    }
+
     /**
      * Call Python service to generate embeddings and add to FAISS index.
      *
-     * This is called asynchronously after image upload.
+     * This is called asynchronously after image upload, on the embedding executor.
+     * Blocks until the batch is indexed, so the breaker sees real outcomes and the
+     * bulkhead bounds how many batches are in flight across all uploads.
      *
-     * Circuit Breaker Applied:
-     * - Fallback: embedImagesFallback() - logs warning but doesn't fail upload
-     * - This is already async, but circuit breaker prevents resource exhaustion
+     * Circuit Breaker Applied (embed lane, pythonEmbedService):
+     * - Fallback: embedImagesFallback() - queues the batch for retry, doesn't fail upload
+     * - Bulkhead: waits for a free embed slot (up to maxWaitDuration) instead of
+     *   competing with searches
      *
      * @param request Image information for embedding
      */
     @Override
-    @CircuitBreaker(name = "pythonSearchService", fallbackMethod = "embedImagesFallback")
+    @CircuitBreaker(name = "pythonEmbedService", fallbackMethod = "embedImagesFallback")
+    @Bulkhead(name = "pythonEmbedService")
     public void embedImages(EmbedImagesRequest request) {
         logger.info("Calling Python service to embed {} images for folder {}",
                     request.getImages().size(), request.getFolderId());
 
-        webClient.post()
-                .uri("/api/embed-images")
-                .bodyValue(request)
-                .retrieve()
-                .bodyToMono(Void.class)
+        wireCodec.exchange(embedClientFor(request.getUserId(), request.getFolderId()).post().uri("/api/embed-images"),
+                           request, Void.class)
                 .timeout(Duration.ofSeconds(timeoutSeconds))
-                .subscribe(
-                    result -> logger.info("Successfully embedded images for folder {}",
-                                        request.getFolderId()),
-                    error -> logger.error("Failed to embed images for folder {}",
-                                        request.getFolderId(), error)
-                );
+                .block();
+
+        logger.info("Successfully embedded images for folder {}", request.getFolderId());
     }
 
     /**
@@ -194,11 +453,11 @@ public class PythonSearchClientImpl implements SearchClient {
      * @param folderId Folder ID
      */
     @Override
-    @CircuitBreaker(name = "pythonSearchService", fallbackMethod = "createIndexFallback")
+    @CircuitBreaker(name = "pythonEmbedService", fallbackMethod = "createIndexFallback")
     public void createIndex(Long userId, Long folderId) {
         logger.info("Creating FAISS index for user {} folder {}", userId, folderId);
 
-        webClient.post()
+        embedClientFor(userId, folderId).post()
                 .uri("/api/create-index")
                 .bodyValue(new CreateIndexRequest(userId, folderId))
                 .retrieve()
@@ -234,11 +493,11 @@ public class PythonSearchClientImpl implements SearchClient {
      * @param folderId Folder ID
      */
     @Override
-    @CircuitBreaker(name = "pythonSearchService", fallbackMethod = "deleteIndexFallback")
+    @CircuitBreaker(name = "pythonEmbedService", fallbackMethod = "deleteIndexFallback")
     public void deleteIndex(Long userId, Long folderId) {
         logger.info("Deleting FAISS index for user {} folder {}", userId, folderId);
 
-        webClient.delete()
+        embedClientFor(userId, folderId).delete()
                 .uri("/api/delete-index/{userId}/{folderId}", userId, folderId)
                 .retrieve()
                 .bodyToMono(Void.class)
@@ -269,6 +528,57 @@ public class PythonSearchClientImpl implements SearchClient {
                    userId, folderId, exception.getMessage());
     }
 
+    /**
+     * Call Python service to remove stale image IDs from a folder's FAISS index.
+     *
+     * Runs in the background (SearchService hands it to the stale image executor),
+     * on the embed lane like other index writes.
+     *
+     * Circuit Breaker Applied:
+     * - Fallback: deleteImagesFallback() - logs warning, the IDs are reported again
+     *   the next time a search returns them
+     *
+     * @param userId Owner of the folder
+     * @param folderId Folder ID
+     * @param imageIds Image IDs to remove
+     */
+    @Override
+    @CircuitBreaker(name = "pythonEmbedService", fallbackMethod = "deleteImagesFallback")
+    public void deleteImages(Long userId, Long folderId, List<Long> imageIds) {
+        if (userId == null) {
+            logger.warn("No owner known for folder {}, not deleting stale images {}", folderId, imageIds);
+            return;
+        }
+
+        embedClientFor(userId, folderId).post()
+                .uri("/api/delete-images")
+                .bodyValue(new DeleteImagesRequest(userId, folderId, imageIds))
+                .retrieve()
+                .bodyToMono(Void.class)
+                .timeout(Duration.ofSeconds(timeoutSeconds))
+                .block();
+
+        logger.info("Deleted {} stale images from FAISS index for user {} folder {}",
+                    imageIds.size(), userId, folderId);
+    }
+
+    /**
+     * Fallback for deleteImages() when circuit is OPEN.
+     *
+     * @param userId Owner of the folder
+     * @param folderId Folder ID
+     * @param imageIds Image IDs to remove
+     * @param exception The exception that triggered fallback
+     */
+    public void deleteImagesFallback(Long userId, Long folderId, List<Long> imageIds, Exception exception) {
+        logger.warn("Python search service unavailable (circuit OPEN), skipping stale image deletion for user {} folder {}. " +
+                   "Images {} stay in the index until a later search reports them again. Error: {}",
+                   userId, folderId, imageIds, exception.getMessage());
+    }
+
     // Helper DTO for create index request
     private record CreateIndexRequest(Long userId, Long folderId) {}
+
+    // Helper DTO for delete images request
+    private record DeleteImagesRequest(Long userId, Long folderId, List<Long> imageIds) {}
 }
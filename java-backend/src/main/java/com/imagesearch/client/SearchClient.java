@@ -1,9 +1,14 @@
 package com.imagesearch.client;
 
+import com.imagesearch.client.dto.BatchSearchServiceRequest;
+import com.imagesearch.client.dto.BatchSearchServiceResponse;
 import com.imagesearch.client.dto.EmbedImagesRequest;
 import com.imagesearch.client.dto.SearchServiceRequest;
 import com.imagesearch.client.dto.SearchServiceResponse;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Abstraction for search service clients.
  *
@@ -31,6 +36,27 @@ public interface SearchClient {
      */
     SearchServiceResponse search(SearchServiceRequest request);
 
+    /**
+     * Non-blocking variant of {@link #search}.
+     *
+     * The returned future completes on the HTTP client's I/O thread when the
+     * search service responds, so no servlet thread is held while CLIP inference
+     * and the FAISS scan run. Callers must not do blocking work (e.g. JDBC) in
+     * dependent stages without switching to their own executor.
+     *
+     * @param request Search parameters (query, folders, etc.)
+     * @return Future of search results with image IDs and similarity scores
+     */
+    CompletableFuture<SearchServiceResponse> searchAsync(SearchServiceRequest request);
+
+    /**
+     * Search many text queries over the same folders in one round trip.
+     *
+     * @param request Queries plus shared folder scope
+     * @return One response per query, in request order
+     */
+    BatchSearchServiceResponse batchSearch(BatchSearchServiceRequest request);
+
     /**
      * Generate embeddings for uploaded images and add to search index.
      *
@@ -55,4 +81,18 @@ public interface SearchClient {
      * @param folderId Folder ID
      */
     void deleteIndex(Long userId, Long folderId);
+
+    /**
+     * Drop images from a folder's index so they stop taking top-k slots.
+     *
+     * Called with IDs a search returned but the database no longer has. The Python
+     * (FAISS) and embedded backends remove them; the Java backend keeps them
+     * (enrichment still filters them out).
+     *
+     * @param userId Owner of the folder (needed for index paths)
+     * @param folderId Folder ID
+     * @param imageIds Image IDs to remove
+     */
+    default void deleteImages(Long userId, Long folderId, List<Long> imageIds) {
+    }
 }
@@ -0,0 +1,90 @@
+package com.imagesearch.client;
+
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+
+/**
+ * End-to-end time budget of one search request.
+ *
+ * Started when the request arrives (budget chosen by the client, or the server
+ * default), so time spent on auth and ACL resolution counts against it. It rides
+ * on SearchServiceRequest, and every remote call turns it into the remaining budget:
+ * - as the call's timeout (never longer than the client's configured timeout)
+ * - as the X-Search-Deadline-Ms header, so the search service can stop early too
+ *
+ * Only relative budgets cross process boundaries, so clock skew doesn't matter.
+ */
+public final class SearchDeadline {
+
+    /** Remaining budget in milliseconds - request header in and out. */
+    public static final String HEADER = "X-Search-Deadline-Ms";
+
+    private final long expiresAtNanos;
+
+    private SearchDeadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    /**
+     * Deadline that expires after the given budget, starting now.
+     */
+    public static SearchDeadline after(Duration budget) {
+        return new SearchDeadline(System.nanoTime() + budget.toNanos());
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, expiresAtNanos - System.nanoTime()));
+    }
+
+    public long remainingMillis() {
+        return remaining().toMillis();
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Whether a call made under this deadline has at least as much time as one made
+     * under the other (no deadline at all is the loosest).
+     *
+     * @param deadline This call's deadline, or null for none
+     * @param other The other call's deadline, or null for none
+     */
+    public static boolean atLeastAsLoose(SearchDeadline deadline, SearchDeadline other) {
+        if (deadline == null) {
+            return true;
+        }
+        return other != null && deadline.expiresAtNanos - other.expiresAtNanos >= 0;
+    }
+
+    /**
+     * Timeout for one remote call.
+     *
+     * @param deadline Request deadline, or null if the request has none
+     * @param clientTimeout Timeout configured for the client
+     * @return The remaining budget, capped at clientTimeout
+     */
+    public static Duration timeout(SearchDeadline deadline, Duration clientTimeout) {
+        if (deadline == null) {
+            return clientTimeout;
+        }
+        Duration remaining = deadline.remaining();
+        return remaining.compareTo(clientTimeout) < 0 ? remaining : clientTimeout;
+    }
+
+    /**
+     * Forward the remaining budget to the search service (no-op without a deadline).
+     */
+    public static void propagate(SearchDeadline deadline, HttpHeaders headers) {
+        if (deadline != null) {
+            headers.set(HEADER, Long.toString(deadline.remainingMillis()));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SearchDeadline[remaining=" + remainingMillis() + "ms]";
+    }
+}
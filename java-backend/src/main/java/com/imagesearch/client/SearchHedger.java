@@ -0,0 +1,258 @@
+package com.imagesearch.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+/**
+ * Hedged requests across search service replicas.
+ *
+ * A search is sent to one replica (its folders' node, see FolderAffinityRouter, or
+ * round-robin). If it hasn't answered after the recently observed p95 latency, a
+ * duplicate goes to a second replica and whichever answers first wins; the other
+ * call is cancelled. This cuts the tail caused by one slow replica (GC pause, cold
+ * index cache) at the cost of a few extra calls.
+ *
+ * Key design:
+ * - Hedge delay = p95 of the last 1024 successful calls, never below min-delay-ms.
+ *   No hedging until min-samples calls have been observed.
+ * - Hedge budget: every search earns max-ratio hedge tokens (up to a small burst), a
+ *   hedge spends one - at most max-ratio extra calls on average, even when every
+ *   replica is slow
+ * - Only slow calls are hedged. A call that fails fails the search, so errors still
+ *   reach the client's circuit breaker and fallback.
+ * - The hedge replica may not serve the same data (with folder affinity it is the
+ *   ring successor, which only has the folder's index if it took the folder over).
+ *   Callers pass a hedgeAccepted check: a hedge answer failing it (e.g. empty or
+ *   partial) never wins - the search waits for the primary instead.
+ *
+ * Metrics:
+ * - search.hedge.issued - duplicate calls sent
+ * - search.hedge.won - searches answered by the duplicate
+ * - search.hedge.throttled - hedges skipped because the budget was spent
+ * - search.hedge.rejected - hedge answers discarded by the hedgeAccepted check
+ * - search.hedge.delay - current hedge delay (ms)
+ */
+@Component
+public class SearchHedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchHedger.class);
+
+    private static final int LATENCY_WINDOW = 1024;
+    // Recompute the p95 every this many samples rather than on every call
+    private static final int RECOMPUTE_EVERY = 32;
+    private static final long TOKEN = 1000;
+    private static final long MAX_TOKENS = 10 * TOKEN;
+
+    private final boolean enabled;
+    private final long tokensPerCall;
+    private final long minDelayNanos;
+    private final int minSamples;
+
+    // Ring of recent latencies. Guarded by synchronized(latencies).
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private long samples;
+    private volatile long hedgeDelayNanos = -1; // -1 = not enough samples yet
+
+    private final AtomicLong tokens = new AtomicLong(MAX_TOKENS);
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private final Counter issued;
+    private final Counter won;
+    private final Counter throttled;
+    private final Counter rejected;
+
+    public SearchHedger(
+            @Value("${search-service.hedging.enabled:true}") boolean enabled,
+            @Value("${search-service.hedging.max-ratio:0.05}") double maxRatio,
+            @Value("${search-service.hedging.min-delay-ms:20}") long minDelayMs,
+            @Value("${search-service.hedging.min-samples:100}") int minSamples,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.tokensPerCall = Math.round(maxRatio * TOKEN);
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMs);
+        this.minSamples = Math.max(1, Math.min(minSamples, LATENCY_WINDOW));
+
+        this.issued = Counter.builder("search.hedge.issued")
+                .description("Duplicate search calls sent to a second replica")
+                .register(meterRegistry);
+        this.won = Counter.builder("search.hedge.won")
+                .description("Searches answered first by the duplicate call")
+                .register(meterRegistry);
+        this.throttled = Counter.builder("search.hedge.throttled")
+                .description("Hedges skipped because the hedge budget was spent")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("search.hedge.rejected")
+                .description("Hedge answers discarded because the hedge replica could not serve the call")
+                .register(meterRegistry);
+        Gauge.builder("search.hedge.delay", this, h -> Math.max(0, h.hedgeDelayNanos) / 1_000_000.0)
+                .description("Current hedge delay (p95 of recent search latency)")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+
+        logger.info("SearchHedger initialized: enabled={}, maxRatio={}, minDelay={}ms, minSamples={}",
+                    enabled, maxRatio, minDelayMs, minSamples);
+    }
+
+    /**
+     * Run a call against one of several replicas (round-robin), hedging it on the
+     * next one if slow.
+     *
+     * @param replicas Number of replicas (a single replica is never hedged)
+     * @param call Starts the call on the replica with the given index
+     * @return Future of the first successful answer, or of the failure
+     */
+    public <T> CompletableFuture<T> execute(int replicas, IntFunction<CompletableFuture<T>> call) {
+        int primary = replicas > 1 ? Math.floorMod(nextReplica.getAndIncrement(), replicas) : 0;
+        return execute(primary, replicas > 1 ? (primary + 1) % replicas : -1, call);
+    }
+
+    /**
+     * Run a call against a given replica, hedging it on a second one if slow.
+     *
+     * @param primary Replica to call first
+     * @param secondary Replica for the hedge, or -1 to never hedge
+     * @param call Starts the call on the replica with the given index
+     * @return Future of the first successful answer, or of the failure
+     */
+    public <T> CompletableFuture<T> execute(int primary, int secondary, IntFunction<CompletableFuture<T>> call) {
+        return execute(primary, secondary, call, response -> true);
+    }
+
+    /**
+     * Run a call against a given replica, hedging it on a second one if slow, for a
+     * hedge replica that may not be able to serve it.
+     *
+     * A hedge answer failing hedgeAccepted is discarded like a failed hedge: the
+     * primary's answer (or failure) is returned instead.
+     *
+     * @param primary Replica to call first
+     * @param secondary Replica for the hedge, or -1 to never hedge
+     * @param call Starts the call on the replica with the given index
+     * @param hedgeAccepted Whether a hedge answer may win
+     * @return Future of the first accepted answer, or of the primary's failure
+     */
+    public <T> CompletableFuture<T> execute(int primary, int secondary, IntFunction<CompletableFuture<T>> call,
+                                            Predicate<? super T> hedgeAccepted) {
+        if (!enabled || secondary < 0 || secondary == primary) {
+            return timed(call.apply(primary));
+        }
+        earnToken();
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        // Calls that may still answer; the search fails once this drops to zero
+        AtomicInteger outstanding = new AtomicInteger(1);
+        // First failure seen; reported once no call is left
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        CompletableFuture<T> first = timed(call.apply(primary));
+        first.whenComplete((response, error) -> settle(result, outstanding, failure, response, error, false));
+
+        long delay = hedgeDelayNanos;
+        if (delay >= 0 && !result.isDone()) {
+            CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(() -> {
+                if (result.isDone() || outstanding.getAndUpdate(n -> n == 0 ? 0 : n + 1) == 0) {
+                    return;
+                }
+                if (!spendToken()) {
+                    throttled.increment();
+                    outstanding.decrementAndGet();
+                    return;
+                }
+                issued.increment();
+                logger.debug("Hedging search on replica {} after {}ms", secondary, delay / 1_000_000);
+                CompletableFuture<T> hedge = timed(call.apply(secondary));
+                hedge.whenComplete((response, error) -> {
+                    if (error == null && !hedgeAccepted.test(response)) {
+                        rejected.increment();
+                        logger.debug("Discarding hedge answer from replica {}", secondary);
+                        fail(result, outstanding, failure, null);
+                    } else {
+                        settle(result, outstanding, failure, response, error, true);
+                    }
+                });
+                result.whenComplete((response, error) -> hedge.cancel(true));
+            });
+        }
+        result.whenComplete((response, error) -> first.cancel(true));
+        return result;
+    }
+
+    private <T> void settle(CompletableFuture<T> result, AtomicInteger outstanding, AtomicReference<Throwable> failure,
+                            T response, Throwable error, boolean hedge) {
+        if (error == null) {
+            if (result.complete(response) && hedge) {
+                won.increment();
+            }
+        } else {
+            fail(result, outstanding, failure, error);
+        }
+    }
+
+    /**
+     * One call is out without an answer (error null for a discarded hedge answer).
+     * The primary always counts down with an error, so one is set by the last call.
+     */
+    private <T> void fail(CompletableFuture<T> result, AtomicInteger outstanding,
+                          AtomicReference<Throwable> failure, Throwable error) {
+        if (error != null) {
+            failure.compareAndSet(null, error);
+        }
+        if (outstanding.decrementAndGet() == 0) {
+            result.completeExceptionally(failure.get());
+        }
+    }
+
+    /**
+     * Record the latency of successful calls (cancelled losers and failures don't count).
+     */
+    private <T> CompletableFuture<T> timed(CompletableFuture<T> call) {
+        long start = System.nanoTime();
+        call.thenRun(() -> recordLatency(System.nanoTime() - start));
+        return call;
+    }
+
+    void recordLatency(long nanos) {
+        long[] snapshot = null;
+        synchronized (latencies) {
+            latencies[(int) (samples % LATENCY_WINDOW)] = nanos;
+            samples++;
+            if (samples >= minSamples && (samples % RECOMPUTE_EVERY == 0 || samples == minSamples)) {
+                snapshot = Arrays.copyOf(latencies, (int) Math.min(samples, LATENCY_WINDOW));
+            }
+        }
+        if (snapshot != null) {
+            Arrays.sort(snapshot);
+            long p95 = snapshot[(int) Math.ceil(snapshot.length * 0.95) - 1];
+            hedgeDelayNanos = Math.max(minDelayNanos, p95);
+        }
+    }
+
+    /**
+     * Current hedge delay in nanoseconds, or -1 while there are too few samples.
+     */
+    long hedgeDelayNanos() {
+        return hedgeDelayNanos;
+    }
+
+    private void earnToken() {
+        tokens.getAndUpdate(t -> Math.min(MAX_TOKENS, t + tokensPerCall));
+    }
+
+    private boolean spendToken() {
+        return tokens.getAndUpdate(t -> t >= TOKEN ? t - TOKEN : t) >= TOKEN;
+    }
+}
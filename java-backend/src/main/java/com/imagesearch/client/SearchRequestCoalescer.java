@@ -0,0 +1,210 @@
+package com.imagesearch.client;
+
+import com.imagesearch.client.dto.SearchServiceRequest;
+import com.imagesearch.client.dto.SearchServiceResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Single-flight coalescing of identical in-flight searches.
+ *
+ * When a popular shared folder is searched by many users at once, each request
+ * would otherwise trigger its own CLIP text encode + FAISS scan. Here, the first
+ * request for a (query, folder IDs, topK) key becomes the "leader" and makes the
+ * remote call; identical requests that arrive while it is in flight just wait on
+ * the leader's future.
+ *
+ * Only the raw search service response is shared. Enrichment (and anything else
+ * user-specific) still runs per request in SearchService. Sharing is safe because
+ * ACLs are checked before the search, and the folder set fully determines the result.
+ *
+ * Deadlines: the leader's call carries the leader's deadline, and the search service
+ * may cut it short (a partial response) when it runs out. A request only joins a
+ * leader whose deadline is at least as loose as its own; otherwise it makes its own,
+ * uncoalesced call, so a tight budget never truncates someone else's results.
+ *
+ * Metrics:
+ * - search.coalesce.leaders - remote calls actually made
+ * - search.coalesce.joined - requests that piggy-backed on an in-flight call
+ * - search.coalesce.bypassed - identical requests not coalesced because the
+ *   in-flight call had a tighter deadline
+ * - search.coalesce.in-flight - distinct searches currently in flight
+ */
+@Component
+public class SearchRequestCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchRequestCoalescer.class);
+
+    private final boolean enabled;
+    private final Map<Key, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter joined;
+    private final Counter bypassed;
+
+    public SearchRequestCoalescer(
+            @Value("${search.coalescing.enabled:true}") boolean enabled,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.leaders = Counter.builder("search.coalesce.leaders")
+                .description("Search calls sent to the search service")
+                .register(meterRegistry);
+        this.joined = Counter.builder("search.coalesce.joined")
+                .description("Search calls coalesced onto an identical in-flight call")
+                .register(meterRegistry);
+        this.bypassed = Counter.builder("search.coalesce.bypassed")
+                .description("Search calls not coalesced because the in-flight call had a tighter deadline")
+                .register(meterRegistry);
+        Gauge.builder("search.coalesce.in-flight", inFlight, Map::size)
+                .description("Distinct searches currently in flight")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Blocking single-flight search.
+     *
+     * @param request Search request
+     * @param call Remote call to make if no identical search is in flight
+     * @return Search response (shared with any coalesced callers)
+     */
+    public SearchServiceResponse search(
+            SearchServiceRequest request,
+            Function<SearchServiceRequest, SearchServiceResponse> call) {
+        if (!enabled) {
+            return call.apply(request);
+        }
+
+        Key key = Key.of(request);
+        InFlight mine = new InFlight(new CompletableFuture<>(), request.getDeadline());
+        InFlight existing = inFlight.putIfAbsent(key, mine);
+
+        if (existing != null) {
+            if (!canJoin(existing, request)) {
+                return call.apply(request);
+            }
+            joined.increment();
+            logger.debug("Coalesced search onto in-flight call: query='{}', folders={}",
+                         request.getQuery(), request.getFolderIds());
+            try {
+                return existing.future().join();
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            }
+        }
+
+        leaders.increment();
+        try {
+            SearchServiceResponse response = call.apply(request);
+            mine.future().complete(response);
+            return response;
+        } catch (Throwable e) {
+            // Errors too - joiners must never wait on a future nobody completes
+            mine.future().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Non-blocking single-flight search.
+     *
+     * @param request Search request
+     * @param call Remote call to make if no identical search is in flight
+     * @return Future of search response (shared with any coalesced callers)
+     */
+    public CompletableFuture<SearchServiceResponse> searchAsync(
+            SearchServiceRequest request,
+            Function<SearchServiceRequest, CompletableFuture<SearchServiceResponse>> call) {
+        if (!enabled) {
+            return call.apply(request);
+        }
+
+        Key key = Key.of(request);
+        InFlight mine = new InFlight(new CompletableFuture<>(), request.getDeadline());
+        InFlight existing = inFlight.putIfAbsent(key, mine);
+
+        if (existing != null) {
+            if (!canJoin(existing, request)) {
+                return call.apply(request);
+            }
+            joined.increment();
+            logger.debug("Coalesced async search onto in-flight call: query='{}', folders={}",
+                         request.getQuery(), request.getFolderIds());
+            return existing.future();
+        }
+
+        leaders.increment();
+        CompletableFuture<SearchServiceResponse> remote;
+        try {
+            remote = call.apply(request);
+        } catch (Throwable e) {
+            inFlight.remove(key, mine);
+            mine.future().completeExceptionally(e);
+            return mine.future();
+        }
+
+        remote.whenComplete((response, error) -> {
+            // Remove before completing so late arrivals start a fresh call
+            inFlight.remove(key, mine);
+            if (error != null) {
+                mine.future().completeExceptionally(unwrap(error));
+            } else {
+                mine.future().complete(response);
+            }
+        });
+        return mine.future();
+    }
+
+    /**
+     * Whether a request may share the leader's call: only if the leader's deadline is
+     * at least as loose as the request's, so the shared response can't be cut shorter
+     * than the request's own call would have been.
+     */
+    private boolean canJoin(InFlight leader, SearchServiceRequest request) {
+        if (SearchDeadline.atLeastAsLoose(leader.deadline(), request.getDeadline())) {
+            return true;
+        }
+        bypassed.increment();
+        logger.debug("Not coalescing search onto in-flight call with a tighter deadline: query='{}', folders={}",
+                     request.getQuery(), request.getFolderIds());
+        return false;
+    }
+
+    private static RuntimeException unwrap(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause()
+                : error;
+        return cause instanceof RuntimeException re ? re : new CompletionException(cause);
+    }
+
+    /**
+     * The leader's call and the deadline it was sent with.
+     */
+    private record InFlight(CompletableFuture<SearchServiceResponse> future, SearchDeadline deadline) {
+    }
+
+    /**
+     * Coalescing key: normalized query + sorted folder IDs + topK.
+     * The user ID is deliberately excluded - results depend only on the folders.
+     */
+    private record Key(String query, List<Long> folderIds, Integer topK) {
+
+        static Key of(SearchServiceRequest request) {
+            String normalized = request.getQuery().trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+            return new Key(normalized, request.getFolderIds().stream().sorted().toList(), request.getTopK());
+        }
+    }
+}
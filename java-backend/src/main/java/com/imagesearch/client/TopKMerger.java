@@ -0,0 +1,169 @@
+package com.imagesearch.client;
+
+import com.imagesearch.client.dto.SearchServiceResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Merges partial search results into a single global top-k.
+ *
+ * Uses a fixed-size min-heap (same approach as heapq in search_handler.py):
+ * - Heap holds at most k results, smallest score at the head
+ * - Each candidate either fills the heap or replaces the head if it scores higher
+ * - O(n log k) instead of sorting all n partial results
+ *
+ * The heap is three parallel primitive arrays read straight from the partial
+ * responses' hit arrays, and is sorted in place (heap sort) into the merged
+ * response - no per-hit objects.
+ *
+ * Used when a multi-folder search is split into shards (or nodes) and each
+ * returns its own top-k. The merged response is degraded if any partial was.
+ */
+public final class TopKMerger {
+
+    private static final Logger logger = LoggerFactory.getLogger(TopKMerger.class);
+
+    private TopKMerger() {
+    }
+
+    /**
+     * Merge the partial responses of completed futures, tolerating failed ones.
+     *
+     * Must only be called once every future is done (never blocks). If some failed,
+     * the others are merged and the result is marked degraded (not cached).
+     *
+     * @param futures Completed futures of partial responses (e.g. one per shard or node)
+     * @param k Number of results to keep
+     * @return Merged results, highest score first
+     * @throws RuntimeException The first failure, if every future failed
+     */
+    public static SearchServiceResponse mergeCompleted(List<CompletableFuture<SearchServiceResponse>> futures, int k) {
+        List<SearchServiceResponse> partials = new ArrayList<>();
+        Throwable firstFailure = null;
+
+        for (CompletableFuture<SearchServiceResponse> future : futures) {
+            try {
+                partials.add(future.join());
+            } catch (CompletionException | CancellationException e) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                if (firstFailure == null) {
+                    firstFailure = cause;
+                }
+                logger.warn("Search shard failed, returning partial results: {}", cause.getMessage());
+            }
+        }
+
+        if (partials.isEmpty() && firstFailure != null) {
+            throw firstFailure instanceof RuntimeException re ? re : new CompletionException(firstFailure);
+        }
+
+        SearchServiceResponse merged = merge(partials, k);
+        if (firstFailure != null) {
+            merged.setDegraded(true);
+        }
+        return merged;
+    }
+
+    /**
+     * Merge partial responses into the k highest-scoring results.
+     *
+     * @param partials Partial responses (e.g. one per shard); null responses are skipped
+     * @param k Number of results to keep
+     * @return Merged results, highest score first
+     */
+    public static SearchServiceResponse merge(List<SearchServiceResponse> partials, int k) {
+        if (k <= 0) {
+            return new SearchServiceResponse();
+        }
+
+        int capacity = 0;
+        boolean degraded = false;
+        for (SearchServiceResponse partial : partials) {
+            if (partial != null) {
+                capacity += partial.size();
+                degraded |= partial.isDegraded();
+            }
+        }
+        capacity = Math.min(capacity, k);
+
+        long[] imageIds = new long[capacity];
+        double[] scores = new double[capacity];
+        long[] folderIds = new long[capacity];
+        int size = 0;
+        for (SearchServiceResponse partial : partials) {
+            if (partial == null) {
+                continue;
+            }
+            for (int i = 0; i < partial.size(); i++) {
+                double score = partial.scoreAt(i);
+                if (size < capacity) {
+                    set(imageIds, scores, folderIds, size, partial.imageIdAt(i), score, partial.folderIdAt(i));
+                    siftUp(imageIds, scores, folderIds, size++);
+                } else if (score > scores[0]) {
+                    set(imageIds, scores, folderIds, 0, partial.imageIdAt(i), score, partial.folderIdAt(i));
+                    siftDown(imageIds, scores, folderIds, 0, size);
+                }
+            }
+        }
+
+        // Heap sort: repeatedly move the minimum to the end -> highest score first
+        for (int end = size - 1; end > 0; end--) {
+            swap(imageIds, scores, folderIds, 0, end);
+            siftDown(imageIds, scores, folderIds, 0, end);
+        }
+        SearchServiceResponse merged = new SearchServiceResponse(imageIds, scores, folderIds, size, size);
+        merged.setDegraded(degraded);
+        return merged;
+    }
+
+    private static void siftUp(long[] imageIds, double[] scores, long[] folderIds, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (scores[parent] <= scores[index]) {
+                return;
+            }
+            swap(imageIds, scores, folderIds, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(long[] imageIds, double[] scores, long[] folderIds, int index, int size) {
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && scores[left] < scores[smallest]) {
+                smallest = left;
+            }
+            if (right < size && scores[right] < scores[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(imageIds, scores, folderIds, index, smallest);
+            index = smallest;
+        }
+    }
+
+    private static void set(long[] imageIds, double[] scores, long[] folderIds, int index,
+                            long imageId, double score, long folderId) {
+        imageIds[index] = imageId;
+        scores[index] = score;
+        folderIds[index] = folderId;
+    }
+
+    private static void swap(long[] imageIds, double[] scores, long[] folderIds, int a, int b) {
+        long imageId = imageIds[a];
+        double score = scores[a];
+        long folderId = folderIds[a];
+        set(imageIds, scores, folderIds, a, imageIds[b], scores[b], folderIds[b]);
+        set(imageIds, scores, folderIds, b, imageId, score, folderId);
+    }
+}
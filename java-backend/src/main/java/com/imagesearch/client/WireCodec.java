@@ -0,0 +1,112 @@
+package com.imagesearch.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.Locale;
+
+/**
+ * Negotiated wire format for calls to one search backend (search-service.codec,
+ * java-search-service.codec).
+ *
+ * - json: plain snake_case JSON, the format every backend version understands
+ * - cbor: the same documents as CBOR (binary JSON) - no field-name quoting, numbers
+ *   as fixed-width binary instead of decimal text, so smaller bodies and cheaper
+ *   encode/decode for large top-k responses and embed batches
+ *
+ * CBOR is negotiated, never assumed: calls accept CBOR or JSON responses, and
+ * request bodies switch to CBOR only after the backend has answered in CBOR once.
+ * A backend without CBOR support keeps getting and sending JSON. All nodes of one
+ * backend are expected to run the same version.
+ *
+ * Thread-safe.
+ */
+public final class WireCodec {
+
+    private static final Logger logger = LoggerFactory.getLogger(WireCodec.class);
+
+    private final String backend;
+    private final boolean cbor;
+    // Set once the backend has answered in CBOR - from then on requests are CBOR too
+    private volatile boolean peerSpeaksCbor;
+
+    /**
+     * @param backend Backend name, for logging
+     * @param codec "json" or "cbor"
+     */
+    public WireCodec(String backend, String codec) {
+        this.backend = backend;
+        this.cbor = switch (codec.trim().toLowerCase(Locale.ROOT)) {
+            case "json" -> false;
+            case "cbor" -> true;
+            default -> throw new IllegalArgumentException(
+                    "Unknown codec '" + codec + "' for " + backend + " (expected json or cbor)");
+        };
+    }
+
+    /**
+     * Send a body and decode the response in the negotiated format.
+     *
+     * Errors surface exactly like retrieve(): 4xx/5xx become WebClientResponseException.
+     *
+     * @param spec Request with method, URI and any headers already set
+     * @param body Request body
+     * @param responseType Response type (Void.class for none)
+     * @return Decoded response
+     */
+    public <T> Mono<T> exchange(WebClient.RequestBodySpec spec, Object body, Class<T> responseType) {
+        if (!cbor) {
+            return spec.bodyValue(body).retrieve().bodyToMono(responseType);
+        }
+
+        spec.accept(MediaType.APPLICATION_CBOR, MediaType.APPLICATION_JSON);
+        if (peerSpeaksCbor) {
+            spec.contentType(MediaType.APPLICATION_CBOR);
+        }
+        return spec.bodyValue(body).exchangeToMono(response -> {
+            if (response.statusCode().isError()) {
+                return response.createException().flatMap(Mono::error);
+            }
+            boolean cborResponse = response.headers().contentType()
+                    .map(MediaType.APPLICATION_CBOR::isCompatibleWith)
+                    .orElse(false);
+            if (cborResponse && !peerSpeaksCbor) {
+                peerSpeaksCbor = true;
+                logger.info("{} answered in CBOR - sending CBOR request bodies from now on", backend);
+            }
+            return response.bodyToMono(responseType);
+        });
+    }
+
+    /**
+     * Whether request bodies are currently sent as CBOR.
+     */
+    public boolean sendsCbor() {
+        return cbor && peerSpeaksCbor;
+    }
+
+    /**
+     * JSON mapper for search backend DTOs (snake_case, like the Python service).
+     */
+    public static ObjectMapper jsonMapper() {
+        return configure(new ObjectMapper());
+    }
+
+    /**
+     * CBOR mapper for search backend DTOs - same naming as {@link #jsonMapper()}.
+     */
+    public static ObjectMapper cborMapper() {
+        return configure(new ObjectMapper(new CBORFactory()));
+    }
+
+    private static ObjectMapper configure(ObjectMapper mapper) {
+        mapper.setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+        return mapper;
+    }
+}
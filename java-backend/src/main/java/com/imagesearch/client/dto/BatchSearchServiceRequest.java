@@ -0,0 +1,33 @@
+package com.imagesearch.client.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.imagesearch.client.SearchDeadline;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request DTO for batch search in Python search microservice.
+ * All queries share the same folder scope.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchSearchServiceRequest {
+    private Long userId;
+    private List<String> queries;
+    private List<Long> folderIds;
+    private Map<Long, Long> folderOwnerMap; // folder_id -> owner_user_id
+    private Integer topK;
+
+    // Local only - sent as the X-Search-Deadline-Ms header, not in the body
+    @JsonIgnore
+    private SearchDeadline deadline;
+
+    public BatchSearchServiceRequest(
+            Long userId, List<String> queries, List<Long> folderIds, Map<Long, Long> folderOwnerMap, Integer topK) {
+        this(userId, queries, folderIds, folderOwnerMap, topK, null);
+    }
+}
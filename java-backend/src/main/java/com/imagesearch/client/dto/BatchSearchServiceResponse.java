@@ -0,0 +1,16 @@
+package com.imagesearch.client.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * Response DTO for batch search - one SearchServiceResponse per query, in request order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchSearchServiceResponse {
+    private List<SearchServiceResponse> results;
+}
@@ -0,0 +1,16 @@
+package com.imagesearch.client.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * Request DTO for encoding image files into CLIP embeddings (without indexing them).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EncodeImagesRequest {
+    private List<EmbedImagesRequest.ImageInfo> images;
+}
@@ -0,0 +1,16 @@
+package com.imagesearch.client.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * Response DTO for encode requests - one embedding per input, in request order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EncodeResponse {
+    private List<float[]> embeddings;
+}
@@ -0,0 +1,16 @@
+package com.imagesearch.client.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * Request DTO for encoding text queries into CLIP embeddings.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EncodeTextRequest {
+    private List<String> texts;
+}
@@ -1,5 +1,7 @@
 package com.imagesearch.client.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.imagesearch.client.SearchDeadline;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -18,4 +20,13 @@ public class SearchServiceRequest {
     private List<Long> folderIds;
     private Map<Long, Long> folderOwnerMap; // folder_id -> owner_user_id
     private Integer topK;
+
+    // Local only - sent as the X-Search-Deadline-Ms header, not in the body
+    @JsonIgnore
+    private SearchDeadline deadline;
+
+    public SearchServiceRequest(
+            Long userId, String query, List<Long> folderIds, Map<Long, Long> folderOwnerMap, Integer topK) {
+        this(userId, query, folderIds, folderOwnerMap, topK, null);
+    }
 }
@@ -1,19 +1,182 @@
 package com.imagesearch.client.dto;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Response DTO from Python search microservice.
+ *
+ * Hits are held in parallel primitive arrays (imageIds, scores, folderIds) rather
+ * than one SearchResult per hit: SearchServiceResponseDeserializer streams them
+ * straight off the wire (JSON or CBOR), and enrichment reads them by index with
+ * imageIdAt/scoreAt/folderIdAt. A response costs a handful of objects whatever
+ * its top-k.
+ *
+ * getResults() still returns SearchResult objects for callers that want them;
+ * they are built on first call.
+ *
+ * A degraded response is missing results it should have had (a failed shard or
+ * node, a circuit breaker fallback, or a search service that stopped at the
+ * deadline). It is good enough to show, but must not be cached. On the wire it is
+ * the search service's partial field.
  */
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
+@JsonDeserialize(using = SearchServiceResponseDeserializer.class)
 public class SearchServiceResponse {
-    private List<SearchResult> results;
+
+    /**
+     * Stored for a missing (null) image or folder ID - database IDs are positive.
+     */
+    public static final long NO_ID = -1L;
+
+    private long[] imageIds;
+    private double[] scores;
+    private long[] folderIds;
+    private int size;
     private Integer total;
+    private boolean degraded;
+
+    // Built by getResults() on first use
+    private List<SearchResult> results;
+
+    public SearchServiceResponse() {
+        this(new long[0], new double[0], new long[0], 0, null);
+    }
+
+    public SearchServiceResponse(List<SearchResult> results, Integer total) {
+        setResults(results);
+        this.total = total;
+    }
+
+    /**
+     * Wrap hit arrays without copying. Only the first size entries are used.
+     */
+    public SearchServiceResponse(long[] imageIds, double[] scores, long[] folderIds, int size, Integer total) {
+        this.imageIds = imageIds;
+        this.scores = scores;
+        this.folderIds = folderIds;
+        this.size = size;
+        this.total = total;
+    }
+
+    /**
+     * Number of hits.
+     */
+    public int size() {
+        return size;
+    }
+
+    public long imageIdAt(int index) {
+        return imageIds[index];
+    }
+
+    public double scoreAt(int index) {
+        return scores[index];
+    }
+
+    public long folderIdAt(int index) {
+        return folderIds[index];
+    }
+
+    /**
+     * Hits [from, to) as a new response (arrays are copied).
+     */
+    public SearchServiceResponse slice(int from, int to) {
+        return new SearchServiceResponse(
+                Arrays.copyOfRange(imageIds, from, to),
+                Arrays.copyOfRange(scores, from, to),
+                Arrays.copyOfRange(folderIds, from, to),
+                to - from,
+                to - from);
+    }
+
+    public List<SearchResult> getResults() {
+        if (results == null) {
+            List<SearchResult> materialized = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                materialized.add(new SearchResult(boxed(imageIds[i]), scores[i], boxed(folderIds[i])));
+            }
+            results = Collections.unmodifiableList(materialized);
+        }
+        return results;
+    }
+
+    public void setResults(List<SearchResult> results) {
+        List<SearchResult> hits = results != null ? results : List.of();
+        size = hits.size();
+        imageIds = new long[size];
+        scores = new double[size];
+        folderIds = new long[size];
+        for (int i = 0; i < size; i++) {
+            SearchResult hit = hits.get(i);
+            imageIds[i] = hit.getImageId() != null ? hit.getImageId() : NO_ID;
+            scores[i] = hit.getScore() != null ? hit.getScore() : 0.0;
+            folderIds[i] = hit.getFolderId() != null ? hit.getFolderId() : NO_ID;
+        }
+        this.results = null;
+    }
+
+    public Integer getTotal() {
+        return total;
+    }
+
+    public void setTotal(Integer total) {
+        this.total = total;
+    }
+
+    /**
+     * Whether results are missing (see class comment) - such responses are not cached.
+     */
+    @JsonProperty("partial")
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    public void setDegraded(boolean degraded) {
+        this.degraded = degraded;
+    }
+
+    private static Long boxed(long id) {
+        return id != NO_ID ? id : null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SearchServiceResponse other)) {
+            return false;
+        }
+        return size == other.size
+                && Objects.equals(total, other.total)
+                && Arrays.equals(imageIds, 0, size, other.imageIds, 0, size)
+                && Arrays.equals(scores, 0, size, other.scores, 0, size)
+                && Arrays.equals(folderIds, 0, size, other.folderIds, 0, size);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Objects.hashCode(total);
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + Long.hashCode(imageIds[i]);
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchServiceResponse(results=" + getResults() + ", total=" + total
+                + (degraded ? ", degraded" : "") + ")";
+    }
 
     @Data
     @NoArgsConstructor
@@ -0,0 +1,106 @@
+package com.imagesearch.client.dto;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Streaming decoder for search responses: reads hits token by token into
+ * SearchServiceResponse's primitive arrays, with no per-hit objects.
+ *
+ * Works on any Jackson parser, so the same code decodes JSON and CBOR bodies
+ * (see WireCodec). Field names are the wire names (snake_case, as sent by the
+ * search services); unknown fields are skipped. partial=true (the search service
+ * stopped at the deadline) marks the response degraded.
+ */
+public class SearchServiceResponseDeserializer extends StdDeserializer<SearchServiceResponse> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    public SearchServiceResponseDeserializer() {
+        super(SearchServiceResponse.class);
+    }
+
+    @Override
+    public SearchServiceResponse deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            return (SearchServiceResponse) ctxt.handleUnexpectedToken(SearchServiceResponse.class, p);
+        }
+
+        Hits hits = new Hits();
+        Integer total = null;
+        boolean partial = false;
+        for (String field = p.nextFieldName(); field != null; field = p.nextFieldName()) {
+            JsonToken value = p.nextToken();
+            switch (field) {
+                case "results" -> readResults(p, ctxt, hits);
+                case "total" -> total = value == JsonToken.VALUE_NULL ? null : p.getValueAsInt();
+                case "partial" -> partial = value == JsonToken.VALUE_TRUE;
+                default -> p.skipChildren();
+            }
+        }
+        SearchServiceResponse response =
+                new SearchServiceResponse(hits.imageIds, hits.scores, hits.folderIds, hits.size, total);
+        response.setDegraded(partial);
+        return response;
+    }
+
+    private void readResults(JsonParser p, DeserializationContext ctxt, Hits hits) throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_NULL) {
+            return;
+        }
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            ctxt.handleUnexpectedToken(SearchServiceResponse.class, p);
+            return;
+        }
+
+        while (p.nextToken() == JsonToken.START_OBJECT) {
+            long imageId = SearchServiceResponse.NO_ID;
+            double score = 0.0;
+            long folderId = SearchServiceResponse.NO_ID;
+            for (String field = p.nextFieldName(); field != null; field = p.nextFieldName()) {
+                JsonToken value = p.nextToken();
+                if (value == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                switch (field) {
+                    case "image_id" -> imageId = p.getValueAsLong();
+                    case "score" -> score = p.getValueAsDouble();
+                    case "folder_id" -> folderId = p.getValueAsLong();
+                    default -> p.skipChildren();
+                }
+            }
+            hits.add(imageId, score, folderId);
+        }
+        if (p.currentToken() != JsonToken.END_ARRAY) {
+            ctxt.handleUnexpectedToken(SearchServiceResponse.SearchResult.class, p);
+        }
+    }
+
+    /**
+     * Growable parallel arrays; handed to the response as-is (no trim copy).
+     */
+    private static final class Hits {
+        long[] imageIds = new long[INITIAL_CAPACITY];
+        double[] scores = new double[INITIAL_CAPACITY];
+        long[] folderIds = new long[INITIAL_CAPACITY];
+        int size;
+
+        void add(long imageId, double score, long folderId) {
+            if (size == imageIds.length) {
+                int capacity = size * 2;
+                imageIds = Arrays.copyOf(imageIds, capacity);
+                scores = Arrays.copyOf(scores, capacity);
+                folderIds = Arrays.copyOf(folderIds, capacity);
+            }
+            imageIds[size] = imageId;
+            scores[size] = score;
+            folderIds[size] = folderId;
+            size++;
+        }
+    }
+}
@@ -1,16 +1,21 @@
 package com.imagesearch.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * Configuration for async task execution.
  * 
  * Used for background processing of image embeddings during bulk uploads.
  * Allows upload API to return immediately while embeddings are generated in background.
+ *
+ * Also provides the bounded executors for parallel multi-folder search fan-out,
+ * for the enrichment step of non-blocking searches and for embedded vector scoring.
  */
 @Configuration
 public class AsyncConfig {
@@ -43,4 +48,102 @@ public class AsyncConfig {
     public Executor embeddingExecutor() {
         return taskExecutor();
     }
+
+    /**
+     * Bounded executor for search fan-out (one task per folder shard).
+     *
+     * Kept separate from the embedding executor so bulk uploads can't starve
+     * interactive searches. When saturated, the calling request thread runs
+     * the shard itself (CallerRunsPolicy) instead of failing the search.
+     */
+    @Bean(name = "searchFanOutExecutor")
+    public Executor searchFanOutExecutor(
+            @Value("${search.fan-out.max-threads:16}") int maxThreads,
+            @Value("${search.fan-out.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, maxThreads / 2));
+        executor.setMaxPoolSize(maxThreads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("search-fanout-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Executor for the enrichment step of non-blocking searches.
+     *
+     * Search responses arrive on Reactor Netty I/O threads, which must never run
+     * JDBC. Enrichment is handed off here instead. Sized like a small JDBC worker
+     * pool - the Hikari pool (default 10 connections) is the real limit anyway.
+     */
+    @Bean(name = "searchEnrichmentExecutor")
+    public Executor searchEnrichmentExecutor(
+            @Value("${search.enrichment.max-threads:10}") int maxThreads,
+            @Value("${search.enrichment.queue-capacity:500}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxThreads);
+        executor.setMaxPoolSize(maxThreads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("search-enrich-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Executor for in-process vector scoring (search.backend.type=embedded).
+     *
+     * Scoring is pure CPU work, so one thread per core is enough. It also keeps the
+     * scan off the Reactor Netty I/O thread that delivers the query embedding.
+     */
+    @Bean(name = "vectorSearchExecutor")
+    public Executor vectorSearchExecutor(
+            @Value("${embedded-search.max-threads:0}") int maxThreads,
+            @Value("${embedded-search.queue-capacity:500}") int queueCapacity) {
+        int threads = maxThreads > 0 ? maxThreads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("vector-search-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Single thread for removing stale image IDs from search indexes.
+     *
+     * Searches hand deletes off here and never wait for the index write. When the
+     * queue is full, deletes are dropped - a search that returns the ID again
+     * reports it again.
+     */
+    @Bean(name = "staleImageExecutor")
+    public Executor staleImageExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("stale-image-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Single thread for merging embedded-search segments in the background.
+     * One merge at a time bounds the extra disk I/O; duplicate requests for a
+     * folder are ignored by the index while a merge is running.
+     */
+    @Bean(name = "vectorCompactionExecutor")
+    public Executor vectorCompactionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("vector-compaction-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.initialize();
+        return executor;
+    }
 }
@@ -0,0 +1,65 @@
+package com.imagesearch.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes Reactor Netty connection pool state as gauges, one set per pool and remote node.
+ *
+ * Metrics (visible via /actuator/metrics, tags pool and remote):
+ * - search.pool.active - connections checked out by in-flight calls
+ * - search.pool.idle - open connections ready for reuse
+ * - search.pool.pending - calls waiting for a connection (non-zero = pool starved)
+ * - search.pool.allocated - open connections, active + idle
+ * - search.pool.max - max-connections of the pool
+ */
+class ConnectionPoolMeters implements ConnectionProvider.MeterRegistrar {
+
+    private final MeterRegistry meterRegistry;
+    // pool name + connection pool ID -> its gauges, removed when Reactor Netty drops the pool
+    private final Map<String, List<Meter>> meters = new ConcurrentHashMap<>();
+
+    ConnectionPoolMeters(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+        Tags tags = Tags.of("pool", poolName, "remote", String.valueOf(remoteAddress));
+        meters.put(poolName + "/" + id, List.of(
+                gauge("search.pool.active", "Connections in use", tags, metrics, ConnectionPoolMetrics::acquiredSize),
+                gauge("search.pool.idle", "Idle connections", tags, metrics, ConnectionPoolMetrics::idleSize),
+                gauge("search.pool.pending", "Calls waiting for a connection", tags, metrics,
+                      ConnectionPoolMetrics::pendingAcquireSize),
+                gauge("search.pool.allocated", "Open connections", tags, metrics, ConnectionPoolMetrics::allocatedSize),
+                gauge("search.pool.max", "Maximum connections", tags, metrics, ConnectionPoolMetrics::maxAllocatedSize)));
+    }
+
+    @Override
+    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+        List<Meter> removed = meters.remove(poolName + "/" + id);
+        if (removed != null) {
+            removed.forEach(meterRegistry::remove);
+        }
+    }
+
+    private Meter gauge(String name, String description, Tags tags, ConnectionPoolMetrics metrics,
+                        ToDoubleFunction<ConnectionPoolMetrics> value) {
+        // Strong reference: Reactor Netty does not keep the metrics view it hands out
+        return Gauge.builder(name, metrics, value)
+                .description(description)
+                .tags(tags)
+                .strongReference(true)
+                .register(meterRegistry);
+    }
+}
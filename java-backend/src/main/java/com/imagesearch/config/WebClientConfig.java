@@ -1,13 +1,28 @@
 package com.imagesearch.config;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.imagesearch.client.WireCodec;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
 import org.springframework.http.codec.json.Jackson2JsonDecoder;
 import org.springframework.http.codec.json.Jackson2JsonEncoder;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Configuration for WebClient (HTTP client).
@@ -16,24 +31,142 @@ import org.springframework.web.reactive.function.client.WebClient;
  * Used for calling the Python search microservice.
  *
  * Configured to use snake_case for JSON serialization to match Python conventions.
+ * CBOR codecs with the same naming are registered too, for backends whose
+ * codec is set to cbor (see WireCodec).
+ *
+ * Each search backend gets its own connection pools, one per priority lane, so
+ * neither another backend's traffic nor bulk embedding can starve interactive
+ * searches of connections:
+ * - searchServiceWebClientBuilder - Python search service, search lane (search-service.pool)
+ * - searchServiceEmbedWebClientBuilder - Python search service, embed lane (search-service.embed-pool)
+ * - javaSearchServiceWebClientBuilder - Java search service, search lane (java-search-service.pool)
+ * - javaSearchServiceEmbedWebClientBuilder - Java search service, embed lane (java-search-service.embed-pool)
+ * Pool state is published as search.pool.* gauges (see ConnectionPoolMeters).
  */
 @Configuration
 public class WebClientConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(WebClientConfig.class);
+
+    // Disposed on shutdown - closes the pools' connections
+    private final List<ConnectionProvider> connectionProviders = new CopyOnWriteArrayList<>();
+
+    /**
+     * Builder on Reactor Netty's shared default pool, for calls that are not to a search backend.
+     */
     @Bean
+    @Primary
     public WebClient.Builder webClientBuilder() {
-        // Configure ObjectMapper to use snake_case naming
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+        return WebClient.builder().exchangeStrategies(exchangeStrategies());
+    }
+
+    @Bean
+    public WebClient.Builder searchServiceWebClientBuilder(Environment environment, MeterRegistry meterRegistry) {
+        return pooledWebClientBuilder("search-service", PoolSettings.from(environment, "search-service.pool"),
+                                      meterRegistry);
+    }
+
+    @Bean
+    public WebClient.Builder searchServiceEmbedWebClientBuilder(Environment environment, MeterRegistry meterRegistry) {
+        return pooledWebClientBuilder("search-service-embed", PoolSettings.from(environment, "search-service.embed-pool"),
+                                      meterRegistry);
+    }
+
+    @Bean
+    public WebClient.Builder javaSearchServiceWebClientBuilder(Environment environment, MeterRegistry meterRegistry) {
+        return pooledWebClientBuilder("java-search-service", PoolSettings.from(environment, "java-search-service.pool"),
+                                      meterRegistry);
+    }
+
+    @Bean
+    public WebClient.Builder javaSearchServiceEmbedWebClientBuilder(Environment environment, MeterRegistry meterRegistry) {
+        return pooledWebClientBuilder("java-search-service-embed",
+                                      PoolSettings.from(environment, "java-search-service.embed-pool"), meterRegistry);
+    }
+
+    /**
+     * Builder on a dedicated, instrumented connection pool.
+     *
+     * @param poolName Pool name (pool tag of the search.pool.* gauges)
+     * @param settings Pool sizing and eviction
+     * @param meterRegistry Registry for the pool gauges
+     */
+    public WebClient.Builder pooledWebClientBuilder(String poolName, PoolSettings settings, MeterRegistry meterRegistry) {
+        ConnectionProvider provider = ConnectionProvider.builder(poolName)
+                .maxConnections(settings.maxConnections())
+                .pendingAcquireMaxCount(settings.pendingAcquireMax())
+                .pendingAcquireTimeout(Duration.ofMillis(settings.pendingAcquireTimeoutMs()))
+                .maxIdleTime(Duration.ofMillis(settings.maxIdleMs()))
+                .maxLifeTime(Duration.ofMillis(settings.maxLifeMs()))
+                .evictInBackground(Duration.ofMillis(settings.evictIntervalMs()))
+                .metrics(true, () -> new ConnectionPoolMeters(meterRegistry))
+                .build();
+        connectionProviders.add(provider);
+
+        HttpClient httpClient = HttpClient.create(provider).keepAlive(settings.keepAlive());
+        if (settings.http2()) {
+            // h2c: cleartext HTTP/2, negotiated by upgrade - HTTP/1.1 servers keep working
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+        logger.info("Connection pool '{}': {}", poolName, settings);
 
-        // Configure WebClient to use this ObjectMapper
-        ExchangeStrategies strategies = ExchangeStrategies.builder()
+        return WebClient.builder()
+                .exchangeStrategies(exchangeStrategies())
+                .clientConnector(new ReactorClientHttpConnector(httpClient));
+    }
+
+    @PreDestroy
+    public void disposeConnectionPools() {
+        connectionProviders.forEach(ConnectionProvider::dispose);
+    }
+
+    private static ExchangeStrategies exchangeStrategies() {
+        // Configure WebClient to use snake_case mappers for both wire formats
+        return ExchangeStrategies.builder()
                 .codecs(configurer -> {
-                    configurer.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
-                    configurer.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                    configurer.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(WireCodec.jsonMapper()));
+                    configurer.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(WireCodec.jsonMapper()));
+                    configurer.customCodecs().register(new Jackson2CborEncoder(WireCodec.cborMapper()));
+                    configurer.customCodecs().register(new Jackson2CborDecoder(WireCodec.cborMapper()));
                 })
                 .build();
+    }
+
+    /**
+     * Connection pool settings of one search backend lane.
+     *
+     * @param maxConnections Max open connections per backend node
+     * @param pendingAcquireMax Max calls waiting for a connection; beyond that calls fail fast
+     * @param pendingAcquireTimeoutMs Max wait for a connection before the call fails
+     * @param maxIdleMs Idle connections older than this are closed (keep below the server's keep-alive timeout)
+     * @param maxLifeMs Connections older than this are closed once released
+     * @param evictIntervalMs How often idle/expired connections are evicted in the background
+     * @param keepAlive Reuse connections between calls (HTTP keep-alive)
+     * @param http2 Offer cleartext HTTP/2 (h2c), falling back to HTTP/1.1
+     */
+    public record PoolSettings(
+            int maxConnections,
+            int pendingAcquireMax,
+            long pendingAcquireTimeoutMs,
+            long maxIdleMs,
+            long maxLifeMs,
+            long evictIntervalMs,
+            boolean keepAlive,
+            boolean http2) {
 
-        return WebClient.builder().exchangeStrategies(strategies);
+        /**
+         * Read settings under a prefix (e.g. search-service.pool), with defaults for missing keys.
+         */
+        public static PoolSettings from(Environment environment, String prefix) {
+            return new PoolSettings(
+                    environment.getProperty(prefix + ".max-connections", Integer.class, 50),
+                    environment.getProperty(prefix + ".pending-acquire-max", Integer.class, 200),
+                    environment.getProperty(prefix + ".pending-acquire-timeout-ms", Long.class, 5_000L),
+                    environment.getProperty(prefix + ".max-idle-ms", Long.class, 4_000L),
+                    environment.getProperty(prefix + ".max-life-ms", Long.class, 300_000L),
+                    environment.getProperty(prefix + ".evict-interval-ms", Long.class, 10_000L),
+                    environment.getProperty(prefix + ".keep-alive", Boolean.class, true),
+                    environment.getProperty(prefix + ".http2", Boolean.class, false));
+        }
     }
 }
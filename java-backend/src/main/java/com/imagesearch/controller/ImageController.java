@@ -1,18 +1,32 @@
 package com.imagesearch.controller;
 
+import com.imagesearch.client.SearchDeadline;
+import com.imagesearch.exception.SearchDeadlineExceededException;
+import com.imagesearch.exception.SearchOverloadedException;
+import com.imagesearch.exception.SearchServiceUnavailableException;
+import com.imagesearch.model.dto.request.BatchSearchRequest;
+import com.imagesearch.model.dto.response.BatchSearchResponse;
+import com.imagesearch.model.dto.response.ErrorResponse;
 import com.imagesearch.model.dto.response.SearchResponse;
 import com.imagesearch.model.dto.response.UploadResponse;
 import com.imagesearch.service.ImageService;
 import com.imagesearch.service.SearchService;
 import com.imagesearch.service.SessionService;
+import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * REST Controller for image management endpoints.
@@ -20,6 +34,8 @@ import java.util.List;
  * RESTful API design:
  * - POST /api/images/upload - Upload images to a folder
  * - GET /api/images/search - Search images by text query
+ * - GET /api/images/search/stream - Same search, streamed as Server-Sent Events
+ * - POST /api/images/search/batch - Search many text queries in one call
  *
  * Demonstrates:
  * - Multipart file upload handling
@@ -78,29 +94,148 @@ public class ImageController {
      * - token: Session token
      * - query: Search query text
      * - folder_ids: Optional comma-separated folder IDs
-     * - top_k: Number of results (default 5)
+     * - top_k: Number of results (default 5), the page size when paginating
+     * - paginate: true to get a next_cursor for further pages (default false)
+     * - cursor: next_cursor of the previous page; query, folder_ids and top_k are
+     *   then taken from the original search and may be omitted
+     *
+     * Optional header X-Search-Deadline-Ms: the client's time budget. The search
+     * answers 504 once it runs out (capped at search.deadline.max-ms, defaults to
+     * search.deadline.default-ms); folders not searched in time are left out.
+     *
+     * Under overload (search.concurrency-limit) the search is shed with 503 and a
+     * Retry-After header rather than queued behind slow searches.
+     *
+     * Non-blocking: returns a CompletableFuture, so Spring MVC releases the Tomcat
+     * worker thread while the search service runs CLIP inference + FAISS search.
+     * The response is written when the future completes (async dispatch).
+     * Pages after the first never call the search service.
      */
     @GetMapping("/search")
-    public ResponseEntity<SearchResponse> searchImages(
+    public CompletableFuture<ResponseEntity<SearchResponse>> searchImages(
+            @RequestParam("token") String token,
+            @RequestParam(value = "query", required = false) String query,
+            @RequestParam(value = "folder_ids", required = false) String folderIdsParam,
+            @RequestParam(value = "top_k", defaultValue = "5") Integer topK,
+            @RequestParam(value = "paginate", defaultValue = "false") boolean paginate,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestHeader(value = SearchDeadline.HEADER, required = false) Long deadlineMs) {
+
+        // Started first, so the budget covers session and ACL checks too
+        SearchDeadline deadline = searchService.startDeadline(deadlineMs);
+        Long userId = sessionService.validateTokenAndGetUserId(token);
+
+        if (cursor != null && !cursor.isEmpty()) {
+            logger.info("Search next page request: user={}", userId);
+            return CompletableFuture.completedFuture(ResponseEntity.ok(searchService.nextPage(userId, cursor)));
+        }
+
+        logger.info("Search images request: user={}, query='{}', topK={}, paginate={}",
+                    userId, query, topK, paginate);
+
+        List<Long> folderIds = parseFolderIds(folderIdsParam);
+        CompletableFuture<SearchResponse> response = paginate
+                ? searchService.searchFirstPageAsync(userId, query, folderIds, topK, deadline)
+                : searchService.searchImagesAsync(userId, query, folderIds, topK, deadline);
+        return response.thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * Search images by text query, streaming results as they arrive.
+     * GET /api/images/search/stream?token=xxx&query=sunset&folder_ids=1,2&top_k=5
+     *
+     * Same query params and X-Search-Deadline-Ms header as /search. Events:
+     * - partial: one folder's enriched results, sent as soon as that folder is scored
+     * - final: the globally ranked top-k (same body as /search), then the stream closes
+     * - error: { detail, status } if the search failed, then the stream closes
+     *
+     * Token and folder access are checked before the stream opens, so those failures
+     * are plain HTTP errors. Cached searches send just the final event.
+     */
+    @GetMapping(value = "/search/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSearchImages(
             @RequestParam("token") String token,
             @RequestParam("query") String query,
             @RequestParam(value = "folder_ids", required = false) String folderIdsParam,
-            @RequestParam(value = "top_k", defaultValue = "5") Integer topK) {
+            @RequestParam(value = "top_k", defaultValue = "5") Integer topK,
+            @RequestHeader(value = SearchDeadline.HEADER, required = false) Long deadlineMs) {
 
+        SearchDeadline deadline = searchService.startDeadline(deadlineMs);
         Long userId = sessionService.validateTokenAndGetUserId(token);
-        logger.info("Search images request: user={}, query='{}', topK={}",
+        logger.info("Stream search images request: user={}, query='{}', topK={}",
                     userId, query, topK);
 
-        // Parse folder_ids from comma-separated string
-        List<Long> folderIds = null;
-        if (folderIdsParam != null && !folderIdsParam.isEmpty()) {
-            folderIds = Arrays.stream(folderIdsParam.split(","))
-                    .map(String::trim)
-                    .map(Long::parseLong)
-                    .toList();
-        }
+        List<Long> folderIds = parseFolderIds(folderIdsParam);
+        // No explicit timeout: spring.mvc.async.request-timeout applies, as for /search
+        SseEmitter emitter = new SseEmitter();
+        searchService.streamSearchImages(userId, query, folderIds, topK, deadline,
+                        partial -> sendEvent(emitter, "partial", partial))
+                .whenComplete((response, ex) -> {
+                    if (ex == null) {
+                        sendEvent(emitter, "final", response);
+                    } else {
+                        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                        logger.warn("Stream search failed: user={}, query='{}': {}", userId, query, cause.getMessage());
+                        int status = cause instanceof SearchServiceUnavailableException
+                                || cause instanceof SearchOverloadedException
+                                ? HttpStatus.SERVICE_UNAVAILABLE.value()
+                                : cause instanceof SearchDeadlineExceededException
+                                ? HttpStatus.GATEWAY_TIMEOUT.value()
+                                : HttpStatus.INTERNAL_SERVER_ERROR.value();
+                        sendEvent(emitter, "error", new ErrorResponse(cause.getMessage(), status));
+                    }
+                    emitter.complete();
+                });
+        return emitter;
+    }
 
-        SearchResponse response = searchService.searchImages(userId, query, folderIds, topK);
+    /**
+     * Search images with many text queries in one round trip.
+     * POST /api/images/search/batch
+     *
+     * Body: { "token": "...", "queries": ["sunset", "dog"], "folder_ids": [1, 2], "top_k": 5 }
+     *
+     * Session and folder access are checked once for the whole batch, and only
+     * queries not already cached are sent to the search service.
+     *
+     * Optional header X-Search-Deadline-Ms, as for /search: the search service call
+     * gets the remaining budget, and the batch answers 504 once it runs out.
+     */
+    @PostMapping("/search/batch")
+    public ResponseEntity<BatchSearchResponse> batchSearchImages(
+            @Valid @RequestBody BatchSearchRequest request,
+            @RequestHeader(value = SearchDeadline.HEADER, required = false) Long deadlineMs) {
+        SearchDeadline deadline = searchService.startDeadline(deadlineMs);
+        Long userId = sessionService.validateTokenAndGetUserId(request.getToken());
+        logger.info("Batch search images request: user={}, queries={}, topK={}",
+                    userId, request.getQueries().size(), request.getTopK());
+
+        BatchSearchResponse response = searchService.batchSearchImages(
+            userId, request.getQueries(), request.getFolderIds(), request.getTopK(), deadline);
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Parse folder_ids from a comma-separated string (null = all accessible folders).
+     */
+    private static List<Long> parseFolderIds(String folderIdsParam) {
+        if (folderIdsParam == null || folderIdsParam.isEmpty()) {
+            return null;
+        }
+        return Arrays.stream(folderIdsParam.split(","))
+                .map(String::trim)
+                .map(Long::parseLong)
+                .toList();
+    }
+
+    /**
+     * Send one named SSE event. A client that went away only loses the rest of its stream.
+     */
+    private static void sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Dropping '{}' event, stream closed: {}", name, e.getMessage());
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package com.imagesearch.exception;
 
 import com.imagesearch.model.dto.response.ErrorResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -114,6 +115,38 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.SERVICE_UNAVAILABLE);
     }
 
+    /**
+     * Handle searches shed by the concurrency limit (503 with Retry-After).
+     */
+    @ExceptionHandler(SearchOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleSearchOverloaded(
+            SearchOverloadedException ex, WebRequest request) {
+        ErrorResponse error = new ErrorResponse(
+            ex.getMessage(),
+            HttpStatus.SERVICE_UNAVAILABLE.value(),
+            LocalDateTime.now(),
+            request.getDescription(false).replace("uri=", "")
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+                .body(error);
+    }
+
+    /**
+     * Handle searches whose time budget ran out (504).
+     */
+    @ExceptionHandler(SearchDeadlineExceededException.class)
+    public ResponseEntity<ErrorResponse> handleSearchDeadlineExceeded(
+            SearchDeadlineExceededException ex, WebRequest request) {
+        ErrorResponse error = new ErrorResponse(
+            ex.getMessage(),
+            HttpStatus.GATEWAY_TIMEOUT.value(),
+            LocalDateTime.now(),
+            request.getDescription(false).replace("uri=", "")
+        );
+        return new ResponseEntity<>(error, HttpStatus.GATEWAY_TIMEOUT);
+    }
+
     /**
      * Handle validation errors from @Valid annotations (422).
      */
@@ -0,0 +1,11 @@
+package com.imagesearch.exception;
+
+/**
+ * Exception thrown when a search's time budget ran out before any results were found.
+ * Results in HTTP 504 status.
+ */
+public class SearchDeadlineExceededException extends RuntimeException {
+    public SearchDeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,19 @@
+package com.imagesearch.exception;
+
+/**
+ * Exception thrown when a search is shed because the backend is at its concurrency limit.
+ * Results in HTTP 503 status with a Retry-After header.
+ */
+public class SearchOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public SearchOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,28 @@
+package com.imagesearch.model.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * Request DTO for searching many queries over the same folders in one call.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchSearchRequest {
+
+    @NotBlank(message = "Token is required")
+    private String token;
+
+    @NotEmpty(message = "At least one query is required")
+    @Size(max = 50, message = "At most 50 queries per batch")
+    private List<String> queries;
+
+    private List<Long> folderIds;
+    private Integer topK = 5;
+}
@@ -0,0 +1,24 @@
+package com.imagesearch.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * Response DTO for batch image search - one entry per query, in request order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchSearchResponse {
+    private List<QueryResults> searches;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class QueryResults {
+        private String query;
+        private List<SearchResponse.ImageSearchResult> results;
+    }
+}
@@ -1,5 +1,6 @@
 package com.imagesearch.model.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -14,6 +15,14 @@ import java.util.List;
 public class SearchResponse {
     private List<ImageSearchResult> results;
 
+    // Opaque cursor for the next page of a paginated search (omitted when there is none)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
+    public SearchResponse(List<ImageSearchResult> results) {
+        this.results = results;
+    }
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
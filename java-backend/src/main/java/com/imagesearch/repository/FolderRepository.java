@@ -51,4 +51,17 @@ public interface FolderRepository extends JpaRepository<Folder, Long> {
            "LEFT JOIN FolderShare fs ON fs.folder = f " +
            "WHERE f.user.id = :userId OR fs.sharedWithUser.id = :userId")
     List<Folder> findAllAccessibleFolders(@Param("userId") Long userId);
+
+    /**
+     * Get the access scope of a user in one query: (folder_id, owner_id, permission)
+     * for every folder they own or that is shared with them.
+     * Permission is null for owned folders. No entities are hydrated.
+     *
+     * @param userId The user ID
+     * @return Rows of [Long folderId, Long ownerId, String permission]
+     */
+    @Query("SELECT f.id, f.user.id, fs.permission FROM Folder f " +
+           "LEFT JOIN FolderShare fs ON fs.folder = f AND fs.sharedWithUser.id = :userId " +
+           "WHERE f.user.id = :userId OR fs.sharedWithUser.id = :userId")
+    List<Object[]> findAccessScope(@Param("userId") Long userId);
 }
@@ -2,10 +2,14 @@ package com.imagesearch.repository;
 
 import com.imagesearch.model.entity.Image;
 import com.imagesearch.model.entity.Folder;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.Set;
 
@@ -46,4 +50,18 @@ public interface ImageRepository extends JpaRepository<Image, Long> {
      */
     @Query("SELECT i FROM Image i WHERE i.id IN :imageIds")
     List<Image> findAllByIdIn(@Param("imageIds") Set<Long> imageIds);
+
+    /**
+     * Batch lookup of just what search enrichment needs: (image_id, filepath, folder_id).
+     * No entities are hydrated - no User/Folder proxies, nothing enters the persistence
+     * context and there are no dirty-check snapshots. folder_id is read from the
+     * images row itself (no join).
+     *
+     * @param imageIds Set of image IDs to retrieve
+     * @return Rows of [Long imageId, String filepath, Long folderId] (missing IDs are absent)
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT i.id, i.filepath, i.folder.id FROM Image i WHERE i.id IN :imageIds")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Object[]> findPathsByIdIn(@Param("imageIds") Set<Long> imageIds);
 }
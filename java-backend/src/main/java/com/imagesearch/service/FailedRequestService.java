@@ -32,6 +32,7 @@ public class FailedRequestService {
     private final FailedIndexDeletionRepository failedIndexDeletionRepository;
     private final SearchClient searchClient;
     private final ObjectMapper objectMapper;
+    private final SearchResultCache searchResultCache;
 
     @Value("${search-service.retry.max-attempts:5}")
     private int maxRetryAttempts;
@@ -117,6 +118,9 @@ public class FailedRequestService {
 
                 searchClient.embedImages(embedRequest);
 
+                // New vectors in this folder - cached search results for it are now stale
+                searchResultCache.invalidateFolder(request.getFolderId());
+
                 // Success - mark as succeeded
                 request.setStatus("SUCCEEDED");
                 request.setLastRetryAt(LocalDateTime.now());
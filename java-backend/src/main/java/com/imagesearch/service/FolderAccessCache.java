@@ -0,0 +1,230 @@
+package com.imagesearch.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-memory cache of per-user folder access scopes.
+ *
+ * Every search resolves which folders the user may read and who owns them
+ * (owner ID is needed for index paths). Without a cache that is one DISTINCT
+ * LEFT JOIN per search, or three queries per folder when folder IDs are given.
+ *
+ * Key design:
+ * - Scope = folder_id -> (owner_id, permission) for every folder the user owns or
+ *   has been shared, loaded with a single query on first use
+ * - Maintained incrementally by FolderService (create, share, delete) so a warm
+ *   scope never needs a database round trip. Updates made inside a transaction are
+ *   applied after commit, so a rolled-back share never grants access
+ * - Eviction = LRU over users when max-users is exceeded, plus a TTL per scope as a
+ *   backstop for changes made outside this process
+ * - A global version counter is bumped on every change; a scope loaded while a change
+ *   was committing is not stored (same snapshot-before-load idea as SearchResultCache)
+ *
+ * Metrics (visible via /actuator/metrics):
+ * - acl.cache.hits, acl.cache.misses
+ * - acl.cache.users
+ */
+@Component
+public class FolderAccessCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(FolderAccessCache.class);
+
+    public static final String OWNER_PERMISSION = "owner";
+
+    private final boolean enabled;
+    private final int maxUsers;
+    private final long ttlNanos;
+
+    // Access-ordered LinkedHashMap = simple LRU. Guarded by synchronized(scopes).
+    private final LinkedHashMap<Long, Scope> scopes = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Bumped on every change to folder ownership or sharing
+    private final AtomicLong version = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public FolderAccessCache(
+            @Value("${acl-cache.enabled:true}") boolean enabled,
+            @Value("${acl-cache.max-users:10000}") int maxUsers,
+            @Value("${acl-cache.ttl-seconds:600}") long ttlSeconds,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxUsers = maxUsers;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+
+        this.hits = Counter.builder("acl.cache.hits")
+                .description("Folder access scopes served from cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("acl.cache.misses")
+                .description("Folder access scopes loaded from the database")
+                .register(meterRegistry);
+        Gauge.builder("acl.cache.users", scopes, this::sizeOf)
+                .description("Number of users with a cached folder access scope")
+                .register(meterRegistry);
+
+        logger.info("FolderAccessCache initialized: enabled={}, maxUsers={}, ttl={}s",
+                    enabled, maxUsers, ttlSeconds);
+    }
+
+    /**
+     * Look up a user's cached access scope.
+     *
+     * @param userId User ID
+     * @return Copy of folder_id -> access, or empty on miss / expiry
+     */
+    public Optional<Map<Long, FolderAccess>> get(Long userId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        synchronized (scopes) {
+            Scope scope = scopes.get(userId);
+            if (scope == null) {
+                misses.increment();
+                return Optional.empty();
+            }
+            if (System.nanoTime() - scope.loadedAtNanos > ttlNanos) {
+                scopes.remove(userId);
+                misses.increment();
+                return Optional.empty();
+            }
+            hits.increment();
+            return Optional.of(new LinkedHashMap<>(scope.folders));
+        }
+    }
+
+    /**
+     * Current change version. Must be read BEFORE loading a scope from the database.
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Store a scope loaded from the database.
+     *
+     * @param userId User ID
+     * @param versionBeforeLoad Value of {@link #version()} read before the load
+     * @param folders folder_id -> access for every folder the user can read
+     */
+    public void put(Long userId, long versionBeforeLoad, Map<Long, FolderAccess> folders) {
+        if (!enabled || userId == null || folders == null) {
+            return;
+        }
+
+        synchronized (scopes) {
+            // A change committed while we were loading - the loaded scope may predate it
+            if (version.get() != versionBeforeLoad) {
+                return;
+            }
+            scopes.put(userId, new Scope(new LinkedHashMap<>(folders), System.nanoTime()));
+            Iterator<Map.Entry<Long, Scope>> eldest = scopes.entrySet().iterator();
+            while (scopes.size() > maxUsers && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Record that a user gained access to a folder (created it or it was shared).
+     * Only updates the user's scope if it is cached - otherwise the next load sees it.
+     *
+     * @param userId User who gained access
+     * @param folderId Folder ID
+     * @param access Owner and permission
+     */
+    public void grant(Long userId, Long folderId, FolderAccess access) {
+        afterCommit(() -> {
+            synchronized (scopes) {
+                version.incrementAndGet();
+                Scope scope = scopes.get(userId);
+                if (scope != null) {
+                    scope.folders.put(folderId, access);
+                }
+            }
+            logger.debug("Granted user {} access to folder {} in ACL cache", userId, folderId);
+        });
+    }
+
+    /**
+     * Remove a deleted folder from every cached scope (owner and all share recipients).
+     *
+     * @param folderId Folder ID
+     */
+    public void removeFolder(Long folderId) {
+        afterCommit(() -> {
+            synchronized (scopes) {
+                version.incrementAndGet();
+                for (Scope scope : scopes.values()) {
+                    scope.folders.remove(folderId);
+                }
+            }
+            logger.debug("Removed folder {} from ACL cache", folderId);
+        });
+    }
+
+    /**
+     * Drop a deleted user's scope and every folder they owned from other users' scopes.
+     *
+     * @param userId Deleted user ID
+     */
+    public void removeUser(Long userId) {
+        afterCommit(() -> {
+            synchronized (scopes) {
+                version.incrementAndGet();
+                scopes.remove(userId);
+                for (Scope scope : scopes.values()) {
+                    scope.folders.values().removeIf(access -> userId.equals(access.ownerId()));
+                }
+            }
+            logger.debug("Removed user {} from ACL cache", userId);
+        });
+    }
+
+    /**
+     * Run a cache update once the surrounding transaction commits (immediately if there
+     * is none). Until commit, other requests still see the old rows, so updating earlier
+     * could let a concurrent load re-cache them or expose a share that later rolls back.
+     */
+    private static void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    private double sizeOf(Map<Long, Scope> map) {
+        synchronized (scopes) {
+            return map.size();
+        }
+    }
+
+    /**
+     * Access to one folder: its owner and the user's permission ("owner", "view", ...).
+     */
+    public record FolderAccess(Long ownerId, String permission) {}
+
+    private record Scope(Map<Long, FolderAccess> folders, long loadedAtNanos) {}
+}
@@ -27,8 +27,11 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Stream;
 
 /**
@@ -51,6 +54,9 @@ public class FolderService {
     private final UserRepository userRepository;
     private final SearchClient searchClient;
     private final FailedRequestService failedRequestService;
+    private final SearchResultCache searchResultCache;
+    private final FolderAccessCache folderAccessCache;
+    private final ImagePathCache imagePathCache;
 
     public FolderService(
             FolderRepository folderRepository,
@@ -58,13 +64,19 @@ public class FolderService {
             ImageRepository imageRepository,
             UserRepository userRepository,
             SearchClient searchClient,
-            FailedRequestService failedRequestService) {
+            FailedRequestService failedRequestService,
+            SearchResultCache searchResultCache,
+            FolderAccessCache folderAccessCache,
+            ImagePathCache imagePathCache) {
         this.folderRepository = folderRepository;
         this.folderShareRepository = folderShareRepository;
         this.imageRepository = imageRepository;
         this.userRepository = userRepository;
         this.searchClient = searchClient;
         this.failedRequestService = failedRequestService;
+        this.searchResultCache = searchResultCache;
+        this.folderAccessCache = folderAccessCache;
+        this.imagePathCache = imagePathCache;
     }
 
     /**
@@ -138,6 +150,9 @@ public class FolderService {
                     // Create search index (delegates to active backend)
                     searchClient.createIndex(userId, savedFolder.getId());
 
+                    folderAccessCache.grant(userId, savedFolder.getId(),
+                            new FolderAccessCache.FolderAccess(userId, FolderAccessCache.OWNER_PERMISSION));
+
                     logger.info("Created new folder: id={}, name={}", savedFolder.getId(), folderName);
                     return savedFolder;
                 });
@@ -148,7 +163,7 @@ public class FolderService {
      *
      * Performs complete cleanup:
      * 1. Delete database records (folders, images, shares)
-     * 2. Delete physical image files from filesystem
+     * 2. Delete physical image files from filesystem and invalidate cached search results / ACLs
      * 3. Delete FAISS indexes via Python service
      *
      * @param request Delete request with folder IDs
@@ -183,6 +198,9 @@ public class FolderService {
 
             // 2. Delete physical files
             deletePhysicalFolder(userId, folderId);
+            searchResultCache.invalidateFolder(folderId);
+            folderAccessCache.removeFolder(folderId);
+            imagePathCache.invalidateFolder(folderId);
 
             // 3. Delete search index (delegates to active backend)
             // If fails, add to retry queue for automatic cleanup when service recovers
@@ -246,6 +264,8 @@ public class FolderService {
         share.setPermission(request.getPermission());
 
         folderShareRepository.save(share);
+        folderAccessCache.grant(targetUser.getId(), folderId,
+                new FolderAccessCache.FolderAccess(userId, share.getPermission()));
         logger.info("Folder shared successfully");
     }
 
@@ -281,6 +301,67 @@ public class FolderService {
         return folder;
     }
 
+    /**
+     * Resolve the folders a search may cover and their owners.
+     *
+     * Served from the user's cached access scope (one query on a cold cache, none
+     * when warm). Requested folders missing from the scope fall back to
+     * {@link #checkFolderAccess}, which throws the usual not-found / forbidden errors
+     * (and picks up shares made outside this process before the scope expires).
+     *
+     * @param userId User ID
+     * @param folderIds Requested folder IDs (null or empty = all accessible folders)
+     * @return folder_id -> owner_id, in request order
+     * @throws ForbiddenException if a requested folder is not accessible
+     */
+    public Map<Long, Long> resolveSearchScope(@NonNull Long userId, List<Long> folderIds) {
+        Objects.requireNonNull(userId, "userId cannot be null");
+
+        Map<Long, FolderAccessCache.FolderAccess> scope = getAccessScope(userId);
+        Map<Long, Long> folderOwnerMap = new LinkedHashMap<>();
+
+        if (folderIds == null || folderIds.isEmpty()) {
+            scope.forEach((folderId, access) -> folderOwnerMap.put(folderId, access.ownerId()));
+            return folderOwnerMap;
+        }
+
+        for (Long folderId : folderIds) {
+            if (folderId == null) {
+                continue;
+            }
+            FolderAccessCache.FolderAccess access = scope.get(folderId);
+            if (access != null) {
+                folderOwnerMap.put(folderId, access.ownerId());
+            } else {
+                // This throws if user doesn't have access
+                Folder folder = checkFolderAccess(userId, folderId);
+                folderOwnerMap.put(folderId, folder.getUser().getId());
+            }
+        }
+        return folderOwnerMap;
+    }
+
+    /**
+     * Get a user's access scope from cache, loading it with a single query on a miss.
+     */
+    private Map<Long, FolderAccessCache.FolderAccess> getAccessScope(Long userId) {
+        Optional<Map<Long, FolderAccessCache.FolderAccess>> cached = folderAccessCache.get(userId);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        long version = folderAccessCache.version();
+        Map<Long, FolderAccessCache.FolderAccess> scope = new LinkedHashMap<>();
+        for (Object[] row : folderRepository.findAccessScope(userId)) {
+            String permission = row[2] != null ? (String) row[2] : FolderAccessCache.OWNER_PERMISSION;
+            scope.put((Long) row[0], new FolderAccessCache.FolderAccess((Long) row[1], permission));
+        }
+        folderAccessCache.put(userId, version, scope);
+
+        logger.debug("Loaded access scope for user {}: {} folders", userId, scope.size());
+        return scope;
+    }
+
     /**
      * Delete physical folder from filesystem.
      */
@@ -0,0 +1,360 @@
+package com.imagesearch.service;
+
+import com.imagesearch.util.LongObjectHashMap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Memory-bounded cache of image ID -> (filepath, folder) for search enrichment.
+ *
+ * An image's filepath never changes after upload, so once known it can be served
+ * from memory for every later search - a warm cache makes enrichment DB-free.
+ *
+ * Key design:
+ * - Keys are primitive longs ({@link LongObjectHashMap}), no boxed Long per entry
+ * - Populated on upload (ImageService.createDatabaseRecords) and on enrichment misses
+ * - Bounded by an estimate of its heap footprint (max-size-mb), evicting with CLOCK
+ *   (second chance): entries hit since the hand last passed survive one more round
+ * - Folder/user deletion invalidates the folder's entries after commit; a version
+ *   counter rejects rows loaded while a deletion was committing (same
+ *   snapshot-before-load idea as FolderAccessCache)
+ *
+ * Metrics (visible via /actuator/metrics):
+ * - image.path.cache.hits, image.path.cache.misses, image.path.cache.evictions
+ * - image.path.cache.hit.ratio
+ * - image.path.cache.entries, image.path.cache.bytes (estimated footprint)
+ */
+@Component
+public class ImagePathCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImagePathCache.class);
+
+    // Estimated per-entry overhead besides the filepath characters: 2 table slots at load
+    // factor 0.5 (key + reference), clock ring slot, Entry + ImagePath + String objects
+    // and the String's byte[] header. Paths are ASCII, so one byte per character.
+    static final int ENTRY_OVERHEAD_BYTES = 136;
+
+    private final boolean enabled;
+    private final long maxBytes;
+
+    // Guards entries, the clock ring and bytes. Lookups share the read lock.
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongObjectHashMap<Entry> entries = new LongObjectHashMap<>(1024);
+
+    // Keys in insertion order; the head is the clock hand. May hold keys that were
+    // invalidated since - those are skipped when the hand reaches them.
+    private long[] ring = new long[1024];
+    private int ringHead;
+    private int ringSize;
+    private long bytes;
+
+    // Bumped on every invalidation
+    private final AtomicLong version = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public ImagePathCache(
+            @Value("${image-path-cache.enabled:true}") boolean enabled,
+            @Value("${image-path-cache.max-size-mb:64}") long maxSizeMb,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxBytes = maxSizeMb * 1024 * 1024;
+
+        this.hits = Counter.builder("image.path.cache.hits")
+                .description("Image paths served from memory during search enrichment")
+                .register(meterRegistry);
+        this.misses = Counter.builder("image.path.cache.misses")
+                .description("Image paths loaded from the database during search enrichment")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("image.path.cache.evictions")
+                .description("Image paths evicted to stay within max-size-mb")
+                .register(meterRegistry);
+        Gauge.builder("image.path.cache.hit.ratio", this, ImagePathCache::hitRatio)
+                .description("Share of enrichment lookups served from memory")
+                .register(meterRegistry);
+        Gauge.builder("image.path.cache.entries", this, ImagePathCache::entryCount)
+                .description("Number of cached image paths")
+                .register(meterRegistry);
+        Gauge.builder("image.path.cache.bytes", this, ImagePathCache::footprintBytes)
+                .description("Estimated heap footprint of the image path cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        logger.info("ImagePathCache initialized: enabled={}, maxSize={}MB", enabled, maxSizeMb);
+    }
+
+    /**
+     * Look up several images at once.
+     *
+     * @param imageIds Image IDs to look up
+     * @param into Receives every cached path
+     * @return IDs that were not cached (to be loaded from the database)
+     */
+    public Set<Long> getAll(Collection<Long> imageIds, LongObjectHashMap<ImageService.ImagePath> into) {
+        if (!enabled) {
+            misses.increment(imageIds.size());
+            return new HashSet<>(imageIds);
+        }
+
+        Set<Long> missing = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            for (Long imageId : imageIds) {
+                Entry entry = imageId != null ? entries.get(imageId) : null;
+                if (entry != null) {
+                    // Benign race: concurrent readers all set the same flag, and the
+                    // evictor sees it once it takes the write lock
+                    entry.referenced = true;
+                    into.put(imageId, entry.path);
+                } else {
+                    missing.add(imageId);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        hits.increment(imageIds.size() - missing.size());
+        misses.increment(missing.size());
+        return missing;
+    }
+
+    /**
+     * Current invalidation version. Must be read BEFORE loading paths from the database.
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Cache a freshly created image (no database read involved, so no version check).
+     */
+    public void put(ImageService.ImagePath path) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            insert(path);
+            evictIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Cache paths loaded from the database.
+     *
+     * @param versionBeforeLoad Value of {@link #version()} read before the load
+     * @param paths Loaded paths
+     */
+    public void putAll(long versionBeforeLoad, Collection<ImageService.ImagePath> paths) {
+        if (!enabled || paths.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            // A deletion committed while we were loading - the rows may be gone already
+            if (version.get() != versionBeforeLoad) {
+                return;
+            }
+            for (ImageService.ImagePath path : paths) {
+                insert(path);
+            }
+            evictIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drop every cached path of a deleted folder, once the deletion commits.
+     *
+     * @param folderId Folder ID
+     */
+    public void invalidateFolder(Long folderId) {
+        invalidateFolders(Set.of(folderId));
+    }
+
+    /**
+     * Drop every cached path of several deleted folders (e.g. a deleted user's), once the deletion commits.
+     *
+     * @param folderIds Folder IDs
+     */
+    public void invalidateFolders(Collection<Long> folderIds) {
+        if (!enabled || folderIds.isEmpty()) {
+            return;
+        }
+        Set<Long> folders = Set.copyOf(folderIds);
+        afterCommit(() -> {
+            int removed;
+            lock.writeLock().lock();
+            try {
+                version.incrementAndGet();
+                removed = removeFolders(folders);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.debug("Invalidated {} cached image paths for folders {}", removed, folders);
+        });
+    }
+
+    private void insert(ImageService.ImagePath path) {
+        Entry entry = new Entry(path, ENTRY_OVERHEAD_BYTES + path.filepath().length());
+        Entry previous = entries.put(path.id(), entry);
+        bytes += entry.bytes;
+        if (previous != null) {
+            // Same key is already on the ring
+            bytes -= previous.bytes;
+            return;
+        }
+        pushRing(path.id());
+    }
+
+    /**
+     * Advance the clock hand until the footprint is back under the limit.
+     * Caller holds the write lock.
+     */
+    private void evictIfNeeded() {
+        while (bytes > maxBytes && ringSize > 0) {
+            long key = popRing();
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                continue; // invalidated since it was inserted
+            }
+            if (entry.referenced) {
+                entry.referenced = false;
+                pushRing(key);
+            } else {
+                entries.remove(key);
+                bytes -= entry.bytes;
+                evictions.increment();
+            }
+        }
+    }
+
+    private int removeFolders(Set<Long> folders) {
+        long[] doomed = new long[entries.size()];
+        int[] count = {0};
+        entries.forEach((entry, key) -> {
+            if (folders.contains(entry.path.folderId())) {
+                doomed[count[0]++] = key;
+            }
+        });
+        for (int i = 0; i < count[0]; i++) {
+            bytes -= entries.remove(doomed[i]).bytes;
+        }
+        // Stale keys stay on the ring until the hand passes; compact if they dominate
+        if (ringSize > 2 * entries.size() + 1024) {
+            compactRing();
+        }
+        return count[0];
+    }
+
+    private void pushRing(long key) {
+        if (ringSize == ring.length) {
+            compactRing();
+            if (ringSize == ring.length) {
+                long[] grown = new long[ring.length * 2];
+                for (int i = 0; i < ringSize; i++) {
+                    grown[i] = ring[(ringHead + i) % ring.length];
+                }
+                ring = grown;
+                ringHead = 0;
+            }
+        }
+        ring[(ringHead + ringSize) % ring.length] = key;
+        ringSize++;
+    }
+
+    private long popRing() {
+        long key = ring[ringHead];
+        ringHead = (ringHead + 1) % ring.length;
+        ringSize--;
+        return key;
+    }
+
+    /**
+     * Drop ring keys that are no longer cached, keeping clock order.
+     */
+    private void compactRing() {
+        long[] live = new long[ring.length];
+        int n = 0;
+        for (int i = 0; i < ringSize; i++) {
+            long key = ring[(ringHead + i) % ring.length];
+            if (entries.containsKey(key)) {
+                live[n++] = key;
+            }
+        }
+        ring = live;
+        ringHead = 0;
+        ringSize = n;
+    }
+
+    private double hitRatio() {
+        double hitCount = hits.count();
+        double total = hitCount + misses.count();
+        return total == 0 ? 0.0 : hitCount / total;
+    }
+
+    private double entryCount() {
+        return read(entries::size);
+    }
+
+    private double footprintBytes() {
+        return read(() -> bytes);
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Run a cache update once the surrounding transaction commits (immediately if there
+     * is none). Until commit, other requests still see the deleted rows, so invalidating
+     * earlier could let a concurrent enrichment re-cache them.
+     */
+    private static void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    private static final class Entry {
+        final ImageService.ImagePath path;
+        final int bytes;
+        boolean referenced;
+
+        Entry(ImageService.ImagePath path, int bytes) {
+            this.path = path;
+            this.bytes = bytes;
+        }
+    }
+}
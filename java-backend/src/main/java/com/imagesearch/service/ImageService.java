@@ -9,6 +9,7 @@ import com.imagesearch.model.entity.Image;
 import com.imagesearch.model.entity.User;
 import com.imagesearch.repository.ImageRepository;
 import com.imagesearch.repository.UserRepository;
+import com.imagesearch.util.LongObjectHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Async;
@@ -43,6 +44,8 @@ public class ImageService {
     private final FolderService folderService;
     private final SearchClient searchClient;
     private final FailedRequestService failedRequestService;
+    private final SearchResultCache searchResultCache;
+    private final ImagePathCache imagePathCache;
     private final ExecutorService uploadExecutor;
 
     public ImageService(
@@ -50,12 +53,16 @@ public class ImageService {
             UserRepository userRepository,
             FolderService folderService,
             SearchClient searchClient,
-            FailedRequestService failedRequestService) {
+            FailedRequestService failedRequestService,
+            SearchResultCache searchResultCache,
+            ImagePathCache imagePathCache) {
         this.imageRepository = imageRepository;
         this.userRepository = userRepository;
         this.folderService = folderService;
         this.searchClient = searchClient;
         this.failedRequestService = failedRequestService;
+        this.searchResultCache = searchResultCache;
+        this.imagePathCache = imagePathCache;
         this.uploadExecutor = Executors.newFixedThreadPool(
             UPLOAD_THREAD_POOL_SIZE,
             new ThreadFactory() {
@@ -274,6 +281,11 @@ public class ImageService {
                         result.filepath
                     ));
 
+                    // Paths never change, so search enrichment can skip the DB from now on
+                    if (savedImage.getId() != null) {
+                        imagePathCache.put(new ImagePath(savedImage.getId(), result.filepath, folder.getId()));
+                    }
+
                 } catch (Exception e) {
                     logger.error("Failed to create database record for {}: {}", result.filename, e.getMessage());
                 }
@@ -399,6 +411,43 @@ public class ImageService {
                 .collect(Collectors.toMap(Image::getId, img -> img));
     }
 
+    /**
+     * Batch lookup for search enrichment - served from ImagePathCache, with a single
+     * projection query for the misses only.
+     *
+     * Search only needs each hit's filepath, so the query skips what getImagesByIds
+     * pays for every row: entity instantiation, lazy User/Folder proxies, persistence
+     * context registration and dirty-check snapshots. The result is keyed by primitive
+     * image ID, so no Long boxes or map nodes are allocated either.
+     *
+     * Not @Transactional on purpose: a fully cached lookup must not take a connection.
+     *
+     * @param imageIds Set of image IDs
+     * @return imageId -> path (only includes images that exist)
+     */
+    public LongObjectHashMap<ImagePath> getImagePathsByIds(Set<Long> imageIds) {
+        if (imageIds == null || imageIds.isEmpty()) {
+            return new LongObjectHashMap<>(0);
+        }
+
+        LongObjectHashMap<ImagePath> paths = new LongObjectHashMap<>(imageIds.size());
+        Set<Long> missing = imagePathCache.getAll(imageIds, paths);
+        if (missing.isEmpty()) {
+            return paths;
+        }
+
+        long cacheVersion = imagePathCache.version();
+        List<ImagePath> loaded = new ArrayList<>(missing.size());
+        for (Object[] row : imageRepository.findPathsByIdIn(missing)) {
+            long imageId = (Long) row[0];
+            ImagePath path = new ImagePath(imageId, (String) row[1], (Long) row[2]);
+            paths.put(imageId, path);
+            loaded.add(path);
+        }
+        imagePathCache.putAll(cacheVersion, loaded);
+        return paths;
+    }
+
     /**
      * Process image embeddings in batches asynchronously.
      * This prevents timeouts when uploading large numbers of images (100s-1000s).
@@ -437,6 +486,9 @@ public class ImageService {
                 EmbedImagesRequest request = new EmbedImagesRequest(userId, folderId, batch);
                 searchClient.embedImages(request);
 
+                // New vectors in this folder - cached search results for it are now stale
+                searchResultCache.invalidateFolder(folderId);
+
                 logger.info("[ASYNC-THREAD] Embedding batch {}/{} completed successfully", batchNum + 1, totalBatches);
 
                 // Small delay between batches to avoid overwhelming the search service
@@ -461,4 +513,10 @@ public class ImageService {
         logger.info("[ASYNC-THREAD] Completed batch embedding for user {} folder {}: {}/{} images processed",
                    userId, folderId, totalImages, totalImages);
     }
+
+    /**
+     * Enrichment view of an image: just its ID, stored path and folder.
+     */
+    public record ImagePath(long id, String filepath, Long folderId) {
+    }
 }
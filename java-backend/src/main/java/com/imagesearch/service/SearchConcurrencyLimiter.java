@@ -0,0 +1,302 @@
+package com.imagesearch.service;
+
+import com.imagesearch.client.SearchDeadline;
+import com.imagesearch.exception.SearchDeadlineExceededException;
+import com.imagesearch.exception.SearchOverloadedException;
+import com.imagesearch.exception.SearchServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Adaptive concurrency limit for searches that reach the search backend.
+ *
+ * The limit is found with AIMD (additive increase, multiplicative decrease), the
+ * way TCP finds its congestion window:
+ * - A search that took longer than latency-tolerance times the baseline latency,
+ *   timed out or found the search service unavailable is a congestion signal:
+ *   limit *= backoff-ratio
+ * - Otherwise, while the limit is actually in use (at least half of it in flight),
+ *   the limit grows by 1/limit per search - about one per limit's worth of searches
+ * - The limit stays within [min-limit, max-limit]
+ *
+ * The baseline is a moving average of successful search latency over about
+ * baseline-window searches. Congestion is judged relative to it (like the gradient
+ * of Netflix's concurrency-limits) rather than against a fixed threshold: what is
+ * normal depends on index sizes, hardware and CPU vs GPU encoding, and a fixed
+ * threshold below that norm would keep the limit pinned at min-limit. The window
+ * is long, so the baseline follows a lasting change in normal latency but not a
+ * queue building up over a few searches.
+ *
+ * Searches over the limit wait in a bounded FIFO queue (max-queued) for at most
+ * max-wait-ms, or the request's remaining deadline if shorter. A search that finds
+ * the queue full, or is still queued when its wait runs out, is shed at once with
+ * SearchOverloadedException (503 + Retry-After) instead of piling onto an already
+ * slow backend. Waiting never blocks a thread on the async paths.
+ *
+ * Cache hits, blank queries and empty scopes never get here (see SearchService).
+ *
+ * Metrics:
+ * - search.limiter.limit - current concurrency limit
+ * - search.limiter.in-flight - searches holding a slot
+ * - search.limiter.queued - searches waiting for a slot
+ * - search.limiter.rejected - searches shed (tag reason: queue-full, queue-timeout,
+ *   no-budget when the request's deadline left no time to queue)
+ * - search.limiter.baseline - baseline search latency (ms)
+ */
+@Component
+public class SearchConcurrencyLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchConcurrencyLimiter.class);
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final double baselineAlpha;
+    private final int maxQueued;
+    private final long maxWaitMs;
+    private final long retryAfterSeconds;
+
+    // Guarded by synchronized(this)
+    private double limit;
+    private int inFlight;
+    private double baselineNanos = -1; // -1 = no successful search yet
+    private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedQueueTimeout;
+    private final Counter rejectedNoBudget;
+
+    public SearchConcurrencyLimiter(
+            @Value("${search.concurrency-limit.enabled:true}") boolean enabled,
+            @Value("${search.concurrency-limit.initial-limit:20}") int initialLimit,
+            @Value("${search.concurrency-limit.min-limit:4}") int minLimit,
+            @Value("${search.concurrency-limit.max-limit:200}") int maxLimit,
+            @Value("${search.concurrency-limit.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${search.concurrency-limit.latency-tolerance:2.0}") double latencyTolerance,
+            @Value("${search.concurrency-limit.baseline-window:500}") int baselineWindow,
+            @Value("${search.concurrency-limit.max-queued:50}") int maxQueued,
+            @Value("${search.concurrency-limit.max-wait-ms:500}") long maxWaitMs,
+            @Value("${search.concurrency-limit.retry-after-seconds:1}") long retryAfterSeconds,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        // EWMA weight that averages over about baselineWindow samples
+        this.baselineAlpha = 2.0 / (Math.max(1, baselineWindow) + 1);
+        this.maxQueued = Math.max(0, maxQueued);
+        this.maxWaitMs = maxWaitMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+
+        this.rejectedQueueFull = Counter.builder("search.limiter.rejected")
+                .tag("reason", "queue-full")
+                .description("Searches shed because the concurrency limit and its queue were full")
+                .register(meterRegistry);
+        this.rejectedQueueTimeout = Counter.builder("search.limiter.rejected")
+                .tag("reason", "queue-timeout")
+                .description("Searches shed after waiting too long for a concurrency slot")
+                .register(meterRegistry);
+        this.rejectedNoBudget = Counter.builder("search.limiter.rejected")
+                .tag("reason", "no-budget")
+                .description("Searches shed because their deadline left no time to wait for a slot")
+                .register(meterRegistry);
+        Gauge.builder("search.limiter.limit", this, SearchConcurrencyLimiter::limit)
+                .description("Current adaptive concurrency limit of searches")
+                .register(meterRegistry);
+        Gauge.builder("search.limiter.in-flight", this, SearchConcurrencyLimiter::inFlight)
+                .description("Searches holding a concurrency slot")
+                .register(meterRegistry);
+        Gauge.builder("search.limiter.queued", this, SearchConcurrencyLimiter::queued)
+                .description("Searches waiting for a concurrency slot")
+                .register(meterRegistry);
+        Gauge.builder("search.limiter.baseline", this, l -> Math.max(0, l.baselineNanos()) / 1_000_000.0)
+                .description("Baseline search latency the congestion signal is relative to")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+
+        logger.info("SearchConcurrencyLimiter initialized: enabled={}, limit={} [{}, {}], backoffRatio={}, " +
+                    "latencyTolerance={}, baselineWindow={}, maxQueued={}, maxWait={}ms",
+                    enabled, (int) limit, this.minLimit, this.maxLimit, backoffRatio, latencyTolerance,
+                    baselineWindow, this.maxQueued, maxWaitMs);
+    }
+
+    /**
+     * Run a non-blocking search once it gets a slot; the slot is held until the
+     * returned future completes.
+     *
+     * @param deadline Request deadline (caps the queue wait), or null for none
+     * @param call Starts the search
+     * @return Future of the search, or failed with SearchOverloadedException if shed
+     */
+    public <T> CompletableFuture<T> executeAsync(SearchDeadline deadline, Supplier<CompletableFuture<T>> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        return acquire(maxWaitMillis(deadline)).thenCompose(ignored -> {
+            long start = System.nanoTime();
+            CompletableFuture<T> future;
+            try {
+                future = call.get();
+            } catch (RuntimeException e) {
+                release(start, e);
+                throw e;
+            }
+            return future.whenComplete((response, error) -> release(start, error));
+        });
+    }
+
+    /**
+     * Run a blocking search once it gets a slot (waits on the calling thread).
+     *
+     * @param deadline Request deadline (caps the queue wait), or null for none
+     * @param call Runs the search
+     * @return The search result
+     * @throws SearchOverloadedException if the search was shed
+     */
+    public <T> T execute(SearchDeadline deadline, Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        try {
+            acquire(maxWaitMillis(deadline)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            release(start, null);
+            return result;
+        } catch (RuntimeException e) {
+            release(start, e);
+            throw e;
+        }
+    }
+
+    private long maxWaitMillis(SearchDeadline deadline) {
+        return deadline != null ? Math.min(maxWaitMs, deadline.remainingMillis()) : maxWaitMs;
+    }
+
+    /**
+     * Take a slot now, or queue for one.
+     *
+     * @return Future completed once the caller holds a slot, or failed with
+     *         SearchOverloadedException if the search is shed
+     */
+    private CompletableFuture<Void> acquire(long waitMs) {
+        CompletableFuture<Void> waiter;
+        synchronized (this) {
+            if (waiters.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+                return CompletableFuture.completedFuture(null);
+            }
+            if (waitMs <= 0) {
+                rejectedNoBudget.increment();
+                return CompletableFuture.failedFuture(overloaded());
+            }
+            if (waiters.size() >= maxQueued) {
+                rejectedQueueFull.increment();
+                return CompletableFuture.failedFuture(overloaded());
+            }
+            waiter = new CompletableFuture<>();
+            waiters.addLast(waiter);
+        }
+
+        CompletableFuture.delayedExecutor(waitMs, TimeUnit.MILLISECONDS).execute(() -> {
+            synchronized (this) {
+                if (!waiters.remove(waiter)) {
+                    return; // Granted a slot in the meantime
+                }
+            }
+            rejectedQueueTimeout.increment();
+            waiter.completeExceptionally(overloaded());
+        });
+        return waiter;
+    }
+
+    /**
+     * Give a slot back, adjust the limit from how the search went and hand freed
+     * slots to queued searches.
+     */
+    private void release(long startNanos, Throwable error) {
+        long latency = System.nanoTime() - startNanos;
+        List<CompletableFuture<Void>> granted;
+        synchronized (this) {
+            if (recordSample(latency, error)) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (error == null && inFlight * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            inFlight--;
+            granted = new ArrayList<>();
+            while (!waiters.isEmpty() && inFlight < (int) limit) {
+                granted.add(waiters.pollFirst());
+                inFlight++;
+            }
+        }
+        // Outside the lock - completing a waiter starts its search on this thread
+        granted.forEach(waiter -> waiter.complete(null));
+    }
+
+    /**
+     * Whether a finished search signals congestion; successful searches also move
+     * the baseline (after the check, so a slow search is judged against the old one).
+     */
+    synchronized boolean recordSample(long latencyNanos, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof SearchServiceUnavailableException
+                || cause instanceof SearchDeadlineExceededException
+                || cause instanceof TimeoutException) {
+            return true;
+        }
+        if (error != null) {
+            return false;
+        }
+        boolean congested = baselineNanos >= 0 && latencyNanos > latencyTolerance * baselineNanos;
+        baselineNanos = baselineNanos < 0 ? latencyNanos : baselineNanos + baselineAlpha * (latencyNanos - baselineNanos);
+        return congested;
+    }
+
+    private SearchOverloadedException overloaded() {
+        return new SearchOverloadedException(
+                "Search is overloaded - too many concurrent searches. Please retry shortly.", retryAfterSeconds);
+    }
+
+    synchronized double limit() {
+        return limit;
+    }
+
+    synchronized int inFlight() {
+        return inFlight;
+    }
+
+    synchronized int queued() {
+        return waiters.size();
+    }
+
+    synchronized double baselineNanos() {
+        return baselineNanos;
+    }
+}
@@ -0,0 +1,200 @@
+package com.imagesearch.service;
+
+import com.imagesearch.client.dto.SearchServiceResponse;
+import com.imagesearch.exception.BadRequestException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Server-side ranked candidate lists behind paginated searches.
+ *
+ * The first page of a paginated search asks the search backend for up to
+ * max-candidates results and stores the ranked (image ID, score) list here.
+ * Later pages are slices of that list: only the page's images are enriched and
+ * the search service is not called again.
+ *
+ * Key design:
+ * - A cursor is an opaque token for (entry ID, offset), so asking for the same page
+ *   twice returns the same results
+ * - Entries belong to the user who ran the search; other users' cursors are rejected
+ *   exactly like expired ones (no information leak)
+ * - Eviction = LRU when max-entries is exceeded, plus a TTL per entry. An expired
+ *   cursor means the client has to re-run the search.
+ *
+ * Metrics (visible via /actuator/metrics):
+ * - search.cursor.created - paginated searches started
+ * - search.cursor.pages - pages served from a cursor
+ * - search.cursor.rejected - unknown, expired or foreign cursors
+ * - search.cursor.size - live candidate lists
+ */
+@Component
+public class SearchCursorStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchCursorStore.class);
+
+    private final int maxCandidates;
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    // Access-ordered LinkedHashMap = simple LRU. Guarded by synchronized(entries).
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final SecureRandom random = new SecureRandom();
+
+    private final Counter created;
+    private final Counter pages;
+    private final Counter rejected;
+
+    public SearchCursorStore(
+            @Value("${search.cursor.max-candidates:100}") int maxCandidates,
+            @Value("${search.cursor.max-entries:1000}") int maxEntries,
+            @Value("${search.cursor.ttl-seconds:300}") long ttlSeconds,
+            MeterRegistry meterRegistry) {
+        this.maxCandidates = maxCandidates;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+
+        this.created = Counter.builder("search.cursor.created")
+                .description("Paginated searches whose ranked candidates were stored")
+                .register(meterRegistry);
+        this.pages = Counter.builder("search.cursor.pages")
+                .description("Search pages served from stored candidates")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("search.cursor.rejected")
+                .description("Cursors that were unknown, expired or belonged to another user")
+                .register(meterRegistry);
+        Gauge.builder("search.cursor.size", entries, this::sizeOf)
+                .description("Number of stored candidate lists")
+                .register(meterRegistry);
+
+        logger.info("SearchCursorStore initialized: maxCandidates={}, maxEntries={}, ttl={}s",
+                    maxCandidates, maxEntries, ttlSeconds);
+    }
+
+    /**
+     * Number of results to request from the search backend for a paginated search.
+     *
+     * @param pageSize Results per page
+     * @return max-candidates, or pageSize if that is larger
+     */
+    public int candidateCount(int pageSize) {
+        return Math.max(pageSize, maxCandidates);
+    }
+
+    /**
+     * Store the ranked results of a paginated search's first fetch.
+     *
+     * @param userId User who ran the search
+     * @param folderIds Folders that were searched (access is re-checked on every page)
+     * @param pageSize Results per page
+     * @param ranked Backend results, best first
+     * @return Stored entry
+     */
+    public Entry create(Long userId, List<Long> folderIds, int pageSize, SearchServiceResponse ranked) {
+        SearchServiceResponse candidates = ranked != null ? ranked : new SearchServiceResponse();
+        byte[] idBytes = new byte[16];
+        random.nextBytes(idBytes);
+        Entry entry = new Entry(HexFormat.of().formatHex(idBytes), userId, List.copyOf(folderIds),
+                                pageSize, candidates, System.nanoTime());
+
+        synchronized (entries) {
+            entries.put(entry.id(), entry);
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while (entries.size() > maxEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        created.increment();
+        return entry;
+    }
+
+    /**
+     * Opaque cursor for the page starting at offset.
+     */
+    public String cursorFor(Entry entry, int offset) {
+        String raw = entry.id() + ":" + offset;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Resolve a cursor from a previous page.
+     *
+     * @param userId User asking for the page
+     * @param cursor Cursor from a previous response's next_cursor
+     * @return Stored entry and the offset of the requested page
+     * @throws BadRequestException if the cursor is malformed, unknown, expired or not the user's
+     */
+    public Page resolve(Long userId, String cursor) {
+        String entryId;
+        int offset;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            entryId = raw.substring(0, separator);
+            offset = Integer.parseInt(raw.substring(separator + 1));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            rejected.increment();
+            throw new BadRequestException("Invalid search cursor");
+        }
+
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(entryId);
+            if (entry != null && System.nanoTime() - entry.createdAtNanos() > ttlNanos) {
+                entries.remove(entryId);
+                entry = null;
+            }
+        }
+        if (entry == null || !entry.userId().equals(userId) || offset < 0 || offset > entry.candidates().size()) {
+            rejected.increment();
+            throw new BadRequestException("Search cursor expired - run the search again");
+        }
+        pages.increment();
+        return new Page(entry, offset);
+    }
+
+    private int sizeOf(Map<String, Entry> map) {
+        synchronized (entries) {
+            return map.size();
+        }
+    }
+
+    /**
+     * Ranked candidates of one paginated search.
+     */
+    public record Entry(
+            String id,
+            Long userId,
+            List<Long> folderIds,
+            int pageSize,
+            SearchServiceResponse candidates,
+            long createdAtNanos) {
+
+        /**
+         * Candidates [from, to) as a search response, ready for enrichment.
+         */
+        public SearchServiceResponse slice(int from, int to) {
+            return candidates.slice(from, to);
+        }
+    }
+
+    /**
+     * A resolved cursor: the stored candidates and where the requested page starts.
+     */
+    public record Page(Entry entry, int offset) {
+    }
+}
@@ -0,0 +1,193 @@
+package com.imagesearch.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sizes search requests so enrichment still leaves topK results.
+ *
+ * The search backend can return image IDs the database no longer has (deleted
+ * images still in a FAISS index). Enrichment drops those, so asking for exactly
+ * topK quietly returns fewer results.
+ *
+ * Strategy:
+ * - Track the recent drop ratio per (user, folder set) as an exponentially weighted
+ *   moving average of dropped / returned
+ * - Ask the backend for topK / (1 - dropRatio) results (capped at topK * max-factor),
+ *   so scopes that never drop anything cost exactly topK, as before
+ * - If enrichment still leaves fewer than topK and the backend had more to give,
+ *   SearchService makes one follow-up fetch sized from what was just observed
+ *
+ * Only scopes that have dropped something are tracked; they are evicted LRU above
+ * max-tracked.
+ *
+ * Metrics (visible via /actuator/metrics):
+ * - search.overfetch.dropped - results dropped by enrichment
+ * - search.overfetch.followups - follow-up fetches issued
+ * - search.overfetch.tracked - scopes with a non-zero drop ratio
+ */
+@Component
+public class SearchOverFetchTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchOverFetchTracker.class);
+
+    // Below this the extra result is almost never needed - fetch exactly topK
+    private static final double NEGLIGIBLE_DROP_RATIO = 0.01;
+
+    private final boolean enabled;
+    private final double smoothing;
+    private final int maxFactor;
+    private final int maxTracked;
+
+    // Access-ordered LinkedHashMap = simple LRU. Guarded by synchronized(dropRatios).
+    private final LinkedHashMap<Key, Double> dropRatios = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Counter dropped;
+    private final Counter followUps;
+
+    public SearchOverFetchTracker(
+            @Value("${search.over-fetch.enabled:true}") boolean enabled,
+            @Value("${search.over-fetch.smoothing:0.2}") double smoothing,
+            @Value("${search.over-fetch.max-factor:4}") int maxFactor,
+            @Value("${search.over-fetch.max-tracked:10000}") int maxTracked,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.smoothing = smoothing;
+        this.maxFactor = Math.max(1, maxFactor);
+        this.maxTracked = maxTracked;
+
+        this.dropped = Counter.builder("search.overfetch.dropped")
+                .description("Search results dropped because the image is missing from the database")
+                .register(meterRegistry);
+        this.followUps = Counter.builder("search.overfetch.followups")
+                .description("Follow-up searches issued because enrichment left fewer than topK results")
+                .register(meterRegistry);
+        Gauge.builder("search.overfetch.tracked", dropRatios, this::sizeOf)
+                .description("Number of user/folder scopes with a non-zero drop ratio")
+                .register(meterRegistry);
+
+        logger.info("SearchOverFetchTracker initialized: enabled={}, smoothing={}, maxFactor={}, maxTracked={}",
+                    enabled, smoothing, maxFactor, maxTracked);
+    }
+
+    /**
+     * Number of results to request from the search backend.
+     *
+     * @param userId User ID
+     * @param folderIds Folders being searched
+     * @param topK Number of results the caller wants
+     * @return topK, or more if this scope has been dropping results recently
+     */
+    public int fetchSize(Long userId, List<Long> folderIds, int topK) {
+        double ratio = dropRatio(userId, folderIds);
+        if (ratio < NEGLIGIBLE_DROP_RATIO) {
+            return topK;
+        }
+        long wanted = (long) Math.ceil(topK / (1.0 - Math.min(ratio, 0.99)));
+        return (int) Math.min(wanted, (long) topK * maxFactor);
+    }
+
+    /**
+     * Size of a follow-up fetch after enrichment came up short.
+     *
+     * @param topK Number of results the caller wants
+     * @param requested Number of results the last fetch asked for
+     * @param returned Number of results the backend returned
+     * @param kept Number of results left after enrichment
+     * @return Results to request in a follow-up fetch, or 0 if none is worthwhile
+     *         (enough results, backend exhausted, or already at the cap)
+     */
+    public int followUpSize(int topK, int requested, int returned, int kept) {
+        int cap = topK * maxFactor;
+        if (!enabled || kept >= topK || returned < requested || requested >= cap) {
+            return 0;
+        }
+        // Size from the keep ratio just observed; at least double so one follow-up usually suffices
+        long needed = kept > 0 ? (long) Math.ceil((double) topK * returned / kept) : cap;
+        followUps.increment();
+        return (int) Math.min(cap, Math.max(needed, 2L * requested));
+    }
+
+    /**
+     * Record how many of a fetch's results survived enrichment.
+     *
+     * @param userId User ID
+     * @param folderIds Folders that were searched
+     * @param returned Number of results the backend returned
+     * @param kept Number of results left after enrichment
+     */
+    public void record(Long userId, List<Long> folderIds, int returned, int kept) {
+        if (returned <= 0) {
+            return;
+        }
+        int droppedCount = Math.max(0, returned - kept);
+        dropped.increment(droppedCount);
+        if (!enabled) {
+            return;
+        }
+
+        double observed = (double) droppedCount / returned;
+        Key key = Key.of(userId, folderIds);
+        synchronized (dropRatios) {
+            Double previous = dropRatios.get(key);
+            if (previous == null && droppedCount == 0) {
+                // Common case - nothing to remember
+                return;
+            }
+            double updated = previous == null ? observed : smoothing * observed + (1 - smoothing) * previous;
+            if (updated < NEGLIGIBLE_DROP_RATIO / 10) {
+                dropRatios.remove(key);
+                return;
+            }
+            dropRatios.put(key, updated);
+            Iterator<Map.Entry<Key, Double>> eldest = dropRatios.entrySet().iterator();
+            while (dropRatios.size() > maxTracked && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Current smoothed drop ratio of a scope (0 if untracked or disabled).
+     */
+    public double dropRatio(Long userId, List<Long> folderIds) {
+        if (!enabled) {
+            return 0.0;
+        }
+        synchronized (dropRatios) {
+            Double ratio = dropRatios.get(Key.of(userId, folderIds));
+            return ratio != null ? ratio : 0.0;
+        }
+    }
+
+    private int sizeOf(Map<Key, Double> map) {
+        synchronized (dropRatios) {
+            return map.size();
+        }
+    }
+
+    /**
+     * User plus folder set (order-insensitive).
+     */
+    private record Key(Long userId, List<Long> folderIds) {
+
+        static Key of(Long userId, List<Long> folderIds) {
+            List<Long> sorted = new ArrayList<>(folderIds);
+            Collections.sort(sorted);
+            return new Key(userId, sorted);
+        }
+    }
+}
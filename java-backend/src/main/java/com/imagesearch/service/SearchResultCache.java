@@ -0,0 +1,231 @@
+package com.imagesearch.service;
+
+import com.imagesearch.model.dto.response.SearchResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-memory cache of enriched search responses.
+ *
+ * The frontend replays searches from history constantly, so the same query over
+ * the same folders is often repeated a few seconds apart. Caching the final
+ * response skips both the remote search call and the enrichment query.
+ *
+ * Key design:
+ * - Key = normalized query + sorted folder IDs + topK (ACLs are checked BEFORE lookup,
+ *   so the key doesn't need the user ID - two users with access to the same folders
+ *   get the same results)
+ * - Eviction = LRU when max-entries is exceeded, plus a TTL per entry
+ * - Invalidation = per-folder generation counters. Each entry remembers the generation
+ *   of every folder it covers; bumping a folder's generation makes all entries that
+ *   include it stale without scanning the cache.
+ *
+ * Metrics (visible via /actuator/metrics):
+ * - search.cache.hits, search.cache.misses
+ * - search.cache.evictions (tagged cause=size|expired|invalidated)
+ * - search.cache.size
+ */
+@Component
+public class SearchResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchResultCache.class);
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    // Access-ordered LinkedHashMap = simple LRU. Guarded by synchronized(entries).
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    // folder_id -> generation (bumped whenever the folder's index changes)
+    private final Map<Long, AtomicLong> folderGenerations = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expiredEvictions;
+    private final Counter invalidatedEvictions;
+
+    public SearchResultCache(
+            @Value("${search-cache.enabled:true}") boolean enabled,
+            @Value("${search-cache.max-entries:1000}") int maxEntries,
+            @Value("${search-cache.ttl-seconds:60}") long ttlSeconds,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+
+        this.hits = Counter.builder("search.cache.hits")
+                .description("Search requests served from the result cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("search.cache.misses")
+                .description("Search requests that missed the result cache")
+                .register(meterRegistry);
+        this.sizeEvictions = evictionCounter(meterRegistry, "size");
+        this.expiredEvictions = evictionCounter(meterRegistry, "expired");
+        this.invalidatedEvictions = evictionCounter(meterRegistry, "invalidated");
+        Gauge.builder("search.cache.size", entries, this::sizeOf)
+                .description("Number of cached search responses")
+                .register(meterRegistry);
+
+        logger.info("SearchResultCache initialized: enabled={}, maxEntries={}, ttl={}s",
+                    enabled, maxEntries, ttlSeconds);
+    }
+
+    /**
+     * Build a cache key. Query is normalized (trimmed, lower-cased, whitespace collapsed) -
+     * CLIP's tokenizer lower-cases text anyway, so "Sunset " and "sunset" embed identically.
+     *
+     * @param query Raw search query
+     * @param folderIds Resolved folder IDs (order doesn't matter)
+     * @param topK Number of results requested
+     * @return Cache key
+     */
+    public Key keyFor(String query, Collection<Long> folderIds, int topK) {
+        String normalized = query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        List<Long> sortedFolderIds = folderIds.stream().sorted().toList();
+        return new Key(normalized, sortedFolderIds, topK);
+    }
+
+    /**
+     * Look up a cached response.
+     *
+     * @param key Cache key from {@link #keyFor}
+     * @return Cached response, or empty on miss / expiry / invalidation
+     */
+    public Optional<SearchResponse> get(Key key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                misses.increment();
+                return Optional.empty();
+            }
+            if (System.nanoTime() - entry.createdAtNanos > ttlNanos) {
+                entries.remove(key);
+                expiredEvictions.increment();
+                misses.increment();
+                return Optional.empty();
+            }
+            if (!isCurrent(key, entry.generations)) {
+                entries.remove(key);
+                invalidatedEvictions.increment();
+                misses.increment();
+                return Optional.empty();
+            }
+            hits.increment();
+            return Optional.of(new SearchResponse(entry.results));
+        }
+    }
+
+    /**
+     * Snapshot folder generations for a key.
+     *
+     * Must be taken BEFORE calling the search service, so that an index update that
+     * lands while the search is in flight makes the stored entry stale immediately.
+     *
+     * @param key Cache key
+     * @return Generation of each folder in key order
+     */
+    public long[] currentGenerations(Key key) {
+        List<Long> folderIds = key.folderIds();
+        long[] generations = new long[folderIds.size()];
+        for (int i = 0; i < generations.length; i++) {
+            generations[i] = generationOf(folderIds.get(i));
+        }
+        return generations;
+    }
+
+    /**
+     * Store a response.
+     *
+     * @param key Cache key
+     * @param generations Snapshot from {@link #currentGenerations} taken before the search
+     * @param response Enriched response to cache
+     */
+    public void put(Key key, long[] generations, SearchResponse response) {
+        if (!enabled || generations == null || response == null || response.getResults() == null) {
+            return;
+        }
+
+        Entry entry = new Entry(List.copyOf(response.getResults()), generations, System.nanoTime());
+        synchronized (entries) {
+            entries.put(key, entry);
+            Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+            while (entries.size() > maxEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+                sizeEvictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Invalidate every cached response that covers a folder.
+     *
+     * Called when a folder's search index changes (embedding batch finished)
+     * or the folder is deleted. O(1) - stale entries are dropped lazily on lookup.
+     *
+     * @param folderId Folder ID
+     */
+    public void invalidateFolder(Long folderId) {
+        if (folderId == null) {
+            return;
+        }
+        folderGenerations.computeIfAbsent(folderId, id -> new AtomicLong()).incrementAndGet();
+        logger.debug("Invalidated cached search results for folder {}", folderId);
+    }
+
+    private boolean isCurrent(Key key, long[] generations) {
+        List<Long> folderIds = key.folderIds();
+        for (int i = 0; i < generations.length; i++) {
+            if (generationOf(folderIds.get(i)) != generations[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long generationOf(Long folderId) {
+        AtomicLong generation = folderGenerations.get(folderId);
+        return generation != null ? generation.get() : 0L;
+    }
+
+    private double sizeOf(Map<Key, Entry> map) {
+        synchronized (entries) {
+            return map.size();
+        }
+    }
+
+    private static Counter evictionCounter(MeterRegistry meterRegistry, String cause) {
+        return Counter.builder("search.cache.evictions")
+                .description("Search cache entries removed")
+                .tag("cause", cause)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Cache key: normalized query + sorted folder IDs + topK.
+     */
+    public record Key(String query, List<Long> folderIds, int topK) {}
+
+    private record Entry(List<SearchResponse.ImageSearchResult> results, long[] generations, long createdAtNanos) {}
+}
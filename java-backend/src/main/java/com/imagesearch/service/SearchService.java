@@ -1,34 +1,65 @@
 package com.imagesearch.service;
 
 import com.imagesearch.client.SearchClient;
+import com.imagesearch.client.SearchDeadline;
+import com.imagesearch.client.SearchRequestCoalescer;
+import com.imagesearch.client.TopKMerger;
+import com.imagesearch.client.dto.BatchSearchServiceRequest;
+import com.imagesearch.client.dto.BatchSearchServiceResponse;
 import com.imagesearch.client.dto.SearchServiceRequest;
 import com.imagesearch.client.dto.SearchServiceResponse;
+import com.imagesearch.exception.SearchDeadlineExceededException;
+import com.imagesearch.model.dto.response.BatchSearchResponse;
 import com.imagesearch.model.dto.response.SearchResponse;
-import com.imagesearch.model.entity.Folder;
-import com.imagesearch.model.entity.Image;
-import com.imagesearch.repository.FolderRepository;
+import com.imagesearch.util.LongObjectHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 /**
  * Service for semantic image search.
  *
  * This is the key integration point between Java backend and Python microservice:
- * 1. Gets accessible folders from database
+ * 1. Gets accessible folders (cached per-user ACL scope)
  * 2. Builds folder ownership map
  * 3. Calls Python service for FAISS search
  * 4. Enriches results with image metadata from database
  * 5. Returns complete response to frontend
  *
+ * Identical concurrent searches share one remote call (single-flight coalescing).
+ * Scopes whose results keep getting dropped by enrichment (IDs missing from the
+ * database) are over-fetched so callers still get topK (see SearchOverFetchTracker).
+ * Multi-folder searches can optionally fan out: folders are split into shards,
+ * each shard is searched concurrently and the partial top-k lists are merged.
+ * Streaming searches always fan out and publish each shard's enriched results
+ * as soon as they arrive, before the merged top-k.
+ * Paginated searches fetch a ranked candidate list once (SearchCursorStore) and
+ * serve every page from it, enriching only that page.
+ * Async searches run against an end-to-end SearchDeadline: remote calls get the
+ * remaining budget, shards that miss it are dropped (partial results, never cached)
+ * and no follow-up fetch is started once it has run out.
+ * Searches that reach the search backend (not cache hits) run under an adaptive
+ * concurrency limit (SearchConcurrencyLimiter); excess searches are queued briefly,
+ * then shed with 503 + Retry-After.
+ *
  * This demonstrates microservices orchestration - a common interview topic!
  */
 @Service
@@ -37,22 +68,58 @@ public class SearchService {
     private static final Logger logger = LoggerFactory.getLogger(SearchService.class);
 
     private final SearchClient searchClient;
-    private final FolderRepository folderRepository;
     private final FolderService folderService;
     private final ImageService imageService;
+    private final SearchResultCache searchResultCache;
+    private final SearchRequestCoalescer searchRequestCoalescer;
+    private final SearchOverFetchTracker overFetchTracker;
+    private final SearchCursorStore searchCursorStore;
+    private final SearchConcurrencyLimiter concurrencyLimiter;
+    private final Executor searchFanOutExecutor;
+    private final Executor searchEnrichmentExecutor;
+    private final Executor staleImageExecutor;
 
     @Value("${storage.backend:local}")
     private String storageBackend;
 
+    @Value("${search.fan-out.enabled:false}")
+    private boolean fanOutEnabled;
+
+    @Value("${search.fan-out.shard-size:8}")
+    private int fanOutShardSize;
+
+    @Value("${search.stream.shard-size:1}")
+    private int streamShardSize;
+
+    @Value("${search.deadline.default-ms:0}")
+    private long defaultDeadlineMs;
+
+    @Value("${search.deadline.max-ms:0}")
+    private long maxDeadlineMs;
+
     public SearchService(
             SearchClient searchClient,
-            FolderRepository folderRepository,
             FolderService folderService,
-            ImageService imageService) {
+            ImageService imageService,
+            SearchResultCache searchResultCache,
+            SearchRequestCoalescer searchRequestCoalescer,
+            SearchOverFetchTracker overFetchTracker,
+            SearchCursorStore searchCursorStore,
+            SearchConcurrencyLimiter concurrencyLimiter,
+            @Qualifier("searchFanOutExecutor") Executor searchFanOutExecutor,
+            @Qualifier("searchEnrichmentExecutor") Executor searchEnrichmentExecutor,
+            @Qualifier("staleImageExecutor") Executor staleImageExecutor) {
         this.searchClient = searchClient;
-        this.folderRepository = folderRepository;
         this.folderService = folderService;
         this.imageService = imageService;
+        this.searchResultCache = searchResultCache;
+        this.searchRequestCoalescer = searchRequestCoalescer;
+        this.overFetchTracker = overFetchTracker;
+        this.searchCursorStore = searchCursorStore;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.searchFanOutExecutor = searchFanOutExecutor;
+        this.searchEnrichmentExecutor = searchEnrichmentExecutor;
+        this.staleImageExecutor = staleImageExecutor;
     }
 
     /**
@@ -61,9 +128,12 @@ public class SearchService {
      * Orchestration flow:
      * 1. Determine which folders to search (user-specified or all accessible)
      * 2. Build folder ownership map (needed for FAISS index paths)
-     * 3. Call Python microservice for semantic search
-     * 4. Enrich results with database metadata (image paths)
-     * 5. Return complete response
+     * 3. Return cached response if the same query was run recently over the same folders
+     * 4. Call Python microservice for semantic search (over-fetching if this scope
+     *    has been losing results to enrichment)
+     * 5. Enrich results with database metadata (image paths); if that leaves fewer
+     *    than topK and the backend had more, fetch once more with a larger k
+     * 6. Cache and return complete response
      *
      * @param userId User ID (for authorization)
      * @param query Search query text
@@ -72,91 +142,687 @@ public class SearchService {
      * @return Search response with image URLs and similarity scores
      */
     public SearchResponse searchImages(Long userId, String query, List<Long> folderIds, Integer topK) {
+        SearchPlan plan = planSearch(userId, query, folderIds, topK, false, null);
+        if (plan.immediateResponse() != null) {
+            return plan.immediateResponse();
+        }
+
+        return concurrencyLimiter.execute(plan.request().getDeadline(), () -> {
+            SearchServiceResponse searchResponse = executeSearch(plan.request());
+            EnrichedResults enriched = enrich(plan, plan.request(), searchResponse);
+
+            SearchServiceRequest followUp = followUpRequest(plan, enriched);
+            if (followUp != null) {
+                enriched = enrich(plan, followUp, executeSearch(followUp));
+            }
+            return completeSearch(plan, enriched);
+        });
+    }
+
+    /**
+     * Non-blocking variant of {@link #searchImages}.
+     *
+     * Steps 1-3 (ACL resolution, cache lookup) run on the calling thread. The remote
+     * search is issued without blocking, and enrichment (a JDBC query) runs on the
+     * search enrichment executor once the search service answers - never on the
+     * HTTP client's I/O thread and never on the servlet thread.
+     *
+     * With a deadline, the remote search gets only the remaining budget and a
+     * follow-up fetch is skipped once the budget is spent.
+     *
+     * @param userId User ID (for authorization)
+     * @param query Search query text
+     * @param folderIds Optional list of folder IDs to search (null = all accessible)
+     * @param topK Number of results to return
+     * @param deadline Request deadline from {@link #startDeadline}, or null for none
+     * @return Future of search response with image URLs and similarity scores
+     */
+    public CompletableFuture<SearchResponse> searchImagesAsync(
+            Long userId, String query, List<Long> folderIds, Integer topK, SearchDeadline deadline) {
+        SearchPlan plan = planSearch(userId, query, folderIds, topK, false, deadline);
+        if (plan.immediateResponse() != null) {
+            return CompletableFuture.completedFuture(plan.immediateResponse());
+        }
+
+        return concurrencyLimiter.executeAsync(deadline,
+                () -> completeSearchAsync(plan, executeSearchAsync(plan.request())));
+    }
+
+    /**
+     * Streaming variant of {@link #searchImagesAsync}, for Server-Sent Events.
+     *
+     * Folders are split into shards of search.stream.shard-size (default: one folder
+     * per shard) and all shards are searched concurrently. Each shard's results are
+     * enriched and handed to onPartial as soon as that shard answers, so the first
+     * results arrive with the fastest folder instead of the slowest. Once every shard
+     * has answered, the partial lists are merged into the global top-k and completed
+     * exactly like {@link #searchImagesAsync} (follow-up fetch, caching). The partials
+     * have already warmed ImagePathCache, so enriching the merged list is DB-free.
+     *
+     * Cache hits, blank queries and empty scopes complete without any partial.
+     * onPartial runs on enrichment threads, possibly concurrently, and always before
+     * the returned future completes. Shards still running at the deadline are left
+     * out of the final response, which is then not cached.
+     *
+     * @param userId User ID (for authorization)
+     * @param query Search query text
+     * @param folderIds Optional list of folder IDs to search (null = all accessible)
+     * @param topK Number of results to return
+     * @param deadline Request deadline from {@link #startDeadline}, or null for none
+     * @param onPartial Receives each shard's enriched results (at most topK, never empty)
+     * @return Future of the final, globally ranked search response
+     */
+    public CompletableFuture<SearchResponse> streamSearchImages(
+            Long userId, String query, List<Long> folderIds, Integer topK, SearchDeadline deadline,
+            Consumer<SearchResponse> onPartial) {
+        SearchPlan plan = planSearch(userId, query, folderIds, topK, false, deadline);
+        if (plan.immediateResponse() != null) {
+            return CompletableFuture.completedFuture(plan.immediateResponse());
+        }
+
+        return concurrencyLimiter.executeAsync(deadline, () -> {
+            List<CompletableFuture<SearchServiceResponse>> futures = new ArrayList<>();
+            for (SearchServiceRequest shardRequest : splitIntoShards(plan.request(), Math.max(1, streamShardSize))) {
+                futures.add(withDeadline(searchRequestCoalescer.searchAsync(shardRequest, searchClient::searchAsync), deadline)
+                        .thenApplyAsync(shardResponse -> {
+                            publishPartial(plan, shardResponse, onPartial);
+                            return shardResponse;
+                        }, searchEnrichmentExecutor));
+            }
+            CompletableFuture<SearchServiceResponse> merged = CompletableFuture
+                    .allOf(futures.toArray(new CompletableFuture<?>[0]))
+                    .handle((ignored, ex) -> TopKMerger.mergeCompleted(futures, plan.request().getTopK()));
+            return completeSearchAsync(plan, merged);
+        });
+    }
+
+    /**
+     * First page of a paginated search.
+     *
+     * Asks the search backend for search.cursor.max-candidates results instead of
+     * topK and stores the ranked list in SearchCursorStore. Only the first page
+     * (topK results) is enriched; the response's next_cursor leads to the rest
+     * through {@link #nextPage}, with no further search service calls. Bypasses
+     * SearchResultCache - the stored candidates are this search's cache.
+     *
+     * @param userId User ID (for authorization)
+     * @param query Search query text
+     * @param folderIds Optional list of folder IDs to search (null = all accessible)
+     * @param topK Page size
+     * @param deadline Request deadline from {@link #startDeadline}, or null for none
+     * @return Future of the first page, with next_cursor if more candidates remain
+     */
+    public CompletableFuture<SearchResponse> searchFirstPageAsync(
+            Long userId, String query, List<Long> folderIds, Integer topK, SearchDeadline deadline) {
+        SearchPlan plan = planSearch(userId, query, folderIds, topK, true, deadline);
+        if (plan.immediateResponse() != null) {
+            return CompletableFuture.completedFuture(plan.immediateResponse());
+        }
+
+        SearchServiceRequest request = plan.request();
+        return concurrencyLimiter.executeAsync(deadline, () -> executeSearchAsync(request)
+                .thenApplyAsync(ranked -> {
+                    SearchCursorStore.Entry entry = searchCursorStore.create(
+                            request.getUserId(), request.getFolderIds(), plan.topK(), ranked);
+                    logger.info("Paginated search stored {} candidates", entry.candidates().size());
+                    return page(entry, 0, request.getFolderOwnerMap());
+                }, searchEnrichmentExecutor));
+    }
+
+    /**
+     * Next page of a paginated search started by {@link #searchFirstPageAsync}.
+     *
+     * Slices the stored candidates and enriches only that slice. Folder access is
+     * checked again (ACL cache), so a revoked share also ends pagination.
+     *
+     * @param userId User ID (for authorization)
+     * @param cursor next_cursor from the previous page
+     * @return Page of results, with next_cursor if more candidates remain
+     * @throws com.imagesearch.exception.BadRequestException if the cursor is invalid or expired
+     */
+    public SearchResponse nextPage(Long userId, String cursor) {
         if (userId == null) {
             throw new IllegalArgumentException("userId cannot be null");
         }
-        if (query == null || query.trim().isEmpty()) {
-            logger.info("Empty search query - returning empty results");
-            return new SearchResponse(new ArrayList<>());
+        SearchCursorStore.Page position = searchCursorStore.resolve(userId, cursor);
+        SearchScope scope = resolveScope(userId, position.entry().folderIds());
+        return page(position.entry(), position.offset(), scope.folderOwnerMap());
+    }
+
+    /**
+     * Start the deadline of an incoming search request.
+     *
+     * @param requestedBudgetMs Budget asked for by the client (X-Search-Deadline-Ms), or null
+     * @return Deadline for the requested budget (or search.deadline.default-ms), capped at
+     *         search.deadline.max-ms; null if neither the client nor the server sets one
+     */
+    public SearchDeadline startDeadline(Long requestedBudgetMs) {
+        long budgetMs = requestedBudgetMs != null && requestedBudgetMs > 0 ? requestedBudgetMs : defaultDeadlineMs;
+        if (maxDeadlineMs > 0 && budgetMs > maxDeadlineMs) {
+            budgetMs = maxDeadlineMs;
         }
+        return budgetMs > 0 ? SearchDeadline.after(Duration.ofMillis(budgetMs)) : null;
+    }
 
-        logger.info("Searching images: user={}, query='{}', folders={}, topK={}",
-                    userId, query, folderIds, topK);
+    /**
+     * Search many text queries over the same folders in one round trip.
+     *
+     * Compared to N separate searches:
+     * 1. Folder access is resolved once for the whole batch
+     * 2. Cached queries are answered locally; only the misses go to the search service
+     * 3. All misses are sent in a single batch call (one CLIP forward pass, one
+     *    FAISS scan per index on the Python side)
+     * 4. Enrichment is one database query over the union of all result image IDs
+     *
+     * Blank queries get an empty result list. Response order matches request order.
+     *
+     * @param userId User ID (for authorization)
+     * @param queries Search query texts
+     * @param folderIds Optional list of folder IDs to search (null = all accessible)
+     * @param topK Number of results to return per query
+     * @param deadline Request deadline from {@link #startDeadline}, or null for none
+     * @return One result list per query
+     */
+    public BatchSearchResponse batchSearchImages(
+            Long userId, List<String> queries, List<Long> folderIds, Integer topK, SearchDeadline deadline) {
+        if (userId == null) {
+            throw new IllegalArgumentException("userId cannot be null");
+        }
+        if (queries == null || queries.isEmpty()) {
+            return new BatchSearchResponse(new ArrayList<>());
+        }
 
-        // Step 1: Determine which folders to search
-        List<Long> searchFolderIds;
-        Map<Long, Long> folderOwnerMap = new HashMap<>();
+        logger.info("Batch searching images: user={}, queries={}, folders={}, topK={}",
+                    userId, queries.size(), folderIds, topK);
+
+        SearchScope scope = resolveScope(userId, folderIds);
+        int effectiveTopK = topK != null ? topK : 5;
 
-        if (folderIds == null || folderIds.isEmpty()) {
-            // Search all accessible folders (owned + shared)
-            List<Folder> accessibleFolders = folderRepository.findAllAccessibleFolders(userId);
-            searchFolderIds = new ArrayList<>();
+        // Answer blank and cached queries locally, collect the rest for one remote call
+        List<SearchResponse> responses = new ArrayList<>(queries.size());
+        List<Integer> missIndexes = new ArrayList<>();
+        List<String> missQueries = new ArrayList<>();
+        List<SearchResultCache.Key> missKeys = new ArrayList<>();
+        List<long[]> missGenerations = new ArrayList<>();
 
-            for (Folder folder : accessibleFolders) {
-                searchFolderIds.add(folder.getId());
-                folderOwnerMap.put(folder.getId(), folder.getUser().getId());
+        for (int i = 0; i < queries.size(); i++) {
+            String query = queries.get(i);
+            responses.add(null);
+
+            if (query == null || query.trim().isEmpty() || scope.folderIds().isEmpty()) {
+                responses.set(i, new SearchResponse(new ArrayList<>()));
+                continue;
             }
 
-        } else {
-            // Search specified folders (verify access)
-            searchFolderIds = new ArrayList<>();
-
-            for (Long folderId : folderIds) {
-                if (folderId != null) {
-                    // This throws if user doesn't have access
-                    Folder folder = folderService.checkFolderAccess(userId, folderId);
-                    searchFolderIds.add(folderId);
-                    folderOwnerMap.put(folderId, folder.getUser().getId());
+            SearchResultCache.Key cacheKey = searchResultCache.keyFor(query, scope.folderIds(), effectiveTopK);
+            Optional<SearchResponse> cached = searchResultCache.get(cacheKey);
+            if (cached.isPresent()) {
+                responses.set(i, cached.get());
+            } else {
+                missIndexes.add(i);
+                missQueries.add(query);
+                missKeys.add(cacheKey);
+                missGenerations.add(searchResultCache.currentGenerations(cacheKey));
+            }
+        }
+
+        if (!missQueries.isEmpty()) {
+            checkDeadline(deadline);
+            // One slot for the whole batch - it is one call to the search service
+            BatchSearchServiceResponse batchResponse = concurrencyLimiter.execute(deadline,
+                    () -> searchClient.batchSearch(new BatchSearchServiceRequest(
+                        userId,
+                        missQueries,
+                        scope.folderIds(),
+                        scope.folderOwnerMap(),
+                        effectiveTopK,
+                        deadline
+                    )));
+            List<SearchServiceResponse> searchResponses = batchResponse != null && batchResponse.getResults() != null
+                    ? batchResponse.getResults()
+                    : List.of();
+
+            // Single database query for every image across all queries
+            Set<Long> imageIds = new HashSet<>();
+            for (SearchServiceResponse searchResponse : searchResponses) {
+                collectImageIds(searchResponse, imageIds);
+            }
+            LongObjectHashMap<ImageService.ImagePath> imagePaths = imageService.getImagePathsByIds(imageIds);
+            StaleImages staleImages = StaleImages.forScope(scope.folderOwnerMap());
+
+            for (int m = 0; m < missQueries.size(); m++) {
+                SearchServiceResponse searchResponse = m < searchResponses.size() ? searchResponses.get(m) : null;
+                SearchResponse response = new SearchResponse(toImageResults(searchResponse, imagePaths, staleImages));
+                if (searchResponse != null && !searchResponse.isDegraded()) {
+                    searchResultCache.put(missKeys.get(m), missGenerations.get(m), response);
                 }
+                responses.set(missIndexes.get(m), response);
             }
         }
 
+        List<BatchSearchResponse.QueryResults> searches = new ArrayList<>(queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            searches.add(new BatchSearchResponse.QueryResults(queries.get(i), responses.get(i).getResults()));
+        }
+
+        logger.info("Batch search completed: {} queries, {} sent to search service",
+                    queries.size(), missQueries.size());
+        return new BatchSearchResponse(searches);
+    }
+
+    /**
+     * Steps 1-3: validate input, resolve accessible folders and check the cache.
+     *
+     * Paginated searches skip the result cache and fetch a whole candidate list.
+     *
+     * @return Plan holding either an immediate response (empty query, no folders,
+     *         cache hit) or the request to send to the search service
+     */
+    private SearchPlan planSearch(
+            Long userId, String query, List<Long> folderIds, Integer topK, boolean paginated, SearchDeadline deadline) {
+        if (userId == null) {
+            throw new IllegalArgumentException("userId cannot be null");
+        }
+        if (query == null || query.trim().isEmpty()) {
+            logger.info("Empty search query - returning empty results");
+            return SearchPlan.immediate(new SearchResponse(new ArrayList<>()));
+        }
+
+        logger.info("Searching images: user={}, query='{}', folders={}, topK={}",
+                    userId, query, folderIds, topK);
+
+        // Step 1: Determine which folders to search
+        SearchScope scope = resolveScope(userId, folderIds);
+        List<Long> searchFolderIds = scope.folderIds();
+        Map<Long, Long> folderOwnerMap = scope.folderOwnerMap();
+
         if (searchFolderIds.isEmpty()) {
             logger.warn("No folders to search for user {}", userId);
-            return new SearchResponse(List.of());
+            return SearchPlan.immediate(new SearchResponse(List.of()));
         }
 
-        // Step 2: Call search microservice (delegates to active backend)
+        int effectiveTopK = topK != null ? topK : 5;
+
+        if (paginated) {
+            checkDeadline(deadline);
+            SearchServiceRequest pagedRequest = new SearchServiceRequest(
+                userId,
+                query,
+                searchFolderIds,
+                folderOwnerMap,
+                searchCursorStore.candidateCount(effectiveTopK),
+                deadline
+            );
+            return new SearchPlan(pagedRequest, effectiveTopK, null, null);
+        }
+
+        // Step 2: Serve repeated searches from cache (ACLs already checked above)
+        SearchResultCache.Key cacheKey = searchResultCache.keyFor(query, searchFolderIds, effectiveTopK);
+        Optional<SearchResponse> cached = searchResultCache.get(cacheKey);
+        if (cached.isPresent()) {
+            logger.info("Search served from cache: {} results", cached.get().getResults().size());
+            return SearchPlan.immediate(cached.get());
+        }
+        long[] folderGenerations = searchResultCache.currentGenerations(cacheKey);
+
+        // Nothing to show yet - don't start remote work the caller can no longer wait for
+        checkDeadline(deadline);
+
+        // Step 3: Build search microservice request (delegates to active backend)
         SearchServiceRequest searchRequest = new SearchServiceRequest(
             userId,
             query,
             searchFolderIds,
             folderOwnerMap,
-            topK != null ? topK : 5
+            overFetchTracker.fetchSize(userId, searchFolderIds, effectiveTopK),
+            deadline
         );
 
-        SearchServiceResponse searchResponse = searchClient.search(searchRequest);
+        return new SearchPlan(searchRequest, effectiveTopK, cacheKey, folderGenerations);
+    }
 
-        // Step 3: Enrich results with database metadata (BATCH LOOKUP - single query)
+    /**
+     * Step 1: resolve the folders to search and their owners.
+     *
+     * Either all folders the user can access (owned + shared), or the requested
+     * folders after checking access to each one (throws if access is denied).
+     */
+    private SearchScope resolveScope(Long userId, List<Long> folderIds) {
+        // Served from the ACL cache - no database round trips when warm
+        Map<Long, Long> folderOwnerMap = folderService.resolveSearchScope(userId, folderIds);
+        return new SearchScope(new ArrayList<>(folderOwnerMap.keySet()), folderOwnerMap);
+    }
+
+    /**
+     * Steps 5-6 for non-blocking searches: enrich on the enrichment executor, re-fetch
+     * once if enrichment came up short, then complete.
+     */
+    private CompletableFuture<SearchResponse> completeSearchAsync(
+            SearchPlan plan, CompletableFuture<SearchServiceResponse> firstFetch) {
+        return firstFetch
+                .thenApplyAsync(searchResponse -> enrich(plan, plan.request(), searchResponse), searchEnrichmentExecutor)
+                .thenCompose(enriched -> {
+                    SearchServiceRequest followUp = followUpRequest(plan, enriched);
+                    if (followUp == null) {
+                        return CompletableFuture.completedFuture(enriched);
+                    }
+                    return executeSearchAsync(followUp)
+                            .thenApplyAsync(searchResponse -> enrich(plan, followUp, searchResponse), searchEnrichmentExecutor);
+                })
+                .thenApply(enriched -> completeSearch(plan, enriched));
+    }
+
+    /**
+     * Enrich one page of stored candidates, starting at offset.
+     *
+     * Candidates missing from the database are skipped and the page is topped up from
+     * the following candidates, so pages stay full while candidates last.
+     */
+    private SearchResponse page(SearchCursorStore.Entry entry, int offset, Map<Long, Long> folderOwnerMap) {
+        StaleImages staleImages = StaleImages.forScope(folderOwnerMap);
+        List<SearchResponse.ImageSearchResult> results = new ArrayList<>();
+        int total = entry.candidates().size();
+        int position = offset;
+        while (results.size() < entry.pageSize() && position < total) {
+            int end = Math.min(total, position + entry.pageSize() - results.size());
+            results.addAll(enrichResults(entry.slice(position, end), staleImages));
+            position = end;
+        }
+        String nextCursor = position < total ? searchCursorStore.cursorFor(entry, position) : null;
+        return new SearchResponse(results, nextCursor);
+    }
+
+    /**
+     * Enrich one shard's results and hand them to a streaming caller.
+     * Best effort - the shard still counts towards the merged response if this fails.
+     */
+    private void publishPartial(SearchPlan plan, SearchServiceResponse shardResponse, Consumer<SearchResponse> onPartial) {
+        try {
+            List<SearchResponse.ImageSearchResult> results = enrichResults(shardResponse, plan.staleImages());
+            if (results.isEmpty()) {
+                return;
+            }
+            if (results.size() > plan.topK()) {
+                results = new ArrayList<>(results.subList(0, plan.topK()));
+            }
+            onPartial.accept(new SearchResponse(results));
+        } catch (Exception e) {
+            logger.warn("Failed to publish partial search results: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Step 6: record the drop ratio, trim over-fetched results to topK and cache the final
+     * response (unless it is degraded).
+     */
+    private SearchResponse completeSearch(SearchPlan plan, EnrichedResults enriched) {
+        SearchServiceRequest request = plan.request();
+        overFetchTracker.record(request.getUserId(), request.getFolderIds(), enriched.returned(), enriched.results().size());
+
+        List<SearchResponse.ImageSearchResult> results = enriched.results();
+        if (results.size() > plan.topK()) {
+            results = new ArrayList<>(results.subList(0, plan.topK()));
+        }
+        SearchResponse response = new SearchResponse(results);
+        logger.info("Search completed: {} results found", response.getResults().size());
+        if (enriched.degraded()) {
+            // Some results are missing - don't serve the short list to everyone until the TTL
+            logger.info("Search results are degraded, not caching them");
+        } else {
+            searchResultCache.put(plan.cacheKey(), plan.folderGenerations(), response);
+        }
+        return response;
+    }
+
+    /**
+     * Step 5: enrich one fetch's results, remembering how many the backend returned.
+     */
+    private EnrichedResults enrich(SearchPlan plan, SearchServiceRequest request, SearchServiceResponse searchResponse) {
+        int returned = searchResponse != null ? searchResponse.size() : 0;
+        boolean degraded = searchResponse != null && searchResponse.isDegraded();
+        List<SearchResponse.ImageSearchResult> results = enrichResults(searchResponse, plan.staleImages());
+        return new EnrichedResults(request.getTopK(), returned, results, degraded);
+    }
+
+    /**
+     * Follow-up request with a larger k when enrichment left fewer than topK results
+     * and the backend may have more, or null if the first fetch is good enough.
+     */
+    private SearchServiceRequest followUpRequest(SearchPlan plan, EnrichedResults enriched) {
+        int followUpK = overFetchTracker.followUpSize(
+                plan.topK(), enriched.requested(), enriched.returned(), enriched.results().size());
+        if (followUpK <= 0) {
+            return null;
+        }
+
+        SearchServiceRequest request = plan.request();
+        if (request.getDeadline() != null && request.getDeadline().isExpired()) {
+            logger.info("Enrichment kept {} of {} results but the deadline has passed, returning them",
+                        enriched.results().size(), enriched.returned());
+            return null;
+        }
+        logger.info("Enrichment kept {} of {} results (topK={}), re-fetching with k={}",
+                    enriched.results().size(), enriched.returned(), plan.topK(), followUpK);
+        return new SearchServiceRequest(
+            request.getUserId(),
+            request.getQuery(),
+            request.getFolderIds(),
+            request.getFolderOwnerMap(),
+            followUpK,
+            request.getDeadline()
+        );
+    }
+
+    /**
+     * Enrich results with database metadata (BATCH LOOKUP - single query).
+     */
+    private List<SearchResponse.ImageSearchResult> enrichResults(
+            SearchServiceResponse searchResponse, StaleImages staleImages) {
         List<SearchResponse.ImageSearchResult> results = new ArrayList<>();
 
-        if (!searchResponse.getResults().isEmpty()) {
+        if (searchResponse != null && searchResponse.size() > 0) {
             // Collect all image IDs from search results
-            Set<Long> imageIds = searchResponse.getResults().stream()
-                    .map(SearchServiceResponse.SearchResult::getImageId)
-                    .collect(Collectors.toSet());
-
-            // Single database query to fetch all images
-            Map<Long, Image> imagesById = imageService.getImagesByIds(imageIds);
-
-            // Build results in same order as search returned them
-            for (SearchServiceResponse.SearchResult result : searchResponse.getResults()) {
-                Image image = imagesById.get(result.getImageId());
-                if (image != null) {
-                    String imageUrl = getImageUrl(image.getFilepath());
-                    results.add(new SearchResponse.ImageSearchResult(
-                        imageUrl,
-                        result.getScore()
-                    ));
-                } else {
-                    logger.warn("Image {} not found in database (returned by FAISS but missing from DB)",
-                               result.getImageId());
+            Set<Long> imageIds = new HashSet<>();
+            collectImageIds(searchResponse, imageIds);
+
+            // Single projection query (id, filepath, folder) - no entities hydrated
+            LongObjectHashMap<ImageService.ImagePath> imagePaths = imageService.getImagePathsByIds(imageIds);
+            results = toImageResults(searchResponse, imagePaths, staleImages);
+        }
+
+        return results;
+    }
+
+    /**
+     * Add a response's image IDs to the lookup set (straight from its hit arrays).
+     */
+    private static void collectImageIds(SearchServiceResponse searchResponse, Set<Long> imageIds) {
+        if (searchResponse == null) {
+            return;
+        }
+        for (int i = 0; i < searchResponse.size(); i++) {
+            long imageId = searchResponse.imageIdAt(i);
+            if (imageId != SearchServiceResponse.NO_ID) {
+                imageIds.add(imageId);
+            }
+        }
+    }
+
+    /**
+     * Build results in same order as search returned them, skipping images missing from the DB.
+     */
+    private List<SearchResponse.ImageSearchResult> toImageResults(
+            SearchServiceResponse searchResponse, LongObjectHashMap<ImageService.ImagePath> imagePaths,
+            StaleImages staleImages) {
+        List<SearchResponse.ImageSearchResult> results = new ArrayList<>();
+        if (searchResponse == null) {
+            return results;
+        }
+
+        Map<Long, List<Long>> staleIdsByFolder = new HashMap<>();
+        for (int i = 0; i < searchResponse.size(); i++) {
+            long imageId = searchResponse.imageIdAt(i);
+            ImageService.ImagePath image = imageId != SearchServiceResponse.NO_ID ? imagePaths.get(imageId) : null;
+            if (image != null) {
+                String imageUrl = getImageUrl(image.filepath());
+                results.add(new SearchResponse.ImageSearchResult(
+                    imageUrl,
+                    searchResponse.scoreAt(i)
+                ));
+            } else {
+                logger.warn("Image {} not found in database (returned by FAISS but missing from DB)", imageId);
+                long folderId = searchResponse.folderIdAt(i);
+                if (imageId != SearchServiceResponse.NO_ID && folderId != SearchServiceResponse.NO_ID
+                        && staleImages.reported().add(imageId)) {
+                    staleIdsByFolder.computeIfAbsent(folderId, id -> new ArrayList<>()).add(imageId);
+                }
+            }
+        }
+        deleteStaleImages(staleImages.folderOwnerMap(), staleIdsByFolder);
+        return results;
+    }
+
+    /**
+     * Tell the search backend about IDs the database no longer has, so later
+     * searches don't spend top-k slots on them.
+     *
+     * Fire-and-forget on the stale image executor - the search never waits for the
+     * index write. Best effort: results are already built, and a dropped or failed
+     * delete is simply retried the next time a search returns the ID.
+     */
+    private void deleteStaleImages(Map<Long, Long> folderOwnerMap, Map<Long, List<Long>> staleIdsByFolder) {
+        if (staleIdsByFolder.isEmpty()) {
+            return;
+        }
+        Runnable delete = () -> {
+            for (Map.Entry<Long, List<Long>> entry : staleIdsByFolder.entrySet()) {
+                try {
+                    searchClient.deleteImages(folderOwnerMap.get(entry.getKey()), entry.getKey(), entry.getValue());
+                } catch (Exception e) {
+                    logger.warn("Failed to delete stale images {} from folder {}: {}",
+                               entry.getValue(), entry.getKey(), e.getMessage());
                 }
             }
+        };
+        if (staleImageExecutor == null) {
+            delete.run();
+        } else {
+            staleImageExecutor.execute(delete);
+        }
+    }
+
+    /**
+     * Run the remote search, fanning out across folder shards when enabled.
+     *
+     * With fan-out, each shard of folders becomes its own search call on the
+     * bounded fan-out executor, so one huge or slow folder only delays its own
+     * shard. Partial top-k lists are merged with a fixed-size min-heap.
+     * Every remote call (whole request or shard) goes through the coalescer.
+     *
+     * Failure handling: if some shards fail, results from the others are still
+     * returned (logged as a warning). If every shard fails, the first error is rethrown.
+     */
+    private SearchServiceResponse executeSearch(SearchServiceRequest request) {
+        if (!shouldFanOut(request) || searchFanOutExecutor == null) {
+            return searchRequestCoalescer.search(request, searchClient::search);
+        }
+
+        List<CompletableFuture<SearchServiceResponse>> futures = new ArrayList<>();
+        for (SearchServiceRequest shardRequest : splitIntoShards(request, fanOutShardSize)) {
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> searchRequestCoalescer.search(shardRequest, searchClient::search), searchFanOutExecutor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .exceptionally(ex -> null)
+                .join();
+        return TopKMerger.mergeCompleted(futures, request.getTopK());
+    }
+
+    /**
+     * Non-blocking variant of {@link #executeSearch}. Shards are issued through
+     * {@link SearchClient#searchAsync}, so fan-out needs no extra threads.
+     */
+    private CompletableFuture<SearchServiceResponse> executeSearchAsync(SearchServiceRequest request) {
+        if (!shouldFanOut(request)) {
+            return withDeadline(searchRequestCoalescer.searchAsync(request, searchClient::searchAsync),
+                                request.getDeadline());
+        }
+
+        List<CompletableFuture<SearchServiceResponse>> futures = new ArrayList<>();
+        for (SearchServiceRequest shardRequest : splitIntoShards(request, fanOutShardSize)) {
+            futures.add(withDeadline(searchRequestCoalescer.searchAsync(shardRequest, searchClient::searchAsync),
+                                     request.getDeadline()));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .handle((ignored, ex) -> TopKMerger.mergeCompleted(futures, request.getTopK()));
+    }
+
+    /**
+     * Bound one caller's wait for a remote search by the request deadline.
+     *
+     * Works on a copy, because coalesced futures are shared with other callers that
+     * may have more time left. Running out fails the copy with
+     * SearchDeadlineExceededException, which fan-out merging treats like any failed
+     * shard (partial results from the others, marked degraded so they aren't cached).
+     */
+    private static CompletableFuture<SearchServiceResponse> withDeadline(
+            CompletableFuture<SearchServiceResponse> future, SearchDeadline deadline) {
+        if (deadline == null) {
+            return future;
+        }
+        CompletableFuture<SearchServiceResponse> bounded = new CompletableFuture<>();
+        future.copy()
+                .orTimeout(deadline.remainingMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((response, error) -> {
+                    if (error == null) {
+                        bounded.complete(response);
+                        return;
+                    }
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause()
+                            : error;
+                    bounded.completeExceptionally(cause instanceof TimeoutException
+                            ? new SearchDeadlineExceededException("Search deadline exceeded waiting for the search service")
+                            : cause);
+                });
+        return bounded;
+    }
+
+    private static void checkDeadline(SearchDeadline deadline) {
+        if (deadline != null && deadline.isExpired()) {
+            throw new SearchDeadlineExceededException("Search deadline exceeded before the search service was called");
+        }
+    }
+
+    private boolean shouldFanOut(SearchServiceRequest request) {
+        return fanOutEnabled && request.getFolderIds().size() > fanOutShardSize;
+    }
+
+    /**
+     * Split a multi-folder request into one request per shard of folders.
+     */
+    private List<SearchServiceRequest> splitIntoShards(SearchServiceRequest request, int shardSize) {
+        List<Long> folderIds = request.getFolderIds();
+        List<SearchServiceRequest> shardRequests = new ArrayList<>();
+
+        for (int i = 0; i < folderIds.size(); i += shardSize) {
+            List<Long> shard = new ArrayList<>(folderIds.subList(i, Math.min(i + shardSize, folderIds.size())));
+            Map<Long, Long> shardOwnerMap = new HashMap<>();
+            for (Long folderId : shard) {
+                shardOwnerMap.put(folderId, request.getFolderOwnerMap().get(folderId));
+            }
+            shardRequests.add(new SearchServiceRequest(
+                request.getUserId(),
+                request.getQuery(),
+                shard,
+                shardOwnerMap,
+                request.getTopK(),
+                request.getDeadline()
+            ));
         }
 
-        logger.info("Search completed: {} results found", results.size());
-        return new SearchResponse(results);
+        logger.info("Fanning out search over {} folders in {} shards", folderIds.size(), shardRequests.size());
+        return shardRequests;
     }
 
     /**
@@ -168,4 +834,51 @@ public class SearchService {
         // For S3, this would return the S3 URL
         return "http://localhost:8080/" + filepath;
     }
+
+    /**
+     * Folders to search and their owners (needed for index paths).
+     */
+    private record SearchScope(List<Long> folderIds, Map<Long, Long> folderOwnerMap) {
+    }
+
+    /**
+     * Outcome of steps 1-3: either an immediate response or a request to run.
+     * request.getTopK() may exceed topK when the scope is over-fetched.
+     */
+    private record SearchPlan(
+            SearchServiceRequest request,
+            int topK,
+            SearchResultCache.Key cacheKey,
+            long[] folderGenerations,
+            SearchResponse immediateResponse,
+            StaleImages staleImages) {
+
+        SearchPlan(SearchServiceRequest request, int topK, SearchResultCache.Key cacheKey, long[] folderGenerations) {
+            this(request, topK, cacheKey, folderGenerations, null, StaleImages.forScope(request.getFolderOwnerMap()));
+        }
+
+        static SearchPlan immediate(SearchResponse response) {
+            return new SearchPlan(null, 0, null, null, response, null);
+        }
+    }
+
+    /**
+     * Stale IDs (returned by the backend, missing from the database) already reported
+     * for one request. Streaming partials, the merged response and a follow-up fetch
+     * enrich the same hits - each ID is deleted from the index once, not per pass.
+     */
+    private record StaleImages(Map<Long, Long> folderOwnerMap, Set<Long> reported) {
+
+        static StaleImages forScope(Map<Long, Long> folderOwnerMap) {
+            return new StaleImages(folderOwnerMap != null ? folderOwnerMap : Map.of(), ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    /**
+     * One fetch after enrichment: how many results were asked for and returned, what survived,
+     * and whether the fetch was degraded (results missing - not cacheable).
+     */
+    private record EnrichedResults(
+            int requested, int returned, List<SearchResponse.ImageSearchResult> results, boolean degraded) {
+    }
 }
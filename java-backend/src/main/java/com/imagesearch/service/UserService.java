@@ -43,17 +43,23 @@ public class UserService {
     private final SessionService sessionService;
     private final FolderRepository folderRepository;
     private final SearchClient searchClient;
+    private final FolderAccessCache folderAccessCache;
+    private final ImagePathCache imagePathCache;
     private final BCryptPasswordEncoder passwordEncoder;
 
     public UserService(
             UserRepository userRepository,
             SessionService sessionService,
             FolderRepository folderRepository,
-            SearchClient searchClient) {
+            SearchClient searchClient,
+            FolderAccessCache folderAccessCache,
+            ImagePathCache imagePathCache) {
         this.userRepository = userRepository;
         this.sessionService = sessionService;
         this.folderRepository = folderRepository;
         this.searchClient = searchClient;
+        this.folderAccessCache = folderAccessCache;
+        this.imagePathCache = imagePathCache;
         this.passwordEncoder = new BCryptPasswordEncoder();
     }
 
@@ -146,14 +152,19 @@ public class UserService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", userId));
 
-        // 1. Delete search indices (requires folder query before user deletion)
-        deleteUserSearchIndices(userId);
+        // Folders cascade-delete with the user, so query them first
+        List<Folder> userFolders = folderRepository.findByUser(user);
+
+        // 1. Delete search indices
+        deleteUserSearchIndices(userId, userFolders);
 
         // 2. Invalidate all sessions
         sessionService.invalidateAllUserSessions(user);
 
         // 3. Delete user (cascades to folders, images, shares via JPA)
         userRepository.delete(user);
+        folderAccessCache.removeUser(userId);
+        imagePathCache.invalidateFolders(userFolders.stream().map(Folder::getId).toList());
 
         // 4. Delete physical image files from filesystem
         deleteUserImages(userId);
@@ -190,24 +201,13 @@ public class UserService {
      * Delete all search indices for a user.
      *
      * Iterates through all user folders and deletes their search indices.
-     * This must be called BEFORE deleting the user from the database,
-     * because we need to query folders (which cascade-delete with the user).
+     * The folders must be queried BEFORE deleting the user from the database,
+     * because they cascade-delete with the user.
      *
      * The actual backend (FAISS or Elasticsearch) is determined by the active SearchClient implementation.
      */
-    private void deleteUserSearchIndices(Long userId) {
+    private void deleteUserSearchIndices(Long userId, List<Folder> userFolders) {
         try {
-            // Get user entity
-            @SuppressWarnings("null")
-            User user = userRepository.findById(userId).orElse(null);
-            if (user == null) {
-                logger.warn("Cannot delete search indices: user {} not found", userId);
-                return;
-            }
-
-            // Get all folders owned by this user
-            List<Folder> userFolders = folderRepository.findByUser(user);
-
             if (userFolders.isEmpty()) {
                 logger.info("No folders found for user {}, no search indices to delete", userId);
                 return;
@@ -0,0 +1,192 @@
+package com.imagesearch.util;
+
+import java.util.Arrays;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Open-addressing hash map from primitive long keys to objects.
+ *
+ * Used on hot paths keyed by database IDs (search enrichment, ImagePathCache), where a
+ * HashMap&lt;Long, V&gt; would box every key and allocate a node per entry.
+ * Here the whole map is two arrays:
+ * - keys[] / values[] with linear probing, capacity always a power of two
+ * - a slot is empty when values[slot] == null, so null values are not allowed
+ * - load factor 0.5, so probes stay short
+ * - removal shifts later entries of the probe run back, so no tombstones are needed
+ *
+ * Not thread-safe.
+ */
+public final class LongObjectHashMap<V> {
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+
+    public LongObjectHashMap() {
+        this(8);
+    }
+
+    /**
+     * @param expectedSize Number of entries to hold without resizing
+     */
+    public LongObjectHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Associate a value with a key, replacing any previous value.
+     *
+     * @return Previous value, or null
+     * @throws NullPointerException if value is null
+     */
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("null values are not supported");
+        }
+        int slot = slotOf(key);
+        @SuppressWarnings("unchecked")
+        V previous = (V) values[slot];
+        keys[slot] = key;
+        values[slot] = value;
+        if (previous == null && ++size * 2 > keys.length) {
+            rehash(keys.length << 1);
+        }
+        return previous;
+    }
+
+    /**
+     * @return Value for the key, or null if absent
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        return (V) values[slotOf(key)];
+    }
+
+    /**
+     * Remove a key.
+     *
+     * @return Removed value, or null if the key was absent
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int slot = slotOf(key);
+        V removed = (V) values[slot];
+        if (removed == null) {
+            return null;
+        }
+        values[slot] = null;
+        size--;
+
+        // Backward-shift deletion: pull later entries of the run into the gap if their
+        // home slot is not between the gap and where they sit now
+        int gap = slot;
+        for (int i = (slot + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+            int home = mix(keys[i]) & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                values[i] = null;
+                gap = i;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Visit every entry, in no particular order. The map must not be modified meanwhile.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(ObjLongConsumer<? super V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != null) {
+                action.accept((V) values[i], keys[i]);
+            }
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return values[slotOf(key)] != null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Slot holding the key, or the empty slot where it would go.
+     */
+    private int slotOf(long key) {
+        int slot = mix(key) & mask;
+        while (values[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Spread sequential IDs across the table (murmur3 finalizer).
+     */
+    private static int mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder("{");
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != null) {
+                if (out.length() > 1) {
+                    out.append(", ");
+                }
+                out.append(keys[i]).append('=').append(values[i]);
+            }
+        }
+        return out.append('}').toString();
+    }
+
+    /**
+     * Copy of the keys, sorted ascending (for tests and logging).
+     */
+    public long[] keys() {
+        long[] out = new long[size];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != null) {
+                out[n++] = keys[i];
+            }
+        }
+        Arrays.sort(out);
+        return out;
+    }
+}
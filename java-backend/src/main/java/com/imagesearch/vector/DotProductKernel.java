@@ -0,0 +1,46 @@
+package com.imagesearch.vector;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Inner-product kernel used for all Java-side similarity scoring.
+ *
+ * Implementations:
+ * - {@link ScalarDotProductKernel} - plain loop, reference implementation
+ * - {@link UnrolledDotProductKernel} - independent accumulators, the fastest portable fallback
+ * - PanamaDotProductKernel - SIMD via jdk.incubator.vector, loaded reflectively
+ *
+ * {@link VectorMath} picks one at startup; callers never reference an implementation directly.
+ */
+public interface DotProductKernel {
+
+    /**
+     * Inner product of a query with one row of a contiguous row-major matrix.
+     *
+     * @param rows Little-endian float32 rows (row i starts at float index i * dimension)
+     * @param offset Float index of the first element of the row
+     * @param query Query vector of length dimension
+     * @return Dot product
+     */
+    float dot(ByteBuffer rows, int offset, float[] query);
+
+    /**
+     * Inner product of a float query with one row of int8 codes (see {@link QuantizedCodes}).
+     *
+     * @param codes Row-major signed int8 codes
+     * @param offset Byte index of the first code of the row
+     * @param query Query vector of length dimension
+     * @return Sum of query[i] * codes[offset + i]
+     */
+    float dotInt8(ByteBuffer codes, int offset, float[] query);
+
+    /**
+     * Inner product of two heap vectors of the same length.
+     */
+    float dot(float[] a, float[] b);
+
+    /**
+     * Short name for logs and benchmarks.
+     */
+    String name();
+}
@@ -0,0 +1,693 @@
+package com.imagesearch.vector;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Persistent inner-product index for one folder.
+ *
+ * On-disk layout (data/vector-indexes/{folder_id}/):
+ * - seg-NNNNNN.vec - immutable memory-mapped segments (see {@link VectorSegment})
+ * - seg-NNNNNN.q8 - int8 codes of each segment when quantization is on (see {@link QuantizedCodes})
+ * - seg-NNNNNN.hnsw - HNSW graph of segments above the HNSW threshold (see {@link HnswGraph})
+ * - seg-NNNNNN.del / tail-NNNNNN.del - tombstone bitsets of deleted rows (see {@link Tombstones})
+ * - tail-NNNNNN.log - append-only log of the mutable tail: records of [long id][float * dim]
+ * - MANIFEST - live segments + current tail, replaced atomically on every change
+ *
+ * Write path:
+ * 1. embedImages appends to the tail (off-heap buffer + fsynced log), so new vectors
+ *    are searchable and durable immediately
+ * 2. When the tail reaches seal-threshold it is written out as a new segment and a
+ *    fresh tail is started
+ * 3. When there are too many segments, the smallest ones are merged in the background
+ *
+ * Delete path: {@link #delete} only sets tombstone bits (O(1) per id once a segment's
+ * id lookup is built), and masked rows are skipped at scoring time. Deleted rows are
+ * physically dropped when the tail is sealed, when segments are merged, or when a
+ * segment's deleted ratio passes the compaction threshold ({@link #compact}).
+ *
+ * Crash safety: files not listed in the MANIFEST (half-written segments, inputs of a
+ * finished merge, sealed tails) are deleted on open, and a torn last tail record is
+ * truncated. Cold start only maps segments and replays the small tail. Only files
+ * named like the layout above (plus .tmp leftovers) are ever deleted - anything else
+ * in the directory is left alone, by cleanup and by {@link #destroy} alike.
+ *
+ * Thread safety: searches share a read lock, appends/deletes/seal/segment swaps take the
+ * write lock. Merging and compaction (the expensive part) run outside the lock.
+ */
+public final class FolderVectorIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(FolderVectorIndex.class);
+
+    private static final String MANIFEST = "MANIFEST";
+    // Every file name this index writes, including writeAtomically's .tmp files
+    private static final Pattern INDEX_FILE = Pattern.compile(
+            "(seg-\\d+\\.(vec|q8|hnsw|del)|tail-\\d+\\.(log|del)|MANIFEST)(\\.tmp)?");
+    private static final int INITIAL_TAIL_CAPACITY = 64;
+
+    private final long folderId;
+    private final int dimension;
+    private final Path directory;
+    private final int sealThreshold;
+    private final SegmentOptions options;
+    private final int recordBytes;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Sealed segments - replaced (never mutated) under the write lock
+    private List<VectorSegment> segments;
+
+    // Mutable tail: off-heap little-endian rows + ids, mirrored by the tail log
+    private ByteBuffer tailBytes;
+    private FloatBuffer tailVectors;
+    private long[] tailIds;
+    private int tailCount;
+    private BitSet tailDeleted;
+    private int tailDeletedCount;
+    private FileChannel tailLog;
+    private long tailGeneration;
+
+    private long nextGeneration;
+    private boolean merging;
+    private boolean closed;
+
+    private FolderVectorIndex(long folderId, int dimension, Path directory, int sealThreshold,
+                              SegmentOptions options) {
+        this.folderId = folderId;
+        this.dimension = dimension;
+        this.directory = directory;
+        this.sealThreshold = Math.max(1, sealThreshold);
+        this.options = options;
+        this.recordBytes = Long.BYTES + dimension * Float.BYTES;
+    }
+
+    /**
+     * Open (or create) a folder's index directory and recover its state.
+     *
+     * @param folderId Folder ID
+     * @param dimension Vector dimension
+     * @param directory Folder's index directory
+     * @param sealThreshold Tail size at which the tail is sealed into a segment
+     * @param options Quantization and HNSW settings for sealed segments
+     * @return Opened index
+     */
+    public static FolderVectorIndex open(long folderId, int dimension, Path directory, int sealThreshold,
+                                         SegmentOptions options) throws IOException {
+        FolderVectorIndex index = new FolderVectorIndex(folderId, dimension, directory, sealThreshold, options);
+        index.recover();
+        return index;
+    }
+
+    /**
+     * Append vectors to the tail. Each vector is L2-normalized before it is stored.
+     *
+     * @param newIds Image IDs
+     * @param newVectors Embeddings, same order as newIds
+     * @throws IllegalArgumentException if a vector has the wrong dimension
+     */
+    public void add(long[] newIds, float[][] newVectors) throws IOException {
+        if (newIds.length != newVectors.length) {
+            throw new IllegalArgumentException("ids and vectors must have the same length");
+        }
+        for (float[] vector : newVectors) {
+            if (vector.length != dimension) {
+                throw new IllegalArgumentException("Expected dimension " + dimension + " but got " + vector.length);
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            int offset = 0;
+            while (offset < newIds.length) {
+                int batch = Math.min(newIds.length - offset, sealThreshold - tailCount);
+                appendToTail(newIds, newVectors, offset, batch);
+                offset += batch;
+                if (tailCount >= sealThreshold) {
+                    seal();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Score every row (segments + tail) against the query and offer it to the collector.
+     *
+     * @param query L2-normalized query vector
+     * @param collector Top-k heap (not reset here, so several folders can share it)
+     */
+    public void search(float[] query, TopKCollector collector) {
+        if (query.length != dimension) {
+            throw new IllegalArgumentException("Expected dimension " + dimension + " but got " + query.length);
+        }
+
+        lock.readLock().lock();
+        try {
+            for (VectorSegment segment : segments) {
+                segment.search(query, folderId, collector);
+            }
+            for (int row = 0, offset = 0; row < tailCount; row++, offset += dimension) {
+                float score = VectorMath.dot(tailBytes, offset, query);
+                if (score > collector.threshold() && (tailDeletedCount == 0 || !tailDeleted.get(row))) {
+                    collector.offer(score, tailIds[row], folderId);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Mask images in this folder. Their vectors stay on disk until the next
+     * seal/merge/compaction but are never returned again.
+     *
+     * @param imageIds Image IDs to delete (unknown IDs are ignored)
+     * @return Number of rows masked (more than imageIds.size() if an image was embedded twice)
+     */
+    public int delete(Collection<Long> imageIds) throws IOException {
+        Set<Long> idSet = new HashSet<>(imageIds);
+
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            int masked = 0;
+            for (VectorSegment segment : segments) {
+                masked += segment.markDeleted(idSet);
+            }
+
+            int tailMasked = 0;
+            for (int row = 0; row < tailCount; row++) {
+                if (!tailDeleted.get(row) && idSet.contains(tailIds[row])) {
+                    tailDeleted.set(row);
+                    tailMasked++;
+                }
+            }
+            if (tailMasked > 0) {
+                tailDeletedCount += tailMasked;
+                Tombstones.write(Tombstones.pathFor(tailPath(tailGeneration)), tailDeleted, tailCount);
+            }
+            return masked + tailMasked;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Whether a background merge should run (too many segments, none running).
+     */
+    public boolean needsMerge(int maxSegments) {
+        lock.readLock().lock();
+        try {
+            return !closed && !merging && segments.size() > maxSegments;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Merge the smallest segments into one. Intended for a background thread:
+     * the new segment is written without holding the lock, then swapped in.
+     *
+     * Smallest-first keeps write amplification down - large segments are only
+     * rewritten once enough small ones have accumulated next to them.
+     *
+     * @param maxSegments Merge until at most this many segments remain (best effort)
+     */
+    public void merge(int maxSegments) throws IOException {
+        List<VectorSegment> inputs;
+
+        lock.writeLock().lock();
+        try {
+            if (closed || merging || segments.size() <= maxSegments) {
+                return;
+            }
+            inputs = pickMergeInputs(segments.size() - maxSegments + 1);
+            if (inputs.size() < 2) {
+                return;
+            }
+            merging = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        rewrite(inputs, "Merged");
+    }
+
+    /**
+     * Whether some segment has more than maxDeletedRatio of its rows deleted and no
+     * merge/compaction is running.
+     */
+    public boolean needsCompaction(double maxDeletedRatio) {
+        lock.readLock().lock();
+        try {
+            return !closed && !merging && segments.stream().anyMatch(s -> s.deletedRatio() > maxDeletedRatio);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrite the segment with the highest deleted ratio without its deleted rows, if
+     * that ratio is above maxDeletedRatio. Same background contract as {@link #merge}.
+     */
+    public void compact(double maxDeletedRatio) throws IOException {
+        VectorSegment victim;
+
+        lock.writeLock().lock();
+        try {
+            if (closed || merging) {
+                return;
+            }
+            victim = segments.stream()
+                .max(Comparator.comparingDouble(VectorSegment::deletedRatio))
+                .filter(s -> s.deletedRatio() > maxDeletedRatio)
+                .orElse(null);
+            if (victim == null) {
+                return;
+            }
+            merging = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        rewrite(List.of(victim), "Compacted");
+    }
+
+    /**
+     * Write inputs (minus deleted rows) as one new segment and swap it in. Caller has
+     * set merging; it is cleared here.
+     */
+    private void rewrite(List<VectorSegment> inputs, String action) throws IOException {
+        try {
+            List<BitSet> snapshots = new ArrayList<>(inputs.size());
+            Path output;
+            lock.writeLock().lock();
+            try {
+                for (VectorSegment input : inputs) {
+                    snapshots.add(input.deletedRows());
+                }
+                output = segmentPath(nextGeneration++);
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            VectorSegment merged = VectorSegment.merge(output, dimension, inputs, snapshots, options);
+
+            lock.writeLock().lock();
+            try {
+                if (closed) {
+                    for (Path file : merged.files()) {
+                        Files.deleteIfExists(file);
+                    }
+                    return;
+                }
+                // Deletes that arrived while the new segment was being written
+                Set<Long> lateDeletes = new HashSet<>();
+                for (int i = 0; i < inputs.size(); i++) {
+                    BitSet late = inputs.get(i).deletedRows();
+                    late.andNot(snapshots.get(i));
+                    for (int row = late.nextSetBit(0); row >= 0; row = late.nextSetBit(row + 1)) {
+                        lateDeletes.add(inputs.get(i).id(row));
+                    }
+                }
+                if (!lateDeletes.isEmpty()) {
+                    merged.markDeleted(lateDeletes);
+                }
+
+                List<VectorSegment> remaining = new ArrayList<>(segments);
+                remaining.removeAll(inputs);
+                remaining.add(merged);
+                segments = List.copyOf(remaining);
+                writeManifest();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            // Inputs are no longer in the manifest. Mappings stay valid until collected.
+            for (VectorSegment input : inputs) {
+                for (Path file : input.files()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            logger.info("{} {} segments into {} ({} vectors) for folder {}",
+                        action, inputs.size(), merged.path().getFileName(), merged.count(), folderId);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                merging = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Number of live (not deleted) vectors.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            int total = tailCount - tailDeletedCount;
+            for (VectorSegment segment : segments) {
+                total += segment.liveCount();
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int segmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int graphSegmentCount() {
+        lock.readLock().lock();
+        try {
+            return (int) segments.stream().filter(VectorSegment::hasGraph).count();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Close the tail log. Searches and appends fail afterwards.
+     */
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (!closed) {
+                closed = true;
+                tailLog.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Close and delete this folder's index files, then the directory if nothing else is in it.
+     */
+    public void destroy() throws IOException {
+        close();
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(FolderVectorIndex::isIndexFile).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        try {
+            Files.deleteIfExists(directory);
+        } catch (DirectoryNotEmptyException e) {
+            logger.warn("Keeping {}: it holds files that are not part of the vector index", directory);
+        }
+    }
+
+    /**
+     * Whether a directory holds a vector index (has a MANIFEST).
+     */
+    public static boolean isIndexDirectory(Path directory) {
+        return Files.isRegularFile(directory.resolve(MANIFEST));
+    }
+
+    static boolean isIndexFile(Path file) {
+        return Files.isRegularFile(file) && INDEX_FILE.matcher(file.getFileName().toString()).matches();
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        Path manifest = directory.resolve(MANIFEST);
+
+        List<VectorSegment> opened = new ArrayList<>();
+        long maxGeneration = 0;
+        tailGeneration = 0;
+
+        if (Files.exists(manifest)) {
+            for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+                String[] parts = line.trim().split("\\s+");
+                if (parts.length != 2) {
+                    continue;
+                }
+                long generation = generationOf(parts[1]);
+                maxGeneration = Math.max(maxGeneration, generation);
+                if (parts[0].equals("segment")) {
+                    opened.add(VectorSegment.open(directory.resolve(parts[1]), dimension, options));
+                } else if (parts[0].equals("tail")) {
+                    tailGeneration = generation;
+                }
+            }
+        }
+        if (tailGeneration == 0) {
+            tailGeneration = ++maxGeneration;
+        }
+        segments = List.copyOf(opened);
+        nextGeneration = maxGeneration + 1;
+
+        allocateTail(INITIAL_TAIL_CAPACITY);
+        tailLog = FileChannel.open(tailPath(tailGeneration),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        replayTail();
+        writeManifest();
+        deleteUnreferencedFiles();
+
+        if (tailCount >= sealThreshold) {
+            seal();
+        }
+        logger.info("Opened vector index for folder {}: {} segments, {} tail vectors",
+                    folderId, segments.size(), tailCount);
+    }
+
+    private void replayTail() throws IOException {
+        long size = tailLog.size();
+        int records = (int) (size / recordBytes);
+        if (size % recordBytes != 0) {
+            // Torn write from a crash - drop the partial record
+            logger.warn("Truncating torn tail record for folder {} ({} stray bytes)", folderId, size % recordBytes);
+            tailLog.truncate((long) records * recordBytes);
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(recordBytes).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < records; i++) {
+            record.clear();
+            tailLog.read(record, (long) i * recordBytes);
+            record.flip();
+            ensureTailCapacity(tailCount + 1);
+            tailIds[tailCount] = record.getLong();
+            for (int d = 0; d < dimension; d++) {
+                tailVectors.put(tailCount * dimension + d, record.getFloat());
+            }
+            tailCount++;
+        }
+        tailLog.position((long) records * recordBytes);
+
+        tailDeleted = Tombstones.read(Tombstones.pathFor(tailPath(tailGeneration)), tailCount);
+        tailDeletedCount = tailDeleted.cardinality();
+    }
+
+    private void appendToTail(long[] newIds, float[][] newVectors, int from, int length) throws IOException {
+        ensureTailCapacity(tailCount + length);
+        ByteBuffer log = ByteBuffer.allocate(length * recordBytes).order(ByteOrder.LITTLE_ENDIAN);
+
+        for (int i = from; i < from + length; i++) {
+            float[] vector = VectorMath.normalize(newVectors[i]);
+            tailVectors.put(tailCount * dimension, vector);
+            tailIds[tailCount] = newIds[i];
+            tailCount++;
+
+            log.putLong(newIds[i]);
+            for (float v : vector) {
+                log.putFloat(v);
+            }
+        }
+
+        log.flip();
+        while (log.hasRemaining()) {
+            tailLog.write(log);
+        }
+        tailLog.force(false);
+    }
+
+    /**
+     * Write the tail out as a segment and start a new, empty tail. Caller holds the write lock.
+     */
+    private void seal() throws IOException {
+        if (tailCount == 0) {
+            return;
+        }
+        dropDeletedTailRows();
+        VectorSegment segment = tailCount > 0
+            ? VectorSegment.write(segmentPath(tailGeneration), dimension, tailIds, tailBytes, tailCount, options)
+            : null;
+
+        Path oldTail = tailPath(tailGeneration);
+        tailLog.close();
+        tailGeneration = nextGeneration++;
+        tailLog = FileChannel.open(tailPath(tailGeneration),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        if (segment != null) {
+            List<VectorSegment> updated = new ArrayList<>(segments);
+            updated.add(segment);
+            segments = List.copyOf(updated);
+        }
+        writeManifest();
+        Files.deleteIfExists(oldTail);
+        Files.deleteIfExists(Tombstones.pathFor(oldTail));
+
+        allocateTail(INITIAL_TAIL_CAPACITY);
+        if (segment != null) {
+            logger.info("Sealed {} vectors into segment {} for folder {}",
+                        segment.count(), segment.path().getFileName(), folderId);
+        }
+    }
+
+    /**
+     * Move live tail rows down over deleted ones so a sealed segment starts without
+     * tombstones. Caller holds the write lock and rotates the tail log afterwards.
+     */
+    private void dropDeletedTailRows() {
+        if (tailDeletedCount == 0) {
+            return;
+        }
+        int rowBytes = dimension * Float.BYTES;
+        int live = 0;
+        for (int row = 0; row < tailCount; row++) {
+            if (tailDeleted.get(row)) {
+                continue;
+            }
+            if (live != row) {
+                tailBytes.put(live * rowBytes, tailBytes, row * rowBytes, rowBytes);
+                tailIds[live] = tailIds[row];
+            }
+            live++;
+        }
+        tailCount = live;
+        tailDeleted.clear();
+        tailDeletedCount = 0;
+    }
+
+    private List<VectorSegment> pickMergeInputs(int minInputs) {
+        List<VectorSegment> bySize = new ArrayList<>(segments);
+        bySize.sort(Comparator.comparingInt(VectorSegment::count));
+
+        List<VectorSegment> inputs = new ArrayList<>();
+        int total = 0;
+        for (VectorSegment segment : bySize) {
+            if (VectorSegment.sizeOf(dimension, total + segment.count()) > Integer.MAX_VALUE) {
+                break;
+            }
+            inputs.add(segment);
+            total += segment.count();
+            if (inputs.size() >= minInputs) {
+                break;
+            }
+        }
+        return inputs;
+    }
+
+    private void writeManifest() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (VectorSegment segment : segments) {
+            content.append("segment ").append(segment.path().getFileName()).append('\n');
+        }
+        content.append("tail ").append(tailPath(tailGeneration).getFileName()).append('\n');
+
+        Path tmp = directory.resolve(MANIFEST + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, directory.resolve(MANIFEST), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void deleteUnreferencedFiles() throws IOException {
+        Set<Path> live = new HashSet<>();
+        live.add(directory.resolve(MANIFEST));
+        live.add(tailPath(tailGeneration));
+        live.add(Tombstones.pathFor(tailPath(tailGeneration)));
+        for (VectorSegment segment : segments) {
+            live.addAll(segment.files());
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(FolderVectorIndex::isIndexFile).toList()) {
+                if (!live.contains(file)) {
+                    logger.info("Deleting unreferenced index file {}", file);
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private void allocateTail(int capacity) {
+        tailBytes = ByteBuffer.allocateDirect(capacity * dimension * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        tailVectors = tailBytes.asFloatBuffer();
+        tailIds = new long[capacity];
+        tailCount = 0;
+        tailDeleted = new BitSet();
+        tailDeletedCount = 0;
+    }
+
+    private void ensureTailCapacity(int required) {
+        if (required <= tailIds.length) {
+            return;
+        }
+        int newCapacity = Math.max(required, tailIds.length * 2);
+        ByteBuffer grown = ByteBuffer.allocateDirect(newCapacity * dimension * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        grown.put(0, tailBytes, 0, tailCount * dimension * Float.BYTES);
+        tailBytes = grown;
+        tailVectors = grown.asFloatBuffer();
+        tailIds = Arrays.copyOf(tailIds, newCapacity);
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Vector index for folder " + folderId + " is closed");
+        }
+    }
+
+    private Path segmentPath(long generation) {
+        return directory.resolve(String.format("seg-%06d.vec", generation));
+    }
+
+    private Path tailPath(long generation) {
+        return directory.resolve(String.format("tail-%06d.log", generation));
+    }
+
+    private static long generationOf(String fileName) {
+        return Long.parseLong(fileName.replaceAll("\\D", ""));
+    }
+}
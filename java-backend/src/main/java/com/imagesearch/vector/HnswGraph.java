@@ -0,0 +1,544 @@
+package com.imagesearch.vector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Hierarchical Navigable Small World graph over the rows of one segment
+ * (Malkov &amp; Yashunin, 2016), stored next to it as seg-NNNNNN.hnsw.
+ *
+ * Nodes are segment row numbers; vectors are read from the segment's mapped float
+ * rows, so the graph itself only holds links. Search cost grows roughly with
+ * log(n) instead of n, which matters for folders with 100k+ images.
+ *
+ * How it works:
+ * 1. Every node gets a random level (exponentially rarer towards the top)
+ * 2. Search starts at the top-level entry point and greedily descends layer by layer
+ * 3. On layer 0 a best-first search keeps ef candidates; the best of those are the hits
+ * 4. Inserts run the same search with efConstruction and link the node to its best
+ *    neighbours (diversity heuristic), pruning neighbours that exceed their link limit
+ *
+ * Graphs are immutable once built. Extending a graph (merging segments) copies it
+ * and inserts the new rows incrementally.
+ *
+ * File format (little-endian):
+ * <pre>
+ *   int magic "IHNW" (0x49484E57), int version (1), int m, int count, int entryPoint, int maxLevel
+ *   per node: int level, then per layer 0..level: int n, int[n] neighbours
+ * </pre>
+ */
+public final class HnswGraph {
+
+    static final int MAGIC = 0x49484E57;
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final int MAX_LEVEL = 16;
+    private static final int[] NO_LINKS = new int[0];
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final ByteBuffer vectors;
+    private final int dimension;
+    private final int m;
+    private final int maxLinks0;
+    private final int[][][] links;
+    private int size;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    private HnswGraph(ByteBuffer vectors, int dimension, int m, int capacity) {
+        this.vectors = vectors;
+        this.dimension = dimension;
+        this.m = m;
+        this.maxLinks0 = 2 * m;
+        this.links = new int[capacity][][];
+    }
+
+    /**
+     * Build a graph over rows [0, count), reusing a graph that already covers a prefix of them.
+     *
+     * @param vectors Segment float rows (little-endian)
+     * @param dimension Vector dimension
+     * @param count Number of rows
+     * @param params Graph settings
+     * @param base Graph over rows [0, base.size()) of the same data, or null to build from scratch
+     */
+    public static HnswGraph build(ByteBuffer vectors, int dimension, int count, HnswParams params, HnswGraph base) {
+        HnswGraph graph = new HnswGraph(vectors, dimension, params.m(), count);
+        int start = 0;
+        if (base != null && base.m == params.m() && base.size <= count) {
+            // Copy each node's layer table - inserts replace neighbour arrays (never mutate them),
+            // and the base may still be serving searches
+            for (int node = 0; node < base.size; node++) {
+                graph.links[node] = base.links[node].clone();
+            }
+            graph.size = base.size;
+            graph.entryPoint = base.entryPoint;
+            graph.maxLevel = base.maxLevel;
+            start = base.size;
+        }
+
+        Builder builder = new Builder(graph, params.efConstruction(), new SplittableRandom(42L + start));
+        for (int node = start; node < count; node++) {
+            builder.insert(node);
+        }
+        return graph;
+    }
+
+    /**
+     * Approximate nearest neighbours of a query.
+     *
+     * @param query L2-normalized query
+     * @param ef Candidate list size (at least k for useful results)
+     * @param results Receives up to ef (score, row) pairs; read with {@link NodeQueue#size()}/score/node
+     */
+    public void search(float[] query, int ef, NodeQueue results) {
+        results.clear();
+        if (entryPoint < 0) {
+            return;
+        }
+        Scratch scratch = SCRATCH.get();
+        int ep = entryPoint;
+        for (int level = maxLevel; level > 0; level--) {
+            ep = greedy(query, ep, level);
+        }
+        searchLayer(query, ep, ef, 0, results, scratch.candidates, scratch.visited);
+    }
+
+    /**
+     * Per-thread result queue for {@link #search}.
+     */
+    public static NodeQueue resultsForCurrentThread() {
+        return SCRATCH.get().results;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Load a graph written by {@link #write}.
+     *
+     * @throws IOException if the file is missing, corrupt or was built for a different row count
+     */
+    public static HnswGraph read(Path path, ByteBuffer vectors, int dimension, int count) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            in.order(ByteOrder.LITTLE_ENDIAN);
+            if (in.remaining() < HEADER_BYTES || in.getInt() != MAGIC || in.getInt() != VERSION) {
+                throw new IOException("Not an HNSW graph: " + path);
+            }
+            int m = in.getInt();
+            int storedCount = in.getInt();
+            if (storedCount != count) {
+                throw new IOException("Graph covers " + storedCount + " rows, segment has " + count + ": " + path);
+            }
+            HnswGraph graph = new HnswGraph(vectors, dimension, m, count);
+            graph.entryPoint = in.getInt();
+            graph.maxLevel = in.getInt();
+            try {
+                for (int node = 0; node < count; node++) {
+                    int level = in.getInt();
+                    int[][] nodeLinks = new int[level + 1][];
+                    for (int l = 0; l <= level; l++) {
+                        int[] neighbours = new int[in.getInt()];
+                        for (int i = 0; i < neighbours.length; i++) {
+                            neighbours[i] = in.getInt();
+                        }
+                        nodeLinks[l] = neighbours;
+                    }
+                    graph.links[node] = nodeLinks;
+                }
+            } catch (RuntimeException e) {
+                throw new IOException("Truncated HNSW graph: " + path, e);
+            }
+            graph.size = count;
+            return graph;
+        }
+    }
+
+    /**
+     * Write the graph atomically (temp file, fsync, rename).
+     */
+    public void write(Path path) throws IOException {
+        long bytes = HEADER_BYTES;
+        for (int node = 0; node < size; node++) {
+            bytes += Integer.BYTES;
+            for (int[] neighbours : links[node]) {
+                bytes += Integer.BYTES + (long) neighbours.length * Integer.BYTES;
+            }
+        }
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IOException("HNSW graph would exceed 2GB: " + path);
+        }
+
+        ByteBuffer out = ByteBuffer.allocate((int) bytes).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putInt(VERSION).putInt(m).putInt(size).putInt(entryPoint).putInt(maxLevel);
+        for (int node = 0; node < size; node++) {
+            out.putInt(links[node].length - 1);
+            for (int[] neighbours : links[node]) {
+                out.putInt(neighbours.length);
+                for (int neighbour : neighbours) {
+                    out.putInt(neighbour);
+                }
+            }
+        }
+        out.flip();
+        VectorSegment.writeAtomically(path, List.of(out));
+    }
+
+    /**
+     * Graph file belonging to a segment file.
+     */
+    public static Path pathFor(Path segmentPath) {
+        String name = segmentPath.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return segmentPath.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".hnsw");
+    }
+
+    private float score(float[] query, int node) {
+        return VectorMath.dot(vectors, node * dimension, query);
+    }
+
+    /**
+     * Move to the best-scoring neighbour until no neighbour improves (ef = 1 search).
+     */
+    private int greedy(float[] query, int ep, int level) {
+        float best = score(query, ep);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int neighbour : links[ep][level]) {
+                float s = score(query, neighbour);
+                if (s > best) {
+                    best = s;
+                    ep = neighbour;
+                    improved = true;
+                }
+            }
+        }
+        return ep;
+    }
+
+    /**
+     * Best-first search on one layer. Leaves the best ef nodes in results (min-heap).
+     */
+    private void searchLayer(float[] query, int ep, int ef, int level,
+                             NodeQueue results, NodeQueue candidates, VisitedSet visited) {
+        results.clear();
+        candidates.clear();
+        visited.reset(links.length);
+
+        float epScore = score(query, ep);
+        visited.add(ep);
+        results.push(epScore, ep);
+        candidates.push(-epScore, ep); // negated: min-heap used as max-heap
+
+        while (candidates.size() > 0) {
+            float candidateScore = -candidates.topScore();
+            int candidate = candidates.topNode();
+            candidates.pop();
+            if (results.size() >= ef && candidateScore < results.topScore()) {
+                break; // best remaining candidate is worse than the worst result
+            }
+            for (int neighbour : links[candidate][level]) {
+                if (!visited.add(neighbour)) {
+                    continue;
+                }
+                float s = score(query, neighbour);
+                if (results.size() < ef || s > results.topScore()) {
+                    candidates.push(-s, neighbour);
+                    results.push(s, neighbour);
+                    if (results.size() > ef) {
+                        results.pop();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Single-threaded inserter with its own scratch space.
+     */
+    private static final class Builder {
+
+        private final HnswGraph graph;
+        private final int efConstruction;
+        private final SplittableRandom random;
+        private final double levelMultiplier;
+        private final NodeQueue results = new NodeQueue(64);
+        private final NodeQueue candidates = new NodeQueue(64);
+        private final VisitedSet visited = new VisitedSet();
+        private final float[] query;
+        private final float[] other;
+        private final float[] linkBase;
+
+        Builder(HnswGraph graph, int efConstruction, SplittableRandom random) {
+            this.graph = graph;
+            this.efConstruction = Math.max(efConstruction, graph.m);
+            this.random = random;
+            this.levelMultiplier = 1.0 / Math.log(Math.max(2, graph.m));
+            this.query = new float[graph.dimension];
+            this.other = new float[graph.dimension];
+            this.linkBase = new float[graph.dimension];
+        }
+
+        void insert(int node) {
+            int level = Math.min(MAX_LEVEL, (int) (-Math.log(1.0 - random.nextDouble()) * levelMultiplier));
+            int[][] nodeLinks = new int[level + 1][];
+            Arrays.fill(nodeLinks, NO_LINKS);
+            graph.links[node] = nodeLinks;
+
+            if (graph.entryPoint < 0) {
+                graph.entryPoint = node;
+                graph.maxLevel = level;
+                graph.size = node + 1;
+                return;
+            }
+
+            loadRow(node, query);
+            int ep = graph.entryPoint;
+            for (int l = graph.maxLevel; l > level; l--) {
+                ep = graph.greedy(query, ep, l);
+            }
+
+            for (int l = Math.min(level, graph.maxLevel); l >= 0; l--) {
+                graph.searchLayer(query, ep, efConstruction, l, results, candidates, visited);
+                int count = results.size();
+                int[] found = new int[count];
+                float[] scores = new float[count];
+                // Pop worst-first, fill from the back so index 0 is the best
+                for (int i = count - 1; i >= 0; i--) {
+                    scores[i] = results.topScore();
+                    found[i] = results.topNode();
+                    results.pop();
+                }
+                ep = found[0];
+
+                int[] selected = selectNeighbours(found, scores, graph.m);
+                nodeLinks[l] = selected;
+                for (int neighbour : selected) {
+                    addLink(neighbour, node, l);
+                }
+            }
+
+            if (level > graph.maxLevel) {
+                graph.maxLevel = level;
+                graph.entryPoint = node;
+            }
+            graph.size = node + 1;
+        }
+
+        /**
+         * Diversity heuristic: keep a candidate only if it is closer to the base vector
+         * than to every neighbour already kept, then top up with the best rejected ones.
+         *
+         * @param candidates Candidate rows, best first
+         * @param scores Their similarity to the base vector
+         * @param max Number of links to keep
+         */
+        private int[] selectNeighbours(int[] candidates, float[] scores, int max) {
+            if (candidates.length <= max) {
+                return candidates.clone();
+            }
+            int[] selected = new int[max];
+            int count = 0;
+            List<Integer> rejected = new ArrayList<>();
+            for (int i = 0; i < candidates.length && count < max; i++) {
+                loadRow(candidates[i], other);
+                boolean diverse = true;
+                for (int j = 0; j < count; j++) {
+                    if (graph.score(other, selected[j]) > scores[i]) {
+                        diverse = false;
+                        break;
+                    }
+                }
+                if (diverse) {
+                    selected[count++] = candidates[i];
+                } else {
+                    rejected.add(candidates[i]);
+                }
+            }
+            for (int i = 0; i < rejected.size() && count < max; i++) {
+                selected[count++] = rejected.get(i);
+            }
+            return count == max ? selected : Arrays.copyOf(selected, count);
+        }
+
+        private void addLink(int from, int to, int level) {
+            int[] current = graph.links[from][level];
+            int max = level == 0 ? graph.maxLinks0 : graph.m;
+            if (current.length < max) {
+                int[] grown = Arrays.copyOf(current, current.length + 1);
+                grown[current.length] = to;
+                graph.links[from][level] = grown;
+                return;
+            }
+
+            // Full - re-select among the existing links plus the new one, relative to 'from'
+            loadRow(from, linkBase);
+            int n = current.length + 1;
+            Integer[] order = new Integer[n];
+            int[] nodes = Arrays.copyOf(current, n);
+            nodes[n - 1] = to;
+            float[] nodeScores = new float[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+                nodeScores[i] = graph.score(linkBase, nodes[i]);
+            }
+            Arrays.sort(order, (a, b) -> Float.compare(nodeScores[b], nodeScores[a]));
+            int[] sortedNodes = new int[n];
+            float[] sortedScores = new float[n];
+            for (int i = 0; i < n; i++) {
+                sortedNodes[i] = nodes[order[i]];
+                sortedScores[i] = nodeScores[order[i]];
+            }
+            graph.links[from][level] = selectNeighbours(sortedNodes, sortedScores, max);
+        }
+
+        private void loadRow(int node, float[] target) {
+            int base = node * graph.dimension * Float.BYTES;
+            for (int d = 0; d < target.length; d++) {
+                target[d] = graph.vectors.getFloat(base + d * Float.BYTES);
+            }
+        }
+    }
+
+    /**
+     * Binary min-heap of (score, node) pairs over primitive arrays.
+     * Push negated scores to use it as a max-heap.
+     */
+    public static final class NodeQueue {
+
+        private float[] scores;
+        private int[] nodes;
+        private int size;
+
+        NodeQueue(int initialCapacity) {
+            scores = new float[initialCapacity];
+            nodes = new int[initialCapacity];
+        }
+
+        void push(float score, int node) {
+            if (size == scores.length) {
+                scores = Arrays.copyOf(scores, size * 2);
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (scores[parent] <= score) {
+                    break;
+                }
+                scores[i] = scores[parent];
+                nodes[i] = nodes[parent];
+                i = parent;
+            }
+            scores[i] = score;
+            nodes[i] = node;
+        }
+
+        void pop() {
+            size--;
+            if (size == 0) {
+                return;
+            }
+            float score = scores[size];
+            int node = nodes[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && scores[child + 1] < scores[child]) {
+                    child++;
+                }
+                if (score <= scores[child]) {
+                    break;
+                }
+                scores[i] = scores[child];
+                nodes[i] = nodes[child];
+                i = child;
+            }
+            scores[i] = score;
+            nodes[i] = node;
+        }
+
+        float topScore() {
+            return scores[0];
+        }
+
+        int topNode() {
+            return nodes[0];
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Score at heap position i (unordered).
+         */
+        public float score(int i) {
+            return scores[i];
+        }
+
+        /**
+         * Node at heap position i (unordered).
+         */
+        public int node(int i) {
+            return nodes[i];
+        }
+    }
+
+    /**
+     * Visited marks with an epoch counter, so resetting is O(1) instead of clearing the array.
+     */
+    private static final class VisitedSet {
+
+        private int[] marks = new int[0];
+        private int epoch;
+
+        void reset(int capacity) {
+            if (marks.length < capacity) {
+                marks = new int[capacity];
+                epoch = 0;
+            }
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                epoch = 1;
+            }
+        }
+
+        /**
+         * @return true if the node was not visited yet
+         */
+        boolean add(int node) {
+            if (marks[node] == epoch) {
+                return false;
+            }
+            marks[node] = epoch;
+            return true;
+        }
+    }
+
+    private static final class Scratch {
+        final NodeQueue results = new NodeQueue(64);
+        final NodeQueue candidates = new NodeQueue(64);
+        final VisitedSet visited = new VisitedSet();
+    }
+}
@@ -0,0 +1,23 @@
+package com.imagesearch.vector;
+
+/**
+ * HNSW graph settings for large segments.
+ *
+ * @param threshold Minimum segment size (vectors) that gets a graph; smaller segments are scanned. 0 disables HNSW
+ * @param m Max links per node on upper layers (layer 0 allows 2 * m)
+ * @param efConstruction Candidate list size while inserting - higher builds a better graph, slower
+ * @param efSearch Candidate list size while searching (raised to k if smaller) - the recall/latency knob
+ */
+public record HnswParams(int threshold, int m, int efConstruction, int efSearch) {
+
+    public static HnswParams disabled() {
+        return new HnswParams(0, 16, 100, 64);
+    }
+
+    /**
+     * Whether a segment of this size should be searched through a graph.
+     */
+    public boolean appliesTo(int count) {
+        return threshold > 0 && count >= threshold;
+    }
+}
@@ -0,0 +1,102 @@
+package com.imagesearch.vector;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * SIMD dot product using the JDK Vector API (jdk.incubator.vector).
+ *
+ * Uses the widest species the CPU supports (8 floats on AVX2, 16 on AVX-512),
+ * so a 512-d CLIP row is 64 (or 32) vector multiply-adds plus one lane reduction.
+ * Mapped segment rows are loaded straight from the ByteBuffer - no copy.
+ *
+ * Only ever loaded reflectively by {@link VectorMath}: if the JVM was started
+ * without --add-modules jdk.incubator.vector, loading this class fails and the
+ * scalar kernel is used instead.
+ */
+public final class PanamaDotProductKernel implements DotProductKernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    // Bytes with the same lane count as SPECIES (e.g. 16 bytes for 16 float lanes), widened to float on load
+    private static final VectorSpecies<Byte> BYTE_SPECIES =
+            VectorSpecies.of(byte.class, VectorShape.forBitSize(Math.max(64, SPECIES.vectorBitSize() / 4)));
+
+    public PanamaDotProductKernel() {
+        // Without real SIMD registers the Vector API is slower than plain Java
+        if (SPECIES.length() < 4) {
+            throw new UnsupportedOperationException("Preferred float species has only " + SPECIES.length() + " lanes");
+        }
+    }
+
+    @Override
+    public float dot(ByteBuffer rows, int offset, float[] query) {
+        int base = offset * Float.BYTES;
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = SPECIES.loopBound(query.length);
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector row = FloatVector.fromByteBuffer(SPECIES, rows, base + i * Float.BYTES, ByteOrder.LITTLE_ENDIAN);
+            FloatVector q = FloatVector.fromArray(SPECIES, query, i);
+            acc = acc.add(row.mul(q));
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < query.length; i++) {
+            sum += rows.getFloat(base + i * Float.BYTES) * query[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dotInt8(ByteBuffer codes, int offset, float[] query) {
+        if (BYTE_SPECIES.length() != SPECIES.length()) {
+            // 128-bit float species: no 32-bit byte shape to widen from
+            return scalarDotInt8(codes, offset, query, 0, 0f);
+        }
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = SPECIES.loopBound(query.length);
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector code = (FloatVector) ByteVector
+                    .fromByteBuffer(BYTE_SPECIES, codes, offset + i, ByteOrder.LITTLE_ENDIAN)
+                    .castShape(SPECIES, 0);
+            FloatVector q = FloatVector.fromArray(SPECIES, query, i);
+            acc = acc.add(code.mul(q));
+        }
+        return scalarDotInt8(codes, offset, query, i, acc.reduceLanes(VectorOperators.ADD));
+    }
+
+    @Override
+    public float dot(float[] a, float[] b) {
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        int bound = SPECIES.loopBound(a.length);
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, i);
+            FloatVector vb = FloatVector.fromArray(SPECIES, b, i);
+            acc = acc.add(va.mul(vb));
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static float scalarDotInt8(ByteBuffer codes, int offset, float[] query, int from, float sum) {
+        for (int i = from; i < query.length; i++) {
+            sum += codes.get(offset + i) * query[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String name() {
+        return "panama-" + SPECIES.vectorBitSize() + "bit";
+    }
+}
@@ -0,0 +1,177 @@
+package com.imagesearch.vector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Int8 scalar-quantized copy of a segment's vectors, stored next to it as seg-NNNNNN.q8.
+ *
+ * Each vector gets its own scale and offset (min/max over its components), so a
+ * component x is stored as code c in [-128, 127] with
+ * <pre>
+ *   x ~= offset + scale * (c + 128)
+ * </pre>
+ *
+ * File format (little-endian):
+ * <pre>
+ *   offset 0   int    magic "IQ8C" (0x49513843)
+ *   offset 4   int    format version (1)
+ *   offset 8   int    dimension
+ *   offset 12  int    count
+ *   offset 16  float[count]         per-vector scale
+ *   then       float[count]         per-vector offset
+ *   then       byte[count * dim]    codes, row-major
+ * </pre>
+ *
+ * Scanning the codes touches dim + 8 bytes per vector instead of 4 * dim, so the
+ * working set that has to stay in the page cache is ~4x smaller. The float file is
+ * only read for the few candidates that get re-ranked.
+ *
+ * The codes are derived data: if the file is missing or corrupt it is rebuilt from
+ * the float segment on open.
+ */
+public final class QuantizedCodes {
+
+    static final int MAGIC = 0x49513843;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    private static final int CHUNK_BYTES = 64 * 1024;
+
+    private final int dimension;
+    private final ByteBuffer scales;
+    private final ByteBuffer offsets;
+    private final ByteBuffer codes;
+
+    private QuantizedCodes(int dimension, ByteBuffer scales, ByteBuffer offsets, ByteBuffer codes) {
+        this.dimension = dimension;
+        this.scales = scales;
+        this.offsets = offsets;
+        this.codes = codes;
+    }
+
+    /**
+     * Codes file belonging to a segment file.
+     */
+    public static Path pathFor(Path segmentPath) {
+        String name = segmentPath.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return segmentPath.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".q8");
+    }
+
+    /**
+     * Map an existing codes file.
+     *
+     * @throws IOException if the file is missing, truncated or does not match the segment shape
+     */
+    public static QuantizedCodes open(Path path, int dimension, int count) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size != sizeOf(dimension, count)) {
+                throw new IOException("Codes size " + size + " != expected " + sizeOf(dimension, count) + ": " + path);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION
+                    || mapped.getInt(8) != dimension || mapped.getInt(12) != count) {
+                throw new IOException("Codes header does not match segment: " + path);
+            }
+
+            int floatsLength = count * Float.BYTES;
+            ByteBuffer scales = mapped.slice(HEADER_BYTES, floatsLength).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer offsets = mapped.slice(HEADER_BYTES + floatsLength, floatsLength).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer codes = mapped.slice(HEADER_BYTES + 2 * floatsLength, count * dimension);
+            return new QuantizedCodes(dimension, scales, offsets, codes);
+        }
+    }
+
+    /**
+     * Quantize rows [0, count) of a float matrix, write the codes file atomically and map it.
+     *
+     * @param path Codes file path
+     * @param dimension Vector dimension
+     * @param vectorBytes Little-endian row-major float vectors
+     * @param count Number of rows
+     */
+    public static QuantizedCodes build(Path path, int dimension, ByteBuffer vectorBytes, int count) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(dimension).putInt(count).flip();
+        ByteBuffer scales = ByteBuffer.allocate(count * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer offsets = ByteBuffer.allocate(count * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer chunk = ByteBuffer.allocate(Math.max(1, CHUNK_BYTES / dimension) * dimension);
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            // Codes are streamed in chunks after the header and the two float arrays
+            long position = HEADER_BYTES + 2L * count * Float.BYTES;
+            for (int r = 0; r < count; r++) {
+                int base = r * dimension * Float.BYTES;
+                float min = Float.POSITIVE_INFINITY;
+                float max = Float.NEGATIVE_INFINITY;
+                for (int d = 0; d < dimension; d++) {
+                    float v = vectorBytes.getFloat(base + d * Float.BYTES);
+                    min = Math.min(min, v);
+                    max = Math.max(max, v);
+                }
+                float scale = max > min ? (max - min) / 255f : 0f;
+                scales.putFloat(r * Float.BYTES, scale);
+                offsets.putFloat(r * Float.BYTES, min);
+
+                if (chunk.remaining() < dimension) {
+                    position = flush(channel, chunk, position);
+                }
+                for (int d = 0; d < dimension; d++) {
+                    float v = vectorBytes.getFloat(base + d * Float.BYTES);
+                    int level = scale > 0f ? Math.round((v - min) / scale) : 0;
+                    chunk.put((byte) (Math.min(255, Math.max(0, level)) - 128));
+                }
+            }
+            flush(channel, chunk, position);
+            writeFully(channel, header, 0);
+            writeFully(channel, scales, HEADER_BYTES);
+            writeFully(channel, offsets, HEADER_BYTES + (long) count * Float.BYTES);
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return open(path, dimension, count);
+    }
+
+    /**
+     * Approximate inner product of a query with one quantized row.
+     *
+     * @param row Row index
+     * @param query Query vector
+     * @param querySum Sum of the query's components (same for every row, computed once)
+     */
+    public float approximateDot(int row, float[] query, float querySum) {
+        float scale = scales.getFloat(row * Float.BYTES);
+        float offset = offsets.getFloat(row * Float.BYTES);
+        // sum q_i * (offset + scale * (c_i + 128)) = (offset + 128 * scale) * sum(q) + scale * sum(q_i * c_i)
+        return (offset + 128f * scale) * querySum + scale * VectorMath.dotInt8(codes, row * dimension, query);
+    }
+
+    static long sizeOf(int dimension, int count) {
+        return HEADER_BYTES + 2L * count * Float.BYTES + (long) count * dimension;
+    }
+
+    private static long flush(FileChannel channel, ByteBuffer chunk, long position) throws IOException {
+        chunk.flip();
+        long end = position + chunk.remaining();
+        writeFully(channel, chunk, position);
+        chunk.clear();
+        return end;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.imagesearch.vector;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Straightforward dot product - one accumulator, one multiply-add per element.
+ *
+ * The single accumulator is a serial dependency chain, and the JIT may not reorder
+ * float additions, so this loop is neither pipelined nor vectorized. Kept as the
+ * reference implementation for tests and benchmarks.
+ */
+public final class ScalarDotProductKernel implements DotProductKernel {
+
+    @Override
+    public float dot(ByteBuffer rows, int offset, float[] query) {
+        int base = offset * Float.BYTES;
+        float sum = 0f;
+        for (int i = 0; i < query.length; i++) {
+            sum += rows.getFloat(base + i * Float.BYTES) * query[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dotInt8(ByteBuffer codes, int offset, float[] query) {
+        float sum = 0f;
+        for (int i = 0; i < query.length; i++) {
+            sum += codes.get(offset + i) * query[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(float[] a, float[] b) {
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
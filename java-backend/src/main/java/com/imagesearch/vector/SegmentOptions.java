@@ -0,0 +1,21 @@
+package com.imagesearch.vector;
+
+/**
+ * How sealed segments are indexed and searched.
+ *
+ * @param rerankFactor Int8 candidates per requested hit, re-scored in float (0 = no quantization)
+ * @param hnsw Graph settings for segments above the HNSW threshold
+ */
+public record SegmentOptions(int rerankFactor, HnswParams hnsw) {
+
+    /**
+     * Plain float scan - no int8 codes, no graphs.
+     */
+    public static SegmentOptions exact() {
+        return new SegmentOptions(0, HnswParams.disabled());
+    }
+
+    public boolean quantize() {
+        return rerankFactor > 0;
+    }
+}
@@ -0,0 +1,63 @@
+package com.imagesearch.vector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Deletion bitset files (seg-NNNNNN.del, tail-NNNNNN.del).
+ *
+ * A set bit masks that row at scoring time. The file is rewritten atomically on
+ * every delete batch - at most rows / 8 bytes, so deletes stay cheap even for
+ * 200k-vector segments.
+ *
+ * File format (little-endian): int magic "IDEL" (0x4944454C), int rows, long[] bitset words.
+ * rows is the row count when the file was written; a tail log may have grown since.
+ */
+final class Tombstones {
+
+    static final int MAGIC = 0x4944454C;
+
+    private Tombstones() {
+    }
+
+    /**
+     * Tombstone file belonging to a segment or tail log.
+     */
+    static Path pathFor(Path dataPath) {
+        String name = dataPath.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dataPath.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".del");
+    }
+
+    /**
+     * @param rows Current row count of the segment or tail
+     * @return Deleted rows, or an empty bitset if there is no file
+     * @throws IOException if the file is corrupt or covers more rows than exist
+     */
+    static BitSet read(Path path, int rows) throws IOException {
+        if (!Files.exists(path)) {
+            return new BitSet();
+        }
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        if (in.remaining() < 8 || in.getInt() != MAGIC || in.getInt() > rows || in.remaining() % Long.BYTES != 0) {
+            throw new IOException("Corrupt tombstone file: " + path);
+        }
+        return BitSet.valueOf(in.asLongBuffer());
+    }
+
+    static void write(Path path, BitSet deleted, int rows) throws IOException {
+        long[] words = deleted.toLongArray();
+        ByteBuffer out = ByteBuffer.allocate(8 + words.length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putInt(rows);
+        for (long word : words) {
+            out.putLong(word);
+        }
+        out.flip();
+        VectorSegment.writeAtomically(path, List.of(out));
+    }
+}
@@ -0,0 +1,154 @@
+package com.imagesearch.vector;
+
+/**
+ * Reusable fixed-size min-heap for exact top-k scoring.
+ *
+ * Same algorithm as TopKMerger (smallest score at the head, replace the head when a
+ * better candidate arrives), but over parallel primitive arrays instead of result
+ * objects, so scoring millions of rows allocates nothing. One instance per thread
+ * (see {@link #forCurrentThread()}) is reset and reused for every query.
+ *
+ * After {@link #sortDescending()}, index 0 holds the best hit.
+ */
+public final class TopKCollector {
+
+    private static final ThreadLocal<TopKCollector> PER_THREAD = ThreadLocal.withInitial(() -> new TopKCollector(16));
+
+    private float[] scores;
+    private long[] ids;
+    private long[] folderIds;
+    private int k;
+    private int size;
+
+    public TopKCollector(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        this.scores = new float[capacity];
+        this.ids = new long[capacity];
+        this.folderIds = new long[capacity];
+    }
+
+    /**
+     * Scratch collector owned by the calling thread. Results are only valid until the
+     * same thread runs its next query, so copy them out before returning.
+     */
+    public static TopKCollector forCurrentThread() {
+        return PER_THREAD.get();
+    }
+
+    /**
+     * Clear the heap and set the number of hits to keep. Grows the arrays only if
+     * k is larger than any k seen before on this collector.
+     */
+    public void reset(int k) {
+        if (k > scores.length) {
+            scores = new float[k];
+            ids = new long[k];
+            folderIds = new long[k];
+        }
+        this.k = Math.max(0, k);
+        this.size = 0;
+    }
+
+    /**
+     * Lowest score that would still be accepted once the heap is full.
+     * Lets scoring loops skip candidates cheaply.
+     */
+    public float threshold() {
+        return size < k ? Float.NEGATIVE_INFINITY : scores[0];
+    }
+
+    /**
+     * Offer a candidate. O(log k) when accepted, O(1) when rejected.
+     */
+    public void offer(float score, long id, long folderId) {
+        if (size < k) {
+            int i = size++;
+            scores[i] = score;
+            ids[i] = id;
+            folderIds[i] = folderId;
+            siftUp(i);
+        } else if (k > 0 && score > scores[0]) {
+            scores[0] = score;
+            ids[0] = id;
+            folderIds[0] = folderId;
+            siftDown(0, size);
+        }
+    }
+
+    /**
+     * Heap-sort in place so that index 0 is the highest score. The collector must be
+     * {@link #reset} before offering again.
+     */
+    public void sortDescending() {
+        // Repeatedly move the current minimum to the end of the shrinking heap
+        for (int end = size - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Number of hits this collector keeps (as set by the last {@link #reset}).
+     */
+    public int k() {
+        return k;
+    }
+
+    public float score(int i) {
+        return scores[i];
+    }
+
+    public long id(int i) {
+        return ids[i];
+    }
+
+    public long folderId(int i) {
+        return folderIds[i];
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (scores[i] >= scores[parent]) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i, int heapSize) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= heapSize) {
+                return;
+            }
+            int smallest = left;
+            int right = left + 1;
+            if (right < heapSize && scores[right] < scores[left]) {
+                smallest = right;
+            }
+            if (scores[i] <= scores[smallest]) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        float s = scores[a];
+        scores[a] = scores[b];
+        scores[b] = s;
+        long id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        long folderId = folderIds[a];
+        folderIds[a] = folderIds[b];
+        folderIds[b] = folderId;
+    }
+}
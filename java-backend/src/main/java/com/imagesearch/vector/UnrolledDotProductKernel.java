@@ -0,0 +1,87 @@
+package com.imagesearch.vector;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Dot product with 8 independent accumulators.
+ *
+ * Splitting the sum breaks the add dependency chain, so the CPU overlaps the
+ * multiply-adds, and the loop has the shape C2's superword pass can pack.
+ * This is the fallback when the Vector API module is not available.
+ */
+public final class UnrolledDotProductKernel implements DotProductKernel {
+
+    @Override
+    public float dot(ByteBuffer rows, int offset, float[] query) {
+        int base = offset * Float.BYTES;
+        float s0 = 0f, s1 = 0f, s2 = 0f, s3 = 0f, s4 = 0f, s5 = 0f, s6 = 0f, s7 = 0f;
+        int i = 0;
+        int bound = query.length & ~7;
+        for (; i < bound; i += 8) {
+            int b = base + i * Float.BYTES;
+            s0 += rows.getFloat(b) * query[i];
+            s1 += rows.getFloat(b + 4) * query[i + 1];
+            s2 += rows.getFloat(b + 8) * query[i + 2];
+            s3 += rows.getFloat(b + 12) * query[i + 3];
+            s4 += rows.getFloat(b + 16) * query[i + 4];
+            s5 += rows.getFloat(b + 20) * query[i + 5];
+            s6 += rows.getFloat(b + 24) * query[i + 6];
+            s7 += rows.getFloat(b + 28) * query[i + 7];
+        }
+        float sum = ((s0 + s1) + (s2 + s3)) + ((s4 + s5) + (s6 + s7));
+        for (; i < query.length; i++) {
+            sum += rows.getFloat(base + i * Float.BYTES) * query[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dotInt8(ByteBuffer codes, int offset, float[] query) {
+        float s0 = 0f, s1 = 0f, s2 = 0f, s3 = 0f, s4 = 0f, s5 = 0f, s6 = 0f, s7 = 0f;
+        int i = 0;
+        int bound = query.length & ~7;
+        for (; i < bound; i += 8) {
+            int b = offset + i;
+            s0 += codes.get(b) * query[i];
+            s1 += codes.get(b + 1) * query[i + 1];
+            s2 += codes.get(b + 2) * query[i + 2];
+            s3 += codes.get(b + 3) * query[i + 3];
+            s4 += codes.get(b + 4) * query[i + 4];
+            s5 += codes.get(b + 5) * query[i + 5];
+            s6 += codes.get(b + 6) * query[i + 6];
+            s7 += codes.get(b + 7) * query[i + 7];
+        }
+        float sum = ((s0 + s1) + (s2 + s3)) + ((s4 + s5) + (s6 + s7));
+        for (; i < query.length; i++) {
+            sum += codes.get(offset + i) * query[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(float[] a, float[] b) {
+        float s0 = 0f, s1 = 0f, s2 = 0f, s3 = 0f, s4 = 0f, s5 = 0f, s6 = 0f, s7 = 0f;
+        int i = 0;
+        int bound = a.length & ~7;
+        for (; i < bound; i += 8) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + 2] * b[i + 2];
+            s3 += a[i + 3] * b[i + 3];
+            s4 += a[i + 4] * b[i + 4];
+            s5 += a[i + 5] * b[i + 5];
+            s6 += a[i + 6] * b[i + 6];
+            s7 += a[i + 7] * b[i + 7];
+        }
+        float sum = ((s0 + s1) + (s2 + s3)) + ((s4 + s5) + (s6 + s7));
+        for (; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String name() {
+        return "unrolled";
+    }
+}
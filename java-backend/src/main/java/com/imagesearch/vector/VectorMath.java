@@ -0,0 +1,122 @@
+package com.imagesearch.vector;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Vector kernels used by the embedded search backend.
+ *
+ * Embeddings are L2-normalized on the way in, so inner product == cosine
+ * similarity (same convention as the FAISS IndexFlatIP indexes).
+ *
+ * Dot products go through a {@link DotProductKernel} chosen once at class load:
+ * 1. PanamaDotProductKernel if jdk.incubator.vector is available (--add-modules)
+ * 2. Otherwise UnrolledDotProductKernel (portable scalar fallback)
+ *
+ * Override with -Dimagesearch.vector.kernel=scalar|unrolled|panama (e.g. to compare
+ * results or rule out the incubator module when debugging).
+ */
+public final class VectorMath {
+
+    private static final Logger logger = LoggerFactory.getLogger(VectorMath.class);
+
+    static final String KERNEL_PROPERTY = "imagesearch.vector.kernel";
+    private static final String PANAMA_KERNEL_CLASS = "com.imagesearch.vector.PanamaDotProductKernel";
+
+    private static final DotProductKernel KERNEL = selectKernel(System.getProperty(KERNEL_PROPERTY, "auto"));
+
+    private VectorMath() {
+    }
+
+    /**
+     * Inner product of a query with one row of a contiguous row-major matrix.
+     *
+     * @param rows Little-endian float32 rows (row i starts at float index i * dimension)
+     * @param offset Float index of the first element of the row
+     * @param query Query vector of length dimension
+     * @return Dot product
+     */
+    public static float dot(ByteBuffer rows, int offset, float[] query) {
+        return KERNEL.dot(rows, offset, query);
+    }
+
+    /**
+     * Inner product of a float query with one row of int8 codes.
+     *
+     * @param codes Row-major signed int8 codes
+     * @param offset Byte index of the first code of the row
+     * @param query Query vector of length dimension
+     * @return Sum of query[i] * codes[offset + i]
+     */
+    public static float dotInt8(ByteBuffer codes, int offset, float[] query) {
+        return KERNEL.dotInt8(codes, offset, query);
+    }
+
+    /**
+     * Inner product of two vectors of the same length (re-ranking, duplicate checks).
+     */
+    public static float dot(float[] a, float[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("Expected dimension " + a.length + " but got " + b.length);
+        }
+        return KERNEL.dot(a, b);
+    }
+
+    /**
+     * The kernel in use, for logging and benchmarks.
+     */
+    public static DotProductKernel kernel() {
+        return KERNEL;
+    }
+
+    /**
+     * L2-normalize a vector in place. Zero vectors are left unchanged.
+     *
+     * @param vector Vector to normalize
+     * @return The same array, for chaining
+     */
+    public static float[] normalize(float[] vector) {
+        double norm = 0.0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm > 0.0) {
+            float inv = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= inv;
+            }
+        }
+        return vector;
+    }
+
+    static DotProductKernel selectKernel(String requested) {
+        DotProductKernel kernel = switch (requested) {
+            case "scalar" -> new ScalarDotProductKernel();
+            case "unrolled" -> new UnrolledDotProductKernel();
+            default -> {
+                DotProductKernel panama = loadPanamaKernel();
+                yield panama != null ? panama : new UnrolledDotProductKernel();
+            }
+        };
+        logger.info("Using {} dot-product kernel (requested: {})", kernel.name(), requested);
+        return kernel;
+    }
+
+    /**
+     * Load the Vector API kernel by name so this class never links against
+     * jdk.incubator.vector itself.
+     *
+     * @return Kernel, or null if the module is missing or has no usable SIMD species
+     */
+    static DotProductKernel loadPanamaKernel() {
+        try {
+            return (DotProductKernel) Class.forName(PANAMA_KERNEL_CLASS).getDeclaredConstructor().newInstance();
+        } catch (Throwable t) {
+            // NoClassDefFoundError without --add-modules jdk.incubator.vector
+            logger.info("Vector API kernel unavailable, falling back to scalar: {}", t.toString());
+            return null;
+        }
+    }
+}
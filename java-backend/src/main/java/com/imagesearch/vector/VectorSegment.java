@@ -0,0 +1,459 @@
+package com.imagesearch.vector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable, memory-mapped segment of vectors for one folder.
+ *
+ * File format (little-endian):
+ * <pre>
+ *   offset 0   int    magic "IVEC" (0x49564543)
+ *   offset 4   int    format version (1)
+ *   offset 8   int    dimension
+ *   offset 12  int    count
+ *   offset 16  long[count]          image IDs
+ *   then       float[count * dim]   L2-normalized vectors, row-major
+ * </pre>
+ *
+ * Opening a segment only maps the file - nothing is read or parsed up front, and
+ * the OS page cache keeps hot segments resident across JVM restarts.
+ * Segments are written to a temp file, fsynced and atomically renamed, so a
+ * reader never sees a half-written segment.
+ *
+ * With quantization enabled each segment also has an int8 copy ({@link QuantizedCodes}).
+ * Search then runs in two phases:
+ * 1. Scan the int8 codes for the best k * rerank-factor candidates (approximate scores)
+ * 2. Re-score only those candidates with the float rows and offer the exact scores
+ * Results are therefore exact scores over a candidate set; the response is unchanged.
+ *
+ * Segments at or above the HNSW threshold also get a graph ({@link HnswGraph}) and are
+ * searched through it instead of being scanned.
+ *
+ * Deletes never touch the segment data: they set bits in a tombstone bitset
+ * (seg-NNNNNN.del, see {@link Tombstones}) and masked rows are skipped at scoring
+ * time. Masked rows are dropped for good when the segment is merged or compacted.
+ * The bitset is the only mutable state and is guarded by the owning
+ * {@link FolderVectorIndex}'s lock.
+ */
+public final class VectorSegment {
+
+    static final int MAGIC = 0x49564543;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+
+    // Per-thread heap for phase-1 candidates (row index stored in the id slot)
+    private static final ThreadLocal<TopKCollector> CANDIDATES = ThreadLocal.withInitial(() -> new TopKCollector(64));
+
+    private final Path path;
+    private final int dimension;
+    private final int count;
+    private final ByteBuffer idBytes;
+    private final ByteBuffer vectorBytes;
+    private final LongBuffer ids;
+    private final SegmentOptions options;
+    private final QuantizedCodes codes;
+    private final HnswGraph graph;
+
+    // Tombstones - mutated under the folder's write lock, read under its read lock
+    private BitSet deleted = new BitSet();
+    private int deletedCount;
+    // Lazily built id -> row lookup for deletes (ids sorted ascending, rows in the same order)
+    private long[] sortedIds;
+    private int[] sortedRows;
+
+    private VectorSegment(Path path, int dimension, int count, ByteBuffer idBytes, ByteBuffer vectorBytes,
+                          SegmentOptions options, QuantizedCodes codes, HnswGraph graph) {
+        this.path = path;
+        this.dimension = dimension;
+        this.count = count;
+        this.idBytes = idBytes;
+        this.vectorBytes = vectorBytes;
+        this.ids = idBytes.asLongBuffer();
+        this.options = options;
+        this.codes = codes;
+        this.graph = graph;
+    }
+
+    /**
+     * Map an existing segment file.
+     *
+     * @param path Segment file
+     * @param expectedDimension Dimension the store is configured for
+     * @param options Which derived files (int8 codes, HNSW graph) to load or rebuild
+     * @return Mapped segment
+     * @throws IOException if the file is unreadable, truncated or has a different format/dimension
+     */
+    public static VectorSegment open(Path path, int expectedDimension, SegmentOptions options) throws IOException {
+        return open(path, expectedDimension, options, null);
+    }
+
+    private static VectorSegment open(Path path, int expectedDimension, SegmentOptions options, HnswGraph baseGraph)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Segment too small: " + path);
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Segment larger than 2GB cannot be mapped: " + path);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+            int magic = mapped.getInt(0);
+            int version = mapped.getInt(4);
+            int dimension = mapped.getInt(8);
+            int count = mapped.getInt(12);
+            if (magic != MAGIC || version != VERSION) {
+                throw new IOException("Not a vector segment (magic/version mismatch): " + path);
+            }
+            if (dimension != expectedDimension) {
+                throw new IOException("Segment dimension " + dimension + " != expected " + expectedDimension + ": " + path);
+            }
+            if (size != sizeOf(dimension, count)) {
+                throw new IOException("Segment size " + size + " != expected " + sizeOf(dimension, count) + ": " + path);
+            }
+
+            int idsLength = count * Long.BYTES;
+            ByteBuffer idBytes = mapped.slice(HEADER_BYTES, idsLength).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer vectorBytes = mapped.slice(HEADER_BYTES + idsLength, count * dimension * Float.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            QuantizedCodes codes = options.quantize() ? openCodes(path, dimension, count, vectorBytes) : null;
+            HnswGraph graph = options.hnsw().appliesTo(count)
+                    ? openGraph(path, dimension, count, vectorBytes, options.hnsw(), baseGraph)
+                    : null;
+            VectorSegment segment = new VectorSegment(path, dimension, count, idBytes, vectorBytes, options, codes, graph);
+            segment.deleted = Tombstones.read(Tombstones.pathFor(path), count);
+            segment.deletedCount = segment.deleted.cardinality();
+            return segment;
+        }
+    }
+
+    /**
+     * Write rows [0, count) of an in-memory matrix as a new segment and map it.
+     *
+     * @param path Final segment path
+     * @param dimension Vector dimension
+     * @param ids Image IDs
+     * @param vectorBytes Little-endian row-major vectors (already normalized); rows [0, count) are written
+     * @param count Number of rows to write
+     * @param options Which derived files to build
+     * @return Mapped segment
+     */
+    public static VectorSegment write(Path path, int dimension, long[] ids, ByteBuffer vectorBytes, int count,
+                                      SegmentOptions options) throws IOException {
+        checkSize(path, dimension, count);
+        ByteBuffer idBytes = ByteBuffer.allocate(count * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        idBytes.asLongBuffer().put(ids, 0, count);
+
+        writeAtomically(path, List.of(header(dimension, count), idBytes,
+                vectorBytes.slice(0, count * dimension * Float.BYTES)));
+        return open(path, dimension, options);
+    }
+
+    /**
+     * Merge several segments into one new segment.
+     * Streams straight from the input mappings - nothing is copied onto the heap.
+     *
+     * Rows set in the given tombstone snapshots are left out, so this also compacts
+     * deleted vectors away. Snapshots (see {@link #deletedRows()}) are taken by the
+     * caller under the folder lock, because the merge itself runs without it.
+     *
+     * The largest input goes first, so its rows keep their numbers and its HNSW graph
+     * (if any, and if it had no deletions) is extended with the other rows instead of
+     * being rebuilt.
+     *
+     * @param path Final path of the merged segment
+     * @param dimension Vector dimension
+     * @param inputs Segments to merge
+     * @param deleted Tombstone snapshot of each input, same order as inputs
+     * @param options Which derived files to build
+     * @return Mapped merged segment
+     */
+    public static VectorSegment merge(Path path, int dimension, List<VectorSegment> inputs, List<BitSet> deleted,
+                                      SegmentOptions options) throws IOException {
+        Integer[] order = new Integer[inputs.size()];
+        int[] liveCounts = new int[inputs.size()];
+        int total = 0;
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+            liveCounts[i] = inputs.get(i).count - deleted.get(i).cardinality();
+            total += liveCounts[i];
+        }
+        Arrays.sort(order, Comparator.comparingInt((Integer i) -> liveCounts[i]).reversed());
+        checkSize(path, dimension, total);
+
+        List<ByteBuffer> parts = new ArrayList<>();
+        parts.add(header(dimension, total));
+        for (int i : order) {
+            addLiveRuns(parts, inputs.get(i).idBytes, Long.BYTES, deleted.get(i), inputs.get(i).count);
+        }
+        for (int i : order) {
+            addLiveRuns(parts, inputs.get(i).vectorBytes, dimension * Float.BYTES, deleted.get(i), inputs.get(i).count);
+        }
+
+        writeAtomically(path, parts);
+        int largest = order[0];
+        return open(path, dimension, options, deleted.get(largest).isEmpty() ? inputs.get(largest).graph : null);
+    }
+
+    /**
+     * Score every row against the query and offer it to the collector.
+     *
+     * @param query L2-normalized query vector
+     * @param folderId Folder ID reported with each hit
+     * @param collector Top-k heap shared across segments and folders
+     */
+    public void search(float[] query, long folderId, TopKCollector collector) {
+        if (graph != null) {
+            searchGraph(query, folderId, collector);
+            return;
+        }
+        int rerankFactor = options.rerankFactor();
+        if (codes != null && rerankFactor > 0 && (long) collector.k() * rerankFactor < count) {
+            searchQuantized(query, folderId, collector, collector.k() * rerankFactor);
+            return;
+        }
+        for (int row = 0, offset = 0; row < count; row++, offset += dimension) {
+            float score = VectorMath.dot(vectorBytes, offset, query);
+            if (score > collector.threshold() && !isDeleted(row)) {
+                collector.offer(score, ids.get(row), folderId);
+            }
+        }
+    }
+
+    private void searchGraph(float[] query, long folderId, TopKCollector collector) {
+        HnswGraph.NodeQueue results = HnswGraph.resultsForCurrentThread();
+        graph.search(query, Math.max(options.hnsw().efSearch(), collector.k()), results);
+        for (int i = 0; i < results.size(); i++) {
+            float score = results.score(i);
+            int row = results.node(i);
+            if (score > collector.threshold() && !isDeleted(row)) {
+                collector.offer(score, ids.get(row), folderId);
+            }
+        }
+    }
+
+    private void searchQuantized(float[] query, long folderId, TopKCollector collector, int candidateCount) {
+        float querySum = 0f;
+        for (float q : query) {
+            querySum += q;
+        }
+
+        // Phase 1: approximate scores over the compact codes
+        TopKCollector candidates = CANDIDATES.get();
+        candidates.reset(candidateCount);
+        for (int row = 0; row < count; row++) {
+            float score = codes.approximateDot(row, query, querySum);
+            if (score > candidates.threshold() && !isDeleted(row)) {
+                candidates.offer(score, row, folderId);
+            }
+        }
+
+        // Phase 2: exact float scores for the candidates only
+        for (int i = 0; i < candidates.size(); i++) {
+            int row = (int) candidates.id(i);
+            float score = VectorMath.dot(vectorBytes, row * dimension, query);
+            if (score > collector.threshold()) {
+                collector.offer(score, ids.get(row), folderId);
+            }
+        }
+    }
+
+    /**
+     * Mask the given images in this segment and persist the tombstones.
+     * Caller holds the folder's write lock.
+     *
+     * @param imageIds Image IDs to delete (IDs not in this segment are ignored)
+     * @return Number of rows newly masked
+     */
+    public int markDeleted(Collection<Long> imageIds) throws IOException {
+        if (sortedIds == null) {
+            buildIdIndex();
+        }
+        int masked = 0;
+        for (long imageId : imageIds) {
+            int i = Arrays.binarySearch(sortedIds, imageId);
+            if (i < 0) {
+                continue;
+            }
+            // Same image embedded twice (retry) - mask every copy
+            while (i > 0 && sortedIds[i - 1] == imageId) {
+                i--;
+            }
+            for (; i < sortedIds.length && sortedIds[i] == imageId; i++) {
+                if (!deleted.get(sortedRows[i])) {
+                    deleted.set(sortedRows[i]);
+                    masked++;
+                }
+            }
+        }
+        if (masked > 0) {
+            deletedCount += masked;
+            Tombstones.write(Tombstones.pathFor(path), deleted, count);
+        }
+        return masked;
+    }
+
+    /**
+     * Copy of the current tombstones (for detecting deletes that race with a merge).
+     */
+    public BitSet deletedRows() {
+        return (BitSet) deleted.clone();
+    }
+
+    public boolean isDeleted(int row) {
+        return deletedCount > 0 && deleted.get(row);
+    }
+
+    public long id(int row) {
+        return ids.get(row);
+    }
+
+    public int liveCount() {
+        return count - deletedCount;
+    }
+
+    public double deletedRatio() {
+        return count == 0 ? 0.0 : (double) deletedCount / count;
+    }
+
+    /**
+     * Files backing this segment (float file plus codes/graph/tombstone files if present).
+     */
+    public List<Path> files() {
+        List<Path> files = new ArrayList<>(4);
+        files.add(path);
+        if (deletedCount > 0) {
+            files.add(Tombstones.pathFor(path));
+        }
+        if (codes != null) {
+            files.add(QuantizedCodes.pathFor(path));
+        }
+        if (graph != null) {
+            files.add(HnswGraph.pathFor(path));
+        }
+        return files;
+    }
+
+    /**
+     * Whether searches go through an HNSW graph.
+     */
+    public boolean hasGraph() {
+        return graph != null;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    /**
+     * File size of a segment with the given shape.
+     */
+    static long sizeOf(int dimension, int count) {
+        return HEADER_BYTES + (long) count * Long.BYTES + (long) count * dimension * Float.BYTES;
+    }
+
+    private static QuantizedCodes openCodes(Path path, int dimension, int count, ByteBuffer vectorBytes)
+            throws IOException {
+        Path codesPath = QuantizedCodes.pathFor(path);
+        try {
+            return QuantizedCodes.open(codesPath, dimension, count);
+        } catch (IOException e) {
+            // Missing (crash before it was written, or quantization just enabled) or stale - rebuild
+            return QuantizedCodes.build(codesPath, dimension, vectorBytes, count);
+        }
+    }
+
+    private void buildIdIndex() {
+        Integer[] order = new Integer[count];
+        for (int row = 0; row < count; row++) {
+            order[row] = row;
+        }
+        Arrays.sort(order, Comparator.comparingLong(ids::get));
+        sortedIds = new long[count];
+        sortedRows = new int[count];
+        for (int i = 0; i < count; i++) {
+            sortedRows[i] = order[i];
+            sortedIds[i] = ids.get(order[i]);
+        }
+    }
+
+    /**
+     * Append slices of a per-row region covering every run of live rows (whole region if nothing is deleted).
+     */
+    private static void addLiveRuns(List<ByteBuffer> parts, ByteBuffer region, int rowBytes, BitSet deleted, int rows) {
+        if (deleted.isEmpty()) {
+            parts.add(region.duplicate());
+            return;
+        }
+        int row = deleted.nextClearBit(0);
+        while (row < rows) {
+            int next = deleted.nextSetBit(row);
+            int end = next < 0 ? rows : next;
+            parts.add(region.slice(row * rowBytes, (end - row) * rowBytes));
+            row = deleted.nextClearBit(end);
+        }
+    }
+
+    private static HnswGraph openGraph(Path path, int dimension, int count, ByteBuffer vectorBytes,
+                                       HnswParams params, HnswGraph baseGraph) throws IOException {
+        Path graphPath = HnswGraph.pathFor(path);
+        if (baseGraph == null) {
+            try {
+                return HnswGraph.read(graphPath, vectorBytes, dimension, count);
+            } catch (IOException e) {
+                // Missing (crash, or HNSW just enabled) or stale - rebuild below
+            }
+        }
+        HnswGraph graph = HnswGraph.build(vectorBytes, dimension, count, params, baseGraph);
+        graph.write(graphPath);
+        return graph;
+    }
+
+    private static void checkSize(Path path, int dimension, int count) throws IOException {
+        if (sizeOf(dimension, count) > Integer.MAX_VALUE) {
+            throw new IOException("Segment would exceed 2GB (" + count + " vectors): " + path);
+        }
+    }
+
+    private static ByteBuffer header(int dimension, int count) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(dimension).putInt(count).flip();
+        return header;
+    }
+
+    static void writeAtomically(Path path, List<ByteBuffer> parts) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (ByteBuffer part : parts) {
+                part.rewind();
+                while (part.hasRemaining()) {
+                    channel.write(part);
+                }
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,293 @@
+package com.imagesearch.vector;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+/**
+ * Vector store for the embedded search backend: one persistent
+ * {@link FolderVectorIndex} per folder under data/vector-indexes/{folder_id}/.
+ *
+ * Folder IDs are globally unique, so unlike the FAISS indexes on disk
+ * (data/indexes/{user_id}/{folder_id}.faiss) no owner ID is needed to find a folder.
+ * The root is deliberately not data/indexes: both layouts use numeric directory
+ * names, and the FAISS user directories must never be opened (or cleaned up) as
+ * folders. Within a folder directory, only the store's own files are ever deleted.
+ *
+ * Startup maps every folder's segments instead of reading them onto the heap,
+ * so a restart costs no re-embedding and almost no I/O up front.
+ *
+ * With quantization enabled (default), sealed segments are scanned through their
+ * int8 codes and only k * rerank-factor candidates per segment are re-scored from
+ * the float rows - ~4x less memory touched per query, same response format.
+ *
+ * Segments with at least hnsw.threshold vectors (merged segments of big folders)
+ * are searched through an HNSW graph instead - approximate, but sublinear.
+ *
+ * Deleting images only sets tombstone bits, so it never blocks on an index rebuild.
+ * Segments whose deleted ratio passes compaction.deleted-ratio are rewritten without
+ * the deleted rows in the background.
+ *
+ * Searching several folders feeds one shared top-k heap, so there is no
+ * per-folder result list to merge afterwards.
+ */
+@Component
+@ConditionalOnProperty(name = "search.backend.type", havingValue = "embedded")
+public class VectorStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(VectorStore.class);
+
+    private final int dimension;
+    private final Path indexDir;
+    private final int sealThreshold;
+    private final int maxSegments;
+    private final double maxDeletedRatio;
+    private final SegmentOptions segmentOptions;
+    private final Executor compactionExecutor;
+    private final Map<Long, FolderVectorIndex> folders = new ConcurrentHashMap<>();
+
+    public VectorStore(
+            @Value("${embedded-search.dimension:512}") int dimension,
+            @Value("${embedded-search.index-dir:}") String indexDir,
+            @Value("${embedded-search.seal-threshold:4096}") int sealThreshold,
+            @Value("${embedded-search.max-segments:8}") int maxSegments,
+            @Value("${embedded-search.quantization.enabled:true}") boolean quantizationEnabled,
+            @Value("${embedded-search.quantization.rerank-factor:4}") int rerankFactor,
+            @Value("${embedded-search.hnsw.threshold:50000}") int hnswThreshold,
+            @Value("${embedded-search.hnsw.m:16}") int hnswM,
+            @Value("${embedded-search.hnsw.ef-construction:100}") int hnswEfConstruction,
+            @Value("${embedded-search.hnsw.ef-search:64}") int hnswEfSearch,
+            @Value("${embedded-search.compaction.deleted-ratio:0.2}") double maxDeletedRatio,
+            @Qualifier("vectorCompactionExecutor") Executor compactionExecutor) {
+        this.dimension = dimension;
+        this.indexDir = indexDir.isBlank() ? defaultIndexDir() : Paths.get(indexDir);
+        this.sealThreshold = sealThreshold;
+        this.maxSegments = maxSegments;
+        this.maxDeletedRatio = maxDeletedRatio;
+        this.segmentOptions = new SegmentOptions(
+            quantizationEnabled ? Math.max(1, rerankFactor) : 0,
+            new HnswParams(hnswThreshold, hnswM, hnswEfConstruction, hnswEfSearch));
+        this.compactionExecutor = compactionExecutor;
+        openExistingFolders();
+        logger.info("VectorStore initialized: dimension={}, indexDir={}, sealThreshold={}, maxSegments={}, "
+                    + "maxDeletedRatio={}, {}, folders={}",
+                    dimension, this.indexDir, sealThreshold, maxSegments, maxDeletedRatio, segmentOptions, folders.size());
+    }
+
+    /**
+     * Create an empty index for a folder (no-op if it exists).
+     */
+    public void createFolder(long folderId) {
+        folderIndex(folderId);
+    }
+
+    /**
+     * Drop a folder's index and delete its files.
+     */
+    public void deleteFolder(long folderId) {
+        FolderVectorIndex index = folders.remove(folderId);
+        if (index != null) {
+            try {
+                index.destroy();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to delete vector index for folder " + folderId, e);
+            }
+            logger.info("Deleted embedded index for folder {}", folderId);
+        }
+    }
+
+    /**
+     * Append embeddings to a folder, creating its index if needed.
+     * Schedules a background merge when the folder has too many segments.
+     *
+     * @param folderId Folder ID
+     * @param ids Image IDs
+     * @param vectors Embeddings, same order as ids (normalized in place)
+     */
+    public void add(long folderId, long[] ids, float[][] vectors) {
+        FolderVectorIndex index = folderIndex(folderId);
+        try {
+            index.add(ids, vectors);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to vector index for folder " + folderId, e);
+        }
+        if (index.needsMerge(maxSegments)) {
+            compactionExecutor.execute(() -> merge(folderId, index));
+        }
+    }
+
+    /**
+     * Mask images in a folder so searches stop returning them (e.g. images removed
+     * from the database). Schedules a background compaction when a segment has
+     * accumulated too many deleted rows.
+     *
+     * @param folderId Folder ID
+     * @param imageIds Image IDs to delete (unknown IDs are ignored)
+     * @return Number of vectors masked
+     */
+    public int delete(long folderId, Collection<Long> imageIds) {
+        FolderVectorIndex index = folders.get(folderId);
+        if (index == null || imageIds.isEmpty()) {
+            return 0;
+        }
+        int masked;
+        try {
+            masked = index.delete(imageIds);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete from vector index for folder " + folderId, e);
+        }
+        if (index.needsCompaction(maxDeletedRatio)) {
+            compactionExecutor.execute(() -> compact(folderId, index));
+        }
+        return masked;
+    }
+
+    /**
+     * Top-k inner-product search over several folders. Reported scores are always
+     * exact float scores; with quantization the candidates come from the int8 pass.
+     * Folders without an index are skipped (nothing embedded yet).
+     *
+     * @param query Query embedding (normalized in place)
+     * @param folderIds Folders to search
+     * @param k Number of hits to keep
+     * @param collector Scratch heap, typically {@link TopKCollector#forCurrentThread()};
+     *                  holds the hits sorted best-first on return
+     */
+    public void search(float[] query, Collection<Long> folderIds, int k, TopKCollector collector) {
+        VectorMath.normalize(query);
+        collector.reset(k);
+        for (Long folderId : folderIds) {
+            FolderVectorIndex index = folders.get(folderId);
+            if (index != null) {
+                index.search(query, collector);
+            }
+        }
+        collector.sortDescending();
+    }
+
+    /**
+     * Number of live (not deleted) vectors stored for a folder (0 if it has no index).
+     */
+    public int size(long folderId) {
+        FolderVectorIndex index = folders.get(folderId);
+        return index != null ? index.size() : 0;
+    }
+
+    /**
+     * Number of sealed segments for a folder that are searched through an HNSW graph.
+     */
+    public int graphSegmentCount(long folderId) {
+        FolderVectorIndex index = folders.get(folderId);
+        return index != null ? index.graphSegmentCount() : 0;
+    }
+
+    /**
+     * Number of sealed segments for a folder (0 if it has no index).
+     */
+    public int segmentCount(long folderId) {
+        FolderVectorIndex index = folders.get(folderId);
+        return index != null ? index.segmentCount() : 0;
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    /**
+     * Close every folder's tail log on shutdown. Appends are already fsynced,
+     * so this only releases file handles.
+     */
+    @PreDestroy
+    public void close() {
+        for (Map.Entry<Long, FolderVectorIndex> entry : folders.entrySet()) {
+            try {
+                entry.getValue().close();
+            } catch (IOException e) {
+                logger.warn("Failed to close vector index for folder {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private void merge(long folderId, FolderVectorIndex index) {
+        try {
+            index.merge(maxSegments);
+        } catch (Exception e) {
+            // Segments stay as they are - the next append retries
+            logger.warn("Background merge failed for folder {}: {}", folderId, e.getMessage());
+        }
+    }
+
+    private void compact(long folderId, FolderVectorIndex index) {
+        try {
+            index.compact(maxDeletedRatio);
+        } catch (Exception e) {
+            // Deleted rows stay masked - the next delete retries
+            logger.warn("Background compaction failed for folder {}: {}", folderId, e.getMessage());
+        }
+    }
+
+    private FolderVectorIndex folderIndex(long folderId) {
+        return folders.computeIfAbsent(folderId, this::openFolder);
+    }
+
+    private FolderVectorIndex openFolder(long folderId) {
+        try {
+            return FolderVectorIndex.open(folderId, dimension, indexDir.resolve(Long.toString(folderId)),
+                                          sealThreshold, segmentOptions);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open vector index for folder " + folderId, e);
+        }
+    }
+
+    private void openExistingFolders() {
+        if (!Files.isDirectory(indexDir)) {
+            return;
+        }
+        try (Stream<Path> dirs = Files.list(indexDir)) {
+            for (Path dir : dirs.filter(Files::isDirectory).toList()) {
+                String name = dir.getFileName().toString();
+                if (!name.matches("\\d+")) {
+                    continue;
+                }
+                if (!FolderVectorIndex.isIndexDirectory(dir)) {
+                    // Not ours (no MANIFEST) - e.g. a misconfigured index-dir pointing at FAISS indexes
+                    logger.warn("Skipping {}: not a vector index directory", dir);
+                    continue;
+                }
+                long folderId = Long.parseLong(name);
+                try {
+                    folders.put(folderId, openFolder(folderId));
+                } catch (UncheckedIOException e) {
+                    // Don't block startup - the folder can be re-embedded
+                    logger.error("Skipping unreadable vector index for folder {}: {}", folderId, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list vector index directory " + indexDir, e);
+        }
+    }
+
+    private static Path defaultIndexDir() {
+        // Running from java-backend/, so go up one level to project root
+        Path currentDir = Paths.get("").toAbsolutePath();
+        Path projectRoot = currentDir.getFileName().toString().equals("java-backend")
+            ? currentDir.getParent()
+            : currentDir;
+        return projectRoot.resolve("data").resolve("vector-indexes");
+    }
+}
@@ -0,0 +1,106 @@
+package com.imagesearch.client;
+
+import com.imagesearch.client.dto.EmbedImagesRequest;
+import com.imagesearch.client.dto.SearchServiceRequest;
+import com.imagesearch.client.dto.SearchServiceResponse;
+import com.imagesearch.service.FailedRequestService;
+import com.imagesearch.vector.VectorStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for EmbeddedSearchClientImpl (in-process vector backend).
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Embedded Search Client Tests")
+class EmbeddedSearchClientTest {
+
+    @Mock
+    private EmbeddingEncoder embeddingEncoder;
+
+    @Mock
+    private FailedRequestService failedRequestService;
+
+    @TempDir
+    Path indexDir;
+
+    private VectorStore vectorStore;
+    private EmbeddedSearchClientImpl client;
+
+    @BeforeEach
+    void setUp() {
+        vectorStore = new VectorStore(2, indexDir.toString(), 4, 8, true, 4, 0, 16, 100, 64, 0.2, Runnable::run);
+        client = new EmbeddedSearchClientImpl(vectorStore, embeddingEncoder, failedRequestService, Runnable::run);
+    }
+
+    private void embed(long folderId, long imageId, float[] vector) {
+        when(embeddingEncoder.encodeImages(anyList())).thenReturn(List.of(vector));
+        client.embedImages(new EmbedImagesRequest(1L, folderId,
+                List.of(new EmbedImagesRequest.ImageInfo(imageId, "images/1/" + folderId + "/" + imageId + ".png"))));
+    }
+
+    @Test
+    @DisplayName("Should embed images and find them by query vector")
+    void testEmbedThenSearch() {
+        embed(5L, 100L, new float[]{1f, 0f});
+        embed(5L, 101L, new float[]{0f, 1f});
+        when(embeddingEncoder.encodeText("cat")).thenReturn(new float[]{0.9f, 0.1f});
+
+        SearchServiceResponse response = client.search(
+                new SearchServiceRequest(1L, "cat", List.of(5L), Map.of(5L, 1L), 1));
+
+        assertThat(response.getResults()).hasSize(1);
+        assertThat(response.getResults().get(0).getImageId()).isEqualTo(100L);
+        assertThat(response.getResults().get(0).getFolderId()).isEqualTo(5L);
+    }
+
+    @Test
+    @DisplayName("Should score asynchronously after encoding the query")
+    void testSearchAsync() {
+        embed(5L, 100L, new float[]{1f, 0f});
+        when(embeddingEncoder.encodeTextAsync("cat"))
+                .thenReturn(CompletableFuture.completedFuture(new float[]{1f, 0f}));
+
+        SearchServiceResponse response = client.searchAsync(
+                new SearchServiceRequest(1L, "cat", List.of(5L), Map.of(5L, 1L), 5)).join();
+
+        assertThat(response.getResults()).extracting(SearchServiceResponse.SearchResult::getImageId)
+                .containsExactly(100L);
+    }
+
+    @Test
+    @DisplayName("Should queue failed embeddings for retry instead of throwing")
+    void testEmbedFailureQueuedForRetry() {
+        when(embeddingEncoder.encodeImages(anyList())).thenThrow(new IllegalStateException("encoder down"));
+        List<EmbedImagesRequest.ImageInfo> images = List.of(new EmbedImagesRequest.ImageInfo(100L, "a.png"));
+
+        client.embedImages(new EmbedImagesRequest(1L, 5L, images));
+
+        verify(failedRequestService).recordFailedEmbed(1L, 5L, images, "encoder down");
+        assertThat(vectorStore.size(5L)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should drop a folder's vectors when its index is deleted")
+    void testDeleteIndex() {
+        embed(5L, 100L, new float[]{1f, 0f});
+
+        client.deleteIndex(1L, 5L);
+
+        assertThat(vectorStore.size(5L)).isZero();
+    }
+}
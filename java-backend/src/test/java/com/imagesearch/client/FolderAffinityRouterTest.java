@@ -0,0 +1,126 @@
+package com.imagesearch.client;
+
+import com.imagesearch.client.dto.BatchSearchServiceRequest;
+import com.imagesearch.client.dto.SearchServiceRequest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for FolderAffinityRouter (consistent-hash folder routing).
+ */
+@DisplayName("Folder Affinity Router Tests")
+class FolderAffinityRouterTest {
+
+    private static final List<String> THREE_NODES = List.of(
+            "http://search-1:5000", "http://search-2:5000", "http://search-3:5000");
+
+    @Test
+    @DisplayName("Should route a folder to the same node every time, and spread folders evenly")
+    void testStableAndBalanced() {
+        FolderAffinityRouter router = new FolderAffinityRouter(THREE_NODES, 128);
+        FolderAffinityRouter sameRing = new FolderAffinityRouter(THREE_NODES, 128);
+
+        int[] perNode = new int[3];
+        for (long folderId = 1; folderId <= 3000; folderId++) {
+            int node = router.nodeFor(folderId % 50, folderId);
+            assertThat(sameRing.nodeFor(folderId % 50, folderId)).isEqualTo(node);
+            perNode[node]++;
+        }
+
+        // 1000 each if perfectly even
+        assertThat(perNode).allSatisfy(count -> assertThat(count).isBetween(700, 1300));
+    }
+
+    @Test
+    @DisplayName("Should only move folders to the new node when a node is added")
+    void testAddingNodeMovesFewFolders() {
+        FolderAffinityRouter before = new FolderAffinityRouter(THREE_NODES, 128);
+        List<String> fourNodes = new ArrayList<>(THREE_NODES);
+        fourNodes.add("http://search-4:5000");
+        FolderAffinityRouter after = new FolderAffinityRouter(fourNodes, 128);
+
+        int moved = 0;
+        for (long folderId = 1; folderId <= 4000; folderId++) {
+            int oldNode = before.nodeFor(7L, folderId);
+            int newNode = after.nodeFor(7L, folderId);
+            if (newNode != oldNode) {
+                assertThat(newNode).isEqualTo(3);
+                moved++;
+            }
+        }
+
+        // ~1/4 of the folders move, all of them to the new node
+        assertThat(moved).isBetween(600, 1400);
+    }
+
+    @Test
+    @DisplayName("Should give every folder a hedge node other than its own, and none with a single node")
+    void testSuccessor() {
+        FolderAffinityRouter router = new FolderAffinityRouter(THREE_NODES, 16);
+        for (long folderId = 1; folderId <= 200; folderId++) {
+            int successor = router.successorFor(1L, folderId);
+            assertThat(successor).isBetween(0, 2).isNotEqualTo(router.nodeFor(1L, folderId));
+        }
+
+        FolderAffinityRouter single = new FolderAffinityRouter(List.of("http://search-1:5000"), 16);
+        assertThat(single.nodeFor(1L, 1L)).isZero();
+        assertThat(single.successorFor(1L, 1L)).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("Should split a search into one request per node with the right folders and owners")
+    void testSplitSearch() {
+        FolderAffinityRouter router = new FolderAffinityRouter(THREE_NODES, 128);
+        List<Long> folderIds = new ArrayList<>();
+        Map<Long, Long> owners = new HashMap<>();
+        for (long folderId = 1; folderId <= 30; folderId++) {
+            folderIds.add(folderId);
+            owners.put(folderId, folderId % 3 + 1);
+        }
+        SearchDeadline deadline = SearchDeadline.after(Duration.ofSeconds(5));
+        SearchServiceRequest request = new SearchServiceRequest(9L, "sunset", folderIds, owners, 5, deadline);
+
+        Map<Integer, SearchServiceRequest> parts = router.split(request);
+
+        assertThat(parts).hasSizeGreaterThan(1);
+        List<Long> allFolders = new ArrayList<>();
+        parts.forEach((node, part) -> {
+            assertThat(part.getQuery()).isEqualTo("sunset");
+            assertThat(part.getTopK()).isEqualTo(5);
+            assertThat(part.getDeadline()).isSameAs(deadline);
+            assertThat(part.getFolderOwnerMap()).containsOnlyKeys(part.getFolderIds());
+            part.getFolderIds().forEach(folderId ->
+                    assertThat(router.nodeFor(owners.get(folderId), folderId)).isEqualTo(node));
+            allFolders.addAll(part.getFolderIds());
+        });
+        assertThat(allFolders).containsExactlyInAnyOrderElementsOf(folderIds);
+    }
+
+    @Test
+    @DisplayName("Should split a batch search the same way as a single search")
+    void testSplitBatchSearch() {
+        FolderAffinityRouter router = new FolderAffinityRouter(THREE_NODES, 128);
+        List<Long> folderIds = List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L);
+        Map<Long, Long> owners = new HashMap<>();
+        folderIds.forEach(folderId -> owners.put(folderId, 1L));
+
+        Map<Integer, SearchServiceRequest> single = router.split(
+                new SearchServiceRequest(1L, "dog", folderIds, owners, 5));
+        Map<Integer, BatchSearchServiceRequest> batch = router.split(
+                new BatchSearchServiceRequest(1L, List.of("dog", "cat"), folderIds, owners, 5));
+
+        assertThat(batch.keySet()).isEqualTo(single.keySet());
+        batch.forEach((node, part) -> {
+            assertThat(part.getQueries()).containsExactly("dog", "cat");
+            assertThat(part.getFolderIds()).isEqualTo(single.get(node).getFolderIds());
+        });
+    }
+}
@@ -30,6 +30,9 @@ class JavaSearchClientTest {
     @Mock
     private WebClient.Builder webClientBuilder;
 
+    @Mock
+    private WebClient.Builder embedWebClientBuilder;
+
     @Mock
     private WebClient webClient;
 
@@ -52,6 +55,9 @@ class JavaSearchClientTest {
         // Setup WebClient builder mock chain (basic setup only)
         lenient().when(webClientBuilder.baseUrl(anyString())).thenReturn(webClientBuilder);
         lenient().when(webClientBuilder.build()).thenReturn(webClient);
+        // Embed lane (index writes) - same mock client, so the deleteIndex chains below apply
+        lenient().when(embedWebClientBuilder.baseUrl(anyString())).thenReturn(embedWebClientBuilder);
+        lenient().when(embedWebClientBuilder.build()).thenReturn(webClient);
     }
 
     @Test
@@ -66,9 +72,11 @@ class JavaSearchClientTest {
 
         javaSearchClient = new JavaSearchClientImpl(
                 webClientBuilder,
+                embedWebClientBuilder,
                 "http://localhost:5001",
                 30,
-                true  // enabled
+                true,  // enabled
+                "json"
         );
 
         Long userId = 1L;
@@ -89,9 +97,11 @@ class JavaSearchClientTest {
         // Arrange
         javaSearchClient = new JavaSearchClientImpl(
                 webClientBuilder,
+                embedWebClientBuilder,
                 "http://localhost:5001",
                 30,
-                false  // disabled
+                false,  // disabled
+                "json"
         );
 
         Long userId = 1L;
@@ -115,9 +125,11 @@ class JavaSearchClientTest {
         
         javaSearchClient = new JavaSearchClientImpl(
                 webClientBuilder,
+                embedWebClientBuilder,
                 "http://localhost:5001",
                 30,
-                true
+                true,
+                "json"
         );
 
         Long userId = 1L;
@@ -149,9 +161,11 @@ class JavaSearchClientTest {
         
         javaSearchClient = new JavaSearchClientImpl(
                 webClientBuilder,
+                embedWebClientBuilder,
                 "http://localhost:5001",
                 30,
-                true
+                true,
+                "json"
         );
 
         Long userId = 1L;
@@ -183,9 +197,11 @@ class JavaSearchClientTest {
         
         javaSearchClient = new JavaSearchClientImpl(
                 webClientBuilder,
+                embedWebClientBuilder,
                 "http://localhost:5001",
                 1,  // very short timeout
-                true
+                true,
+                "json"
         );
 
         Long userId = 1L;
@@ -205,13 +221,16 @@ class JavaSearchClientTest {
         // Act
         javaSearchClient = new JavaSearchClientImpl(
                 webClientBuilder,
+                embedWebClientBuilder,
                 "http://localhost:5001",
                 30,
-                true
+                true,
+                "json"
         );
 
         // Assert - verify WebClient builder was called with correct URL
         verify(webClientBuilder).baseUrl("http://localhost:5001");
         verify(webClientBuilder).build();
+        verify(embedWebClientBuilder).baseUrl("http://localhost:5001");
     }
 }
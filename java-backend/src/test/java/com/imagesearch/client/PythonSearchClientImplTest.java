@@ -0,0 +1,138 @@
+package com.imagesearch.client;
+
+import com.imagesearch.client.dto.BatchSearchServiceRequest;
+import com.imagesearch.client.dto.BatchSearchServiceResponse;
+import com.imagesearch.client.dto.SearchServiceResponse;
+import com.imagesearch.config.WebClientConfig;
+import com.imagesearch.service.FailedRequestService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for PythonSearchClientImpl routing over two nodes, against local HTTP servers.
+ */
+@DisplayName("Python Search Client Tests")
+class PythonSearchClientImplTest {
+
+    private MockWebServer first;
+    private MockWebServer second;
+    private PythonSearchClientImpl client;
+    // A folder owned by each node
+    private long firstFolder;
+    private long secondFolder;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        first = new MockWebServer();
+        second = new MockWebServer();
+        first.start();
+        second.start();
+        String firstUrl = first.url("/").toString();
+        String secondUrl = second.url("/").toString();
+
+        WebClientConfig config = new WebClientConfig();
+        client = new PythonSearchClientImpl(config.webClientBuilder(), config.webClientBuilder(),
+                firstUrl, secondUrl, 5, true, 128, "json", mock(FailedRequestService.class),
+                new SearchHedger(false, 0.05, 20, 100, new SimpleMeterRegistry()));
+
+        FolderAffinityRouter router = new FolderAffinityRouter(List.of(firstUrl, secondUrl), 128);
+        firstFolder = folderOn(router, 0);
+        secondFolder = folderOn(router, 1);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        first.shutdown();
+        second.shutdown();
+    }
+
+    private static long folderOn(FolderAffinityRouter router, int node) {
+        long folderId = 1;
+        while (router.nodeFor(1L, folderId) != node) {
+            folderId++;
+        }
+        return folderId;
+    }
+
+    private BatchSearchServiceResponse batchSearch(List<String> queries) {
+        return client.batchSearch(new BatchSearchServiceRequest(1L, queries, List.of(firstFolder, secondFolder),
+                Map.of(firstFolder, 1L, secondFolder, 1L), 5));
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+    }
+
+    private static String result(long imageId, double score, long folderId) {
+        return "{\"results\": [{\"image_id\": " + imageId + ", \"score\": " + score
+                + ", \"folder_id\": " + folderId + "}], \"total\": 1}";
+    }
+
+    @Test
+    @DisplayName("Should merge each query's results from both nodes")
+    void testBatchSearchMergesNodes() {
+        first.enqueue(json("{\"results\": [" + result(1, 0.9, firstFolder) + ", " + result(2, 0.4, firstFolder) + "]}"));
+        second.enqueue(json("{\"results\": [" + result(3, 0.5, secondFolder) + ", " + result(4, 0.8, secondFolder) + "]}"));
+
+        BatchSearchServiceResponse response = batchSearch(List.of("sunset", "beach"));
+
+        assertThat(response.getResults()).hasSize(2);
+        assertThat(response.getResults().get(0).getResults())
+                .extracting(SearchServiceResponse.SearchResult::getImageId).containsExactly(1L, 3L);
+        assertThat(response.getResults().get(1).getResults())
+                .extracting(SearchServiceResponse.SearchResult::getImageId).containsExactly(4L, 2L);
+        assertThat(response.getResults()).noneMatch(SearchServiceResponse::isDegraded);
+    }
+
+    @Test
+    @DisplayName("Should return the surviving node's results, degraded, when the other node fails")
+    void testBatchSearchToleratesFailedNode() {
+        first.enqueue(json("{\"results\": [" + result(1, 0.9, firstFolder) + ", " + result(2, 0.4, firstFolder) + "]}"));
+        second.enqueue(new MockResponse().setResponseCode(500));
+
+        BatchSearchServiceResponse response = batchSearch(List.of("sunset", "beach"));
+
+        assertThat(response.getResults()).hasSize(2);
+        assertThat(response.getResults().get(0).getResults())
+                .extracting(SearchServiceResponse.SearchResult::getImageId).containsExactly(1L);
+        assertThat(response.getResults().get(1).getResults())
+                .extracting(SearchServiceResponse.SearchResult::getImageId).containsExactly(2L);
+        assertThat(response.getResults()).allMatch(SearchServiceResponse::isDegraded);
+    }
+
+    @Test
+    @DisplayName("Should mark a query degraded when a node's answer is missing its list")
+    void testBatchSearchToleratesShortAnswer() {
+        first.enqueue(json("{\"results\": [" + result(1, 0.9, firstFolder) + ", " + result(2, 0.4, firstFolder) + "]}"));
+        second.enqueue(json("{\"results\": [" + result(3, 0.5, secondFolder) + "]}"));
+
+        BatchSearchServiceResponse response = batchSearch(List.of("sunset", "beach"));
+
+        assertThat(response.getResults().get(0).isDegraded()).isFalse();
+        assertThat(response.getResults().get(1).isDegraded()).isTrue();
+        assertThat(response.getResults().get(1).getResults())
+                .extracting(SearchServiceResponse.SearchResult::getImageId).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Should fail the batch when every node fails")
+    void testBatchSearchFailsWhenAllNodesFail() {
+        first.enqueue(new MockResponse().setResponseCode(500));
+        second.enqueue(new MockResponse().setResponseCode(500));
+
+        assertThatThrownBy(() -> batchSearch(List.of("sunset"))).isInstanceOf(RuntimeException.class);
+    }
+}
@@ -0,0 +1,74 @@
+package com.imagesearch.client;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for SearchDeadline (end-to-end search budgets).
+ */
+@DisplayName("Search Deadline Tests")
+class SearchDeadlineTest {
+
+    @Test
+    @DisplayName("Should cap the call timeout at the remaining budget")
+    void testTimeoutUsesRemainingBudget() {
+        SearchDeadline deadline = SearchDeadline.after(Duration.ofSeconds(2));
+
+        Duration timeout = SearchDeadline.timeout(deadline, Duration.ofSeconds(30));
+
+        assertThat(timeout).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(2));
+        assertThat(deadline.isExpired()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should keep the client timeout when it is shorter than the budget or there is no deadline")
+    void testTimeoutKeepsClientTimeout() {
+        SearchDeadline deadline = SearchDeadline.after(Duration.ofMinutes(5));
+
+        assertThat(SearchDeadline.timeout(deadline, Duration.ofSeconds(30))).isEqualTo(Duration.ofSeconds(30));
+        assertThat(SearchDeadline.timeout(null, Duration.ofSeconds(30))).isEqualTo(Duration.ofSeconds(30));
+    }
+
+    @Test
+    @DisplayName("Should report an exhausted budget as expired with nothing remaining")
+    void testExpired() {
+        SearchDeadline deadline = SearchDeadline.after(Duration.ofMillis(-10));
+
+        assertThat(deadline.isExpired()).isTrue();
+        assertThat(deadline.remaining()).isZero();
+        assertThat(SearchDeadline.timeout(deadline, Duration.ofSeconds(30))).isZero();
+    }
+
+    @Test
+    @DisplayName("Should forward the remaining budget as a header only when there is a deadline")
+    void testPropagate() {
+        HttpHeaders headers = new HttpHeaders();
+        SearchDeadline.propagate(SearchDeadline.after(Duration.ofSeconds(10)), headers);
+
+        long forwarded = Long.parseLong(headers.getFirst(SearchDeadline.HEADER));
+        assertThat(forwarded).isBetween(1L, 10_000L);
+
+        HttpHeaders none = new HttpHeaders();
+        SearchDeadline.propagate(null, none);
+        assertThat(none.containsKey(SearchDeadline.HEADER)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should order deadlines by how loose they are, with none the loosest")
+    void testAtLeastAsLoose() {
+        SearchDeadline tight = SearchDeadline.after(Duration.ofMillis(100));
+        SearchDeadline loose = SearchDeadline.after(Duration.ofSeconds(10));
+
+        assertThat(SearchDeadline.atLeastAsLoose(loose, tight)).isTrue();
+        assertThat(SearchDeadline.atLeastAsLoose(tight, loose)).isFalse();
+        assertThat(SearchDeadline.atLeastAsLoose(tight, tight)).isTrue();
+        assertThat(SearchDeadline.atLeastAsLoose(null, loose)).isTrue();
+        assertThat(SearchDeadline.atLeastAsLoose(loose, null)).isFalse();
+        assertThat(SearchDeadline.atLeastAsLoose(null, null)).isTrue();
+    }
+}
@@ -0,0 +1,186 @@
+package com.imagesearch.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for SearchHedger (hedged calls across search service replicas).
+ */
+@DisplayName("Search Hedger Tests")
+class SearchHedgerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private List<Integer> calledReplicas;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        calledReplicas = new ArrayList<>();
+    }
+
+    /**
+     * Hedger that hedges after 10ms once it has seen a single call.
+     */
+    private SearchHedger warmHedger(double maxRatio) {
+        SearchHedger hedger = new SearchHedger(true, maxRatio, 10, 1, meterRegistry);
+        hedger.recordLatency(TimeUnit.MILLISECONDS.toNanos(1));
+        return hedger;
+    }
+
+    private double count(String name) {
+        return meterRegistry.counter(name).count();
+    }
+
+    @Test
+    @DisplayName("Should send a duplicate to the next replica when the first is slow, and take its answer")
+    void testSlowPrimaryHedged() throws Exception {
+        SearchHedger hedger = warmHedger(0.05);
+        CompletableFuture<String> slow = new CompletableFuture<>();
+
+        CompletableFuture<String> result = hedger.execute(2, replica -> {
+            synchronized (calledReplicas) {
+                calledReplicas.add(replica);
+            }
+            return replica == 0 ? slow : CompletableFuture.completedFuture("replica-1");
+        });
+
+        assertThat(result.get(2, TimeUnit.SECONDS)).isEqualTo("replica-1");
+        assertThat(calledReplicas).containsExactly(0, 1);
+        assertThat(slow).isCancelled();
+        Thread.sleep(50); // metrics are updated right after the result completes
+        assertThat(count("search.hedge.issued")).isEqualTo(1.0);
+        assertThat(count("search.hedge.won")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should not hedge a call that answers in time")
+    void testFastPrimaryNotHedged() throws Exception {
+        SearchHedger hedger = warmHedger(0.05);
+
+        CompletableFuture<String> result = hedger.execute(2, replica -> {
+            calledReplicas.add(replica);
+            return CompletableFuture.completedFuture("replica-" + replica);
+        });
+
+        assertThat(result.get(1, TimeUnit.SECONDS)).isEqualTo("replica-0");
+        Thread.sleep(50);
+        assertThat(calledReplicas).containsExactly(0);
+        assertThat(count("search.hedge.issued")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should rotate replicas and never hedge with a single replica or too few samples")
+    void testNoHedgeWithoutSecondReplicaOrSamples() throws Exception {
+        SearchHedger coldHedger = new SearchHedger(true, 1.0, 10, 100, meterRegistry);
+        List<Integer> primaries = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            coldHedger.execute(3, replica -> {
+                primaries.add(replica);
+                return new CompletableFuture<String>();
+            });
+        }
+        warmHedger(1.0).execute(1, replica -> {
+            primaries.add(replica);
+            return new CompletableFuture<String>();
+        });
+
+        Thread.sleep(50);
+        assertThat(primaries).containsExactly(0, 1, 2, 0);
+        assertThat(count("search.hedge.issued")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should stop hedging once the hedge budget is spent")
+    void testHedgeBudget() throws Exception {
+        SearchHedger hedger = warmHedger(0.0); // only the initial burst
+
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            // Primaries rotate, so make whichever replica is called first the slow one
+            AtomicInteger calls = new AtomicInteger();
+            results.add(hedger.execute(2, replica -> calls.getAndIncrement() == 0
+                    ? new CompletableFuture<>()
+                    : CompletableFuture.completedFuture("hedged")));
+        }
+
+        Thread.sleep(200);
+        assertThat(results).filteredOn(CompletableFuture::isDone).hasSize(10);
+        assertThat(count("search.hedge.issued")).isEqualTo(10.0);
+        assertThat(count("search.hedge.throttled")).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("Should not let a rejected hedge answer win over a slow primary")
+    void testRejectedHedgeAnswerDoesNotWin() throws Exception {
+        SearchHedger hedger = warmHedger(0.05);
+        CompletableFuture<String> slowPrimary = new CompletableFuture<>();
+
+        CompletableFuture<String> result = hedger.execute(0, 1,
+                replica -> replica == 0 ? slowPrimary : CompletableFuture.completedFuture(""),
+                answer -> !answer.isEmpty());
+
+        Thread.sleep(100);
+        assertThat(count("search.hedge.issued")).isEqualTo(1.0);
+        assertThat(result).isNotDone();
+
+        slowPrimary.complete("primary");
+        assertThat(result.get(1, TimeUnit.SECONDS)).isEqualTo("primary");
+        assertThat(count("search.hedge.won")).isZero();
+        assertThat(count("search.hedge.rejected")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should fail with the primary's error when the hedge answer is rejected")
+    void testRejectedHedgeKeepsPrimaryFailure() throws Exception {
+        SearchHedger hedger = warmHedger(0.05);
+        CompletableFuture<String> slowPrimary = new CompletableFuture<>();
+
+        CompletableFuture<String> result = hedger.execute(0, 1,
+                replica -> replica == 0 ? slowPrimary : CompletableFuture.completedFuture(""),
+                answer -> !answer.isEmpty());
+
+        Thread.sleep(100);
+        slowPrimary.completeExceptionally(new IllegalStateException("replica down"));
+        assertThatThrownBy(() -> result.get(1, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("Should fail the search when the call fails, without hedging it")
+    void testFailurePropagates() {
+        SearchHedger hedger = warmHedger(0.05);
+
+        CompletableFuture<String> result = hedger.execute(2, replica -> {
+            calledReplicas.add(replica);
+            return CompletableFuture.failedFuture(new IllegalStateException("replica down"));
+        });
+
+        assertThatThrownBy(() -> result.get(1, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(calledReplicas).containsExactly(0);
+    }
+
+    @Test
+    @DisplayName("Should hedge after the p95 of observed latencies")
+    void testHedgeDelayIsP95() {
+        SearchHedger hedger = new SearchHedger(true, 0.05, 1, 100, meterRegistry);
+        assertThat(hedger.hedgeDelayNanos()).isEqualTo(-1);
+
+        for (int i = 1; i <= 100; i++) {
+            hedger.recordLatency(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        assertThat(hedger.hedgeDelayNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(95));
+    }
+}
@@ -0,0 +1,149 @@
+package com.imagesearch.client;
+
+import com.imagesearch.client.dto.SearchServiceRequest;
+import com.imagesearch.client.dto.SearchServiceResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for SearchRequestCoalescer (single-flight searches).
+ */
+@DisplayName("Search Request Coalescer Tests")
+class SearchRequestCoalescerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SearchRequestCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new SearchRequestCoalescer(true, meterRegistry);
+    }
+
+    private SearchServiceRequest request(Long userId, String query, List<Long> folderIds) {
+        Map<Long, Long> owners = new HashMap<>();
+        folderIds.forEach(id -> owners.put(id, 1L));
+        return new SearchServiceRequest(userId, query, folderIds, owners, 5);
+    }
+
+    @Test
+    @DisplayName("Should share one in-flight call between identical requests from different users")
+    void testIdenticalRequestsShareCall() {
+        CompletableFuture<SearchServiceResponse> remote = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<SearchServiceResponse> first = coalescer.searchAsync(
+                request(1L, "sunset", List.of(1L, 2L)), r -> { calls.incrementAndGet(); return remote; });
+        CompletableFuture<SearchServiceResponse> second = coalescer.searchAsync(
+                request(2L, " Sunset ", List.of(2L, 1L)), r -> { calls.incrementAndGet(); return remote; });
+
+        SearchServiceResponse response = new SearchServiceResponse(List.of(), 0);
+        remote.complete(response);
+
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(first.join()).isSameAs(response);
+        assertThat(second.join()).isSameAs(response);
+        assertThat(meterRegistry.counter("search.coalesce.joined").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should start a fresh call once the previous one completed")
+    void testNoCoalescingAfterCompletion() {
+        AtomicInteger calls = new AtomicInteger();
+        SearchServiceRequest request = request(1L, "sunset", List.of(1L));
+
+        coalescer.searchAsync(request, r -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture(new SearchServiceResponse(List.of(), 0));
+        }).join();
+        coalescer.searchAsync(request, r -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture(new SearchServiceResponse(List.of(), 0));
+        }).join();
+
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(meterRegistry.counter("search.coalesce.joined").count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not coalesce requests with different folder sets")
+    void testDifferentFoldersNotCoalesced() {
+        CompletableFuture<SearchServiceResponse> remote = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        coalescer.searchAsync(request(1L, "sunset", List.of(1L)), r -> { calls.incrementAndGet(); return remote; });
+        coalescer.searchAsync(request(1L, "sunset", List.of(2L)), r -> { calls.incrementAndGet(); return remote; });
+
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should only join a leader whose deadline is at least as loose")
+    void testDeadlineAwareJoin() {
+        CompletableFuture<SearchServiceResponse> remote = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+        SearchServiceRequest tight = request(1L, "sunset", List.of(1L));
+        tight.setDeadline(SearchDeadline.after(Duration.ofMillis(100)));
+        SearchServiceRequest loose = request(2L, "sunset", List.of(1L));
+        loose.setDeadline(SearchDeadline.after(Duration.ofSeconds(10)));
+
+        coalescer.searchAsync(tight, r -> { calls.incrementAndGet(); return remote; });
+        // The tight leader may come back partial - looser and unbounded requests make their own call
+        coalescer.searchAsync(loose, r -> { calls.incrementAndGet(); return new CompletableFuture<>(); });
+        coalescer.searchAsync(request(3L, "sunset", List.of(1L)),
+                r -> { calls.incrementAndGet(); return new CompletableFuture<>(); });
+        assertThat(calls.get()).isEqualTo(3);
+        assertThat(meterRegistry.counter("search.coalesce.bypassed").count()).isEqualTo(2.0);
+
+        // A tighter request can share the tight leader's call
+        SearchServiceRequest tighter = request(4L, "sunset", List.of(1L));
+        tighter.setDeadline(SearchDeadline.after(Duration.ofMillis(50)));
+        CompletableFuture<SearchServiceResponse> joined =
+                coalescer.searchAsync(tighter, r -> { calls.incrementAndGet(); return new CompletableFuture<>(); });
+        assertThat(calls.get()).isEqualTo(3);
+        SearchServiceResponse response = new SearchServiceResponse(List.of(), 0);
+        remote.complete(response);
+        assertThat(joined.join()).isSameAs(response);
+    }
+
+    @Test
+    @DisplayName("Should propagate leader failure to blocking callers unwrapped")
+    void testFailurePropagation() {
+        SearchServiceRequest request = request(1L, "sunset", List.of(1L));
+
+        assertThatThrownBy(() -> coalescer.search(request, r -> { throw new IllegalStateException("down"); }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("down");
+    }
+
+    @Test
+    @DisplayName("Should release the in-flight entry when the leader's call throws an Error")
+    void testLeaderErrorReleasesEntry() {
+        SearchServiceRequest request = request(1L, "sunset", List.of(1L));
+        SearchServiceResponse response = new SearchServiceResponse(List.of(), 0);
+
+        assertThatThrownBy(() -> coalescer.search(request, r -> { throw new StackOverflowError(); }))
+                .isInstanceOf(StackOverflowError.class);
+        CompletableFuture<SearchServiceResponse> failed =
+                coalescer.searchAsync(request, r -> { throw new StackOverflowError(); });
+        assertThat(failed).isCompletedExceptionally();
+
+        // No stale entry left to join - both paths start a fresh call
+        assertThat(coalescer.search(request, r -> response)).isSameAs(response);
+        assertThat(coalescer.searchAsync(request, r -> CompletableFuture.completedFuture(response)).join())
+                .isSameAs(response);
+        assertThat(meterRegistry.counter("search.coalesce.joined").count()).isZero();
+    }
+}
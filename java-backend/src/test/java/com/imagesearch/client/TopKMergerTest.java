@@ -0,0 +1,117 @@
+package com.imagesearch.client;
+
+import com.imagesearch.client.dto.SearchServiceResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for TopKMerger (fan-out result merging).
+ */
+@DisplayName("Top-K Merger Tests")
+class TopKMergerTest {
+
+    private SearchServiceResponse shard(SearchServiceResponse.SearchResult... results) {
+        return new SearchServiceResponse(List.of(results), results.length);
+    }
+
+    private SearchServiceResponse.SearchResult result(long imageId, double score, long folderId) {
+        return new SearchServiceResponse.SearchResult(imageId, score, folderId);
+    }
+
+    @Test
+    @DisplayName("Should keep the k highest scores across shards, highest first")
+    void testMergeAcrossShards() {
+        SearchServiceResponse shard1 = shard(result(1L, 0.90, 1L), result(2L, 0.40, 1L));
+        SearchServiceResponse shard2 = shard(result(3L, 0.95, 2L), result(4L, 0.10, 2L));
+        SearchServiceResponse shard3 = shard(result(5L, 0.60, 3L));
+
+        SearchServiceResponse merged = TopKMerger.merge(List.of(shard1, shard2, shard3), 3);
+
+        assertThat(merged.getResults()).extracting(SearchServiceResponse.SearchResult::getImageId)
+                .containsExactly(3L, 1L, 5L);
+        assertThat(merged.getResults()).extracting(SearchServiceResponse.SearchResult::getFolderId)
+                .containsExactly(2L, 1L, 3L);
+        assertThat(merged.getTotal()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should return everything when fewer than k results exist")
+    void testFewerThanK() {
+        SearchServiceResponse shard1 = shard(result(1L, 0.2, 1L));
+        SearchServiceResponse shard2 = shard(result(2L, 0.7, 2L));
+
+        SearchServiceResponse merged = TopKMerger.merge(List.of(shard1, shard2), 10);
+
+        assertThat(merged.getResults()).extracting(SearchServiceResponse.SearchResult::getImageId)
+                .containsExactly(2L, 1L);
+    }
+
+    @Test
+    @DisplayName("Should skip null partial responses and handle k <= 0")
+    void testNullPartialsAndZeroK() {
+        SearchServiceResponse shard = shard(result(1L, 0.5, 1L));
+
+        assertThat(TopKMerger.merge(Arrays.asList(null, shard), 5).size()).isEqualTo(1);
+        assertThat(TopKMerger.merge(List.of(shard), 0).size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should mark the merged response degraded if any partial was")
+    void testDegradedPropagates() {
+        SearchServiceResponse healthy = shard(result(1L, 0.5, 1L));
+        SearchServiceResponse degraded = shard(result(2L, 0.4, 2L));
+        degraded.setDegraded(true);
+
+        assertThat(TopKMerger.merge(List.of(healthy, degraded), 5).isDegraded()).isTrue();
+        assertThat(TopKMerger.merge(List.of(healthy), 5).isDegraded()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should merge the futures that succeeded, and fail only if all failed")
+    void testMergeCompletedToleratesFailures() {
+        CompletableFuture<SearchServiceResponse> up = CompletableFuture.completedFuture(shard(result(1L, 0.5, 1L)));
+        CompletableFuture<SearchServiceResponse> down = CompletableFuture.failedFuture(new IllegalStateException("node down"));
+
+        SearchServiceResponse merged = TopKMerger.mergeCompleted(List.of(down, up), 5);
+        assertThat(merged.getResults()).extracting(SearchServiceResponse.SearchResult::getImageId).containsExactly(1L);
+        assertThat(merged.isDegraded()).isTrue();
+        assertThat(TopKMerger.mergeCompleted(List.of(up), 5).isDegraded()).isFalse();
+
+        assertThatThrownBy(() -> TopKMerger.mergeCompleted(List.of(down, down), 5))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("node down");
+    }
+
+    @Test
+    @DisplayName("Should match a full sort on larger inputs")
+    void testMatchesFullSort() {
+        Random random = new Random(7);
+        List<SearchServiceResponse> shards = new ArrayList<>();
+        List<Double> allScores = new ArrayList<>();
+        for (int s = 0; s < 5; s++) {
+            List<SearchServiceResponse.SearchResult> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                double score = random.nextDouble();
+                results.add(result(s * 1000L + i, score, s));
+                allScores.add(score);
+            }
+            shards.add(new SearchServiceResponse(results, results.size()));
+        }
+        allScores.sort(Collections.reverseOrder());
+
+        SearchServiceResponse merged = TopKMerger.merge(shards, 50);
+
+        assertThat(merged.getResults()).extracting(SearchServiceResponse.SearchResult::getScore)
+                .containsExactlyElementsOf(allScores.subList(0, 50));
+    }
+}
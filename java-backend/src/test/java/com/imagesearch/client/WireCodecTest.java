@@ -0,0 +1,128 @@
+package com.imagesearch.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.imagesearch.client.dto.SearchServiceRequest;
+import com.imagesearch.client.dto.SearchServiceResponse;
+import com.imagesearch.config.WebClientConfig;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for WireCodec (negotiated JSON/CBOR wire format), against a local HTTP server.
+ */
+@DisplayName("Wire Codec Tests")
+class WireCodecTest {
+
+    private final ObjectMapper cborMapper = WireCodec.cborMapper();
+    private final SearchServiceRequest request =
+            new SearchServiceRequest(1L, "sunset", List.of(7L), Map.of(7L, 1L), 5);
+
+    private MockWebServer server;
+    private WebClient webClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        webClient = new WebClientConfig().webClientBuilder().baseUrl(server.url("/").toString()).build();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private SearchServiceResponse search(WireCodec codec) {
+        return codec.exchange(webClient.post().uri("/api/search"), request, SearchServiceResponse.class).block();
+    }
+
+    private MockResponse cborResponse(SearchServiceResponse body) throws IOException {
+        return new MockResponse()
+                .setHeader("Content-Type", "application/cbor")
+                .setBody(new Buffer().write(cborMapper.writeValueAsBytes(body)));
+    }
+
+    @Test
+    @DisplayName("Should switch request bodies to CBOR once the backend answers in CBOR")
+    void testNegotiatesCbor() throws Exception {
+        SearchServiceResponse expected = new SearchServiceResponse(
+                List.of(new SearchServiceResponse.SearchResult(42L, 0.875, 7L)), 1);
+        server.enqueue(cborResponse(expected));
+        server.enqueue(cborResponse(expected));
+        WireCodec codec = new WireCodec("test", "cbor");
+
+        assertThat(search(codec)).isEqualTo(expected);
+        RecordedRequest first = server.takeRequest();
+        assertThat(first.getHeader("Accept")).contains("application/cbor");
+        assertThat(first.getHeader("Content-Type")).startsWith("application/json");
+        assertThat(first.getBody().readUtf8()).contains("\"folder_owner_map\"");
+        assertThat(codec.sendsCbor()).isTrue();
+
+        assertThat(search(codec)).isEqualTo(expected);
+        RecordedRequest second = server.takeRequest();
+        assertThat(second.getHeader("Content-Type")).startsWith("application/cbor");
+        SearchServiceRequest decoded = cborMapper.readValue(second.getBody().readByteArray(), SearchServiceRequest.class);
+        assertThat(decoded.getQuery()).isEqualTo("sunset");
+        assertThat(decoded.getFolderOwnerMap()).containsEntry(7L, 1L);
+    }
+
+    @Test
+    @DisplayName("Should keep sending JSON to a backend that answers in JSON")
+    void testFallsBackToJson() throws Exception {
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setBody("{\"results\": [{\"image_id\": 3, \"score\": 0.5, \"folder_id\": 7}], \"total\": 1}"));
+        WireCodec codec = new WireCodec("test", "cbor");
+
+        SearchServiceResponse response = search(codec);
+
+        assertThat(response.getResults()).extracting(SearchServiceResponse.SearchResult::getImageId).containsExactly(3L);
+        assertThat(codec.sendsCbor()).isFalse();
+        assertThat(server.takeRequest().getHeader("Content-Type")).startsWith("application/json");
+    }
+
+    @Test
+    @DisplayName("Should not offer CBOR when the backend's codec is json")
+    void testJsonCodec() throws Exception {
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setBody("{\"results\": [], \"total\": 0}"));
+
+        search(new WireCodec("test", "json"));
+
+        String accept = server.takeRequest().getHeader("Accept");
+        assertThat(accept == null || !accept.contains("application/cbor")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should surface error statuses like retrieve() does")
+    void testErrorStatus() {
+        server.enqueue(new MockResponse().setResponseCode(500).setBody("boom"));
+
+        assertThatThrownBy(() -> search(new WireCodec("test", "cbor")))
+                .isInstanceOf(WebClientResponseException.InternalServerError.class);
+    }
+
+    @Test
+    @DisplayName("Should reject unknown codec names")
+    void testUnknownCodec() {
+        assertThatThrownBy(() -> new WireCodec("test", "protobuf"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("protobuf");
+    }
+}
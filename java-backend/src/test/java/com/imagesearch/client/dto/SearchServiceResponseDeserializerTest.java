@@ -0,0 +1,103 @@
+package com.imagesearch.client.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.imagesearch.client.WireCodec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for SearchServiceResponseDeserializer (streaming decode into primitive arrays).
+ */
+@DisplayName("Search Service Response Deserializer Tests")
+class SearchServiceResponseDeserializerTest {
+
+    private final ObjectMapper jsonMapper = WireCodec.jsonMapper();
+    private final ObjectMapper cborMapper = WireCodec.cborMapper();
+
+    @Test
+    @DisplayName("Should decode hits into index-addressable arrays")
+    void testDecodeJson() throws Exception {
+        String json = "{\"results\": [{\"image_id\": 3, \"score\": 0.75, \"folder_id\": 7},"
+                + " {\"folder_id\": 8, \"score\": 0.5, \"image_id\": 4}], \"total\": 2}";
+
+        SearchServiceResponse response = jsonMapper.readValue(json, SearchServiceResponse.class);
+
+        assertThat(response.size()).isEqualTo(2);
+        assertThat(response.imageIdAt(0)).isEqualTo(3L);
+        assertThat(response.scoreAt(0)).isEqualTo(0.75);
+        assertThat(response.folderIdAt(0)).isEqualTo(7L);
+        assertThat(response.imageIdAt(1)).isEqualTo(4L);
+        assertThat(response.folderIdAt(1)).isEqualTo(8L);
+        assertThat(response.getTotal()).isEqualTo(2);
+        assertThat(response.getResults()).containsExactly(
+                new SearchServiceResponse.SearchResult(3L, 0.75, 7L),
+                new SearchServiceResponse.SearchResult(4L, 0.5, 8L));
+    }
+
+    @Test
+    @DisplayName("Should skip unknown fields and keep missing IDs as null")
+    void testUnknownAndMissingFields() throws Exception {
+        String json = "{\"took_ms\": 12, \"results\": [{\"image_id\": 3, \"score\": 0.5,"
+                + " \"extra\": {\"nested\": [1, 2]}, \"folder_id\": null}], \"debug\": [\"a\"]}";
+
+        SearchServiceResponse response = jsonMapper.readValue(json, SearchServiceResponse.class);
+
+        assertThat(response.size()).isEqualTo(1);
+        assertThat(response.folderIdAt(0)).isEqualTo(SearchServiceResponse.NO_ID);
+        assertThat(response.getResults().get(0).getFolderId()).isNull();
+        assertThat(response.getTotal()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should mark a partial response (cut short at the deadline) as degraded")
+    void testPartial() throws Exception {
+        String json = "{\"results\": [{\"image_id\": 3, \"score\": 0.5, \"folder_id\": 7}], \"partial\": true}";
+
+        assertThat(jsonMapper.readValue(json, SearchServiceResponse.class).isDegraded()).isTrue();
+        assertThat(jsonMapper.readValue("{\"results\": []}", SearchServiceResponse.class).isDegraded()).isFalse();
+        assertThat(jsonMapper.readValue("{\"results\": [], \"partial\": false}", SearchServiceResponse.class)
+                .isDegraded()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should treat null or empty results as no hits")
+    void testEmptyResults() throws Exception {
+        assertThat(jsonMapper.readValue("{\"results\": null, \"total\": 0}", SearchServiceResponse.class).size())
+                .isZero();
+        assertThat(jsonMapper.readValue("{\"results\": [], \"total\": 0}", SearchServiceResponse.class).getResults())
+                .isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should round-trip large responses through JSON and CBOR")
+    void testRoundTrip() throws Exception {
+        List<SearchServiceResponse.SearchResult> results = new ArrayList<>();
+        for (long i = 0; i < 500; i++) {
+            results.add(new SearchServiceResponse.SearchResult(100_000L + i, 1.0 / (i + 1), i % 20));
+        }
+        SearchServiceResponse original = new SearchServiceResponse(results, results.size());
+
+        SearchServiceResponse fromJson = jsonMapper.readValue(
+                jsonMapper.writeValueAsBytes(original), SearchServiceResponse.class);
+        SearchServiceResponse fromCbor = cborMapper.readValue(
+                cborMapper.writeValueAsBytes(original), SearchServiceResponse.class);
+
+        assertThat(fromJson).isEqualTo(original);
+        assertThat(fromCbor).isEqualTo(original);
+        assertThat(fromCbor.scoreAt(499)).isEqualTo(1.0 / 500);
+    }
+
+    @Test
+    @DisplayName("Should reject a results field that is not an array")
+    void testMalformedResults() {
+        assertThatThrownBy(() -> jsonMapper.readValue("{\"results\": 5}", SearchServiceResponse.class))
+                .isInstanceOf(MismatchedInputException.class);
+    }
+}
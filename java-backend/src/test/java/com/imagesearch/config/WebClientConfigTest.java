@@ -0,0 +1,81 @@
+package com.imagesearch.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the per-backend connection pools of WebClientConfig.
+ */
+@DisplayName("WebClient Config Tests")
+class WebClientConfigTest {
+
+    private final WebClientConfig config = new WebClientConfig();
+    private MockWebServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        config.disposeConnectionPools();
+        server.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should read pool settings under a prefix, with defaults for missing keys")
+    void testPoolSettings() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("search-service.pool.max-connections", "8")
+                .withProperty("search-service.pool.http2", "true");
+
+        WebClientConfig.PoolSettings settings = WebClientConfig.PoolSettings.from(environment, "search-service.pool");
+
+        assertThat(settings.maxConnections()).isEqualTo(8);
+        assertThat(settings.http2()).isTrue();
+        assertThat(settings.pendingAcquireMax()).isEqualTo(200);
+        assertThat(settings.keepAlive()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should publish pool gauges tagged with the pool name")
+    void testPoolMetrics() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WebClientConfig.PoolSettings settings = new WebClientConfig.PoolSettings(
+                4, 10, 1_000, 4_000, 60_000, 1_000, true, false);
+        WebClient webClient = config.pooledWebClientBuilder("test-backend", settings, meterRegistry)
+                .baseUrl(server.url("/").toString())
+                .build();
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        String body = webClient.get().uri("/health").retrieve().bodyToMono(String.class).block();
+
+        assertThat(body).isEqualTo("ok");
+        Gauge max = meterRegistry.find("search.pool.max").tag("pool", "test-backend").gauge();
+        assertThat(max).isNotNull();
+        assertThat(max.value()).isEqualTo(4.0);
+        // One connection was opened; whether it is back in the pool yet is timing-dependent
+        assertThat(gaugeValue(meterRegistry, "search.pool.allocated")).isEqualTo(1.0);
+        assertThat(gaugeValue(meterRegistry, "search.pool.active") + gaugeValue(meterRegistry, "search.pool.idle"))
+                .isEqualTo(1.0);
+        assertThat(gaugeValue(meterRegistry, "search.pool.pending")).isZero();
+    }
+
+    private double gaugeValue(SimpleMeterRegistry meterRegistry, String name) {
+        return meterRegistry.get(name).tag("pool", "test-backend").gauge().value();
+    }
+}
@@ -1,5 +1,7 @@
 package com.imagesearch.controller;
 
+import com.imagesearch.exception.SearchServiceUnavailableException;
+import com.imagesearch.model.dto.response.SearchResponse;
 import com.imagesearch.model.dto.response.UploadResponse;
 import com.imagesearch.service.ImageService;
 import com.imagesearch.service.SearchService;
@@ -15,10 +17,20 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -247,4 +259,102 @@ public class ImageControllerUnitTest {
                     .andExpect(status().isOk());
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Image Search Tests")
+    class ImageSearchTests {
+
+        @Test
+        @DisplayName("Should return search results via async dispatch")
+        void testSearchAsync() throws Exception {
+            when(sessionService.validateTokenAndGetUserId(TEST_TOKEN)).thenReturn(TEST_USER_ID);
+
+            SearchResponse response = new SearchResponse(List.of(
+                    new SearchResponse.ImageSearchResult("http://localhost:8080/images/1/1/a.png", 0.9)));
+            when(searchService.searchImagesAsync(eq(TEST_USER_ID), eq("sunset"), eq(List.of(1L, 2L)), eq(5), any()))
+                    .thenReturn(CompletableFuture.completedFuture(response));
+
+            MvcResult mvcResult = mockMvc.perform(get("/api/images/search")
+                            .param("token", TEST_TOKEN)
+                            .param("query", "sunset")
+                            .param("folder_ids", "1, 2"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(mvcResult))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.results[0].similarity").value(0.9));
+        }
+
+        @Test
+        @DisplayName("Should serve later pages from the cursor without re-running the search")
+        void testSearchNextPage() throws Exception {
+            when(sessionService.validateTokenAndGetUserId(TEST_TOKEN)).thenReturn(TEST_USER_ID);
+            SearchResponse page = new SearchResponse(List.of(
+                    new SearchResponse.ImageSearchResult("http://localhost:8080/images/1/1/c.png", 0.5)), null);
+            when(searchService.nextPage(TEST_USER_ID, "abc")).thenReturn(page);
+
+            MvcResult mvcResult = mockMvc.perform(get("/api/images/search")
+                            .param("token", TEST_TOKEN)
+                            .param("cursor", "abc"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(mvcResult))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.results[0].similarity").value(0.5))
+                    .andExpect(jsonPath("$.nextCursor").doesNotExist());
+            verify(searchService, never()).searchImagesAsync(any(), any(), any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("Should stream partial results followed by the final response")
+        void testStreamSearch() throws Exception {
+            when(sessionService.validateTokenAndGetUserId(TEST_TOKEN)).thenReturn(TEST_USER_ID);
+
+            SearchResponse partial = new SearchResponse(List.of(
+                    new SearchResponse.ImageSearchResult("http://localhost:8080/images/1/2/b.png", 0.7)));
+            SearchResponse response = new SearchResponse(List.of(
+                    new SearchResponse.ImageSearchResult("http://localhost:8080/images/1/1/a.png", 0.9)));
+            when(searchService.streamSearchImages(eq(TEST_USER_ID), eq("sunset"), eq(List.of(1L, 2L)), eq(5), any(), any()))
+                    .thenAnswer(invocation -> {
+                        Consumer<SearchResponse> onPartial = invocation.getArgument(4);
+                        onPartial.accept(partial);
+                        return CompletableFuture.completedFuture(response);
+                    });
+
+            MvcResult mvcResult = mockMvc.perform(get("/api/images/search/stream")
+                            .param("token", TEST_TOKEN)
+                            .param("query", "sunset")
+                            .param("folder_ids", "1,2"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mvcResult.getAsyncResult();
+
+            String body = mvcResult.getResponse().getContentAsString();
+            assertThat(body).contains("event:partial", "event:final");
+            assertThat(body.indexOf("event:partial")).isLessThan(body.indexOf("event:final"));
+            assertThat(body).contains("\"similarity\":0.7", "\"similarity\":0.9");
+        }
+
+        @Test
+        @DisplayName("Should end the stream with an error event when the search fails")
+        void testStreamSearchFailure() throws Exception {
+            when(sessionService.validateTokenAndGetUserId(TEST_TOKEN)).thenReturn(TEST_USER_ID);
+            when(searchService.streamSearchImages(eq(TEST_USER_ID), eq("sunset"), isNull(), eq(5), any(), any()))
+                    .thenReturn(CompletableFuture.failedFuture(
+                            new SearchServiceUnavailableException("sunset", 0)));
+
+            MvcResult mvcResult = mockMvc.perform(get("/api/images/search/stream")
+                            .param("token", TEST_TOKEN)
+                            .param("query", "sunset"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mvcResult.getAsyncResult();
+
+            String body = mvcResult.getResponse().getContentAsString();
+            assertThat(body).contains("event:error", "\"status\":503");
+            assertThat(body).doesNotContain("event:final");
+        }
+    }
+}
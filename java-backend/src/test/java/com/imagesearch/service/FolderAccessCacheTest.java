@@ -0,0 +1,109 @@
+package com.imagesearch.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for FolderAccessCache.
+ *
+ * Tests cover:
+ * - Hit/miss accounting
+ * - Incremental grant / folder removal / user removal
+ * - Rejecting scopes loaded while a change was being applied
+ * - LRU eviction over users
+ */
+@DisplayName("Folder Access Cache Tests")
+public class FolderAccessCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private FolderAccessCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new FolderAccessCache(true, 2, 600, meterRegistry);
+    }
+
+    private static FolderAccessCache.FolderAccess owner(long ownerId) {
+        return new FolderAccessCache.FolderAccess(ownerId, FolderAccessCache.OWNER_PERMISSION);
+    }
+
+    @Test
+    @DisplayName("Should return cached scope and count hits and misses")
+    void testHitAndMiss() {
+        assertThat(cache.get(1L)).isEmpty();
+
+        cache.put(1L, cache.version(), Map.of(10L, owner(1L)));
+
+        assertThat(cache.get(1L)).isPresent().get().isEqualTo(Map.of(10L, owner(1L)));
+        assertThat(meterRegistry.counter("acl.cache.hits").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.counter("acl.cache.misses").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should add granted folders to cached scopes only")
+    void testGrant() {
+        cache.put(2L, cache.version(), Map.of());
+
+        cache.grant(2L, 10L, new FolderAccessCache.FolderAccess(1L, "view"));
+        cache.grant(3L, 10L, new FolderAccessCache.FolderAccess(1L, "view"));
+
+        assertThat(cache.get(2L).orElseThrow()).containsKey(10L);
+        assertThat(cache.get(3L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should remove a deleted folder from every user's scope")
+    void testRemoveFolder() {
+        cache.put(1L, cache.version(), Map.of(10L, owner(1L), 11L, owner(1L)));
+        cache.put(2L, cache.version(), Map.of(10L, new FolderAccessCache.FolderAccess(1L, "view")));
+
+        cache.removeFolder(10L);
+
+        assertThat(cache.get(1L).orElseThrow()).containsOnlyKeys(11L);
+        assertThat(cache.get(2L).orElseThrow()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should drop a deleted user's scope and the folders they owned")
+    void testRemoveUser() {
+        cache.put(1L, cache.version(), Map.of(10L, owner(1L)));
+        cache.put(2L, cache.version(), Map.of(
+                10L, new FolderAccessCache.FolderAccess(1L, "view"),
+                20L, owner(2L)));
+
+        cache.removeUser(1L);
+
+        assertThat(cache.get(1L)).isEmpty();
+        assertThat(cache.get(2L).orElseThrow()).containsOnlyKeys(20L);
+    }
+
+    @Test
+    @DisplayName("Should not store a scope loaded while a change was applied")
+    void testVersionSnapshotTakenBeforeLoad() {
+        long version = cache.version();
+        cache.removeFolder(10L); // folder deleted while scope query was running
+        cache.put(1L, version, Map.of(10L, owner(1L)));
+
+        assertThat(cache.get(1L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should evict least recently used user when full")
+    void testSizeEviction() {
+        cache.put(1L, cache.version(), Map.of());
+        cache.put(2L, cache.version(), Map.of());
+        cache.get(1L); // touch user 1 so user 2 becomes eldest
+        cache.put(3L, cache.version(), Map.of());
+
+        assertThat(cache.get(1L)).isPresent();
+        assertThat(cache.get(2L)).isEmpty();
+        assertThat(cache.get(3L)).isPresent();
+    }
+}
@@ -28,6 +28,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -73,6 +74,15 @@ public class FolderServiceTest {
     @Mock
     private SearchClient searchClient;
 
+    @Mock
+    private SearchResultCache searchResultCache;
+
+    @Mock
+    private FolderAccessCache folderAccessCache;
+
+    @Mock
+    private ImagePathCache imagePathCache;
+
     @InjectMocks
     private FolderService folderService;
 
@@ -236,6 +246,8 @@ public class FolderServiceTest {
 
             // Verify FAISS index was created
             verify(searchClient).createIndex(1L, 200L);
+            verify(folderAccessCache).grant(1L, 200L,
+                    new FolderAccessCache.FolderAccess(1L, FolderAccessCache.OWNER_PERMISSION));
         }
 
         @SuppressWarnings("null")
@@ -434,6 +446,9 @@ public class FolderServiceTest {
             verify(folderRepository).delete(testFolder);
             verify(searchClient).deleteIndex(1L, 100L);
             verify(searchClient).deleteIndex(1L, 100L);
+            verify(searchResultCache).invalidateFolder(100L);
+            verify(folderAccessCache).removeFolder(100L);
+            verify(imagePathCache).invalidateFolder(100L);
         }
 
         @SuppressWarnings("null")
@@ -565,6 +580,7 @@ public class FolderServiceTest {
             assertThat(share.getOwner()).isEqualTo(testUser);
             assertThat(share.getSharedWithUser()).isEqualTo(otherUser);
             assertThat(share.getPermission()).isEqualTo("view");
+            verify(folderAccessCache).grant(2L, 100L, new FolderAccessCache.FolderAccess(1L, "view"));
         }
 
         @SuppressWarnings("null")
@@ -722,4 +738,54 @@ public class FolderServiceTest {
                     .isInstanceOf(NullPointerException.class);
         }
     }
+
+    @Nested
+    @DisplayName("Resolve Search Scope Tests - ACL Cache")
+    class ResolveSearchScopeTests {
+
+        @Test
+        @DisplayName("Should resolve requested folders from a cached scope without database queries")
+        void testResolveFromWarmCache() {
+            when(folderAccessCache.get(1L)).thenReturn(Optional.of(Map.of(
+                    100L, new FolderAccessCache.FolderAccess(1L, FolderAccessCache.OWNER_PERMISSION),
+                    200L, new FolderAccessCache.FolderAccess(2L, "view"))));
+
+            Map<Long, Long> scope = folderService.resolveSearchScope(1L, List.of(200L));
+
+            assertThat(scope).containsExactly(entry(200L, 2L));
+            verifyNoInteractions(folderRepository, userRepository, folderShareRepository);
+        }
+
+        @Test
+        @DisplayName("Should load the whole scope with one query on a cold cache")
+        void testResolveLoadsScopeOnMiss() {
+            when(folderAccessCache.get(1L)).thenReturn(Optional.empty());
+            when(folderAccessCache.version()).thenReturn(7L);
+            when(folderRepository.findAccessScope(1L)).thenReturn(List.of(
+                    new Object[]{100L, 1L, null},
+                    new Object[]{200L, 2L, "view"}));
+
+            Map<Long, Long> scope = folderService.resolveSearchScope(1L, null);
+
+            assertThat(scope).containsExactly(entry(100L, 1L), entry(200L, 2L));
+            verify(folderAccessCache).put(eq(1L), eq(7L), argThat(folders ->
+                    folders.get(100L).permission().equals(FolderAccessCache.OWNER_PERMISSION)
+                            && folders.get(200L).permission().equals("view")));
+            verify(folderRepository, never()).findAllAccessibleFolders(any());
+        }
+
+        @Test
+        @DisplayName("Should fall back to access check for folders missing from the scope")
+        void testResolveMissingFolderFallsBackToAccessCheck() {
+            // WHY: Keeps the not-found / forbidden errors of checkFolderAccess
+            when(folderAccessCache.get(2L)).thenReturn(Optional.of(Map.of()));
+            when(folderRepository.findById(100L)).thenReturn(Optional.of(testFolder)); // Owned by testUser
+            when(userRepository.findById(2L)).thenReturn(Optional.of(otherUser));
+            when(folderShareRepository.existsByFolderAndSharedWithUser(testFolder, otherUser))
+                    .thenReturn(false);
+
+            assertThatThrownBy(() -> folderService.resolveSearchScope(2L, List.of(100L)))
+                    .isInstanceOf(ForbiddenException.class);
+        }
+    }
 }
@@ -0,0 +1,118 @@
+package com.imagesearch.service;
+
+import com.imagesearch.util.LongObjectHashMap;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for ImagePathCache.
+ *
+ * Tests cover:
+ * - Hit/miss accounting
+ * - Folder invalidation
+ * - Rejecting paths loaded while a deletion was being applied
+ * - CLOCK eviction bounded by estimated footprint
+ */
+@DisplayName("Image Path Cache Tests")
+public class ImagePathCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ImagePathCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ImagePathCache(true, 64, meterRegistry);
+    }
+
+    private static ImageService.ImagePath path(long imageId, long folderId) {
+        return new ImageService.ImagePath(imageId, "images/1/" + folderId + "/" + imageId + ".png", folderId);
+    }
+
+    private Set<Long> lookup(LongObjectHashMap<ImageService.ImagePath> into, Long... imageIds) {
+        return cache.getAll(List.of(imageIds), into);
+    }
+
+    @Test
+    @DisplayName("Should return cached paths and report the rest as missing")
+    void testHitAndMiss() {
+        cache.put(path(1L, 10L));
+        cache.putAll(cache.version(), List.of(path(2L, 10L)));
+
+        LongObjectHashMap<ImageService.ImagePath> found = new LongObjectHashMap<>();
+        Set<Long> missing = lookup(found, 1L, 2L, 3L);
+
+        assertThat(missing).containsExactly(3L);
+        assertThat(found.get(1L)).isEqualTo(path(1L, 10L));
+        assertThat(found.get(2L)).isEqualTo(path(2L, 10L));
+        assertThat(meterRegistry.counter("image.path.cache.hits").count()).isEqualTo(2.0);
+        assertThat(meterRegistry.counter("image.path.cache.misses").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("image.path.cache.entries").gauge().value()).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("Should drop only the invalidated folders' paths")
+    void testInvalidateFolders() {
+        cache.put(path(1L, 10L));
+        cache.put(path(2L, 20L));
+        cache.put(path(3L, 30L));
+
+        cache.invalidateFolder(10L);
+        cache.invalidateFolders(List.of(30L));
+
+        Set<Long> missing = lookup(new LongObjectHashMap<>(), 1L, 2L, 3L);
+        assertThat(missing).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(meterRegistry.get("image.path.cache.bytes").gauge().value())
+                .isEqualTo(ImagePathCache.ENTRY_OVERHEAD_BYTES + path(2L, 20L).filepath().length());
+    }
+
+    @Test
+    @DisplayName("Should reject paths loaded before a concurrent invalidation")
+    void testStaleLoadRejected() {
+        long versionBeforeLoad = cache.version();
+        cache.invalidateFolder(10L);
+
+        cache.putAll(versionBeforeLoad, List.of(path(1L, 10L)));
+
+        assertThat(lookup(new LongObjectHashMap<>(), 1L)).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Should evict unreferenced paths first once over the size limit")
+    void testClockEviction() {
+        SimpleMeterRegistry smallRegistry = new SimpleMeterRegistry();
+        ImagePathCache small = new ImagePathCache(true, 1, smallRegistry);
+        // ~160 bytes each: 5,000 fit in 1 MB, 10,000 do not
+        for (long id = 1; id <= 5_000; id++) {
+            small.put(path(id, 10L));
+        }
+        assertThat(smallRegistry.counter("image.path.cache.evictions").count()).isZero();
+
+        // Second chance for the entry at the clock hand
+        small.getAll(List.of(1L), new LongObjectHashMap<>());
+        for (long id = 5_001; id <= 10_000; id++) {
+            small.put(path(id, 10L));
+        }
+
+        Set<Long> missing = small.getAll(List.of(1L, 2L, 10_000L), new LongObjectHashMap<>());
+        assertThat(missing).containsExactly(2L);
+        assertThat(smallRegistry.counter("image.path.cache.evictions").count()).isPositive();
+        assertThat(smallRegistry.get("image.path.cache.bytes").gauge().value()).isLessThanOrEqualTo(1024 * 1024);
+    }
+
+    @Test
+    @DisplayName("Should pass everything through when disabled")
+    void testDisabled() {
+        ImagePathCache disabled = new ImagePathCache(false, 64, new SimpleMeterRegistry());
+        disabled.put(path(1L, 10L));
+
+        assertThat(disabled.getAll(List.of(1L), new LongObjectHashMap<>())).containsExactly(1L);
+    }
+}
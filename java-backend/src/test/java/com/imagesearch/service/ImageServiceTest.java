@@ -9,6 +9,8 @@ import com.imagesearch.model.entity.Image;
 import com.imagesearch.model.entity.User;
 import com.imagesearch.repository.ImageRepository;
 import com.imagesearch.repository.UserRepository;
+import com.imagesearch.util.LongObjectHashMap;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -18,6 +20,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.web.multipart.MultipartFile;
@@ -26,6 +29,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -67,6 +71,12 @@ public class ImageServiceTest {
     @Mock
     private SearchClient searchClient;
 
+    @Mock
+    private SearchResultCache searchResultCache;
+
+    @Spy
+    private ImagePathCache imagePathCache = new ImagePathCache(true, 64, new SimpleMeterRegistry());
+
     @InjectMocks
     private ImageService imageService;
 
@@ -126,6 +136,9 @@ public class ImageServiceTest {
             verify(searchClient).embedImages(embedCaptor.capture());
             EmbedImagesRequest embedRequest = embedCaptor.getValue();
             assertThat(embedRequest.getImages()).hasSize(1);
+
+            // Verify cached search results for the folder were invalidated
+            verify(searchResultCache).invalidateFolder(100L);
         }
 
         @SuppressWarnings("null")
@@ -650,6 +663,70 @@ public class ImageServiceTest {
             assertThat(result).isNull();
             verify(imageRepository, never()).findById(anyLong());
         }
+
+        @Test
+        @DisplayName("Should map projection rows to paths keyed by image ID")
+        void testGetImagePathsByIds() {
+            when(imageRepository.findPathsByIdIn(Set.of(1L, 2L, 3L))).thenReturn(List.of(
+                new Object[]{1L, "images/1/100/a.png", 100L},
+                new Object[]{3L, "images/1/100/c.png", 100L}));
+
+            LongObjectHashMap<ImageService.ImagePath> paths = imageService.getImagePathsByIds(Set.of(1L, 2L, 3L));
+
+            assertThat(paths.size()).isEqualTo(2);
+            assertThat(paths.get(1L)).isEqualTo(new ImageService.ImagePath(1L, "images/1/100/a.png", 100L));
+            assertThat(paths.get(2L)).isNull();
+            assertThat(paths.get(3L).filepath()).isEqualTo("images/1/100/c.png");
+            verify(imageRepository, never()).findAllByIdIn(any());
+        }
+
+        @Test
+        @DisplayName("Should not query the database for an empty ID set")
+        void testGetImagePathsByIdsEmpty() {
+            assertThat(imageService.getImagePathsByIds(Set.of()).isEmpty()).isTrue();
+            verify(imageRepository, never()).findPathsByIdIn(any());
+        }
+
+        @Test
+        @DisplayName("Should query only the IDs missing from the path cache")
+        void testGetImagePathsByIdsCached() {
+            when(imageRepository.findPathsByIdIn(Set.of(1L, 2L))).thenReturn(List.<Object[]>of(
+                new Object[]{1L, "images/1/100/a.png", 100L},
+                new Object[]{2L, "images/1/100/b.png", 100L}));
+            when(imageRepository.findPathsByIdIn(Set.of(3L))).thenReturn(List.<Object[]>of(
+                new Object[]{3L, "images/1/100/c.png", 100L}));
+
+            imageService.getImagePathsByIds(Set.of(1L, 2L));
+            LongObjectHashMap<ImageService.ImagePath> paths = imageService.getImagePathsByIds(Set.of(1L, 2L, 3L));
+
+            assertThat(paths.keys()).containsExactly(1L, 2L, 3L);
+            verify(imageRepository).findPathsByIdIn(Set.of(3L));
+
+            // Fully cached now - no query at all
+            imageService.getImagePathsByIds(Set.of(2L, 3L));
+            verify(imageRepository, times(2)).findPathsByIdIn(any());
+        }
+
+        @SuppressWarnings("null")
+        @Test
+        @DisplayName("Should serve freshly uploaded images from the path cache")
+        void testUploadedImagePathIsCached() {
+            MockMultipartFile file = new MockMultipartFile("file", "test.png", "image/png", "data".getBytes());
+            when(folderService.createOrGetFolder(1L, "folder")).thenReturn(testFolder);
+            when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(imageRepository.save(any(Image.class))).thenAnswer(inv -> {
+                Image img = inv.getArgument(0);
+                img.setId(42L);
+                return img;
+            });
+
+            imageService.uploadImages(1L, "folder", Arrays.asList(file));
+            LongObjectHashMap<ImageService.ImagePath> paths = imageService.getImagePathsByIds(Set.of(42L));
+
+            assertThat(paths.get(42L).folderId()).isEqualTo(100L);
+            assertThat(paths.get(42L).filepath()).endsWith(".png");
+            verify(imageRepository, never()).findPathsByIdIn(any());
+        }
     }
 
     @Nested
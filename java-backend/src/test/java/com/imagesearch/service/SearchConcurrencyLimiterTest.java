@@ -0,0 +1,188 @@
+package com.imagesearch.service;
+
+import com.imagesearch.client.SearchDeadline;
+import com.imagesearch.exception.SearchOverloadedException;
+import com.imagesearch.exception.SearchServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for SearchConcurrencyLimiter (AIMD concurrency limit with a bounded queue).
+ */
+@DisplayName("Search Concurrency Limiter Tests")
+class SearchConcurrencyLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private SearchConcurrencyLimiter limiter(int initialLimit, int maxQueued, long maxWaitMs) {
+        return new SearchConcurrencyLimiter(true, initialLimit, 1, 10, 0.5, 2.0, 10, maxQueued, maxWaitMs, 3,
+                                            meterRegistry);
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.counter("search.limiter.rejected", "reason", reason).count();
+    }
+
+    @Test
+    @DisplayName("Should run searches under the limit at once and free the slot on completion")
+    void testUnderLimit() throws Exception {
+        SearchConcurrencyLimiter limiter = limiter(2, 1, 5000);
+        CompletableFuture<String> call = new CompletableFuture<>();
+
+        CompletableFuture<String> result = limiter.executeAsync(null, () -> call);
+
+        assertThat(limiter.inFlight()).isEqualTo(1);
+        assertThat(meterRegistry.get("search.limiter.in-flight").gauge().value()).isEqualTo(1.0);
+        call.complete("done");
+        assertThat(result.get(1, TimeUnit.SECONDS)).isEqualTo("done");
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should queue a search over the limit and start it when a slot frees up")
+    void testQueuedUntilSlotFrees() throws Exception {
+        SearchConcurrencyLimiter limiter = limiter(1, 1, 5000);
+        CompletableFuture<String> first = new CompletableFuture<>();
+        AtomicInteger started = new AtomicInteger();
+
+        limiter.executeAsync(null, () -> first);
+        CompletableFuture<String> second = limiter.executeAsync(null, () -> {
+            started.incrementAndGet();
+            return CompletableFuture.completedFuture("second");
+        });
+
+        assertThat(started.get()).isZero();
+        assertThat(limiter.queued()).isEqualTo(1);
+        first.complete("first");
+        assertThat(second.get(1, TimeUnit.SECONDS)).isEqualTo("second");
+        assertThat(started.get()).isEqualTo(1);
+        assertThat(limiter.queued()).isZero();
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should shed a search at once when the limit and the queue are full")
+    void testShedWhenQueueFull() {
+        SearchConcurrencyLimiter limiter = limiter(1, 0, 5000);
+        limiter.executeAsync(null, CompletableFuture::new);
+
+        CompletableFuture<Object> shed = limiter.executeAsync(null, CompletableFuture::new);
+
+        assertThatThrownBy(shed::get)
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(SearchOverloadedException.class);
+        assertThat(rejected("queue-full")).isEqualTo(1.0);
+        assertThatThrownBy(() -> limiter.execute(null, () -> "blocking"))
+                .isInstanceOf(SearchOverloadedException.class)
+                .satisfies(ex -> assertThat(((SearchOverloadedException) ex).getRetryAfterSeconds()).isEqualTo(3));
+    }
+
+    @Test
+    @DisplayName("Should shed a search whose deadline leaves no time to queue, as no-budget")
+    void testShedWithoutBudget() {
+        SearchConcurrencyLimiter limiter = limiter(1, 1, 5000);
+        limiter.executeAsync(null, CompletableFuture::new);
+
+        CompletableFuture<Object> shed = limiter.executeAsync(SearchDeadline.after(Duration.ZERO), CompletableFuture::new);
+
+        assertThatThrownBy(shed::get).hasCauseInstanceOf(SearchOverloadedException.class);
+        assertThat(rejected("no-budget")).isEqualTo(1.0);
+        assertThat(rejected("queue-full")).isZero();
+        assertThat(limiter.queued()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should shed a queued search whose wait runs out")
+    void testShedAfterQueueTimeout() {
+        SearchConcurrencyLimiter limiter = limiter(1, 1, 20);
+        CompletableFuture<String> first = new CompletableFuture<>();
+        limiter.executeAsync(null, () -> first);
+
+        CompletableFuture<String> queued = limiter.executeAsync(null, () -> CompletableFuture.completedFuture("late"));
+
+        assertThatThrownBy(() -> queued.get(1, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(SearchOverloadedException.class);
+        assertThat(rejected("queue-timeout")).isEqualTo(1.0);
+        assertThat(limiter.queued()).isZero();
+
+        // The timed-out search never took the slot
+        first.complete("first");
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should shrink the limit on an unavailable search service, but not below min-limit")
+    void testDecreaseOnFailure() {
+        SearchConcurrencyLimiter limiter = limiter(8, 1, 5000);
+
+        limiter.executeAsync(null, () -> CompletableFuture.failedFuture(new SearchServiceUnavailableException("q", 0)));
+        assertThat(limiter.limit()).isEqualTo(4.0);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.executeAsync(null, () -> CompletableFuture.failedFuture(new SearchServiceUnavailableException("q", 0)));
+        }
+        assertThat(limiter.limit()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("search.limiter.limit").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should judge latency against the baseline, not a fixed threshold")
+    void testCongestionRelativeToBaseline() {
+        SearchConcurrencyLimiter limiter = limiter(4, 1, 5000);
+        long normal = TimeUnit.MILLISECONDS.toNanos(1500);
+
+        // Steadily slow searches are the norm here, not congestion
+        for (int i = 0; i < 20; i++) {
+            assertThat(limiter.recordSample(normal, null)).isFalse();
+        }
+        assertThat(limiter.baselineNanos()).isEqualTo((double) normal);
+        assertThat(meterRegistry.get("search.limiter.baseline").gauge().value()).isEqualTo(1500.0);
+
+        // ...a search well above them is
+        assertThat(limiter.recordSample(normal * 3, null)).isTrue();
+        assertThat(limiter.recordSample(TimeUnit.MILLISECONDS.toNanos(100), null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should grow the limit on fast searches while it is in use")
+    void testIncreaseWhenBusy() {
+        SearchConcurrencyLimiter limiter = limiter(2, 1, 5000);
+
+        // A lone search is half of a limit of 2 - grows by 1/limit
+        limiter.execute(null, () -> "fast");
+        assertThat(limiter.limit()).isEqualTo(2.5);
+
+        // ...but only a quarter of a limit of 4 - the limit isn't the bottleneck
+        SearchConcurrencyLimiter idle = limiter(4, 1, 5000);
+        idle.execute(null, () -> "fast");
+        assertThat(idle.limit()).isEqualTo(4.0);
+    }
+
+    @Test
+    @DisplayName("Should pass searches straight through when disabled")
+    void testDisabled() {
+        SearchConcurrencyLimiter limiter = new SearchConcurrencyLimiter(
+                false, 1, 1, 1, 0.5, 2.0, 10, 0, 0, 1, meterRegistry);
+
+        limiter.executeAsync(null, CompletableFuture::new);
+        assertThat(limiter.execute(null, () -> "ok")).isEqualTo("ok");
+        assertThat(limiter.inFlight()).isZero();
+    }
+}
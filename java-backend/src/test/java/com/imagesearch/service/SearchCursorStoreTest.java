@@ -0,0 +1,96 @@
+package com.imagesearch.service;
+
+import com.imagesearch.client.dto.SearchServiceResponse;
+import com.imagesearch.exception.BadRequestException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for SearchCursorStore.
+ *
+ * Tests cover:
+ * - Cursor round trip (entry + offset)
+ * - Rejecting malformed, foreign, expired and evicted cursors
+ * - Candidate count sizing
+ */
+@DisplayName("Search Cursor Store Tests")
+public class SearchCursorStoreTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SearchCursorStore store;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        store = new SearchCursorStore(100, 2, 300, meterRegistry);
+    }
+
+    private static SearchServiceResponse ranked(long... imageIds) {
+        List<SearchServiceResponse.SearchResult> results = new java.util.ArrayList<>();
+        for (long id : imageIds) {
+            results.add(new SearchServiceResponse.SearchResult(id, 1.0 / id, 1L));
+        }
+        return new SearchServiceResponse(results, results.size());
+    }
+
+    @Test
+    @DisplayName("Should resolve a cursor to its entry and offset")
+    void testRoundTrip() {
+        SearchCursorStore.Entry entry = store.create(1L, List.of(1L), 2, ranked(1, 2, 3));
+
+        SearchCursorStore.Page page = store.resolve(1L, store.cursorFor(entry, 2));
+
+        assertThat(page.entry()).isSameAs(entry);
+        assertThat(page.offset()).isEqualTo(2);
+        assertThat(page.entry().slice(2, 3).getResults()).extracting(SearchServiceResponse.SearchResult::getImageId)
+                .containsExactly(3L);
+        assertThat(meterRegistry.counter("search.cursor.created").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.counter("search.cursor.pages").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should reject malformed cursors and cursors of other users")
+    void testRejected() {
+        SearchCursorStore.Entry entry = store.create(1L, List.of(1L), 2, ranked(1, 2, 3));
+
+        assertThatThrownBy(() -> store.resolve(1L, "not a cursor")).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> store.resolve(2L, store.cursorFor(entry, 2))).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> store.resolve(1L, store.cursorFor(entry, 4))).isInstanceOf(BadRequestException.class);
+        assertThat(meterRegistry.counter("search.cursor.rejected").count()).isEqualTo(3.0);
+    }
+
+    @Test
+    @DisplayName("Should evict least recently used entries above max-entries")
+    void testLruEviction() {
+        SearchCursorStore.Entry first = store.create(1L, List.of(1L), 2, ranked(1));
+        store.create(1L, List.of(1L), 2, ranked(2));
+        store.create(1L, List.of(1L), 2, ranked(3));
+
+        assertThatThrownBy(() -> store.resolve(1L, store.cursorFor(first, 0))).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    @DisplayName("Should reject expired cursors")
+    void testExpired() {
+        SearchCursorStore expiring = new SearchCursorStore(100, 10, 0, new SimpleMeterRegistry());
+        SearchCursorStore.Entry entry = expiring.create(1L, List.of(1L), 2, ranked(1, 2, 3));
+
+        assertThatThrownBy(() -> expiring.resolve(1L, expiring.cursorFor(entry, 2)))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("expired");
+    }
+
+    @Test
+    @DisplayName("Should fetch at least one page of candidates")
+    void testCandidateCount() {
+        assertThat(store.candidateCount(5)).isEqualTo(100);
+        assertThat(store.candidateCount(500)).isEqualTo(500);
+    }
+}
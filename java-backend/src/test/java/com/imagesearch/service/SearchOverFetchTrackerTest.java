@@ -0,0 +1,94 @@
+package com.imagesearch.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Unit tests for SearchOverFetchTracker.
+ *
+ * Tests cover:
+ * - Exactly topK for scopes that never drop results
+ * - Fetch size growing with the smoothed drop ratio (capped)
+ * - Follow-up sizing and when no follow-up is worthwhile
+ * - Order-insensitive folder sets and LRU eviction
+ */
+@DisplayName("Search Over-Fetch Tracker Tests")
+public class SearchOverFetchTrackerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SearchOverFetchTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tracker = new SearchOverFetchTracker(true, 0.5, 4, 2, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should request exactly topK when nothing has been dropped")
+    void testNoDrops() {
+        tracker.record(1L, List.of(10L), 5, 5);
+
+        assertThat(tracker.fetchSize(1L, List.of(10L), 5)).isEqualTo(5);
+        assertThat(meterRegistry.get("search.overfetch.tracked").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should over-fetch in proportion to the smoothed drop ratio")
+    void testOverFetch() {
+        tracker.record(1L, List.of(10L, 11L), 10, 5); // 50% dropped
+
+        assertThat(tracker.dropRatio(1L, List.of(11L, 10L))).isCloseTo(0.5, within(1e-9));
+        assertThat(tracker.fetchSize(1L, List.of(11L, 10L), 10)).isEqualTo(20);
+        assertThat(meterRegistry.counter("search.overfetch.dropped").count()).isEqualTo(5.0);
+
+        tracker.record(1L, List.of(10L, 11L), 20, 20); // clean fetch halves the ratio
+        assertThat(tracker.dropRatio(1L, List.of(10L, 11L))).isCloseTo(0.25, within(1e-9));
+
+        tracker.record(2L, List.of(10L), 10, 0); // everything dropped - capped at max-factor
+        assertThat(tracker.fetchSize(2L, List.of(10L), 10)).isEqualTo(40);
+    }
+
+    @Test
+    @DisplayName("Should size follow-ups from the observed keep ratio")
+    void testFollowUpSize() {
+        assertThat(tracker.followUpSize(10, 10, 10, 10)).isZero(); // enough results
+        assertThat(tracker.followUpSize(10, 10, 7, 5)).isZero(); // backend exhausted
+        assertThat(tracker.followUpSize(10, 40, 40, 5)).isZero(); // already at the cap
+
+        assertThat(tracker.followUpSize(10, 10, 10, 8)).isEqualTo(20); // at least double
+        assertThat(tracker.followUpSize(10, 10, 10, 3)).isEqualTo(34);
+        assertThat(tracker.followUpSize(10, 10, 10, 0)).isEqualTo(40);
+        assertThat(meterRegistry.counter("search.overfetch.followups").count()).isEqualTo(3.0);
+    }
+
+    @Test
+    @DisplayName("Should evict least recently used scopes")
+    void testEviction() {
+        tracker.record(1L, List.of(10L), 10, 5);
+        tracker.record(2L, List.of(10L), 10, 5);
+        tracker.dropRatio(1L, List.of(10L)); // touch user 1
+        tracker.record(3L, List.of(10L), 10, 5);
+
+        assertThat(tracker.dropRatio(1L, List.of(10L))).isPositive();
+        assertThat(tracker.dropRatio(2L, List.of(10L))).isZero();
+        assertThat(tracker.dropRatio(3L, List.of(10L))).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should never over-fetch when disabled")
+    void testDisabled() {
+        SearchOverFetchTracker disabled = new SearchOverFetchTracker(false, 0.5, 4, 2, new SimpleMeterRegistry());
+        disabled.record(1L, List.of(10L), 10, 0);
+
+        assertThat(disabled.fetchSize(1L, List.of(10L), 10)).isEqualTo(10);
+        assertThat(disabled.followUpSize(10, 10, 10, 0)).isZero();
+    }
+}
@@ -0,0 +1,118 @@
+package com.imagesearch.service;
+
+import com.imagesearch.model.dto.response.SearchResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for SearchResultCache.
+ *
+ * Tests cover:
+ * - Key normalization (query text, folder order)
+ * - Hit/miss accounting
+ * - LRU size eviction
+ * - Folder-generation invalidation
+ */
+@DisplayName("Search Result Cache Tests")
+public class SearchResultCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SearchResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new SearchResultCache(true, 2, 60, meterRegistry);
+    }
+
+    private SearchResponse response(double score) {
+        return new SearchResponse(List.of(new SearchResponse.ImageSearchResult("http://localhost:8080/images/1/1/a.png", score)));
+    }
+
+    @Test
+    @DisplayName("Should treat queries differing only in case/whitespace and folder order as the same key")
+    void testKeyNormalization() {
+        SearchResultCache.Key key1 = cache.keyFor("  Sunset   Beach ", List.of(2L, 1L), 5);
+        SearchResultCache.Key key2 = cache.keyFor("sunset beach", List.of(1L, 2L), 5);
+
+        assertThat(key1).isEqualTo(key2);
+        assertThat(cache.keyFor("sunset beach", List.of(1L, 2L), 10)).isNotEqualTo(key1);
+    }
+
+    @Test
+    @DisplayName("Should return cached response and count hits and misses")
+    void testHitAndMiss() {
+        SearchResultCache.Key key = cache.keyFor("sunset", List.of(1L), 5);
+
+        assertThat(cache.get(key)).isEmpty();
+        cache.put(key, cache.currentGenerations(key), response(0.9));
+
+        assertThat(cache.get(key)).isPresent()
+                .get().extracting(r -> r.getResults().get(0).getSimilarity()).isEqualTo(0.9);
+        assertThat(meterRegistry.counter("search.cache.hits").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.counter("search.cache.misses").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should evict least recently used entry when full")
+    void testSizeEviction() {
+        SearchResultCache.Key a = cache.keyFor("a", List.of(1L), 5);
+        SearchResultCache.Key b = cache.keyFor("b", List.of(1L), 5);
+        SearchResultCache.Key c = cache.keyFor("c", List.of(1L), 5);
+
+        cache.put(a, cache.currentGenerations(a), response(0.1));
+        cache.put(b, cache.currentGenerations(b), response(0.2));
+        cache.get(a); // touch a so b becomes eldest
+        cache.put(c, cache.currentGenerations(c), response(0.3));
+
+        assertThat(cache.get(a)).isPresent();
+        assertThat(cache.get(b)).isEmpty();
+        assertThat(cache.get(c)).isPresent();
+        assertThat(meterRegistry.counter("search.cache.evictions", "cause", "size").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should drop entries covering a folder after it is invalidated")
+    void testFolderInvalidation() {
+        SearchResultCache.Key multi = cache.keyFor("sunset", List.of(1L, 2L), 5);
+        SearchResultCache.Key other = cache.keyFor("sunset", List.of(3L), 5);
+
+        cache.put(multi, cache.currentGenerations(multi), response(0.9));
+        cache.put(other, cache.currentGenerations(other), response(0.8));
+
+        cache.invalidateFolder(2L);
+
+        assertThat(cache.get(multi)).isEmpty();
+        assertThat(cache.get(other)).isPresent();
+        assertThat(meterRegistry.counter("search.cache.evictions", "cause", "invalidated").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should not cache results whose folder changed while the search was in flight")
+    void testGenerationSnapshotTakenBeforeSearch() {
+        SearchResultCache.Key key = cache.keyFor("sunset", List.of(1L), 5);
+
+        long[] generations = cache.currentGenerations(key);
+        cache.invalidateFolder(1L); // embedding batch finished mid-search
+        cache.put(key, generations, response(0.9));
+
+        assertThat(cache.get(key)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should bypass cache when disabled")
+    void testDisabled() {
+        SearchResultCache disabled = new SearchResultCache(false, 10, 60, new SimpleMeterRegistry());
+        SearchResultCache.Key key = disabled.keyFor("sunset", List.of(1L), 5);
+
+        disabled.put(key, disabled.currentGenerations(key), response(0.9));
+
+        assertThat(disabled.get(key)).isEmpty();
+    }
+}
@@ -1,15 +1,23 @@
 package com.imagesearch.service;
 
 import com.imagesearch.client.SearchClient;
+import com.imagesearch.client.SearchDeadline;
+import com.imagesearch.client.SearchRequestCoalescer;
+import com.imagesearch.client.dto.BatchSearchServiceRequest;
+import com.imagesearch.client.dto.BatchSearchServiceResponse;
 import com.imagesearch.client.dto.SearchServiceRequest;
 import com.imagesearch.client.dto.SearchServiceResponse;
+import com.imagesearch.model.dto.response.BatchSearchResponse;
 import com.imagesearch.model.dto.response.SearchResponse;
 import com.imagesearch.model.entity.Folder;
 import com.imagesearch.model.entity.Image;
 import com.imagesearch.model.entity.User;
 import com.imagesearch.repository.FolderRepository;
 import com.imagesearch.repository.ImageRepository;
+import com.imagesearch.util.LongObjectHashMap;
+import com.imagesearch.exception.BadRequestException;
 import com.imagesearch.exception.ResourceNotFoundException;
+import com.imagesearch.exception.SearchDeadlineExceededException;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,12 +25,21 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.lenient;
@@ -55,6 +72,22 @@ public class SearchServiceTest {
     @Mock
     private ImageService imageService;
 
+    @Mock
+    private SearchResultCache searchResultCache;
+
+    @Spy
+    private SearchRequestCoalescer searchRequestCoalescer = new SearchRequestCoalescer(true, new SimpleMeterRegistry());
+
+    @Spy
+    private SearchOverFetchTracker overFetchTracker = new SearchOverFetchTracker(true, 0.2, 4, 100, new SimpleMeterRegistry());
+
+    @Spy
+    private SearchCursorStore searchCursorStore = new SearchCursorStore(6, 100, 300, new SimpleMeterRegistry());
+
+    @Spy
+    private SearchConcurrencyLimiter concurrencyLimiter =
+            new SearchConcurrencyLimiter(true, 20, 4, 200, 0.9, 2.0, 500, 50, 500, 1, new SimpleMeterRegistry());
+
     @InjectMocks
     private SearchService searchService;
 
@@ -80,6 +113,14 @@ public class SearchServiceTest {
         testImage.setFolder(testFolder);
     }
 
+    private static LongObjectHashMap<ImageService.ImagePath> paths(Image... images) {
+        LongObjectHashMap<ImageService.ImagePath> paths = new LongObjectHashMap<>();
+        for (Image image : images) {
+            paths.put(image.getId(), new ImageService.ImagePath(image.getId(), image.getFilepath(), 1L));
+        }
+        return paths;
+    }
+
     @Nested
     @DisplayName("Search Functionality Tests")
     class SearchFunctionalityTests {
@@ -92,8 +133,8 @@ public class SearchServiceTest {
             List<Long> folderIds = Arrays.asList(1L);
             String query = "sunset";
 
-            when(folderService.checkFolderAccess(testUser.getId(), 1L))
-                    .thenReturn(testFolder);
+            when(folderService.resolveSearchScope(eq(testUser.getId()), any()))
+                    .thenReturn(Map.of(1L, testUser.getId()));
 
             SearchServiceResponse.SearchResult resultItem = new SearchServiceResponse.SearchResult(1L, 0.95, 1L);
 
@@ -102,8 +143,8 @@ public class SearchServiceTest {
             when(searchClient.search(any(SearchServiceRequest.class)))
                     .thenReturn(searchResponse);
 
-            when(imageService.getImageById(1L))
-                    .thenReturn(testImage);
+            when(imageService.getImagePathsByIds(any()))
+                    .thenReturn(paths(testImage));
 
             // Act
             SearchResponse results = searchService.searchImages(testUser.getId(), query, folderIds, 5);
@@ -122,8 +163,8 @@ public class SearchServiceTest {
             List<Long> folderIds = Arrays.asList(1L);
             String query = "nonexistent";
 
-            when(folderService.checkFolderAccess(testUser.getId(), 1L))
-                    .thenReturn(testFolder);
+            when(folderService.resolveSearchScope(eq(testUser.getId()), any()))
+                    .thenReturn(Map.of(1L, testUser.getId()));
 
             SearchServiceResponse searchResponse = new SearchServiceResponse(Arrays.asList(), 0);
 
@@ -143,15 +184,8 @@ public class SearchServiceTest {
             List<Long> folderIds = Arrays.asList(1L, 2L);
             String query = "test";
 
-            Folder folder2 = new Folder();
-            folder2.setId(2L);
-            folder2.setFolderName("folder2");
-            folder2.setUser(testUser);
-
-            when(folderService.checkFolderAccess(testUser.getId(), 1L))
-                    .thenReturn(testFolder);
-            when(folderService.checkFolderAccess(testUser.getId(), 2L))
-                    .thenReturn(folder2);
+            when(folderService.resolveSearchScope(testUser.getId(), folderIds))
+                    .thenReturn(Map.of(1L, testUser.getId(), 2L, testUser.getId()));
 
             SearchServiceResponse searchResponse = new SearchServiceResponse(Arrays.asList(), 0);
 
@@ -176,8 +210,8 @@ public class SearchServiceTest {
             String query = "test";
 
             // User has access to folder 1
-            when(folderService.checkFolderAccess(testUser.getId(), 1L))
-                    .thenReturn(testFolder);
+            when(folderService.resolveSearchScope(eq(testUser.getId()), any()))
+                    .thenReturn(Map.of(1L, testUser.getId()));
 
             SearchServiceResponse searchResponse = new SearchServiceResponse(Arrays.asList(), 0);
 
@@ -186,8 +220,8 @@ public class SearchServiceTest {
 
             SearchResponse results = searchService.searchImages(testUser.getId(), query, folderIds, 5);
 
-            // Should have checked access to folder 1 and proceeded with search
-            verify(folderService, times(1)).checkFolderAccess(testUser.getId(), 1L);
+            // Should have resolved access to folder 1 and proceeded with search
+            verify(folderService, times(1)).resolveSearchScope(eq(testUser.getId()), any());
             verify(searchClient, times(1)).search(any(SearchServiceRequest.class));
             assertThat(results.getResults()).isEmpty();
         }
@@ -199,7 +233,7 @@ public class SearchServiceTest {
             List<Long> folderIds = Arrays.asList(1L);
             String query = "test";
 
-            when(folderService.checkFolderAccess(testUser.getId(), 1L))
+            when(folderService.resolveSearchScope(eq(testUser.getId()), any()))
                     .thenThrow(new ResourceNotFoundException("Folder not found or access denied"));
 
             try {
@@ -224,8 +258,8 @@ public class SearchServiceTest {
             List<Long> folderIds = Arrays.asList(1L);
             String query = "test";
 
-            when(folderService.checkFolderAccess(testUser.getId(), 1L))
-                    .thenReturn(testFolder);
+            when(folderService.resolveSearchScope(eq(testUser.getId()), any()))
+                    .thenReturn(Map.of(1L, testUser.getId()));
 
             when(searchClient.search(any(SearchServiceRequest.class)))
                     .thenThrow(new RuntimeException("Service unavailable"));
@@ -244,8 +278,8 @@ public class SearchServiceTest {
             List<Long> folderIds = Arrays.asList(1L);
             String query = "test";
 
-            when(folderService.checkFolderAccess(testUser.getId(), 1L))
-                    .thenReturn(testFolder);
+            when(folderService.resolveSearchScope(eq(testUser.getId()), any()))
+                    .thenReturn(Map.of(1L, testUser.getId()));
 
             SearchServiceResponse.SearchResult resultItem = new SearchServiceResponse.SearchResult(1L, 0.95, 1L);
 
@@ -254,14 +288,69 @@ public class SearchServiceTest {
             when(searchClient.search(any(SearchServiceRequest.class)))
                     .thenReturn(searchResponse);
 
-            // Use lenient stubbing to handle any image ID
-            lenient().when(imageService.getImageById(any(Long.class)))
-                    .thenReturn(null);
+            // Image 1 is gone from the database
+            when(imageService.getImagePathsByIds(any()))
+                    .thenReturn(paths());
 
             SearchResponse results = searchService.searchImages(testUser.getId(), query, folderIds, 5);
 
-            // Should skip missing images
+            // Should skip missing images and report them to the backend
             assertThat(results.getResults()).isEmpty();
+            verify(searchClient).deleteImages(1L, 1L, List.of(1L));
+        }
+
+        @Test
+        @DisplayName("Should still return results when reporting stale images fails")
+        void testStaleImageReportFailure() {
+            when(folderService.resolveSearchScope(eq(testUser.getId()), any()))
+                    .thenReturn(Map.of(1L, testUser.getId()));
+            when(searchClient.search(any(SearchServiceRequest.class)))
+                    .thenReturn(new SearchServiceResponse(Arrays.asList(
+                        new SearchServiceResponse.SearchResult(1L, 0.95, 1L),
+                        new SearchServiceResponse.SearchResult(2L, 0.90, 1L)), 2));
+            when(imageService.getImagePathsByIds(any())).thenReturn(paths(testImage));
+            doThrow(new RuntimeException("index closed")).when(searchClient).deleteImages(any(), any(), any());
+
+            SearchResponse results = searchService.searchImages(testUser.getId(), "test", Arrays.asList(1L), 5);
+
+            assertThat(results.getResults()).hasSize(1);
+            verify(searchClient).deleteImages(1L, 1L, List.of(2L));
+        }
+
+        @Test
+        @DisplayName("Should re-fetch once with a larger k when enrichment leaves fewer than topK")
+        void testFollowUpFetchWhenShort() {
+            when(folderService.resolveSearchScope(eq(testUser.getId()), any()))
+                    .thenReturn(Map.of(1L, testUser.getId()));
+            // Backend always has more: returns ids 1..k with descending scores
+            when(searchClient.search(any(SearchServiceRequest.class))).thenAnswer(invocation -> {
+                int k = invocation.getArgument(0, SearchServiceRequest.class).getTopK();
+                List<SearchServiceResponse.SearchResult> hits = new java.util.ArrayList<>();
+                for (long id = 1; id <= k; id++) {
+                    hits.add(new SearchServiceResponse.SearchResult(id, 1.0 - id / 100.0, 1L));
+                }
+                return new SearchServiceResponse(hits, hits.size());
+            });
+            // Image 1 was deleted from the database
+            when(imageService.getImagePathsByIds(any())).thenAnswer(invocation -> {
+                LongObjectHashMap<ImageService.ImagePath> found = new LongObjectHashMap<>();
+                for (Long id : invocation.<java.util.Set<Long>>getArgument(0)) {
+                    if (id != 1L) {
+                        found.put(id, new ImageService.ImagePath(id, "images/1/1/" + id + ".png", 1L));
+                    }
+                }
+                return found;
+            });
+
+            SearchResponse results = searchService.searchImages(testUser.getId(), "test", Arrays.asList(1L), 2);
+
+            assertThat(results.getResults()).hasSize(2);
+            assertThat(results.getResults().get(0).getSimilarity()).isEqualTo(0.98);
+            verify(searchClient, times(2)).search(any(SearchServiceRequest.class));
+            verify(searchClient).search(argThat(request -> request != null && request.getTopK() == 4));
+
+            // The next search over the same scope asks for more up front
+            assertThat(overFetchTracker.fetchSize(testUser.getId(), List.of(1L), 2)).isGreaterThan(2);
         }
     }
 
@@ -276,8 +365,8 @@ public class SearchServiceTest {
             List<Long> folderIds = Arrays.asList(1L);
             String query = "test";
 
-            when(folderService.checkFolderAccess(testUser.getId(), 1L))
-                    .thenReturn(testFolder);
+            when(folderService.resolveSearchScope(eq(testUser.getId()), any()))
+                    .thenReturn(Map.of(1L, testUser.getId()));
 
             SearchServiceResponse.SearchResult resultItem = new SearchServiceResponse.SearchResult(1L, 0.95, 1L);
 
@@ -286,8 +375,8 @@ public class SearchServiceTest {
             when(searchClient.search(any(SearchServiceRequest.class)))
                     .thenReturn(searchResponse);
 
-            when(imageService.getImageById(1L))
-                    .thenReturn(testImage);
+            when(imageService.getImagePathsByIds(any()))
+                    .thenReturn(paths(testImage));
 
             SearchResponse results = searchService.searchImages(testUser.getId(), query, folderIds, 5);
 
@@ -303,8 +392,8 @@ public class SearchServiceTest {
             List<Long> folderIds = Arrays.asList(1L);
             String query = "test";
 
-            when(folderService.checkFolderAccess(testUser.getId(), 1L))
-                    .thenReturn(testFolder);
+            when(folderService.resolveSearchScope(eq(testUser.getId()), any()))
+                    .thenReturn(Map.of(1L, testUser.getId()));
 
             // Note: SearchService sorts results internally, so we expect the highest score first
             SearchServiceResponse.SearchResult result1 = new SearchServiceResponse.SearchResult(1L, 0.75, 1L);
@@ -319,8 +408,7 @@ public class SearchServiceTest {
             image2.setId(2L);
             image2.setFilepath("images/1/1/test2.png");
 
-            when(imageService.getImageById(1L)).thenReturn(testImage);
-            when(imageService.getImageById(2L)).thenReturn(image2);
+            when(imageService.getImagePathsByIds(any())).thenReturn(paths(testImage, image2));
 
             SearchResponse results = searchService.searchImages(testUser.getId(), query, folderIds, 5);
 
@@ -330,4 +418,365 @@ public class SearchServiceTest {
             assertThat(results.getResults().get(1).getSimilarity()).isEqualTo(0.95);
         }
     }
+
+    @Nested
+    @DisplayName("Async Search Tests")
+    class AsyncSearchTests {
+
+        private SearchService asyncSearchService;
+
+        @BeforeEach
+        void setUpAsyncService() {
+            // Direct executors - enrichment runs inline so the future completes synchronously
+            asyncSearchService = new SearchService(
+                    searchClient, folderService, imageService,
+                    searchResultCache, searchRequestCoalescer, overFetchTracker, searchCursorStore,
+                    concurrencyLimiter, Runnable::run, Runnable::run, Runnable::run);
+        }
+
+        @SuppressWarnings("null")
+        @Test
+        @DisplayName("Should use non-blocking client call and enrich results")
+        void testSearchAsyncSuccess() {
+            when(folderService.resolveSearchScope(eq(testUser.getId()), any()))
+                    .thenReturn(Map.of(1L, testUser.getId()));
+
+            SearchServiceResponse.SearchResult resultItem = new SearchServiceResponse.SearchResult(1L, 0.95, 1L);
+            when(searchClient.searchAsync(any(SearchServiceRequest.class)))
+                    .thenReturn(CompletableFuture.completedFuture(new SearchServiceResponse(List.of(resultItem), 1)));
+            when(imageService.getImagePathsByIds(any()))
+                    .thenReturn(paths(testImage));
+
+            SearchResponse results = asyncSearchService
+                    .searchImagesAsync(testUser.getId(), "sunset", List.of(1L), 5, null)
+                    .join();
+
+            assertThat(results.getResults()).hasSize(1);
+            assertThat(results.getResults().get(0).getImage()).endsWith("images/1/1/test.png");
+            verify(searchClient, never()).search(any(SearchServiceRequest.class));
+        }
+
+        @SuppressWarnings("null")
+        @Test
+        @DisplayName("Should stream each folder's results before the merged top-k")
+        void testStreamSearch() {
+            when(folderService.resolveSearchScope(eq(testUser.getId()), any()))
+                    .thenReturn(Map.of(1L, testUser.getId(), 2L, testUser.getId()));
+            when(searchClient.searchAsync(any(SearchServiceRequest.class))).thenAnswer(invocation -> {
+                SearchServiceRequest request = invocation.getArgument(0);
+                long folderId = request.getFolderIds().get(0);
+                return CompletableFuture.completedFuture(new SearchServiceResponse(List.of(
+                        new SearchServiceResponse.SearchResult(folderId, folderId == 2L ? 0.9 : 0.8, folderId)), 1));
+            });
+            Image second = new Image();
+            second.setId(2L);
+            second.setFilepath("images/1/2/second.png");
+            when(imageService.getImagePathsByIds(any())).thenReturn(paths(testImage, second));
+
+            List<SearchResponse> partials = new ArrayList<>();
+            SearchResponse response = asyncSearchService
+                    .streamSearchImages(testUser.getId(), "sunset", null, 5, null, partials::add)
+                    .join();
+
+            // One search call and one partial per folder
+            verify(searchClient, times(2)).searchAsync(any(SearchServiceRequest.class));
+            assertThat(partials).hasSize(2);
+            assertThat(partials).allSatisfy(partial -> assertThat(partial.getResults()).hasSize(1));
+
+            assertThat(response.getResults()).extracting(SearchResponse.ImageSearchResult::getSimilarity)
+                    .containsExactly(0.9, 0.8);
+            verify(searchResultCache).put(any(), any(), eq(response));
+        }
+
+        @SuppressWarnings("null")
+        @Test
+        @DisplayName("Should return but not cache the merged top-k when a folder's search fails")
+        void testStreamSearchFailedShardNotCached() {
+            when(folderService.resolveSearchScope(eq(testUser.getId()), any()))
+                    .thenReturn(Map.of(1L, testUser.getId(), 2L, testUser.getId()));
+            when(searchClient.searchAsync(any(SearchServiceRequest.class))).thenAnswer(invocation -> {
+                SearchServiceRequest request = invocation.getArgument(0);
+                if (request.getFolderIds().get(0) == 2L) {
+                    return CompletableFuture.failedFuture(new RuntimeException("node down"));
+                }
+                return CompletableFuture.completedFuture(new SearchServiceResponse(List.of(
+                        new SearchServiceResponse.SearchResult(1L, 0.8, 1L)), 1));
+            });
+            when(imageService.getImagePathsByIds(any())).thenReturn(paths(testImage));
+
+            SearchResponse response = asyncSearchService
+                    .streamSearchImages(testUser.getId(), "sunset", null, 5, null, partial -> { })
+                    .join();
+
+            assertThat(response.getResults()).extracting(SearchResponse.ImageSearchResult::getSimilarity)
+                    .containsExactly(0.8);
+            verify(searchResultCache, never()).put(any(), any(), any());
+        }
+
+        @SuppressWarnings("null")
+        @Test
+        @DisplayName("Should delete a stale image once per search, in the background")
+        void testStreamSearchStaleImageDeletedOnce() {
+            List<Runnable> staleDeletes = new ArrayList<>();
+            SearchService service = new SearchService(
+                    searchClient, folderService, imageService,
+                    searchResultCache, searchRequestCoalescer, overFetchTracker, searchCursorStore,
+                    concurrencyLimiter, Runnable::run, Runnable::run, staleDeletes::add);
+            when(folderService.resolveSearchScope(eq(testUser.getId()), any()))
+                    .thenReturn(Map.of(1L, testUser.getId()));
+            when(searchClient.searchAsync(any(SearchServiceRequest.class)))
+                    .thenReturn(CompletableFuture.completedFuture(new SearchServiceResponse(List.of(
+                            new SearchServiceResponse.SearchResult(1L, 0.9, 1L),
+                            new SearchServiceResponse.SearchResult(2L, 0.8, 1L)), 2)));
+            // Image 2 is gone from the database - seen by the partial and the merged response
+            when(imageService.getImagePathsByIds(any())).thenReturn(paths(testImage));
+
+            SearchResponse response = service
+                    .streamSearchImages(testUser.getId(), "sunset", null, 5, null, partial -> { })
+                    .join();
+
+            assertThat(response.getResults()).hasSize(1);
+            verify(searchClient, never()).deleteImages(any(), any(), any());
+            assertThat(staleDeletes).hasSize(1);
+
+            staleDeletes.forEach(Runnable::run);
+            verify(searchClient).deleteImages(1L, 1L, List.of(2L));
+        }
+
+        @SuppressWarnings("null")
+        @Test
+        @DisplayName("Should stream only the final response for a cache hit")
+        void testStreamSearchCacheHit() {
+            when(folderService.resolveSearchScope(eq(testUser.getId()), any()))
+                    .thenReturn(Map.of(1L, testUser.getId()));
+            SearchResponse cached = new SearchResponse(List.of(
+                    new SearchResponse.ImageSearchResult("http://localhost:8080/images/1/1/test.png", 0.9)));
+            when(searchResultCache.get(any())).thenReturn(Optional.of(cached));
+
+            List<SearchResponse> partials = new ArrayList<>();
+            SearchResponse response = asyncSearchService
+                    .streamSearchImages(testUser.getId(), "sunset", List.of(1L), 5, null, partials::add)
+                    .join();
+
+            assertThat(response).isSameAs(cached);
+            assertThat(partials).isEmpty();
+            verify(searchClient, never()).searchAsync(any(SearchServiceRequest.class));
+        }
+
+        @SuppressWarnings("null")
+        @Test
+        @DisplayName("Should complete immediately for empty query without calling search service")
+        void testSearchAsyncEmptyQuery() {
+            CompletableFuture<SearchResponse> future = asyncSearchService
+                    .searchImagesAsync(testUser.getId(), "   ", null, 5, null);
+
+            assertThat(future).isCompleted();
+            assertThat(future.join().getResults()).isEmpty();
+            verify(searchClient, never()).searchAsync(any(SearchServiceRequest.class));
+        }
+
+        @SuppressWarnings("null")
+        @Test
+        @DisplayName("Should fail fast without calling the search service once the deadline has passed")
+        void testSearchAsyncExpiredDeadline() {
+            when(folderService.resolveSearchScope(eq(testUser.getId()), any()))
+                    .thenReturn(Map.of(1L, testUser.getId()));
+            SearchDeadline expired = SearchDeadline.after(Duration.ofMillis(-1));
+
+            assertThatThrownBy(() -> asyncSearchService.searchImagesAsync(testUser.getId(), "sunset", List.of(1L), 5, expired))
+                    .isInstanceOf(SearchDeadlineExceededException.class);
+            verify(searchClient, never()).searchAsync(any(SearchServiceRequest.class));
+        }
+
+        @SuppressWarnings("null")
+        @Test
+        @DisplayName("Should return the folders that answered in time when the deadline passes")
+        void testStreamSearchDeadlinePartialResults() {
+            when(folderService.resolveSearchScope(eq(testUser.getId()), any()))
+                    .thenReturn(Map.of(1L, testUser.getId(), 2L, testUser.getId()));
+            when(searchClient.searchAsync(any(SearchServiceRequest.class))).thenAnswer(invocation -> {
+                SearchServiceRequest request = invocation.getArgument(0);
+                assertThat(request.getDeadline()).isNotNull();
+                if (request.getFolderIds().get(0) == 2L) {
+                    return new CompletableFuture<SearchServiceResponse>(); // never answers
+                }
+                return CompletableFuture.completedFuture(new SearchServiceResponse(List.of(
+                        new SearchServiceResponse.SearchResult(1L, 0.8, 1L)), 1));
+            });
+            when(imageService.getImagePathsByIds(any())).thenReturn(paths(testImage));
+
+            SearchResponse response = asyncSearchService
+                    .streamSearchImages(testUser.getId(), "sunset", null, 5,
+                            SearchDeadline.after(Duration.ofMillis(200)), partial -> { })
+                    .join();
+
+            assertThat(response.getResults()).extracting(SearchResponse.ImageSearchResult::getSimilarity)
+                    .containsExactly(0.8);
+            verify(searchResultCache, never()).put(any(), any(), any());
+        }
+
+        @SuppressWarnings("null")
+        @Test
+        @DisplayName("Should not cache a response the search service cut short at the deadline")
+        void testSearchAsyncPartialNotCached() {
+            when(folderService.resolveSearchScope(eq(testUser.getId()), any()))
+                    .thenReturn(Map.of(1L, testUser.getId()));
+            SearchServiceResponse partial = new SearchServiceResponse(List.of(
+                    new SearchServiceResponse.SearchResult(1L, 0.95, 1L)), 1);
+            partial.setDegraded(true);
+            when(searchClient.searchAsync(any(SearchServiceRequest.class)))
+                    .thenReturn(CompletableFuture.completedFuture(partial));
+            when(imageService.getImagePathsByIds(any())).thenReturn(paths(testImage));
+
+            SearchResponse results = asyncSearchService
+                    .searchImagesAsync(testUser.getId(), "sunset", List.of(1L), 5, SearchDeadline.after(Duration.ofSeconds(5)))
+                    .join();
+
+            assertThat(results.getResults()).hasSize(1);
+            verify(searchResultCache, never()).put(any(), any(), any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Paginated Search Tests")
+    class PaginatedSearchTests {
+
+        private SearchService pagedSearchService;
+
+        @BeforeEach
+        void setUpPagedService() {
+            pagedSearchService = new SearchService(
+                    searchClient, folderService, imageService,
+                    searchResultCache, searchRequestCoalescer, overFetchTracker, searchCursorStore,
+                    concurrencyLimiter, Runnable::run, Runnable::run, Runnable::run);
+            when(folderService.resolveSearchScope(eq(testUser.getId()), any()))
+                    .thenReturn(Map.of(1L, testUser.getId()));
+            // Six ranked candidates, image 3 is missing from the database
+            List<SearchServiceResponse.SearchResult> hits = new ArrayList<>();
+            for (long id = 1; id <= 6; id++) {
+                hits.add(new SearchServiceResponse.SearchResult(id, 1.0 - id / 10.0, 1L));
+            }
+            when(searchClient.searchAsync(any(SearchServiceRequest.class)))
+                    .thenReturn(CompletableFuture.completedFuture(new SearchServiceResponse(hits, hits.size())));
+            when(imageService.getImagePathsByIds(any())).thenAnswer(invocation -> {
+                LongObjectHashMap<ImageService.ImagePath> found = new LongObjectHashMap<>();
+                for (Long id : invocation.<Set<Long>>getArgument(0)) {
+                    if (id != 3L) {
+                        found.put(id, new ImageService.ImagePath(id, "images/1/1/" + id + ".png", 1L));
+                    }
+                }
+                return found;
+            });
+        }
+
+        @SuppressWarnings("null")
+        @Test
+        @DisplayName("Should fetch candidates once and serve later pages without the search service")
+        void testPagesFromStoredCandidates() {
+            SearchResponse first = pagedSearchService
+                    .searchFirstPageAsync(testUser.getId(), "sunset", List.of(1L), 2, null)
+                    .join();
+
+            assertThat(first.getResults()).extracting(SearchResponse.ImageSearchResult::getSimilarity)
+                    .containsExactly(0.9, 0.8);
+            assertThat(first.getNextCursor()).isNotNull();
+            verify(searchClient).searchAsync(argThat(request -> request != null && request.getTopK() == 6));
+            // Only the page is enriched
+            verify(imageService).getImagePathsByIds(Set.of(1L, 2L));
+
+            // Candidate 3 is skipped and the page topped up from the next one
+            SearchResponse second = pagedSearchService.nextPage(testUser.getId(), first.getNextCursor());
+            assertThat(second.getResults()).extracting(SearchResponse.ImageSearchResult::getSimilarity)
+                    .containsExactly(0.6, 0.5);
+
+            SearchResponse third = pagedSearchService.nextPage(testUser.getId(), second.getNextCursor());
+            assertThat(third.getResults()).extracting(SearchResponse.ImageSearchResult::getSimilarity)
+                    .containsExactly(0.4);
+            assertThat(third.getNextCursor()).isNull();
+
+            verify(searchClient, times(1)).searchAsync(any(SearchServiceRequest.class));
+            verify(searchResultCache, never()).get(any());
+        }
+
+        @SuppressWarnings("null")
+        @Test
+        @DisplayName("Should reject another user's cursor")
+        void testForeignCursorRejected() {
+            SearchResponse first = pagedSearchService
+                    .searchFirstPageAsync(testUser.getId(), "sunset", List.of(1L), 2, null)
+                    .join();
+
+            assertThatThrownBy(() -> pagedSearchService.nextPage(99L, first.getNextCursor()))
+                    .isInstanceOf(BadRequestException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Batch Search Tests")
+    class BatchSearchTests {
+
+        @SuppressWarnings("null")
+        @Test
+        @DisplayName("Should check access once, send one batch call and enrich with one query")
+        void testBatchSearchSuccess() {
+            when(folderService.resolveSearchScope(eq(testUser.getId()), any()))
+                    .thenReturn(Map.of(1L, testUser.getId()));
+
+            SearchServiceResponse first = new SearchServiceResponse(
+                    List.of(new SearchServiceResponse.SearchResult(1L, 0.95, 1L)), 1);
+            SearchServiceResponse second = new SearchServiceResponse(List.of(), 0);
+            when(searchClient.batchSearch(any(BatchSearchServiceRequest.class)))
+                    .thenReturn(new BatchSearchServiceResponse(List.of(first, second)));
+            when(imageService.getImagePathsByIds(any()))
+                    .thenReturn(paths(testImage));
+
+            BatchSearchResponse response = searchService.batchSearchImages(
+                    testUser.getId(), List.of("sunset", "dog"), List.of(1L), 5, null);
+
+            assertThat(response.getSearches()).hasSize(2);
+            assertThat(response.getSearches().get(0).getQuery()).isEqualTo("sunset");
+            assertThat(response.getSearches().get(0).getResults()).hasSize(1);
+            assertThat(response.getSearches().get(1).getResults()).isEmpty();
+
+            verify(folderService, times(1)).resolveSearchScope(eq(testUser.getId()), any());
+            verify(searchClient, times(1)).batchSearch(any(BatchSearchServiceRequest.class));
+            verify(imageService, times(1)).getImagePathsByIds(any());
+            verify(searchClient, never()).search(any(SearchServiceRequest.class));
+        }
+
+        @SuppressWarnings("null")
+        @Test
+        @DisplayName("Should answer blank queries locally without calling search service")
+        void testBatchSearchBlankQueries() {
+            when(folderService.resolveSearchScope(eq(testUser.getId()), any()))
+                    .thenReturn(Map.of(1L, testUser.getId()));
+
+            BatchSearchResponse response = searchService.batchSearchImages(
+                    testUser.getId(), List.of("  ", ""), List.of(1L), 5, null);
+
+            assertThat(response.getSearches()).hasSize(2);
+            assertThat(response.getSearches()).allSatisfy(s -> assertThat(s.getResults()).isEmpty());
+            verify(searchClient, never()).batchSearch(any(BatchSearchServiceRequest.class));
+        }
+
+        @SuppressWarnings("null")
+        @Test
+        @DisplayName("Should pass the deadline to the batch call, and fail fast once it has passed")
+        void testBatchSearchDeadline() {
+            when(folderService.resolveSearchScope(eq(testUser.getId()), any()))
+                    .thenReturn(Map.of(1L, testUser.getId()));
+            when(searchClient.batchSearch(any(BatchSearchServiceRequest.class)))
+                    .thenReturn(new BatchSearchServiceResponse(List.of(new SearchServiceResponse(List.of(), 0))));
+            SearchDeadline deadline = SearchDeadline.after(Duration.ofSeconds(5));
+
+            searchService.batchSearchImages(testUser.getId(), List.of("sunset"), List.of(1L), 5, deadline);
+            verify(searchClient).batchSearch(argThat(request -> request.getDeadline() == deadline));
+
+            SearchDeadline expired = SearchDeadline.after(Duration.ofMillis(-1));
+            assertThatThrownBy(() -> searchService.batchSearchImages(
+                    testUser.getId(), List.of("dog"), List.of(1L), 5, expired))
+                    .isInstanceOf(SearchDeadlineExceededException.class);
+            verify(searchClient, times(1)).batchSearch(any(BatchSearchServiceRequest.class));
+        }
+    }
 }
@@ -68,6 +68,12 @@ public class UserServiceTest {
     @Mock
     private SearchClient searchClient;
 
+    @Mock
+    private FolderAccessCache folderAccessCache;
+
+    @Mock
+    private ImagePathCache imagePathCache;
+
     @InjectMocks
     private UserService userService;
 
@@ -559,6 +565,7 @@ public class UserServiceTest {
             // Assert - sessions should be invalidated before user deletion
             verify(sessionService).invalidateAllUserSessions(user);
             verify(userRepository).delete(user);
+            verify(folderAccessCache).removeUser(1L);
         }
 
         @Test
@@ -587,6 +594,7 @@ public class UserServiceTest {
             verify(searchClient).deleteIndex(1L, 10L);
             verify(searchClient).deleteIndex(1L, 20L);
             verify(userRepository).delete(user);
+            verify(imagePathCache).invalidateFolders(List.of(10L, 20L));
         }
 
         @Test
@@ -0,0 +1,109 @@
+package com.imagesearch.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for LongObjectHashMap.
+ *
+ * Tests cover:
+ * - put/get/replace semantics
+ * - Growing past the initial capacity
+ * - Agreement with HashMap on random keys (including negative and colliding keys)
+ */
+@DisplayName("Long Object Hash Map Tests")
+class LongObjectHashMapTest {
+
+    @Test
+    @DisplayName("Should store, replace and look up values")
+    void testPutAndGet() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+
+        assertThat(map.put(1L, "a")).isNull();
+        assertThat(map.put(1L, "b")).isEqualTo("a");
+        map.put(0L, "zero");
+        map.put(-5L, "minus");
+
+        assertThat(map.size()).isEqualTo(3);
+        assertThat(map.get(1L)).isEqualTo("b");
+        assertThat(map.get(0L)).isEqualTo("zero");
+        assertThat(map.get(-5L)).isEqualTo("minus");
+        assertThat(map.get(2L)).isNull();
+        assertThat(map.containsKey(2L)).isFalse();
+        assertThat(map.keys()).containsExactly(-5L, 0L, 1L);
+    }
+
+    @Test
+    @DisplayName("Should reject null values")
+    void testNullValue() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+
+        assertThatThrownBy(() -> map.put(1L, null)).isInstanceOf(NullPointerException.class);
+    }
+
+    @Test
+    @DisplayName("Should grow and agree with HashMap on random keys")
+    void testMatchesHashMap() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>(0);
+        Map<Long, Long> reference = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 10_000; i++) {
+            // Mix of small sequential IDs and keys that differ only in high bits
+            long key = i % 3 == 0 ? random.nextInt(2000) : ((long) random.nextInt(64) << 40);
+            long value = random.nextLong();
+            assertThat(map.put(key, value)).isEqualTo(reference.put(key, value));
+        }
+
+        assertThat(map.size()).isEqualTo(reference.size());
+        for (Map.Entry<Long, Long> entry : reference.entrySet()) {
+            assertThat(map.get(entry.getKey())).isEqualTo(entry.getValue());
+        }
+        assertThat(map.get(-1L)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should remove keys and agree with HashMap under mixed puts and removes")
+    void testRemoveMatchesHashMap() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>(0);
+        Map<Long, Long> reference = new HashMap<>();
+        Random random = new Random(11);
+
+        for (int i = 0; i < 20_000; i++) {
+            // Small key range keeps probe runs long, so backward shifts get exercised
+            long key = random.nextInt(500);
+            if (random.nextBoolean()) {
+                assertThat(map.put(key, (long) i)).isEqualTo(reference.put(key, (long) i));
+            } else {
+                assertThat(map.remove(key)).isEqualTo(reference.remove(key));
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(reference.size());
+        for (long key = 0; key < 500; key++) {
+            assertThat(map.get(key)).isEqualTo(reference.get(key));
+        }
+    }
+
+    @Test
+    @DisplayName("Should visit every entry once")
+    void testForEach() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        map.put(1L, "a");
+        map.put(2L, "b");
+        map.put(3L, "c");
+        map.remove(2L);
+
+        Map<Long, String> visited = new HashMap<>();
+        map.forEach((value, key) -> visited.put(key, value));
+
+        assertThat(visited).isEqualTo(Map.of(1L, "a", 3L, "c"));
+    }
+}
@@ -0,0 +1,95 @@
+package com.imagesearch.vector;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Unit tests for the dot-product kernels.
+ *
+ * Tests cover:
+ * - Unrolled and Vector API kernels agree with the scalar reference
+ * - Dimensions that are not a multiple of the SIMD width (tail loop)
+ * - Rows at non-zero offsets in a little-endian buffer
+ * - Float x int8 dot products used for quantized scans
+ * - Kernel selection and fallback
+ */
+@DisplayName("Dot Product Kernel Tests")
+class DotProductKernelTest {
+
+    private final ScalarDotProductKernel reference = new ScalarDotProductKernel();
+
+    private List<DotProductKernel> kernels() {
+        List<DotProductKernel> kernels = new ArrayList<>();
+        kernels.add(new UnrolledDotProductKernel());
+        DotProductKernel panama = VectorMath.loadPanamaKernel();
+        if (panama != null) {
+            kernels.add(panama); // only when tests run with --add-modules jdk.incubator.vector
+        }
+        return kernels;
+    }
+
+    @Test
+    @DisplayName("Should match the scalar reference for matrix rows and arrays")
+    void testKernelsMatchReference() {
+        Random random = new Random(7);
+        for (int dimension : new int[]{1, 3, 8, 17, 512, 515}) {
+            int rowCount = 5;
+            ByteBuffer rows = ByteBuffer.allocateDirect(rowCount * dimension * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < rowCount * dimension; i++) {
+                rows.putFloat(i * Float.BYTES, random.nextFloat() - 0.5f);
+            }
+            float[] query = new float[dimension];
+            float[] other = new float[dimension];
+            for (int i = 0; i < dimension; i++) {
+                query[i] = random.nextFloat() - 0.5f;
+                other[i] = random.nextFloat() - 0.5f;
+            }
+
+            for (DotProductKernel kernel : kernels()) {
+                for (int row = 0; row < rowCount; row++) {
+                    assertThat(kernel.dot(rows, row * dimension, query))
+                            .as("%s row %d dim %d", kernel.name(), row, dimension)
+                            .isCloseTo(reference.dot(rows, row * dimension, query), within(1e-4f));
+                }
+                ByteBuffer codes = ByteBuffer.allocateDirect(dimension + 3);
+                for (int i = 0; i < codes.capacity(); i++) {
+                    codes.put(i, (byte) (random.nextInt(256) - 128));
+                }
+                assertThat(kernel.dotInt8(codes, 3, query))
+                        .as("%s int8 dim %d", kernel.name(), dimension)
+                        .isCloseTo(reference.dotInt8(codes, 3, query), within(1e-2f));
+                assertThat(kernel.dot(query, other))
+                        .as("%s arrays dim %d", kernel.name(), dimension)
+                        .isCloseTo(reference.dot(query, other), within(1e-4f));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should honour an explicit kernel choice")
+    void testExplicitSelection() {
+        assertThat(VectorMath.selectKernel("scalar")).isInstanceOf(ScalarDotProductKernel.class);
+        assertThat(VectorMath.selectKernel("unrolled")).isInstanceOf(UnrolledDotProductKernel.class);
+    }
+
+    @Test
+    @DisplayName("Should fall back to the unrolled kernel when the Vector API is unavailable")
+    void testAutoSelection() {
+        DotProductKernel selected = VectorMath.selectKernel("auto");
+
+        if (VectorMath.loadPanamaKernel() == null) {
+            assertThat(selected).isInstanceOf(UnrolledDotProductKernel.class);
+        } else {
+            assertThat(selected.name()).startsWith("panama");
+        }
+    }
+}
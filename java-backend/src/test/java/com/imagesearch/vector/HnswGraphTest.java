@@ -0,0 +1,156 @@
+package com.imagesearch.vector;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for HnswGraph.
+ *
+ * Tests cover:
+ * - Recall@10 against brute force
+ * - Extending an existing graph incrementally
+ * - Serialization round trip and stale-file detection
+ */
+@DisplayName("HNSW Graph Tests")
+class HnswGraphTest {
+
+    private static final int DIMENSION = 16;
+    private static final int COUNT = 3000;
+    private static final HnswParams PARAMS = new HnswParams(1, 12, 80, 64);
+
+    @TempDir
+    Path dir;
+
+    private ByteBuffer vectors;
+    private Random random;
+
+    @BeforeEach
+    void setUp() {
+        random = new Random(5);
+        vectors = ByteBuffer.allocateDirect(COUNT * DIMENSION * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int row = 0; row < COUNT; row++) {
+            float[] v = new float[DIMENSION];
+            for (int d = 0; d < DIMENSION; d++) {
+                v[d] = (float) random.nextGaussian();
+            }
+            VectorMath.normalize(v);
+            for (int d = 0; d < DIMENSION; d++) {
+                vectors.putFloat((row * DIMENSION + d) * Float.BYTES, v[d]);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should reach high recall@10 compared to brute force")
+    void testRecall() {
+        HnswGraph graph = HnswGraph.build(vectors, DIMENSION, COUNT, PARAMS, null);
+
+        assertThat(graph.size()).isEqualTo(COUNT);
+        assertThat(recallAt10(graph, 50)).isGreaterThanOrEqualTo(0.9);
+    }
+
+    @Test
+    @DisplayName("Should keep recall when extending a graph built over a prefix of the rows")
+    void testIncrementalExtension() {
+        HnswGraph prefix = HnswGraph.build(vectors, DIMENSION, COUNT / 3, PARAMS, null);
+        HnswGraph extended = HnswGraph.build(vectors, DIMENSION, COUNT, PARAMS, prefix);
+
+        assertThat(prefix.size()).isEqualTo(COUNT / 3); // base graph is left untouched
+        assertThat(extended.size()).isEqualTo(COUNT);
+        assertThat(recallAt10(extended, 50)).isGreaterThanOrEqualTo(0.9);
+    }
+
+    @Test
+    @DisplayName("Should return identical results after a write/read round trip")
+    void testSerializationRoundTrip() throws IOException {
+        HnswGraph graph = HnswGraph.build(vectors, DIMENSION, COUNT, PARAMS, null);
+        Path file = dir.resolve("seg-000001.hnsw");
+        graph.write(file);
+
+        HnswGraph loaded = HnswGraph.read(file, vectors, DIMENSION, COUNT);
+        float[] query = randomQuery();
+
+        assertThat(topIds(loaded, query, 10)).isEqualTo(topIds(graph, query, 10));
+        assertThat(HnswGraph.pathFor(dir.resolve("seg-000001.vec"))).isEqualTo(file);
+    }
+
+    @Test
+    @DisplayName("Should reject a graph file written for a different row count")
+    void testStaleGraphFile() throws IOException {
+        Path file = dir.resolve("seg-000001.hnsw");
+        HnswGraph.build(vectors, DIMENSION, COUNT / 2, PARAMS, null).write(file);
+
+        assertThatThrownBy(() -> HnswGraph.read(file, vectors, DIMENSION, COUNT))
+                .isInstanceOf(IOException.class);
+
+        Files.write(file, new byte[]{1, 2, 3});
+        assertThatThrownBy(() -> HnswGraph.read(file, vectors, DIMENSION, COUNT))
+                .isInstanceOf(IOException.class);
+    }
+
+    private double recallAt10(HnswGraph graph, int queries) {
+        int found = 0;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomQuery();
+            Set<Integer> expected = new HashSet<>();
+            for (int row : bruteForce(query, 10)) {
+                expected.add(row);
+            }
+            for (int row : topIds(graph, query, 10)) {
+                if (expected.contains(row)) {
+                    found++;
+                }
+            }
+        }
+        return found / (queries * 10.0);
+    }
+
+    private int[] topIds(HnswGraph graph, float[] query, int k) {
+        HnswGraph.NodeQueue results = HnswGraph.resultsForCurrentThread();
+        graph.search(query, PARAMS.efSearch(), results);
+        Integer[] order = new Integer[results.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Float.compare(results.score(b), results.score(a)));
+        int[] top = new int[Math.min(k, order.length)];
+        for (int i = 0; i < top.length; i++) {
+            top[i] = results.node(order[i]);
+        }
+        return top;
+    }
+
+    private int[] bruteForce(float[] query, int k) {
+        Integer[] rows = new Integer[COUNT];
+        float[] scores = new float[COUNT];
+        for (int row = 0; row < COUNT; row++) {
+            rows[row] = row;
+            scores[row] = VectorMath.dot(vectors, row * DIMENSION, query);
+        }
+        Arrays.sort(rows, (a, b) -> Float.compare(scores[b], scores[a]));
+        return Arrays.stream(rows).limit(k).mapToInt(Integer::intValue).toArray();
+    }
+
+    private float[] randomQuery() {
+        float[] query = new float[DIMENSION];
+        for (int d = 0; d < DIMENSION; d++) {
+            query[d] = (float) random.nextGaussian();
+        }
+        return VectorMath.normalize(query);
+    }
+}
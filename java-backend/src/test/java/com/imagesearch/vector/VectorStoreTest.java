@@ -0,0 +1,345 @@
+package com.imagesearch.vector;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Unit tests for VectorStore (embedded exact top-k search).
+ *
+ * Tests cover:
+ * - Ranking across folders with a shared top-k heap
+ * - Sealing the tail into segments and merging segments
+ * - Agreement with a brute-force reference
+ * - Reopening from disk (segments + tail log, torn tail records)
+ * - Int8 candidate pass + float re-rank matching the exact float scan
+ * - HNSW graphs picked automatically for segments above the threshold
+ * - Tombstone deletes (masking, persistence, compaction)
+ * - Dimension checks
+ * - Leaving files that are not the store's own alone
+ */
+@DisplayName("Vector Store Tests")
+class VectorStoreTest {
+
+    @TempDir
+    Path indexDir;
+
+    private VectorStore store;
+    private TopKCollector collector;
+
+    @BeforeEach
+    void setUp() {
+        store = newStore();
+        collector = new TopKCollector(4);
+    }
+
+    // Seal every 64 vectors, merge above 2 segments; merges run inline
+    private VectorStore newStore() {
+        return new VectorStore(3, indexDir.toString(), 64, 2, true, 4, 0, 16, 100, 64, 0.2, Runnable::run);
+    }
+
+    @Test
+    @DisplayName("Should rank hits from several folders by cosine similarity")
+    void testSearchAcrossFolders() {
+        store.add(1L, new long[]{10L, 11L}, new float[][]{{1f, 0f, 0f}, {0f, 1f, 0f}});
+        store.add(2L, new long[]{20L}, new float[][]{{2f, 2f, 0f}}); // normalized on add
+
+        store.search(new float[]{1f, 0.1f, 0f}, List.of(1L, 2L), 2, collector);
+
+        assertThat(collector.size()).isEqualTo(2);
+        assertThat(collector.id(0)).isEqualTo(10L);
+        assertThat(collector.folderId(0)).isEqualTo(1L);
+        assertThat(collector.id(1)).isEqualTo(20L);
+        assertThat(collector.folderId(1)).isEqualTo(2L);
+        assertThat(collector.score(0)).isCloseTo(0.995f, within(1e-3f));
+    }
+
+    @Test
+    @DisplayName("Should skip folders without an index and deleted folders")
+    void testMissingAndDeletedFolders() {
+        store.add(1L, new long[]{10L}, new float[][]{{1f, 0f, 0f}});
+        store.deleteFolder(1L);
+
+        store.search(new float[]{1f, 0f, 0f}, List.of(1L, 99L), 5, collector);
+
+        assertThat(collector.size()).isZero();
+        assertThat(indexDir.resolve("1")).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Should match brute-force top-k across sealed and merged segments")
+    void testMatchesBruteForce() {
+        Random random = new Random(42);
+        int n = 500;
+        float[][] vectors = new float[n][3];
+        long[] ids = new long[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i;
+            vectors[i] = new float[]{random.nextFloat() - 0.5f, random.nextFloat() - 0.5f, random.nextFloat() - 0.5f};
+        }
+        store.add(1L, ids, vectors); // vectors are normalized in place
+
+        float[] query = VectorMath.normalize(new float[]{0.3f, -0.2f, 0.9f});
+        long best = -1;
+        float bestScore = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            float score = vectors[i][0] * query[0] + vectors[i][1] * query[1] + vectors[i][2] * query[2];
+            if (score > bestScore) {
+                bestScore = score;
+                best = i;
+            }
+        }
+
+        store.search(query.clone(), List.of(1L), 10, collector);
+
+        assertThat(store.size(1L)).isEqualTo(n);
+        assertThat(store.segmentCount(1L)).isLessThanOrEqualTo(2);
+        assertThat(collector.size()).isEqualTo(10);
+        assertThat(collector.id(0)).isEqualTo(best);
+        for (int i = 1; i < collector.size(); i++) {
+            assertThat(collector.score(i)).isLessThanOrEqualTo(collector.score(i - 1));
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject vectors with the wrong dimension")
+    void testDimensionMismatch() {
+        assertThatThrownBy(() -> store.add(1L, new long[]{1L}, new float[][]{{1f, 0f}}))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("dimension");
+    }
+
+    @Test
+    @DisplayName("Should serve segments and tail vectors after a restart")
+    void testReopenAfterRestart() {
+        float[][] vectors = new float[100][];
+        long[] ids = new long[100];
+        for (int i = 0; i < 100; i++) {
+            ids[i] = i;
+            vectors[i] = new float[]{1f, i / 100f, 0f};
+        }
+        store.add(1L, ids, vectors); // 64 sealed, 36 left in the tail log
+        store.add(2L, new long[]{200L}, new float[][]{{0f, 0f, 1f}});
+        store.close();
+
+        VectorStore reopened = newStore();
+        reopened.search(new float[]{0f, 0f, 1f}, List.of(1L, 2L), 1, collector);
+
+        assertThat(reopened.size(1L)).isEqualTo(100);
+        assertThat(reopened.segmentCount(1L)).isEqualTo(1);
+        assertThat(collector.id(0)).isEqualTo(200L);
+
+        reopened.search(new float[]{1f, 0.99f, 0f}, List.of(1L), 1, collector);
+        assertThat(collector.id(0)).isEqualTo(99L); // from the replayed tail
+    }
+
+    @Test
+    @DisplayName("Should drop a torn tail record and leftover files on reopen")
+    void testRecoverFromTornTail() throws IOException {
+        store.add(1L, new long[]{10L, 11L}, new float[][]{{1f, 0f, 0f}, {0f, 1f, 0f}});
+        store.close();
+
+        Path folderDir = indexDir.resolve("1");
+        Path tail;
+        try (var files = Files.list(folderDir)) {
+            tail = files.filter(f -> f.getFileName().toString().startsWith("tail-")).findFirst().orElseThrow();
+        }
+        Files.write(tail, new byte[]{1, 2, 3}, StandardOpenOption.APPEND); // partial record
+        Files.write(folderDir.resolve("seg-999999.vec.tmp"), new byte[]{0}); // crashed segment write
+
+        VectorStore reopened = newStore();
+
+        assertThat(reopened.size(1L)).isEqualTo(2);
+        assertThat(Files.size(tail)).isEqualTo(2L * (Long.BYTES + 3 * Float.BYTES));
+        assertThat(folderDir.resolve("seg-999999.vec.tmp")).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Should never open or delete files that are not its own")
+    void testForeignFilesUntouched() throws IOException {
+        // A FAISS user directory (data/indexes/{user_id}/{folder_id}.faiss) in the same root
+        Path userDir = Files.createDirectories(indexDir.resolve("7"));
+        Files.write(userDir.resolve("3.faiss"), new byte[]{1});
+        store.add(1L, new long[]{10L}, new float[][]{{1f, 0f, 0f}});
+        Path foreign = indexDir.resolve("1").resolve("1.faiss");
+        Files.write(foreign, new byte[]{1});
+        store.close();
+
+        VectorStore reopened = newStore();
+        assertThat(userDir.resolve("3.faiss")).exists();
+        assertThat(userDir.resolve("MANIFEST")).doesNotExist();
+        assertThat(foreign).exists();
+
+        reopened.deleteFolder(1L);
+        assertThat(foreign).exists();
+        assertThat(indexDir.resolve("1").resolve("MANIFEST")).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Should return the same top hits with int8 candidates as with the exact float scan")
+    void testQuantizedMatchesExact() {
+        VectorStore exact = new VectorStore(3, indexDir.resolve("exact").toString(), 64, 2, false, 4, 0, 16, 100, 64, 0.2,
+                Runnable::run);
+        Random random = new Random(11);
+        int n = 2000;
+        long[] ids = new long[n];
+        float[][] quantizedVectors = new float[n][];
+        float[][] exactVectors = new float[n][];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i;
+            quantizedVectors[i] = new float[]{random.nextFloat() - 0.5f, random.nextFloat() - 0.5f, random.nextFloat() - 0.5f};
+            exactVectors[i] = quantizedVectors[i].clone();
+        }
+        store.add(1L, ids, quantizedVectors);
+        exact.add(1L, ids, exactVectors);
+
+        TopKCollector exactCollector = new TopKCollector(10);
+        for (int q = 0; q < 20; q++) {
+            float[] query = {random.nextFloat() - 0.5f, random.nextFloat() - 0.5f, random.nextFloat() - 0.5f};
+            store.search(query.clone(), List.of(1L), 10, collector);
+            exact.search(query.clone(), List.of(1L), 10, exactCollector);
+
+            for (int i = 0; i < 10; i++) {
+                assertThat(collector.score(i)).isCloseTo(exactCollector.score(i), within(1e-6f));
+            }
+        }
+        try (var files = Files.list(indexDir.resolve("1"))) {
+            assertThat(files.filter(f -> f.toString().endsWith(".q8")).count()).isEqualTo(store.segmentCount(1L));
+        }
+    }
+
+    @Test
+    @DisplayName("Should rebuild missing int8 codes on reopen")
+    void testRebuildMissingCodes() throws IOException {
+        long[] ids = new long[64];
+        float[][] vectors = new float[64][];
+        for (int i = 0; i < 64; i++) {
+            ids[i] = i;
+            vectors[i] = new float[]{1f, i / 64f, 0f};
+        }
+        store.add(1L, ids, vectors);
+        store.close();
+        Path codes = indexDir.resolve("1").resolve("seg-000001.q8");
+        assertThat(codes).exists();
+        Files.delete(codes);
+
+        VectorStore reopened = newStore();
+        reopened.search(new float[]{1f, 1f, 0f}, List.of(1L), 1, collector);
+
+        assertThat(codes).exists();
+        assertThat(collector.id(0)).isEqualTo(63L);
+    }
+
+    @Test
+    @DisplayName("Should search large merged segments through an HNSW graph")
+    void testHnswAboveThreshold() {
+        VectorStore hnsw = new VectorStore(3, indexDir.resolve("hnsw").toString(), 64, 2, true, 4, 200, 8, 50, 32, 0.2,
+                Runnable::run);
+        int n = 640;
+        long[] ids = new long[n];
+        float[][] vectors = new float[n][];
+        for (int i = 0; i < n; i++) {
+            double angle = 2 * Math.PI * i / n;
+            ids[i] = i;
+            vectors[i] = new float[]{(float) Math.cos(angle), (float) Math.sin(angle), 0.1f};
+        }
+        hnsw.add(1L, ids, vectors);
+
+        double angle = 2 * Math.PI * 123 / n;
+        hnsw.search(new float[]{(float) Math.cos(angle), (float) Math.sin(angle), 0.1f}, List.of(1L), 3, collector);
+
+        assertThat(hnsw.graphSegmentCount(1L)).isGreaterThan(0);
+        assertThat(collector.id(0)).isEqualTo(123L);
+        assertThat(List.of(collector.id(1), collector.id(2))).containsExactlyInAnyOrder(122L, 124L);
+    }
+
+    @Test
+    @DisplayName("Should never return deleted images from segments or the tail")
+    void testDeletedImagesAreMasked() {
+        long[] ids = LongStream.range(0, 100).toArray();
+        float[][] vectors = new float[100][];
+        for (int i = 0; i < 100; i++) {
+            vectors[i] = new float[]{1f, i / 100f, 0f};
+        }
+        store.add(1L, ids, vectors); // 64 sealed, 36 in the tail
+
+        int masked = store.delete(1L, List.of(63L, 99L, 12345L));
+        store.search(new float[]{1f, 1f, 0f}, List.of(1L), 2, collector);
+
+        assertThat(masked).isEqualTo(2);
+        assertThat(store.size(1L)).isEqualTo(98);
+        assertThat(collector.id(0)).isEqualTo(98L);
+        assertThat(collector.id(1)).isEqualTo(97L);
+    }
+
+    @Test
+    @DisplayName("Should keep deletes after a restart and drop tail deletes when sealing")
+    void testDeletesSurviveReopen() {
+        long[] ids = LongStream.range(0, 100).toArray();
+        float[][] vectors = new float[100][];
+        for (int i = 0; i < 100; i++) {
+            vectors[i] = new float[]{1f, i / 100f, 0f};
+        }
+        store.add(1L, ids, vectors);
+        store.delete(1L, List.of(10L, 99L)); // one in the segment, one in the tail
+        store.close();
+
+        VectorStore reopened = newStore();
+        reopened.search(new float[]{1f, 1f, 0f}, List.of(1L), 1, collector);
+        assertThat(reopened.size(1L)).isEqualTo(98);
+        assertThat(collector.id(0)).isEqualTo(98L);
+
+        // Fill the tail to the seal threshold - the deleted tail row is left out of the segment
+        long[] more = LongStream.range(100, 128).toArray();
+        float[][] moreVectors = new float[28][];
+        for (int i = 0; i < 28; i++) {
+            moreVectors[i] = new float[]{0f, 0f, 1f};
+        }
+        reopened.add(1L, more, moreVectors);
+
+        assertThat(reopened.segmentCount(1L)).isEqualTo(2);
+        assertThat(reopened.size(1L)).isEqualTo(126);
+        reopened.search(new float[]{1f, 1f, 0f}, List.of(1L), 1, collector);
+        assertThat(collector.id(0)).isEqualTo(98L);
+    }
+
+    @Test
+    @DisplayName("Should compact a segment once its deleted ratio passes the threshold")
+    void testCompactionPastDeletedRatio() throws IOException {
+        long[] ids = LongStream.range(0, 64).toArray();
+        float[][] vectors = new float[64][];
+        for (int i = 0; i < 64; i++) {
+            vectors[i] = new float[]{1f, i / 64f, 0f};
+        }
+        store.add(1L, ids, vectors);
+        Path folderDir = indexDir.resolve("1");
+
+        store.delete(1L, List.of(0L, 1L, 2L)); // 3/64 - below 0.2, only tombstoned
+        assertThat(folderDir.resolve("seg-000001.del")).exists();
+
+        store.delete(1L, LongStream.range(3, 20).boxed().toList()); // 20/64 - compacted inline
+        assertThat(folderDir.resolve("seg-000001.vec")).doesNotExist();
+        assertThat(folderDir.resolve("seg-000001.del")).doesNotExist();
+        try (var files = Files.list(folderDir)) {
+            assertThat(files.filter(f -> f.toString().endsWith(".del")).count()).isZero();
+        }
+        assertThat(store.size(1L)).isEqualTo(44);
+        assertThat(store.segmentCount(1L)).isEqualTo(1);
+
+        store.search(new float[]{1f, -1f, 0f}, List.of(1L), 1, collector);
+        assertThat(collector.id(0)).isEqualTo(20L);
+    }
+}
@@ -13,7 +13,7 @@ Architecture:
 Java Backend → HTTP → This Service (FAISS + CLIP)
 """
 
-from fastapi import FastAPI, HTTPException, Request
+from fastapi import Depends, FastAPI, Header, HTTPException, Request
 from fastapi.exceptions import RequestValidationError
 from fastapi.responses import JSONResponse
 from fastapi.middleware.cors import CORSMiddleware
@@ -21,9 +21,11 @@ from pydantic import BaseModel
 from typing import List, Dict, Optional
 import uvicorn
 import logging
+import time
 
 from search_handler import SearchHandler
 from embedding_service import EmbeddingService
+from wire_format import body_of, negotiate
 
 # Configure logging
 logging.basicConfig(
@@ -86,6 +88,21 @@ class SearchResult(BaseModel):
 class SearchResponse(BaseModel):
     """Response model for image search."""
     results: List[SearchResult]
+    partial: bool = False  # True if the deadline cut the search short - callers must not cache it
+
+class BatchSearchRequest(BaseModel):
+    """Request model for searching many queries over the same folders."""
+    user_id: int
+    queries: List[str]
+    folder_ids: List[int]
+    folder_owner_map: Dict[str, int]  # folder_id (as string in JSON) -> owner_user_id
+    top_k: int = 5
+
+    model_config = {"populate_by_name": True}
+
+class BatchSearchResponse(BaseModel):
+    """Response model for batch search - one SearchResponse per query, same order."""
+    results: List[SearchResponse]
 
 class ImageInfo(BaseModel):
     """Image information for embedding."""
@@ -102,6 +119,20 @@ class EmbedImagesRequest(BaseModel):
 
     model_config = {"populate_by_name": True}
 
+class EncodeTextRequest(BaseModel):
+    """Request model for encoding text queries (embedded Java search backend)."""
+    texts: List[str]
+
+class EncodeImagesRequest(BaseModel):
+    """Request model for encoding image files without indexing them."""
+    images: List[ImageInfo]
+
+    model_config = {"populate_by_name": True}
+
+class EncodeResponse(BaseModel):
+    """One raw CLIP embedding per input, in request order."""
+    embeddings: List[List[float]]
+
 class CreateIndexRequest(BaseModel):
     """Request model for creating FAISS index."""
     user_id: int
@@ -109,6 +140,14 @@ class CreateIndexRequest(BaseModel):
 
     model_config = {"populate_by_name": True}
 
+class DeleteImagesRequest(BaseModel):
+    """Request model for removing image IDs from a folder's FAISS index."""
+    user_id: int
+    folder_id: int
+    image_ids: List[int]
+
+    model_config = {"populate_by_name": True}
+
 # ============== API Endpoints ==============
 
 @app.get("/")
@@ -129,7 +168,11 @@ def health():
     }
 
 @app.post("/api/search", response_model=SearchResponse)
-def search_images(request: SearchRequest):
+def search_images(
+    http_request: Request,
+    request: SearchRequest = Depends(body_of(SearchRequest)),
+    x_search_deadline_ms: Optional[int] = Header(default=None)
+):
     """
     Perform semantic image search using FAISS.
 
@@ -137,9 +180,12 @@ def search_images(request: SearchRequest):
 
     Args:
         request: Search parameters (query, folders, etc.)
+        x_search_deadline_ms: Remaining time budget of the caller (X-Search-Deadline-Ms).
+            Folders not reached in time are skipped and the partial top-k is returned,
+            with partial=true.
 
     Returns:
-        List of image IDs with similarity scores
+        List of image IDs with similarity scores (CBOR if the caller accepts it)
     """
     logger.info(f"Search request: query='{request.query}', folders={request.folder_ids}")
 
@@ -148,12 +194,17 @@ def search_images(request: SearchRequest):
         # (JSON dict keys are always strings, but we need ints)
         folder_owner_map = {int(k): v for k, v in request.folder_owner_map.items()}
 
+        deadline = None
+        if x_search_deadline_ms is not None:
+            deadline = time.monotonic() + x_search_deadline_ms / 1000.0
+
         # Calls search_handler which embeds the text internally
-        distances, indices, folder_ids_list = search_handler.search_with_ownership(
+        distances, indices, folder_ids_list, partial = search_handler.search_with_ownership(
             query=request.query,  # ← Text query passed here
             folder_ids=request.folder_ids,
             folder_owner_map=folder_owner_map,
-            k=request.top_k
+            k=request.top_k,
+            deadline=deadline
         )
 
         # Build response
@@ -167,14 +218,71 @@ def search_images(request: SearchRequest):
                 ))
 
         logger.info(f"Search completed: {len(results)} results found")
-        return SearchResponse(results=results)
+        return negotiate(http_request, SearchResponse(results=results, partial=partial))
 
     except Exception as e:
         logger.error(f"Search failed: {e}", exc_info=True)
         raise HTTPException(status_code=500, detail=f"Search failed: {str(e)}")
 
+@app.post("/api/search/batch", response_model=BatchSearchResponse)
+def search_images_batch(
+    http_request: Request,
+    request: BatchSearchRequest = Depends(body_of(BatchSearchRequest)),
+    x_search_deadline_ms: Optional[int] = Header(default=None)
+):
+    """
+    Perform semantic search for many queries in one round trip.
+
+    All queries share the same folder scope, so the text encoder runs once
+    for the whole batch and each FAISS index is searched once with the
+    full query matrix.
+
+    Args:
+        request: Queries plus shared folder scope
+        x_search_deadline_ms: Remaining time budget of the caller (X-Search-Deadline-Ms).
+            As for /api/search: folders not reached in time are skipped, and every
+            query's response then has partial=true.
+
+    Returns:
+        One result list per query, in request order (CBOR if the caller accepts it)
+    """
+    logger.info(f"Batch search request: {len(request.queries)} queries, folders={request.folder_ids}")
+
+    if not request.queries:
+        return BatchSearchResponse(results=[])
+
+    try:
+        folder_owner_map = {int(k): v for k, v in request.folder_owner_map.items()}
+
+        deadline = None
+        if x_search_deadline_ms is not None:
+            deadline = time.monotonic() + x_search_deadline_ms / 1000.0
+
+        per_query, partial = search_handler.search_batch_with_ownership(
+            queries=request.queries,
+            folder_ids=request.folder_ids,
+            folder_owner_map=folder_owner_map,
+            k=request.top_k,
+            deadline=deadline
+        )
+
+        responses = [
+            SearchResponse(results=[
+                SearchResult(image_id=int(image_id), score=float(score), folder_id=int(folder_id))
+                for score, image_id, folder_id in top_results
+            ], partial=partial)
+            for top_results in per_query
+        ]
+
+        logger.info(f"Batch search completed: {len(responses)} queries")
+        return negotiate(http_request, BatchSearchResponse(results=responses))
+
+    except Exception as e:
+        logger.error(f"Batch search failed: {e}", exc_info=True)
+        raise HTTPException(status_code=500, detail=f"Batch search failed: {str(e)}")
+
 @app.post("/api/embed-images")
-def embed_images(request: EmbedImagesRequest):
+def embed_images(request: EmbedImagesRequest = Depends(body_of(EmbedImagesRequest))):
     """
     Generate embeddings for uploaded images and add to FAISS index.
     """
@@ -212,6 +320,47 @@ def embed_images(request: EmbedImagesRequest):
         logger.error(f"Embedding failed: {e}", exc_info=True)
         raise HTTPException(status_code=500, detail=f"Embedding failed: {str(e)}")
 
+@app.post("/api/encode-text", response_model=EncodeResponse)
+def encode_text(request: EncodeTextRequest):
+    """
+    Encode text queries with CLIP and return the raw embeddings.
+
+    Used when the Java backend stores and searches vectors itself
+    (search.backend.type=embedded) - no FAISS index is touched.
+    """
+    if not request.texts:
+        return EncodeResponse(embeddings=[])
+
+    try:
+        embeddings = embedding_service.embed_texts_batch(request.texts)
+        return EncodeResponse(embeddings=embeddings.astype("float32").tolist())
+
+    except Exception as e:
+        logger.error(f"Text encoding failed: {e}", exc_info=True)
+        raise HTTPException(status_code=500, detail=f"Text encoding failed: {str(e)}")
+
+@app.post("/api/encode-images", response_model=EncodeResponse)
+def encode_images(request: EncodeImagesRequest):
+    """
+    Encode image files with CLIP and return the raw embeddings.
+
+    Same batched loading/encoding as /api/embed-images, but the vectors are
+    returned to the caller instead of being added to a FAISS index.
+    """
+    logger.info(f"Encode images request: count={len(request.images)}")
+
+    if not request.images:
+        return EncodeResponse(embeddings=[])
+
+    try:
+        file_paths = [img.file_path for img in request.images]
+        embeddings = embedding_service.embed_image_files_batch(file_paths, batch_size=32)
+        return EncodeResponse(embeddings=embeddings.astype("float32").tolist())
+
+    except Exception as e:
+        logger.error(f"Image encoding failed: {e}", exc_info=True)
+        raise HTTPException(status_code=500, detail=f"Image encoding failed: {str(e)}")
+
 @app.post("/api/create-index")
 def create_index(request: CreateIndexRequest):
     """
@@ -263,6 +412,32 @@ def delete_index(user_id: int, folder_id: int):
         # Don't throw error - best effort cleanup
         return {"message": f"Index deletion failed: {str(e)}"}
 
+@app.post("/api/delete-images")
+def delete_images(request: DeleteImagesRequest):
+    """
+    Delete image IDs from a folder's FAISS index.
+
+    Called by Java backend (in the background) with IDs a search returned
+    but the database no longer has, so they stop taking top-k slots. The IDs
+    are tombstoned (skipped by searches at once) and removed from the index
+    file in batches - see SearchHandler.delete_images.
+
+    Args:
+        request: Owner user ID, folder ID and the image IDs to delete
+
+    Returns:
+        Number of IDs newly deleted
+    """
+    logger.info(f"Delete images: userId={request.user_id}, folderId={request.folder_id}, ids={request.image_ids}")
+
+    try:
+        removed = search_handler.delete_images(request.user_id, request.folder_id, request.image_ids)
+        return {"message": f"Deleted {removed} images", "removed": removed}
+
+    except Exception as e:
+        logger.error(f"Image deletion failed: {e}", exc_info=True)
+        raise HTTPException(status_code=500, detail=f"Image deletion failed: {str(e)}")
+
 if __name__ == "__main__":
     logger.info("Starting Image Search Microservice on port 5000")
     uvicorn.run(app, host="0.0.0.0", port=5000)
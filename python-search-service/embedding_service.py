@@ -172,3 +172,23 @@ class EmbeddingService:
             #                   CLIP Language Transformer encodes text
         
         return text_features.cpu().numpy()
+
+    def embed_texts_batch(self, texts: List[str]):
+        """
+        Generate embeddings for multiple text queries in one forward pass.
+
+        Used by batch search - encoding N queries together is much cheaper
+        than N separate embed_text() calls.
+
+        Args:
+            texts: List of text strings to embed
+
+        Returns:
+            numpy array containing the text embeddings (shape: len(texts), 512)
+        """
+        text_tokens = clip.tokenize(texts).to(self.device)
+
+        with torch.no_grad():
+            text_features = self.model.encode_text(text_tokens)
+
+        return text_features.cpu().numpy()
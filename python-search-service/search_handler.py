@@ -9,6 +9,8 @@ import numpy as np
 import os
 import heapq
 import logging
+import threading
+import time
 
 from embedding_service import EmbeddingService
 
@@ -31,7 +33,8 @@ FAISS_FOLDER = get_faiss_base_folder()
 class SearchHandler:
     """Manages FAISS indexes for image search."""
 
-    def __init__(self, embedding_service: EmbeddingService = None, base_folder: str = FAISS_FOLDER, cache_size: int = 50):
+    def __init__(self, embedding_service: EmbeddingService = None, base_folder: str = FAISS_FOLDER, cache_size: int = 50,
+                 compact_threshold: int = 256):
         self.base_folder = base_folder
         os.makedirs(self.base_folder, exist_ok=True)
         self.embedding_service = embedding_service if embedding_service is not None else EmbeddingService()
@@ -42,12 +45,34 @@ class SearchHandler:
         self._cache_access_order = []  # Track access order for LRU eviction
         self._cache_size = cache_size
 
-        logger.info(f"SearchHandler initialized with base folder: {base_folder}, cache_size: {cache_size}")
+        # Deleted image IDs not yet removed from the index file: {(user_id, folder_id): frozenset}
+        # Searches skip them; once a folder has compact_threshold of them, they are removed
+        # from the index in one rewrite. In memory only - after a restart, the Java backend
+        # reports the IDs again when searches return them.
+        self._tombstones = {}
+        self._compact_threshold = compact_threshold
+
+        # One lock per index file, so a delete/compaction and an embed never
+        # read-modify-write the same index concurrently
+        self._folder_locks = {}
+        self._folder_locks_guard = threading.Lock()
+
+        logger.info(f"SearchHandler initialized with base folder: {base_folder}, cache_size: {cache_size}, "
+                    f"compact_threshold: {compact_threshold}")
 
     def _get_folder_path(self, user_id: int, folder_id: int) -> str:
         """Get path to FAISS index file for a folder."""
         return os.path.join(self.base_folder, str(user_id), f"{folder_id}.faiss")
 
+    def _folder_lock(self, user_id: int, folder_id: int) -> threading.RLock:
+        """Lock guarding writes to a folder's index file and tombstones (re-entrant)."""
+        with self._folder_locks_guard:
+            return self._folder_locks.setdefault((user_id, folder_id), threading.RLock())
+
+    def _tombstones_for(self, user_id: int, folder_id: int) -> frozenset:
+        """Deleted image IDs still in a folder's index (searches must skip them)."""
+        return self._tombstones.get((user_id, folder_id), frozenset())
+
     def _normalize(self, vectors: np.ndarray) -> np.ndarray:
         """Normalize vectors for cosine similarity."""
         norms = np.linalg.norm(vectors, axis=1, keepdims=True)
@@ -121,7 +146,9 @@ class SearchHandler:
         # IndexFlatIP = Inner Product index (for cosine similarity with normalized vectors)
         # IndexIDMap allows us to use custom image IDs instead of sequential indices
         index = faiss.IndexIDMap(faiss.IndexFlatIP(dimension))
-        faiss.write_index(index, folder_path)
+        with self._folder_lock(user_id, folder_id):
+            faiss.write_index(index, folder_path)
+            self._tombstones.pop((user_id, folder_id), None)
         logger.info(f"Created FAISS index: {folder_path}")
 
     def add_vector_to_faiss(self, user_id: int, folder_id: int, vector: np.ndarray, vector_id: int):
@@ -136,28 +163,8 @@ class SearchHandler:
             vector: Image embedding vector
             vector_id: Image ID (from database)
         """
-        index_path = self._get_folder_path(user_id, folder_id)
-
-        # Auto-create index if it doesn't exist
-        if not os.path.exists(index_path):
-            logger.warning(f"Index for folder {folder_id} (user {user_id}) doesn't exist - auto-creating now")
-            self.create_faiss_index(user_id, folder_id)
-
-        # Load existing index
-        index = faiss.read_index(index_path)
-
-        # Normalize and add vector
-        vector = np.array(vector, dtype='float32').reshape(1, -1)
-        vector = self._normalize(vector)
-        index.add_with_ids(vector, np.array([vector_id], dtype='int64'))
-
-        # Save updated index
-        faiss.write_index(index, index_path)
-
-        # Invalidate cache since index was modified
-        self._invalidate_cache(user_id, folder_id)
-
-        logger.debug(f"Added vector {vector_id} to index {index_path}")
+        # Same locked read-modify-write as a batch of one
+        self.add_vectors_batch(user_id, folder_id, [vector], [vector_id])
 
     def add_vectors_batch(self, user_id: int, folder_id: int, vectors: list, vector_ids: list):
         """
@@ -181,28 +188,34 @@ class SearchHandler:
 
         index_path = self._get_folder_path(user_id, folder_id)
 
-        # Auto-create index if it doesn't exist
-        # This handles the case where folder was created while search service was down
-        if not os.path.exists(index_path):
-            logger.warning(f"Index for folder {folder_id} (user {user_id}) doesn't exist - auto-creating now")
-            self.create_faiss_index(user_id, folder_id)
-
-        # Load existing index
-        index = faiss.read_index(index_path)
-
         # Stack all vectors into a single numpy array and normalize
         vectors_array = np.vstack([np.array(v, dtype='float32').reshape(1, -1) for v in vectors])
         vectors_array = self._normalize(vectors_array)
         ids_array = np.array(vector_ids, dtype='int64')
 
-        # Add all vectors at once
-        index.add_with_ids(vectors_array, ids_array)
+        with self._folder_lock(user_id, folder_id):
+            # Auto-create index if it doesn't exist
+            # This handles the case where folder was created while search service was down
+            if not os.path.exists(index_path):
+                logger.warning(f"Index for folder {folder_id} (user {user_id}) doesn't exist - auto-creating now")
+                self.create_faiss_index(user_id, folder_id)
+
+            # Load existing index
+            index = faiss.read_index(index_path)
+
+            # Add all vectors at once
+            index.add_with_ids(vectors_array, ids_array)
 
-        # Save updated index (single write operation)
-        faiss.write_index(index, index_path)
+            # Save updated index (single write operation)
+            faiss.write_index(index, index_path)
 
-        # Invalidate cache since index was modified
-        self._invalidate_cache(user_id, folder_id)
+            # Invalidate cache since index was modified
+            self._invalidate_cache(user_id, folder_id)
+
+            # A re-embedded image is live again
+            tombstones = self._tombstones_for(user_id, folder_id)
+            if tombstones:
+                self._tombstones[(user_id, folder_id)] = tombstones - set(vector_ids)
 
         logger.info(f"Batch added {len(vectors)} vectors to index {index_path}")
 
@@ -211,7 +224,8 @@ class SearchHandler:
         query: str,
         folder_ids: list[int],
         folder_owner_map: dict[int, int],
-        k: int = 5
+        k: int = 5,
+        deadline: float | None = None
     ):
         """
         Search across multiple folders where each folder may be owned by different users.
@@ -225,12 +239,15 @@ class SearchHandler:
             folder_ids: List of folder IDs to search
             folder_owner_map: Mapping of folder_id -> owner_user_id (for finding correct index path)
             k: Number of results to return
+            deadline: Optional time.monotonic() value; folders not reached by then are
+                skipped and the top-k of the folders searched so far is returned
 
         Returns:
-            Tuple of (distances, indices, folder_ids_list) where:
+            Tuple of (distances, indices, folder_ids_list, partial) where:
             - distances are similarity scores
             - indices are image IDs
             - folder_ids_list are the folder IDs for each result
+            - partial is True if the deadline cut the search short (folders skipped)
         """
         # Generate query embedding
         query_embedding = self.embedding_service.embed_text(query).astype('float32').reshape(1, -1)
@@ -239,11 +256,17 @@ class SearchHandler:
         # Use heap to efficiently keep top-k results across all folders
         # Each heap entry is: (distance, image_id, folder_id)
         heap = []
+        partial = False
 
         logger.info(f"Searching folders: {folder_ids}")
         logger.debug(f"Folder ownership map: {folder_owner_map}")
 
-        for folder_id in folder_ids:
+        for position, folder_id in enumerate(folder_ids):
+            if deadline is not None and time.monotonic() >= deadline:
+                logger.warning(f"Search deadline exceeded, skipping folders {folder_ids[position:]}")
+                partial = True
+                break
+
             owner_user_id = folder_owner_map.get(folder_id)
             if owner_user_id is None:
                 logger.warning(f"No owner found for folder {folder_id}, skipping")
@@ -261,7 +284,9 @@ class SearchHandler:
                 logger.warning(f"FAISS index not found for folder {folder_id}, skipping")
                 continue
 
-            local_k = min(k, index.ntotal)
+            # Over-fetch by the tombstone count so deleted IDs don't cost top-k slots
+            tombstones = self._tombstones_for(owner_user_id, folder_id)
+            local_k = min(k + len(tombstones), index.ntotal)
             if local_k == 0:
                 continue
 
@@ -269,6 +294,8 @@ class SearchHandler:
 
             # Add results to heap with folder_id
             for d, i in zip(distances[0], indices[0]):
+                if int(i) in tombstones:
+                    continue
                 if len(heap) < k:
                     heapq.heappush(heap, (d, int(i), folder_id))
                 else:
@@ -280,25 +307,153 @@ class SearchHandler:
         indices = [[res[1] for res in top_results]]
         folder_ids_list = [[res[2] for res in top_results]]
 
-        logger.info(f"Search completed: {len(top_results)} results")
-        return distances, indices, folder_ids_list
+        logger.info(f"Search completed: {len(top_results)} results" + (" (partial)" if partial else ""))
+        return distances, indices, folder_ids_list, partial
 
-    def delete_faiss_index(self, user_id: int, folder_id: int):
+    def search_batch_with_ownership(
+        self,
+        queries: list[str],
+        folder_ids: list[int],
+        folder_owner_map: dict[int, int],
+        k: int = 5,
+        deadline: float | None = None
+    ):
         """
-        Delete a FAISS index for a folder.
+        Search many text queries across the same folders in one pass.
+
+        All queries are embedded in a single CLIP forward pass, and each folder
+        index is loaded and searched once with the whole query matrix
+        (FAISS searches a batch of queries in one call).
 
         Args:
-            user_id: User ID
+            queries: Text search queries
+            folder_ids: List of folder IDs to search
+            folder_owner_map: Mapping of folder_id -> owner_user_id
+            k: Number of results to return per query
+            deadline: Optional time.monotonic() value; folders not reached by then are
+                skipped for every query (same as search_with_ownership)
+
+        Returns:
+            Tuple of (per_query, partial): per_query is a list (one entry per query,
+            same order) of top-k lists of (distance, image_id, folder_id) tuples,
+            highest score first; partial is True if the deadline cut the search short
+        """
+        query_embeddings = self.embedding_service.embed_texts_batch(queries).astype('float32')
+        query_embeddings = self._normalize(query_embeddings)
+
+        # One min-heap per query
+        heaps = [[] for _ in queries]
+        partial = False
+
+        logger.info(f"Batch searching {len(queries)} queries over folders: {folder_ids}")
+
+        for position, folder_id in enumerate(folder_ids):
+            if deadline is not None and time.monotonic() >= deadline:
+                logger.warning(f"Batch search deadline exceeded, skipping folders {folder_ids[position:]}")
+                partial = True
+                break
+
+            owner_user_id = folder_owner_map.get(folder_id)
+            if owner_user_id is None:
+                logger.warning(f"No owner found for folder {folder_id}, skipping")
+                continue
+
+            try:
+                index = self._load_index(owner_user_id, folder_id)
+            except FileNotFoundError:
+                logger.warning(f"FAISS index not found for folder {folder_id}, skipping")
+                continue
+
+            tombstones = self._tombstones_for(owner_user_id, folder_id)
+            local_k = min(k + len(tombstones), index.ntotal)
+            if local_k == 0:
+                continue
+
+            distances, indices = index.search(query_embeddings, local_k)
+
+            for q, heap in enumerate(heaps):
+                for d, i in zip(distances[q], indices[q]):
+                    if int(i) in tombstones:
+                        continue
+                    if len(heap) < k:
+                        heapq.heappush(heap, (d, int(i), folder_id))
+                    else:
+                        heapq.heappushpop(heap, (d, int(i), folder_id))
+
+        results = [heapq.nlargest(k, heap, key=lambda x: x[0]) for heap in heaps]
+        logger.info(f"Batch search completed: {len(queries)} queries" + (" (partial)" if partial else ""))
+        return results, partial
+
+    def delete_images(self, user_id: int, folder_id: int, image_ids: list[int]) -> int:
+        """
+        Delete image IDs from a folder's FAISS index.
+
+        The IDs are tombstoned (searches skip them right away) rather than removed
+        from the index file on every call. Once the folder has compact_threshold
+        tombstones, they are all removed in a single index rewrite. A missing index
+        has nothing to delete.
+
+        Args:
+            user_id: Owner user ID
             folder_id: Folder ID
+            image_ids: Image IDs (from database) to delete
+
+        Returns:
+            Number of IDs newly tombstoned
         """
-        # Invalidate cache first
-        self._invalidate_cache(user_id, folder_id)
+        index_path = self._get_folder_path(user_id, folder_id)
+        if not image_ids or not os.path.exists(index_path):
+            return 0
+
+        with self._folder_lock(user_id, folder_id):
+            tombstones = self._tombstones_for(user_id, folder_id)
+            new_ids = set(image_ids) - tombstones
+            if not new_ids:
+                return 0
+
+            tombstones = tombstones | new_ids
+            self._tombstones[(user_id, folder_id)] = tombstones
+            logger.info(f"Tombstoned {len(new_ids)} vectors in index {index_path} ({len(tombstones)} pending)")
+
+            if len(tombstones) >= self._compact_threshold:
+                self._compact(user_id, folder_id, tombstones)
 
+        return len(new_ids)
+
+    def _compact(self, user_id: int, folder_id: int, tombstones: frozenset):
+        """
+        Remove tombstoned IDs from a folder's index file. Caller holds the folder lock.
+        """
         index_path = self._get_folder_path(user_id, folder_id)
         if os.path.exists(index_path):
-            os.remove(index_path)
-            logger.info(f"Deleted FAISS index: {index_path}")
-            return True
-        else:
-            logger.warning(f"FAISS index not found: {index_path}")
-            raise FileNotFoundError(f"FAISS index for folder {folder_id} (user {user_id}) does not exist.")
+            index = faiss.read_index(index_path)
+            removed = index.remove_ids(np.array(sorted(tombstones), dtype='int64'))
+
+            # Save updated index and drop the stale cached copy
+            faiss.write_index(index, index_path)
+            self._invalidate_cache(user_id, folder_id)
+            logger.info(f"Compacted index {index_path}: removed {removed} vectors")
+
+        self._tombstones.pop((user_id, folder_id), None)
+
+    def delete_faiss_index(self, user_id: int, folder_id: int):
+        """
+        Delete a FAISS index for a folder.
+
+        Args:
+            user_id: User ID
+            folder_id: Folder ID
+        """
+        with self._folder_lock(user_id, folder_id):
+            # Invalidate cache first
+            self._invalidate_cache(user_id, folder_id)
+            self._tombstones.pop((user_id, folder_id), None)
+
+            index_path = self._get_folder_path(user_id, folder_id)
+            if os.path.exists(index_path):
+                os.remove(index_path)
+                logger.info(f"Deleted FAISS index: {index_path}")
+                return True
+            else:
+                logger.warning(f"FAISS index not found: {index_path}")
+                raise FileNotFoundError(f"FAISS index for folder {folder_id} (user {user_id}) does not exist.")
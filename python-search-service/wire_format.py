@@ -0,0 +1,77 @@
+"""
+CBOR wire format for calls from the Java backend.
+
+The backend can send request bodies and accept responses as CBOR (binary JSON,
+same snake_case documents) instead of JSON - see WireCodec on the Java side.
+JSON stays the default; CBOR is only used when the caller asks for it:
+- Endpoints the backend may send CBOR to take their body through body_of(), which
+  validates the decoded document straight into the pydantic model (JSON bodies go
+  through pydantic's own JSON parser)
+- Endpoints that return large payloads answer in CBOR when the Accept header
+  lists application/cbor (negotiate())
+"""
+
+from typing import Type, TypeVar
+
+import cbor2
+from fastapi import HTTPException, Request
+from fastapi.exceptions import RequestValidationError
+from fastapi.responses import Response
+from pydantic import BaseModel, ValidationError
+
+CBOR = "application/cbor"
+
+Model = TypeVar("Model", bound=BaseModel)
+
+
+class CBORResponse(Response):
+    """Response rendered as CBOR."""
+
+    media_type = CBOR
+
+    def render(self, content) -> bytes:
+        return cbor2.dumps(content)
+
+
+def wants_cbor(request: Request) -> bool:
+    """Whether the caller accepts CBOR responses."""
+    return CBOR in request.headers.get("accept", "")
+
+
+def negotiate(request: Request, payload: BaseModel):
+    """Return the payload as CBOR if the caller accepts it, else let FastAPI render JSON."""
+    if wants_cbor(request):
+        return CBORResponse(content=payload.model_dump())
+    return payload
+
+
+def body_of(model: Type[Model]):
+    """
+    FastAPI dependency reading the request body as `model`, from JSON or CBOR.
+
+    Use as `request: SearchRequest = Depends(body_of(SearchRequest))`. Invalid
+    bodies get the same 422 as FastAPI's own body validation; undecodable CBOR a 400.
+    """
+
+    async def read_body(request: Request) -> Model:
+        body = await request.body()
+        try:
+            if _is_cbor(request):
+                try:
+                    data = cbor2.loads(body)
+                except (cbor2.CBORDecodeError, ValueError) as e:
+                    raise HTTPException(status_code=400, detail=f"Invalid CBOR body: {e}")
+                return model.model_validate(data)
+            return model.model_validate_json(body)
+        except ValidationError as e:
+            # Same error shape as FastAPI's own body validation
+            raise RequestValidationError([
+                {**error, "loc": ("body", *error["loc"])}
+                for error in e.errors(include_url=False, include_input=False)
+            ])
+
+    return read_body
+
+
+def _is_cbor(request: Request) -> bool:
+    return request.headers.get("content-type", "").startswith(CBOR)